@@ -0,0 +1,222 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package com.khartec.waltz.common;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+import static com.khartec.waltz.common.Checks.checkNotNull;
+import static com.khartec.waltz.common.Checks.checkTrue;
+
+
+/**
+ * A simple, bounded, cache where entries expire a fixed time after they are loaded.
+ *
+ * When the cache exceeds its maximum size expired entries are purged, if that
+ * is insufficient the entries closest to expiry (i.e. the oldest) are evicted.
+ * Hit, miss and eviction counts are maintained so callers can expose them
+ * (e.g. via jmx).
+ *
+ * @param <K> key type
+ * @param <V> value type, null values are not cached
+ */
+public class ExpiringCache<K, V> {
+
+    private static class Entry<V> {
+        private final V value;
+        private final long expiresAt;
+
+        private Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+
+    private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final long ttlMillis;
+    private final int maxSize;
+    private final LongSupplier clock;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    // bumped on every invalidation so loads which started beforehand are not cached
+    private final AtomicLong generation = new AtomicLong();
+
+
+    public ExpiringCache(long ttl, TimeUnit ttlUnit, int maxSize) {
+        this(ttl, ttlUnit, maxSize, System::currentTimeMillis);
+    }
+
+
+    public ExpiringCache(long ttl, TimeUnit ttlUnit, int maxSize, LongSupplier clock) {
+        checkNotNull(ttlUnit, "ttlUnit cannot be null");
+        checkNotNull(clock, "clock cannot be null");
+        checkTrue(ttl >= 0, "ttl cannot be negative");
+        checkTrue(maxSize > 0, "maxSize must be positive");
+
+        this.ttlMillis = ttlUnit.toMillis(ttl);
+        this.maxSize = maxSize;
+        this.clock = clock;
+    }
+
+
+    /**
+     * Returns the cached value for the key, using the loader to (re)compute it if
+     * it is absent or has expired.  Concurrent misses for the same key may both
+     * invoke the loader, the last to complete wins.  This is intentional as
+     * loaders are typically database calls we do not wish to hold locks over.
+     * A value loaded concurrently with an invalidation is returned but not cached.
+     *
+     * @param key  cache key
+     * @param loader  function to compute the value on a miss
+     * @return  the cached (or freshly loaded) value
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        checkNotNull(key, "key cannot be null");
+        checkNotNull(loader, "loader cannot be null");
+
+        long now = clock.getAsLong();
+        Entry<V> entry = entries.get(key);
+
+        if (entry != null && entry.expiresAt > now) {
+            hits.increment();
+            return entry.value;
+        }
+
+        misses.increment();
+        long generationAtLoad = generation.get();
+        V value = loader.apply(key);
+        if (value != null && generationAtLoad == generation.get()) {
+            entries.put(key, new Entry<>(value, now + ttlMillis));
+            enforceMaxSize(now);
+        }
+        return value;
+    }
+
+
+    /**
+     * @param key  cache key
+     * @return  the cached value if present and unexpired, does not affect hit/miss counts
+     */
+    public Optional<V> peek(K key) {
+        Entry<V> entry = entries.get(key);
+        return entry != null && entry.expiresAt > clock.getAsLong()
+                ? Optional.of(entry.value)
+                : Optional.empty();
+    }
+
+
+    public void put(K key, V value) {
+        checkNotNull(key, "key cannot be null");
+        checkNotNull(value, "value cannot be null");
+        long now = clock.getAsLong();
+        entries.put(key, new Entry<>(value, now + ttlMillis));
+        enforceMaxSize(now);
+    }
+
+
+    public void invalidate(K key) {
+        generation.incrementAndGet();
+        entries.remove(key);
+    }
+
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        entries.clear();
+    }
+
+
+    public int size() {
+        return entries.size();
+    }
+
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+
+    /**
+     * @return ratio of hits to total lookups, or 0 if there have been no lookups
+     */
+    public double getHitRatio() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0
+                ? 0
+                : (double) hitCount / total;
+    }
+
+
+    // --- helpers ---
+
+    private void enforceMaxSize(long now) {
+        if (entries.size() <= maxSize) {
+            return;
+        }
+
+        entries.entrySet().removeIf(e -> {
+            boolean expired = e.getValue().expiresAt <= now;
+            if (expired) {
+                evictions.increment();
+            }
+            return expired;
+        });
+
+        int excess = entries.size() - maxSize;
+        if (excess > 0) {
+            // evict a little more than required so we are not doing this on every put
+            int toEvict = excess + (maxSize / 10);
+            entries.entrySet()
+                    .stream()
+                    .sorted(Comparator.comparingLong(e -> e.getValue().expiresAt))
+                    .limit(toEvict)
+                    .map(Map.Entry::getKey)
+                    .collect(Collectors.toList())
+                    .forEach(k -> {
+                        if (entries.remove(k) != null) {
+                            evictions.increment();
+                        }
+                    });
+        }
+    }
+
+}
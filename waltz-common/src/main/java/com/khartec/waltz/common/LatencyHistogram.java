@@ -0,0 +1,149 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package com.khartec.waltz.common;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.khartec.waltz.common.Checks.checkTrue;
+
+
+/**
+ * A fixed size, lock-free, histogram of (non-negative) latency values.
+ *
+ * Values are recorded into log-linear buckets, in the style of an HDR
+ * histogram: every power of two range is split into 16 equally sized
+ * sub-buckets, so reported percentiles are within ~6% of the true value.
+ * Values 0..15 are recorded exactly and values beyond the largest bucket
+ * are clamped into it.
+ *
+ * Units are chosen by the caller, typically microseconds.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    // largest bucketed value is just under 2^MAX_MAGNITUDE_BITS (~19 hours when recording micros)
+    private static final int MAX_MAGNITUDE_BITS = 36;
+    private static final int BUCKET_COUNT = (MAX_MAGNITUDE_BITS - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder total = new LongAdder();
+    private final LongAdder count = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+
+    public void record(long value) {
+        checkTrue(value >= 0, "value cannot be negative");
+        counts.incrementAndGet(bucketIndex(value));
+        count.increment();
+        total.add(value);
+        max.accumulateAndGet(value, Math::max);
+    }
+
+
+    public long getCount() {
+        return count.sum();
+    }
+
+
+    public long getTotal() {
+        return total.sum();
+    }
+
+
+    public long getMax() {
+        return max.get();
+    }
+
+
+    /**
+     * Returns the (approximate) value at the given percentile.  The result is
+     * the largest value which would be recorded in the same bucket as the
+     * exact answer (but never more than the largest recorded value).
+     *
+     * @param percentile  percentile in the range 0..100
+     * @return  value at percentile, or 0 if nothing has been recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        checkTrue(percentile >= 0 && percentile <= 100, "percentile must be between 0 and 100");
+
+        long[] snapshot = new long[BUCKET_COUNT];
+        long recorded = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snapshot[i] = counts.get(i);
+            recorded += snapshot[i];
+        }
+
+        if (recorded == 0) {
+            return 0;
+        }
+
+        long target = Math.max(1, (long) Math.ceil(percentile / 100 * recorded));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += snapshot[i];
+            if (seen >= target) {
+                return Math.min(highestEquivalentValue(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0);
+        }
+        count.reset();
+        total.reset();
+        max.set(0);
+    }
+
+
+    // --- helpers ---
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent >= MAX_MAGNITUDE_BITS) {
+            return BUCKET_COUNT - 1;
+        }
+
+        int magnitude = exponent - SUB_BUCKET_BITS + 1;
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) - SUB_BUCKET_COUNT;
+        return magnitude * SUB_BUCKET_COUNT + subBucket;
+    }
+
+
+    static long highestEquivalentValue(int index) {
+        int magnitude = index / SUB_BUCKET_COUNT;
+        int subBucket = index % SUB_BUCKET_COUNT;
+
+        return magnitude == 0
+                ? subBucket
+                : ((long) (SUB_BUCKET_COUNT + subBucket + 1) << (magnitude - 1)) - 1;
+    }
+
+}
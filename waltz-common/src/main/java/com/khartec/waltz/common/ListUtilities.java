@@ -23,6 +23,7 @@ import java.util.function.Function;
 import java.util.function.Predicate;
 
 import static com.khartec.waltz.common.Checks.checkNotNull;
+import static com.khartec.waltz.common.Checks.checkTrue;
 import static java.util.stream.Collectors.toList;
 
 
@@ -137,6 +138,27 @@ public class ListUtilities {
     }
 
 
+    /**
+     * Splits the given elements into consecutive chunks of (at most) <code>size</code> elements.
+     * Typically used to bound the size of <code>IN</code> clauses.
+     * @param ts  elements to split, throws if null
+     * @param size  maximum chunk size, must be positive
+     * @param <T>  type of elements
+     * @return  list of chunks, empty if <code>ts</code> is empty
+     */
+    public static <T> List<List<T>> partition(Collection<T> ts, int size) {
+        checkNotNull(ts, "collection must not be null");
+        checkTrue(size > 0, "size must be positive");
+
+        List<T> all = new ArrayList<>(ts);
+        List<List<T>> chunks = new ArrayList<>((all.size() + size - 1) / size);
+        for (int i = 0; i < all.size(); i += size) {
+            chunks.add(all.subList(i, Math.min(i + size, all.size())));
+        }
+        return chunks;
+    }
+
+
     @SafeVarargs
     public static <T> List<T> push(List<T> xs, T... elems) {
         return ListUtilities.concat(xs, Arrays.asList(elems));
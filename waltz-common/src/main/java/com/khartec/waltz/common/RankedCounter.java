@@ -0,0 +1,346 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package com.khartec.waltz.common;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static com.khartec.waltz.common.Checks.checkNotNull;
+import static com.khartec.waltz.common.Checks.checkTrue;
+
+
+/**
+ * Counts occurrences of keys and keeps the keys ranked by count (highest
+ * first, ties broken by key) so rank and top-n queries do not need to sort.
+ *
+ * The ranking is held in a treap where each node records the size of its
+ * subtree.  Adjusting a count, finding the rank of a key and locating the
+ * n'th ranked key are all (expected) O(log n).  Reading a window of k
+ * consecutive ranks is O(log n + k).
+ *
+ * @param <K> key type, must be comparable to break ties deterministically
+ */
+public class RankedCounter<K extends Comparable<K>> {
+
+    public static final class Entry<K> {
+
+        private final K key;
+        private final int count;
+        private final int rank;
+
+
+        private Entry(K key, int count, int rank) {
+            this.key = key;
+            this.count = count;
+            this.rank = rank;
+        }
+
+
+        public K key() {
+            return key;
+        }
+
+
+        public int count() {
+            return count;
+        }
+
+
+        /**
+         * @return  one-based rank, 1 being the highest count
+         */
+        public int rank() {
+            return rank;
+        }
+
+
+        @Override
+        public String toString() {
+            return rank + ":" + key + "=" + count;
+        }
+    }
+
+
+    private static final class Node<K> {
+
+        private final K key;
+        private final int count;
+        private final int priority = ThreadLocalRandom.current().nextInt();
+        private int size = 1;
+        private Node<K> left;
+        private Node<K> right;
+
+
+        private Node(K key, int count) {
+            this.key = key;
+            this.count = count;
+        }
+    }
+
+
+    private final Map<K, Node<K>> nodesByKey = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Node<K> root;
+
+
+    /**
+     * Adjusts the count of a key.  Keys whose count drops to zero (or
+     * below) are removed.
+     *
+     * @param key  key to adjust
+     * @param delta  amount to add (may be negative)
+     * @return  the new count
+     */
+    public int add(K key, int delta) {
+        checkNotNull(key, "key cannot be null");
+
+        lock.writeLock().lock();
+        try {
+            Node<K> existing = nodesByKey.remove(key);
+            int count = delta;
+            if (existing != null) {
+                root = remove(root, existing);
+                count += existing.count;
+            }
+            if (count > 0) {
+                Node<K> node = new Node<>(key, count);
+                nodesByKey.put(key, node);
+                root = insert(root, node);
+            }
+            return Math.max(count, 0);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+
+    public int getCount(K key) {
+        lock.readLock().lock();
+        try {
+            Node<K> node = nodesByKey.get(key);
+            return node == null ? 0 : node.count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+
+    /**
+     * @param key  key to find
+     * @return  the key's entry (with its one-based rank), empty if the key has not been counted
+     */
+    public Optional<Entry<K>> find(K key) {
+        lock.readLock().lock();
+        try {
+            Node<K> target = nodesByKey.get(key);
+            if (target == null) {
+                return Optional.empty();
+            }
+
+            int rank = 0;
+            Node<K> node = root;
+            while (node != null) {
+                int cmp = compare(target, node);
+                if (cmp < 0) {
+                    node = node.left;
+                } else {
+                    rank += size(node.left) + 1;
+                    if (cmp == 0) {
+                        break;
+                    }
+                    node = node.right;
+                }
+            }
+            return Optional.of(new Entry<>(target.key, target.count, rank));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+
+    /**
+     * @param fromRank  one-based rank of the first entry to return
+     * @param limit  maximum number of entries to return
+     * @return  entries ranked from <code>fromRank</code> onwards, in rank order
+     */
+    public List<Entry<K>> findRange(int fromRank, int limit) {
+        checkTrue(fromRank > 0, "fromRank must be positive");
+        checkTrue(limit >= 0, "limit cannot be negative");
+
+        lock.readLock().lock();
+        try {
+            List<Entry<K>> result = new ArrayList<>(Math.min(limit, nodesByKey.size()));
+            int toRank = (int) Math.min((long) fromRank - 1 + limit, Integer.MAX_VALUE);
+            collect(root, 0, fromRank - 1, toRank, result);
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+
+    public List<Entry<K>> findTop(int limit) {
+        return findRange(1, limit);
+    }
+
+
+    /**
+     * @return  number of distinct keys with a positive count
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return nodesByKey.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+
+    @Override
+    public String toString() {
+        return "RankedCounter{size=" + size() + "}";
+    }
+
+
+    // --- treap ---
+
+    /**
+     * Collects nodes with zero-based ranks in [from, to) from the subtree,
+     * <code>offset</code> being the rank of the subtree's first node.
+     */
+    private static <K> void collect(Node<K> node, int offset, int from, int to, List<Entry<K>> result) {
+        if (node == null || offset >= to || offset + node.size <= from) {
+            return;
+        }
+        collect(node.left, offset, from, to, result);
+        int rank = offset + size(node.left);
+        if (rank >= from && rank < to) {
+            result.add(new Entry<>(node.key, node.count, rank + 1));
+        }
+        collect(node.right, rank + 1, from, to, result);
+    }
+
+
+    private Node<K> insert(Node<K> node, Node<K> added) {
+        if (node == null) {
+            return added;
+        }
+        if (compare(added, node) < 0) {
+            node.left = insert(node.left, added);
+            if (node.left.priority > node.priority) {
+                node = rotateRight(node);
+            }
+        } else {
+            node.right = insert(node.right, added);
+            if (node.right.priority > node.priority) {
+                node = rotateLeft(node);
+            }
+        }
+        update(node);
+        return node;
+    }
+
+
+    private Node<K> remove(Node<K> node, Node<K> removed) {
+        if (node == null) {
+            return null;
+        }
+        if (node == removed) {
+            return merge(node.left, node.right);
+        }
+        if (compare(removed, node) < 0) {
+            node.left = remove(node.left, removed);
+        } else {
+            node.right = remove(node.right, removed);
+        }
+        update(node);
+        return node;
+    }
+
+
+    /**
+     * Joins two subtrees where every node of <code>a</code> ranks before every node of <code>b</code>.
+     */
+    private static <K> Node<K> merge(Node<K> a, Node<K> b) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+        if (a.priority > b.priority) {
+            a.right = merge(a.right, b);
+            update(a);
+            return a;
+        } else {
+            b.left = merge(a, b.left);
+            update(b);
+            return b;
+        }
+    }
+
+
+    private static <K> Node<K> rotateRight(Node<K> node) {
+        Node<K> pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+
+    private static <K> Node<K> rotateLeft(Node<K> node) {
+        Node<K> pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+
+    private static <K> void update(Node<K> node) {
+        node.size = 1 + size(node.left) + size(node.right);
+    }
+
+
+    private static <K> int size(Node<K> node) {
+        return node == null ? 0 : node.size;
+    }
+
+
+    /**
+     * Higher counts rank first, equal counts are ordered by key.
+     */
+    private int compare(Node<K> a, Node<K> b) {
+        int byCount = Integer.compare(b.count, a.count);
+        return byCount != 0
+                ? byCount
+                : a.key.compareTo(b.key);
+    }
+
+}
@@ -0,0 +1,162 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package com.khartec.waltz.common;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static com.khartec.waltz.common.Checks.checkNotNull;
+import static com.khartec.waltz.common.Checks.checkTrue;
+
+
+/**
+ * A bounded, lock-free, multi-producer multi-consumer queue backed by a
+ * ring of slots.
+ *
+ * Each slot carries a sequence number which tells producers and consumers
+ * whether the slot is free for the current lap of the ring, so claiming a
+ * slot is a single CAS on the enqueue (or dequeue) position.  Producers are
+ * never blocked: <code>offer</code> returns false when the ring is full and
+ * the caller decides whether to drop or retry.
+ *
+ * @param <T> element type, null elements are not permitted
+ */
+public class RingBuffer<T> {
+
+    private final AtomicReferenceArray<T> elements;
+    private final AtomicLongArray sequences;
+    private final int mask;
+
+    private final AtomicLong enqueuePosition = new AtomicLong();
+    private final AtomicLong dequeuePosition = new AtomicLong();
+
+
+    /**
+     * @param minCapacity  minimum number of elements, rounded up to a power of two
+     */
+    public RingBuffer(int minCapacity) {
+        checkTrue(minCapacity > 0, "minCapacity must be positive");
+        checkTrue(minCapacity <= 1 << 30, "minCapacity is too large");
+
+        int capacity = Integer.highestOneBit(minCapacity);
+        if (capacity < minCapacity) {
+            capacity <<= 1;
+        }
+
+        this.elements = new AtomicReferenceArray<>(capacity);
+        this.sequences = new AtomicLongArray(capacity);
+        this.mask = capacity - 1;
+
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+
+    /**
+     * @param element  element to add
+     * @return  true if added, false if the buffer is full
+     */
+    public boolean offer(T element) {
+        checkNotNull(element, "element cannot be null");
+
+        long position = enqueuePosition.get();
+        while (true) {
+            int slot = (int) position & mask;
+            long lag = sequences.get(slot) - position;
+
+            if (lag == 0) {
+                if (enqueuePosition.compareAndSet(position, position + 1)) {
+                    elements.set(slot, element);
+                    // publishes the element to consumers
+                    sequences.set(slot, position + 1);
+                    return true;
+                }
+                position = enqueuePosition.get();
+            } else if (lag < 0) {
+                // slot still holds an element from the previous lap
+                return false;
+            } else {
+                position = enqueuePosition.get();
+            }
+        }
+    }
+
+
+    /**
+     * @return  the oldest element, or null if the buffer is empty
+     */
+    public T poll() {
+        long position = dequeuePosition.get();
+        while (true) {
+            int slot = (int) position & mask;
+            long lag = sequences.get(slot) - (position + 1);
+
+            if (lag == 0) {
+                if (dequeuePosition.compareAndSet(position, position + 1)) {
+                    T element = elements.get(slot);
+                    elements.set(slot, null);
+                    // frees the slot for the next lap
+                    sequences.set(slot, position + mask + 1);
+                    return element;
+                }
+                position = dequeuePosition.get();
+            } else if (lag < 0) {
+                return null;
+            } else {
+                position = dequeuePosition.get();
+            }
+        }
+    }
+
+
+    /**
+     * Moves up to <code>maxElements</code> elements into the target, oldest first.
+     *
+     * @return  number of elements moved
+     */
+    public int drainTo(Collection<? super T> target, int maxElements) {
+        checkNotNull(target, "target cannot be null");
+
+        int drained = 0;
+        T element;
+        while (drained < maxElements && (element = poll()) != null) {
+            target.add(element);
+            drained++;
+        }
+        return drained;
+    }
+
+
+    /**
+     * @return  approximate number of elements in the buffer
+     */
+    public int size() {
+        long size = enqueuePosition.get() - dequeuePosition.get();
+        return (int) Math.max(0, Math.min(size, capacity()));
+    }
+
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+}
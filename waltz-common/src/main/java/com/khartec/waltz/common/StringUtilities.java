@@ -109,6 +109,41 @@ public class StringUtilities {
     }
 
 
+    /**
+     * Number of bytes the string occupies when encoded as UTF-8, calculated
+     * without encoding (and therefore copying) the string.  Unpaired
+     * surrogates are counted as the single replacement byte the encoder emits.
+     * @param str  string to measure, may be null
+     * @return  encoded length in bytes, 0 if the string is null
+     */
+    public static long utf8Length(String str) {
+        if (str == null) {
+            return 0;
+        }
+
+        long count = 0;
+        int len = str.length();
+        for (int i = 0; i < len; i++) {
+            char c = str.charAt(i);
+            if (c < 0x80) {
+                count++;
+            } else if (c < 0x800) {
+                count += 2;
+            } else if (Character.isHighSurrogate(c)
+                    && i + 1 < len
+                    && Character.isLowSurrogate(str.charAt(i + 1))) {
+                count += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                count++;
+            } else {
+                count += 3;
+            }
+        }
+        return count;
+    }
+
+
     public static String join(Collection<?> values, String separator) {
         return values.stream()
                 .filter(Objects::nonNull)
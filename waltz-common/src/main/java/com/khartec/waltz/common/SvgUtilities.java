@@ -24,8 +24,13 @@ import org.w3c.dom.NodeList;
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 
+import javax.xml.namespace.QName;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.*;
+import javax.xml.stream.events.Attribute;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
 import javax.xml.transform.TransformerException;
 import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
@@ -33,35 +38,62 @@ import javax.xml.xpath.XPathExpressionException;
 import javax.xml.xpath.XPathFactory;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.util.Optional;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.*;
 import java.util.function.Function;
 
+import static com.khartec.waltz.common.StringUtilities.isEmpty;
 import static com.khartec.waltz.common.XmlUtilities.*;
 
 public class SvgUtilities {
 
-    public static String convertVisioSvg(String key, String svgStr) throws ParserConfigurationException, SAXException, IOException, XPathExpressionException, TransformerException {
-        DocumentBuilder builder = createNonValidatingDocumentBuilderFactory().newDocumentBuilder();
-        InputSource svgSource = new InputSource(new ByteArrayInputStream(svgStr.getBytes()));
-        Document svg = builder.parse(svgSource);
-
-        XPath xpath = XPathFactory.newInstance().newXPath();
-        NodeList nodes = (NodeList) xpath.evaluate("//*", svg, XPathConstants.NODESET);
-
-        stream(nodes)
-                .forEach(n -> stream(n.getChildNodes())
-                        .filter(c -> c.getNodeName().contains("custProps"))
-                        .forEach(c -> stream(c.getChildNodes())
-                                .filter(cp -> cp.getNodeName().contains("cp"))
-                                .map(cp -> (Element) cp)
-                                .filter(cp -> key.equals(cp.getAttribute("v:lbl")))
-                                .map(cp -> cp.getAttribute("v:val"))
-                                .map(v -> v.replaceAll("^.*\\((.*)\\)$", "$1"))
-                                .forEach(v -> ((Element) n).setAttribute("data-"+key, v))
-                        )
-                );
-
-        return printDocument(svg, false); // do NOT toPrettyString print visio
+    private static final XMLInputFactory XML_INPUT_FACTORY = mkXmlInputFactory();
+    private static final XMLOutputFactory XML_OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+    private static final XMLEventFactory XML_EVENT_FACTORY = XMLEventFactory.newInstance();
+
+
+    /**
+     * Copies the value of the Visio custom property labelled <code>key</code>
+     * onto the shape which owns it as a <code>data-{key}</code> attribute.
+     *
+     * The svg is streamed (StAX) rather than loaded into a DOM.  As custom
+     * properties appear after the start tag of the shape they describe, a first
+     * pass records the values by element position and a second pass writes
+     * them out.
+     *
+     * @param key  label of the custom property (e.g. 'app')
+     * @param svgStr  visio generated svg
+     * @return  svg with data attributes added
+     * @throws XMLStreamException  if the svg cannot be parsed
+     */
+    public static String convertVisioSvg(String key, String svgStr) throws XMLStreamException {
+        Map<Integer, String> valuesByElementIdx = findVisioPropertyValues(key, svgStr);
+        String attrName = "data-" + key;
+
+        StringWriter out = new StringWriter(svgStr.length() + 64 * valuesByElementIdx.size());
+        XMLEventReader reader = XML_INPUT_FACTORY.createXMLEventReader(new StringReader(svgStr));
+        XMLEventWriter writer = XML_OUTPUT_FACTORY.createXMLEventWriter(out);
+
+        try {
+            int elementIdx = 0;
+            while (reader.hasNext()) {
+                XMLEvent event = reader.nextEvent();
+                if (event.isStartElement()) {
+                    String value = valuesByElementIdx.get(elementIdx++);
+                    if (value != null) {
+                        event = withAttribute(event.asStartElement(), attrName, value);
+                    }
+                }
+                writer.add(event);
+            }
+            writer.flush();
+        } finally {
+            reader.close();
+            writer.close();
+        }
+
+        return out.toString();
     }
 
 
@@ -97,4 +129,94 @@ public class SvgUtilities {
         return printDocument(svg, false);
     }
 
+
+
+    // --- helpers ---
+
+    private static Map<Integer, String> findVisioPropertyValues(String key, String svgStr) throws XMLStreamException {
+        Map<Integer, String> valuesByElementIdx = new HashMap<>();
+
+        // indexes and names of the elements enclosing the current position
+        List<Integer> idxPath = new ArrayList<>();
+        List<String> namePath = new ArrayList<>();
+
+        XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(new StringReader(svgStr));
+
+        try {
+            int elementIdx = 0;
+            while (reader.hasNext()) {
+                int eventType = reader.next();
+                if (eventType == XMLStreamConstants.START_ELEMENT) {
+                    String name = toQualifiedName(reader.getName());
+                    int depth = namePath.size();
+
+                    boolean isMatchingProperty = depth >= 2
+                            && name.contains("cp")
+                            && namePath.get(depth - 1).contains("custProps")
+                            && key.equals(getAttributeValue(reader, "v:lbl"));
+
+                    if (isMatchingProperty) {
+                        String value = getAttributeValue(reader, "v:val")
+                                .replaceAll("^.*\\((.*)\\)$", "$1");
+                        valuesByElementIdx.put(idxPath.get(depth - 2), value);
+                    }
+
+                    idxPath.add(elementIdx++);
+                    namePath.add(name);
+                } else if (eventType == XMLStreamConstants.END_ELEMENT) {
+                    idxPath.remove(idxPath.size() - 1);
+                    namePath.remove(namePath.size() - 1);
+                }
+            }
+        } finally {
+            reader.close();
+        }
+
+        return valuesByElementIdx;
+    }
+
+
+    private static String getAttributeValue(XMLStreamReader reader, String qualifiedName) {
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            if (qualifiedName.equals(toQualifiedName(reader.getAttributeName(i)))) {
+                return reader.getAttributeValue(i);
+            }
+        }
+        return "";
+    }
+
+
+    private static StartElement withAttribute(StartElement element, String name, String value) {
+        List<Attribute> attributes = new ArrayList<>();
+        Iterator<?> existingAttributes = element.getAttributes();
+        while (existingAttributes.hasNext()) {
+            Attribute attribute = (Attribute) existingAttributes.next();
+            if (! name.equals(toQualifiedName(attribute.getName()))) {
+                attributes.add(attribute);
+            }
+        }
+        attributes.add(XML_EVENT_FACTORY.createAttribute(name, value));
+
+        return XML_EVENT_FACTORY.createStartElement(
+                element.getName(),
+                attributes.iterator(),
+                element.getNamespaces());
+    }
+
+
+    private static String toQualifiedName(QName name) {
+        return isEmpty(name.getPrefix())
+                ? name.getLocalPart()
+                : name.getPrefix() + ":" + name.getLocalPart();
+    }
+
+
+    private static XMLInputFactory mkXmlInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        // mirror the non-validating DOM parser, never fetch external dtds or entities
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+
 }
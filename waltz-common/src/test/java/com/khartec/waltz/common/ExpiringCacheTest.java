@@ -0,0 +1,96 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package com.khartec.waltz.common;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class ExpiringCacheTest {
+
+    private final AtomicLong now = new AtomicLong(0);
+    private final AtomicInteger loads = new AtomicInteger(0);
+
+
+    private String load(String key) {
+        loads.incrementAndGet();
+        return key.toUpperCase();
+    }
+
+
+    @Test
+    public void valuesAreCachedUntilTheyExpire() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10, TimeUnit.MILLISECONDS, 100, now::get);
+
+        assertEquals("A", cache.get("a", this::load));
+        assertEquals("A", cache.get("a", this::load));
+        assertEquals(1, loads.get());
+
+        now.set(10);
+        assertEquals("A", cache.get("a", this::load));
+        assertEquals(2, loads.get());
+
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+    }
+
+
+    @Test
+    public void invalidatedEntriesAreReloaded() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(1, TimeUnit.MINUTES, 100, now::get);
+
+        cache.get("a", this::load);
+        cache.invalidate("a");
+        cache.get("a", this::load);
+
+        assertEquals(2, loads.get());
+    }
+
+
+    @Test
+    public void nullValuesAreNotCached() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(1, TimeUnit.MINUTES, 100, now::get);
+
+        assertNull(cache.get("a", k -> null));
+        assertEquals(0, cache.size());
+        assertFalse(cache.peek("a").isPresent());
+    }
+
+
+    @Test
+    public void oldestEntriesAreEvictedWhenFull() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(1, TimeUnit.MINUTES, 2, now::get);
+
+        cache.get("a", this::load);
+        now.incrementAndGet();
+        cache.get("b", this::load);
+        now.incrementAndGet();
+        cache.get("c", this::load);
+
+        assertEquals(2, cache.size());
+        assertFalse(cache.peek("a").isPresent());
+        assertTrue(cache.peek("c").isPresent());
+        assertEquals(1, cache.getEvictionCount());
+    }
+
+}
@@ -0,0 +1,103 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package com.khartec.waltz.common;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void emptyHistogramReportsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getValueAtPercentile(50));
+    }
+
+
+    @Test
+    public void smallValuesAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 10; i++) {
+            histogram.record(i);
+        }
+
+        assertEquals(10, histogram.getCount());
+        assertEquals(55, histogram.getTotal());
+        assertEquals(10, histogram.getMax());
+        assertEquals(5, histogram.getValueAtPercentile(50));
+        assertEquals(10, histogram.getValueAtPercentile(99));
+        assertEquals(1, histogram.getValueAtPercentile(0));
+    }
+
+
+    @Test
+    public void largeValuesAreWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long i = 1; i <= 100_000; i++) {
+            histogram.record(i);
+        }
+
+        assertWithin(50_000, histogram.getValueAtPercentile(50), 0.07);
+        assertWithin(99_000, histogram.getValueAtPercentile(99), 0.07);
+        assertEquals(100_000, histogram.getValueAtPercentile(100));
+    }
+
+
+    @Test
+    public void hugeValuesAreClampedButMaxIsExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(Long.MAX_VALUE / 2);
+        assertEquals(Long.MAX_VALUE / 2, histogram.getMax());
+        assertTrue(histogram.getValueAtPercentile(50) > 0);
+    }
+
+
+    @Test
+    public void bucketBoundariesAreConsistent() {
+        for (long v = 0; v < 1_000_000; v += 7) {
+            int idx = LatencyHistogram.bucketIndex(v);
+            assertTrue(v <= LatencyHistogram.highestEquivalentValue(idx));
+            assertTrue(idx == 0 || v > LatencyHistogram.highestEquivalentValue(idx - 1));
+        }
+    }
+
+
+    @Test
+    public void resetClearsEverything() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(100);
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getTotal());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getValueAtPercentile(99));
+    }
+
+
+    private static void assertWithin(long expected, long actual, double tolerance) {
+        assertTrue(
+                String.format("Expected %d to be within %.0f%% of %d", actual, tolerance * 100, expected),
+                Math.abs(actual - expected) <= expected * tolerance);
+    }
+
+}
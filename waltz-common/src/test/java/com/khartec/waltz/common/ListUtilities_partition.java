@@ -0,0 +1,43 @@
+package com.khartec.waltz.common;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ListUtilities_partition {
+
+    @Test
+    public void splitsIntoChunksOfAtMostTheGivenSize() {
+        List<List<String>> result = ListUtilities.partition(ListUtilities.newArrayList("a", "b", "c", "d", "e"), 2);
+        assertEquals(3, result.size());
+        assertEquals(ListUtilities.newArrayList("a", "b"), result.get(0));
+        assertEquals(ListUtilities.newArrayList("c", "d"), result.get(1));
+        assertEquals(ListUtilities.newArrayList("e"), result.get(2));
+    }
+
+    @Test
+    public void emptyCollectionGivesNoChunks() {
+        assertTrue(ListUtilities.partition(Collections.emptyList(), 10).isEmpty());
+    }
+
+    @Test
+    public void smallCollectionGivesSingleChunk() {
+        List<List<String>> result = ListUtilities.partition(ListUtilities.newArrayList("a", "b"), 10);
+        assertEquals(1, result.size());
+        assertEquals(2, result.get(0).size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nullCollectionThrows() {
+        ListUtilities.partition(null, 10);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nonPositiveSizeThrows() {
+        ListUtilities.partition(ListUtilities.newArrayList("a"), 0);
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package com.khartec.waltz.common;
+
+import org.junit.Test;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class RankedCounterTest {
+
+    @Test
+    public void keysAreRankedByCountThenKey() {
+        RankedCounter<String> counter = new RankedCounter<>();
+        counter.add("b", 2);
+        counter.add("a", 2);
+        counter.add("c", 5);
+        counter.add("d", 1);
+
+        assertEquals(
+                ListUtilities.newArrayList("c", "a", "b", "d"),
+                keys(counter.findTop(10)));
+        assertEquals(1, counter.find("c").get().rank());
+        assertEquals(3, counter.find("b").get().rank());
+        assertEquals(4, counter.find("d").get().rank());
+        assertFalse(counter.find("z").isPresent());
+    }
+
+
+    @Test
+    public void adjustingCountsMovesKeys() {
+        RankedCounter<String> counter = new RankedCounter<>();
+        counter.add("a", 1);
+        counter.add("b", 2);
+        assertEquals(2, counter.find("a").get().rank());
+
+        assertEquals(3, counter.add("a", 2));
+        assertEquals(1, counter.find("a").get().rank());
+        assertEquals(3, counter.getCount("a"));
+
+        counter.add("a", -3);
+        assertEquals(0, counter.getCount("a"));
+        assertEquals(1, counter.size());
+        assertEquals(1, counter.find("b").get().rank());
+    }
+
+
+    @Test
+    public void rangeReturnsConsecutiveRanks() {
+        RankedCounter<Integer> counter = new RankedCounter<>();
+        for (int i = 1; i <= 20; i++) {
+            counter.add(i, i);
+        }
+
+        List<RankedCounter.Entry<Integer>> range = counter.findRange(5, 3);
+        assertEquals(ListUtilities.newArrayList(16, 15, 14), keys(range));
+        assertEquals(5, range.get(0).rank());
+        assertEquals(16, range.get(0).count());
+
+        assertEquals(2, counter.findRange(19, 5).size());
+        assertTrue(counter.findRange(25, 5).isEmpty());
+    }
+
+
+    @Test
+    public void agreesWithSortingAfterRandomUpdates() {
+        RankedCounter<Integer> counter = new RankedCounter<>();
+        Map<Integer, Integer> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 5000; i++) {
+            int key = random.nextInt(200);
+            int delta = random.nextInt(5) - 1;
+            int count = counter.add(key, delta);
+            int expectedCount = Math.max(0, expected.getOrDefault(key, 0) + delta);
+            if (expectedCount == 0) {
+                expected.remove(key);
+            } else {
+                expected.put(key, expectedCount);
+            }
+            assertEquals(expectedCount, count);
+        }
+
+        List<Integer> sorted = expected
+                .entrySet()
+                .stream()
+                .sorted(Comparator
+                        .comparing(Map.Entry<Integer, Integer>::getValue, Comparator.reverseOrder())
+                        .thenComparing(Map.Entry::getKey))
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+
+        assertEquals(sorted, keys(counter.findTop(Integer.MAX_VALUE)));
+        for (int i = 0; i < sorted.size(); i++) {
+            assertEquals(i + 1, counter.find(sorted.get(i)).get().rank());
+        }
+    }
+
+
+    private static <K> List<K> keys(List<RankedCounter.Entry<K>> entries) {
+        return entries
+                .stream()
+                .map(RankedCounter.Entry::key)
+                .collect(Collectors.toList());
+    }
+
+}
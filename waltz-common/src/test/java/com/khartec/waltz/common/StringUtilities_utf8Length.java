@@ -0,0 +1,32 @@
+package com.khartec.waltz.common;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+
+public class StringUtilities_utf8Length {
+
+    @Test
+    public void nullStrHasNoLength(){
+        assertEquals(0, StringUtilities.utf8Length(null));
+    }
+
+    @Test
+    public void asciiIsOneBytePerChar(){
+        assertEquals(5, StringUtilities.utf8Length("hello"));
+    }
+
+    @Test
+    public void multiByteCharsMatchEncoder(){
+        String str = "caf\u00e9 \u20ac \ud83d\ude00";
+        assertEquals(str.getBytes(StandardCharsets.UTF_8).length, StringUtilities.utf8Length(str));
+    }
+
+    @Test
+    public void unpairedSurrogatesMatchEncoder(){
+        String str = "a\ud83db\ude00";
+        assertEquals(str.getBytes(StandardCharsets.UTF_8).length, StringUtilities.utf8Length(str));
+    }
+}
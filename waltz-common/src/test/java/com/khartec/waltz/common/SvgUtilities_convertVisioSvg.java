@@ -0,0 +1,62 @@
+package com.khartec.waltz.common;
+
+import org.junit.Test;
+
+import javax.xml.stream.XMLStreamException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SvgUtilities_convertVisioSvg {
+
+    private static final String SVG = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>" +
+            "<svg xmlns=\"http://www.w3.org/2000/svg\" xmlns:v=\"http://schemas.microsoft.com/visio/2003/SVGExtensions/\">" +
+            "<g id=\"shape1\">" +
+            "<title>Sheet.1</title>" +
+            "<v:custProps>" +
+            "<v:cp v:nameU=\"App\" v:lbl=\"app\" v:val=\"VT4(APP-1)\"/>" +
+            "<v:cp v:nameU=\"Other\" v:lbl=\"other\" v:val=\"VT4(X)\"/>" +
+            "</v:custProps>" +
+            "<g id=\"shape2\">" +
+            "<v:custProps><v:cp v:lbl=\"other\" v:val=\"VT4(Y)\"/></v:custProps>" +
+            "<rect width=\"10\" height=\"10\"/>" +
+            "</g>" +
+            "</g>" +
+            "<g id=\"shape3\"><v:custProps><v:cp v:lbl=\"app\" v:val=\"plain &amp; simple\"/></v:custProps></g>" +
+            "</svg>";
+
+
+    @Test
+    public void propertyValuesAreCopiedToOwningShape() throws XMLStreamException {
+        String result = SvgUtilities.convertVisioSvg("app", SVG);
+        assertTrue(result.contains("<g id=\"shape1\" data-app=\"APP-1\">"));
+        assertTrue(result.contains("<g id=\"shape3\" data-app=\"plain &amp; simple\">"));
+    }
+
+
+    @Test
+    public void shapesWithoutTheKeyAreUnchanged() throws XMLStreamException {
+        String result = SvgUtilities.convertVisioSvg("app", SVG);
+        assertTrue(result.contains("<g id=\"shape2\">"));
+        assertTrue(result.contains("<rect width=\"10\" height=\"10\"></rect>")
+                || result.contains("<rect width=\"10\" height=\"10\"/>"));
+    }
+
+
+    @Test
+    public void unknownKeyLeavesSvgIntact() throws XMLStreamException {
+        String result = SvgUtilities.convertVisioSvg("missing", SVG);
+        assertFalse(result.contains("data-"));
+        assertEquals(
+                SvgUtilities.convertVisioSvg("missing", result),
+                result);
+    }
+
+
+    @Test(expected = XMLStreamException.class)
+    public void malformedSvgIsRejected() throws XMLStreamException {
+        SvgUtilities.convertVisioSvg("app", "<svg><g></svg>");
+    }
+
+}
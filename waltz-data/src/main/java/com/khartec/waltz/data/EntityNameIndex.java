@@ -0,0 +1,273 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package com.khartec.waltz.data;
+
+import java.util.concurrent.locks.StampedLock;
+
+import static com.khartec.waltz.common.Checks.checkNotNull;
+import static com.khartec.waltz.common.Checks.checkTrue;
+
+
+/**
+ * Resident map of entity id to name for a single entity kind.
+ *
+ * Ids are held in a primitive, open addressed (linear probing), table so
+ * large kinds (e.g. applications, people) do not require a boxed
+ * <code>Long</code> and map entry per entity.  A null name marks an empty
+ * slot, removals shift subsequent entries back rather than leaving
+ * tombstones.
+ *
+ * Lookups use an optimistic read and only fall back to the read lock if a
+ * write happened concurrently, writes are serialized.
+ */
+public class EntityNameIndex {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private final StampedLock lock = new StampedLock();
+
+    // replaced (never resized in place) when the table grows
+    private Table table;
+    private int size;
+
+
+    private static class Table {
+        private final long[] ids;
+        private final String[] names;
+        private final int mask;
+
+        private Table(int capacity) {
+            this.ids = new long[capacity];
+            this.names = new String[capacity];
+            this.mask = capacity - 1;
+        }
+    }
+
+
+    public EntityNameIndex() {
+        this(MIN_CAPACITY);
+    }
+
+
+    public EntityNameIndex(int expectedSize) {
+        checkTrue(expectedSize >= 0, "expectedSize cannot be negative");
+        this.table = new Table(capacityFor(expectedSize));
+    }
+
+
+    // --- queries ---
+
+    /**
+     * @param id  entity id
+     * @return  name of the entity or null if it is not in the index
+     */
+    public String get(long id) {
+        long stamp = lock.tryOptimisticRead();
+        String name = find(table, id);
+        if (lock.validate(stamp)) {
+            return name;
+        }
+
+        stamp = lock.readLock();
+        try {
+            return find(table, id);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+
+    // --- modification ---
+
+    public void put(long id, String name) {
+        checkNotNull(name, "name cannot be null");
+        long stamp = lock.writeLock();
+        try {
+            ensureCapacity(size + 1);
+            if (insert(table, id, name)) {
+                size++;
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+
+    /**
+     * Adds (or replaces) a batch of names whilst holding the lock once.
+     *
+     * @param ids  entity ids
+     * @param names  names, positionally matching the ids, null names are ignored
+     */
+    public void putAll(long[] ids, String[] names) {
+        checkNotNull(ids, "ids cannot be null");
+        checkNotNull(names, "names cannot be null");
+        checkTrue(ids.length == names.length, "ids and names must be the same length");
+
+        long stamp = lock.writeLock();
+        try {
+            ensureCapacity(size + ids.length);
+            for (int i = 0; i < ids.length; i++) {
+                if (names[i] != null && insert(table, ids[i], names[i])) {
+                    size++;
+                }
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+
+    public void remove(long id) {
+        long stamp = lock.writeLock();
+        try {
+            if (delete(table, id)) {
+                size--;
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+
+    public void clear() {
+        long stamp = lock.writeLock();
+        try {
+            table = new Table(MIN_CAPACITY);
+            size = 0;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+
+    // --- helpers ---
+
+    private static String find(Table t, long id) {
+        // bounded so an inconsistent (optimistic) read cannot spin forever
+        for (int probes = 0, slot = slotFor(id, t.mask); probes <= t.mask; probes++, slot = (slot + 1) & t.mask) {
+            String name = t.names[slot];
+            if (name == null) {
+                return null;
+            }
+            if (t.ids[slot] == id) {
+                return name;
+            }
+        }
+        return null;
+    }
+
+
+    /**
+     * @return true if the id was not previously present
+     */
+    private static boolean insert(Table t, long id, String name) {
+        int slot = slotFor(id, t.mask);
+        while (t.names[slot] != null) {
+            if (t.ids[slot] == id) {
+                t.names[slot] = name;
+                return false;
+            }
+            slot = (slot + 1) & t.mask;
+        }
+        t.ids[slot] = id;
+        t.names[slot] = name;
+        return true;
+    }
+
+
+    /**
+     * @return true if the id was present
+     */
+    private static boolean delete(Table t, long id) {
+        int slot = slotFor(id, t.mask);
+        while (t.names[slot] != null && t.ids[slot] != id) {
+            slot = (slot + 1) & t.mask;
+        }
+        if (t.names[slot] == null) {
+            return false;
+        }
+
+        // backward shift: move later entries of the probe run into the gap if their home slot permits
+        int gap = slot;
+        int next = (gap + 1) & t.mask;
+        while (t.names[next] != null) {
+            int home = slotFor(t.ids[next], t.mask);
+            if (((next - home) & t.mask) >= ((next - gap) & t.mask)) {
+                t.ids[gap] = t.ids[next];
+                t.names[gap] = t.names[next];
+                gap = next;
+            }
+            next = (next + 1) & t.mask;
+        }
+        t.names[gap] = null;
+        return true;
+    }
+
+
+    private void ensureCapacity(int required) {
+        if (capacityFor(required) <= table.ids.length) {
+            return;
+        }
+        Table grown = new Table(capacityFor(required));
+        for (int i = 0; i < table.names.length; i++) {
+            if (table.names[i] != null) {
+                insert(grown, table.ids[i], table.names[i]);
+            }
+        }
+        table = grown;
+    }
+
+
+    /**
+     * @return  power of two capacity keeping the load factor at or below 0.5
+     */
+    private static int capacityFor(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < expectedSize * 2L) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+
+    private static int slotFor(long id, int mask) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+
+    @Override
+    public String toString() {
+        return "EntityNameIndex{" +
+                "#names=" + size() +
+                ", capacity=" + table.ids.length +
+                '}';
+    }
+}
@@ -18,78 +18,243 @@
 
 package com.khartec.waltz.data;
 
-import com.khartec.waltz.common.ListUtilities;
 import com.khartec.waltz.model.EntityKind;
 import com.khartec.waltz.model.EntityReference;
-import org.jooq.*;
-import org.jooq.impl.DSL;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Record2;
+import org.jooq.Table;
+import org.jooq.lambda.tuple.Tuple2;
+import org.jooq.lambda.tuple.Tuple3;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 
-import java.util.Collections;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 import static com.khartec.waltz.common.Checks.checkNotNull;
 import static com.khartec.waltz.common.CollectionUtilities.maybeFirst;
-import static com.khartec.waltz.common.ListUtilities.map;
 import static com.khartec.waltz.common.ListUtilities.newArrayList;
+import static com.khartec.waltz.common.ListUtilities.partition;
+import static com.khartec.waltz.data.SelectorUtilities.MAX_INLINED_IDS;
 import static com.khartec.waltz.model.EntityReference.mkRef;
+import static java.util.stream.Collectors.toList;
+import static org.jooq.lambda.tuple.Tuple.tuple;
 
 /**
  * Service which takes a list of entity references and returns a list
  * enriched with entity names.
+ *
+ * Names are held in a resident <code>EntityNameIndex</code> per entity kind.
+ * Kinds with no more than a (configurable) number of entities are bulk
+ * loaded on first use, names which are not resident are fetched with a
+ * single <code>IN</code> query per kind and retained.  Ids which could not
+ * be found are remembered (up to a limit) so references to deleted entities
+ * do not re-query the database on every call.  Per kind caches are
+ * discarded after a (configurable) ttl, to pick up changes made outside of
+ * Waltz, and services which rename entities should call
+ * <code>invalidate</code>.
  */
 @Repository
 public class EntityReferenceNameResolver {
 
+    private static final Logger LOG = LoggerFactory.getLogger(EntityReferenceNameResolver.class);
+
+    private static final int MAX_MISSING_IDS_PER_KIND = 10_000;
+
+    private static class KindNames {
+        private final EntityNameIndex index;
+        private final Set<Long> missingIds = ConcurrentHashMap.newKeySet();
+        private final long loadedAt;
+
+        private KindNames(EntityNameIndex index, long loadedAt) {
+            this.index = index;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+
     private final DSLContext dsl;
+    private final int bulkLoadLimit;
+    private final long ttlMillis;
+    private final Map<EntityKind, KindNames> namesByKind = new ConcurrentHashMap<>();
+
 
     @Autowired
-    public EntityReferenceNameResolver(DSLContext dsl) {
+    public EntityReferenceNameResolver(DSLContext dsl,
+                                       @Value("${waltz.entity.name.cache.bulk.load.limit:100000}") int bulkLoadLimit,
+                                       @Value("${waltz.entity.name.cache.ttl.seconds:900}") long ttlSeconds) {
+        checkNotNull(dsl, "dsl cannot be null");
+
         this.dsl = dsl;
+        this.bulkLoadLimit = bulkLoadLimit;
+        this.ttlMillis = TimeUnit.SECONDS.toMillis(ttlSeconds);
     }
 
+
     public Optional<EntityReference> resolve(EntityReference ref) {
         return maybeFirst(resolve(newArrayList(ref)));
     }
 
+
+    /**
+     * Resolves names for the given references.  Duplicate references are
+     * collapsed, references to unknown (or unsupported) entities are
+     * returned without a name.
+     *
+     * @param refs  references to resolve
+     * @return  references with names, in the order given
+     */
     public List<EntityReference> resolve(List<EntityReference> refs) {
         checkNotNull(refs, "refs cannot be null");
-        
-        Field<Long> idField = DSL.field("tref_id", Long.class);
-        Field<String> kindField = DSL.field("tref_kind", String.class);
-
-        Field<String> nameField = InlineSelectFieldFactory.mkNameField(
-                idField,
-                kindField);
-
-        List<SelectSelectStep<Record2<String, Long>>> parts = map(
-                refs,
-                r -> DSL.select(
-                        DSL.val(r.kind().name()).as(kindField),
-                        DSL.val(r.id()).as(idField)));
-
-
-        if (parts.size() > 0) {
-            SelectSelectStep<Record2<String, Long>> firstPart = parts.get(0);
-            if (parts.size() > 1) {
-                List<SelectSelectStep<Record2<String, Long>>> tail = ListUtilities.drop(parts, 1);
-                tail.forEach(firstPart::union);
+
+        Set<Tuple2<EntityKind, Long>> keys = new LinkedHashSet<>();
+        refs.forEach(r -> keys.add(tuple(r.kind(), r.id())));
+
+        Map<Tuple2<EntityKind, Long>, String> names = new HashMap<>(keys.size());
+        Map<EntityKind, Set<Long>> missingIdsByKind = new EnumMap<>(EntityKind.class);
+
+        for (Tuple2<EntityKind, Long> key : keys) {
+            Optional<KindNames> kindNames = findKindNames(key.v1());
+            if (! kindNames.isPresent()) {
+                continue;
+            }
+
+            String name = kindNames.get().index.get(key.v2());
+            if (name == null) {
+                if (kindNames.get().missingIds.contains(key.v2())) {
+                    continue;
+                }
+                missingIdsByKind
+                        .computeIfAbsent(key.v1(), k -> new HashSet<>())
+                        .add(key.v2());
+            } else {
+                names.put(key, name);
             }
+        }
+
+        missingIdsByKind.forEach((kind, ids) -> fetchNames(kind, ids)
+                .forEach((id, name) -> names.put(tuple(kind, id), name)));
+
+        return keys
+                .stream()
+                .map(k -> mkRef(k.v1(), k.v2(), names.get(k)))
+                .collect(toList());
+    }
 
-            Table<Record2<String, Long>> tempRefs = firstPart.asTable("temp_refs");
-            return dsl
-                    .select(idField, kindField, nameField)
-                    .from(tempRefs)
-                    .fetch(r -> mkRef(
-                            EntityKind.valueOf(r.get(kindField)),
-                            r.get(idField),
-                            r.get(nameField)));
-        } else {
-            return Collections.emptyList();
+
+    // --- invalidation ---
+
+    public void invalidate(EntityReference ref) {
+        checkNotNull(ref, "ref cannot be null");
+        KindNames kindNames = namesByKind.get(ref.kind());
+        if (kindNames != null) {
+            kindNames.index.remove(ref.id());
+            kindNames.missingIds.remove(ref.id());
         }
+    }
+
+
+    public void invalidate(EntityKind kind) {
+        checkNotNull(kind, "kind cannot be null");
+        namesByKind.remove(kind);
+    }
+
 
+    public void invalidateAll() {
+        namesByKind.clear();
+    }
+
+
+    // --- helpers ---
+
+    private Optional<KindNames> findKindNames(EntityKind kind) {
+        Optional<Tuple3<Table, Field<Long>, Field<String>>> mapping = InlineSelectFieldFactory.findNameMapping(kind);
+        if (! mapping.isPresent()) {
+            return Optional.empty();
+        }
+
+        long now = System.currentTimeMillis();
+        KindNames kindNames = namesByKind.get(kind);
+        if (kindNames == null || kindNames.loadedAt + ttlMillis <= now) {
+            // concurrent loads are tolerated (last one wins), we do not want to hold a lock over the query
+            kindNames = new KindNames(loadIndex(kind, mapping.get()), now);
+            namesByKind.put(kind, kindNames);
+        }
+        return Optional.of(kindNames);
+    }
+
+
+    @SuppressWarnings("unchecked")
+    private EntityNameIndex loadIndex(EntityKind kind,
+                                      Tuple3<Table, Field<Long>, Field<String>> mapping) {
+        int count = dsl.fetchCount(mapping.v1());
+        if (count > bulkLoadLimit) {
+            LOG.info("Not bulk loading {} {} names (limit: {}), they will be loaded on demand", count, kind, bulkLoadLimit);
+            return new EntityNameIndex();
+        }
+
+        long[] ids = new long[count];
+        String[] names = new String[count];
+        int i = 0;
+        for (Record2<Long, String> r : dsl.select(mapping.v2(), mapping.v3()).from(mapping.v1()).fetch()) {
+            if (i == count) {
+                break;  // rows added since counting will be picked up on demand
+            }
+            ids[i] = r.value1();
+            names[i] = r.value2();
+            i++;
+        }
+
+        EntityNameIndex index = new EntityNameIndex(i);
+        index.putAll(Arrays.copyOf(ids, i), Arrays.copyOf(names, i));
+        return index;
+    }
+
+
+    @SuppressWarnings("unchecked")
+    private Map<Long, String> fetchNames(EntityKind kind, Set<Long> ids) {
+        Tuple3<Table, Field<Long>, Field<String>> mapping = InlineSelectFieldFactory
+                .findNameMapping(kind)
+                .orElseThrow(() -> new IllegalArgumentException("Cannot resolve names for kind: " + kind));
+
+        Map<Long, String> namesById = new HashMap<>(ids.size());
+        for (List<Long> chunk : partition(ids, MAX_INLINED_IDS)) {
+            dsl.select(mapping.v2(), mapping.v3())
+                    .from(mapping.v1())
+                    .where(mapping.v2().in(chunk))
+                    .forEach(r -> namesById.put(r.value1(), r.value2()));
+        }
+
+        KindNames kindNames = namesByKind.get(kind);
+        if (kindNames != null) {
+            namesById.forEach((id, name) -> {
+                if (name != null) {
+                    kindNames.index.put(id, name);
+                }
+            });
+            rememberMissing(kindNames, ids, namesById);
+        }
+
+        return namesById;
+    }
+
+
+    private static void rememberMissing(KindNames kindNames,
+                                        Set<Long> requestedIds,
+                                        Map<Long, String> namesById) {
+        if (kindNames.missingIds.size() >= MAX_MISSING_IDS_PER_KIND) {
+            // bounded rather than evicted, the set is rebuilt when the kind expires
+            kindNames.missingIds.clear();
+        }
+        requestedIds
+                .stream()
+                .filter(id -> namesById.get(id) == null)
+                .forEach(kindNames.missingIds::add);
     }
 
 }
@@ -0,0 +1,358 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+package com.khartec.waltz.data;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+import static com.khartec.waltz.common.Checks.checkNotNull;
+import static java.util.stream.Collectors.toList;
+
+
+/**
+ * In-memory inverted index used to provide database independent full text
+ * search over a (reasonably sized) set of entities.
+ *
+ * Text is split into lower-cased alphanumeric tokens.  Tokens are held in a
+ * sorted map so a query term matches every token it is a prefix of (allowing
+ * results to be returned whilst the user is still typing).  All query terms must
+ * match for a document to be returned.
+ *
+ * Documents are ranked by how well each term matches:
+ * <ul>
+ *     <li>exact match on a token in the name</li>
+ *     <li>prefix match on a token in the name</li>
+ *     <li>exact match on a token in any other text</li>
+ *     <li>prefix match on a token in any other text</li>
+ * </ul>
+ * with a bonus if the name starts with the query.  Ties are broken by the
+ * shortest, then alphabetically first, name.
+ *
+ * @param <T> type of the indexed items
+ */
+public class FullTextIndex<T> {
+
+    private static final int NAME_EXACT_SCORE = 8;
+    private static final int NAME_PREFIX_SCORE = 4;
+    private static final int OTHER_EXACT_SCORE = 2;
+    private static final int OTHER_PREFIX_SCORE = 1;
+    private static final int NAME_STARTS_WITH_QUERY_BONUS = 8;
+
+
+    private static class Document<T> {
+        private final T item;
+        private final String lowerName;
+        private final Set<String> nameTokens;
+        private final Set<String> otherTokens;
+
+        private Document(T item, String lowerName, Set<String> nameTokens, Set<String> otherTokens) {
+            this.item = item;
+            this.lowerName = lowerName;
+            this.nameTokens = nameTokens;
+            this.otherTokens = otherTokens;
+        }
+
+        private Set<String> allTokens() {
+            Set<String> all = new HashSet<>(nameTokens);
+            all.addAll(otherTokens);
+            return all;
+        }
+    }
+
+
+    private static class ScoredDocument<T> {
+        private final Document<T> document;
+        private final int score;
+
+        private ScoredDocument(Document<T> document, int score) {
+            this.document = document;
+            this.score = score;
+        }
+    }
+
+
+    private final ToLongFunction<T> idExtractor;
+    private final Function<T, String> nameExtractor;
+    private final Function<T, Collection<String>> otherTextExtractor;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Map<Long, Document<T>> documentsById = new HashMap<>();
+    private NavigableMap<String, Set<Long>> postings = new TreeMap<>();
+
+
+    /**
+     * @param idExtractor  gives the unique id of an item
+     * @param nameExtractor  gives the primary (most highly ranked) text of an item
+     * @param otherTextExtractor  gives any other searchable text (nulls are ignored)
+     */
+    public FullTextIndex(ToLongFunction<T> idExtractor,
+                         Function<T, String> nameExtractor,
+                         Function<T, Collection<String>> otherTextExtractor) {
+        checkNotNull(idExtractor, "idExtractor cannot be null");
+        checkNotNull(nameExtractor, "nameExtractor cannot be null");
+        checkNotNull(otherTextExtractor, "otherTextExtractor cannot be null");
+
+        this.idExtractor = idExtractor;
+        this.nameExtractor = nameExtractor;
+        this.otherTextExtractor = otherTextExtractor;
+    }
+
+
+    // --- maintenance ---
+
+    /**
+     * Replaces the entire contents of the index.  The new index is built before
+     * the write lock is taken so searches are not blocked whilst it is populated.
+     */
+    public void replaceAll(Collection<T> items) {
+        checkNotNull(items, "items cannot be null");
+
+        Map<Long, Document<T>> newDocumentsById = new HashMap<>(items.size() * 2);
+        NavigableMap<String, Set<Long>> newPostings = new TreeMap<>();
+
+        items.forEach(item -> {
+            long id = idExtractor.applyAsLong(item);
+            Document<T> document = mkDocument(item);
+            newDocumentsById.put(id, document);
+            addPostings(newPostings, id, document);
+        });
+
+        lock.writeLock().lock();
+        try {
+            documentsById = newDocumentsById;
+            postings = newPostings;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+
+    /**
+     * Adds the item to the index, replacing any previous version of it.
+     */
+    public void put(T item) {
+        checkNotNull(item, "item cannot be null");
+
+        long id = idExtractor.applyAsLong(item);
+        Document<T> document = mkDocument(item);
+
+        lock.writeLock().lock();
+        try {
+            removeDocument(id);
+            documentsById.put(id, document);
+            addPostings(postings, id, document);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documentsById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+
+    // --- querying ---
+
+    /**
+     * @param query  free text query, split into terms the same way indexed text is tokenized
+     * @param filter  predicate items must satisfy to be included (e.g. lifecycle status checks)
+     * @param limit  maximum number of results
+     * @return  matching items, best match first
+     */
+    public List<T> search(String query, Predicate<T> filter, int limit) {
+        checkNotNull(filter, "filter cannot be null");
+
+        List<String> terms = new ArrayList<>(tokenize(query));
+        if (terms.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        String lowerQuery = query.trim().toLowerCase(Locale.ROOT);
+
+        lock.readLock().lock();
+        try {
+            Set<Long> candidates = findCandidates(terms);
+
+            return candidates
+                    .stream()
+                    .map(documentsById::get)
+                    .filter(d -> filter.test(d.item))
+                    .map(d -> new ScoredDocument<>(d, score(d, terms, lowerQuery)))
+                    .sorted(Comparator
+                            .<ScoredDocument<T>>comparingInt(sd -> -sd.score)
+                            .thenComparingInt(sd -> sd.document.lowerName.length())
+                            .thenComparing(sd -> sd.document.lowerName))
+                    .limit(limit)
+                    .map(sd -> sd.document.item)
+                    .collect(toList());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+
+    /**
+     * Splits text into distinct, lower-cased, alphanumeric tokens.
+     */
+    public static Set<String> tokenize(String text) {
+        if (text == null) {
+            return Collections.emptySet();
+        }
+
+        Set<String> tokens = new LinkedHashSet<>();
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{Nd}]+")) {
+            if (! token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+
+    // --- helpers ---
+
+    private Document<T> mkDocument(T item) {
+        String name = nameExtractor.apply(item);
+
+        Set<String> otherTokens = new HashSet<>();
+        Collection<String> otherText = otherTextExtractor.apply(item);
+        if (otherText != null) {
+            otherText.forEach(text -> otherTokens.addAll(tokenize(text)));
+        }
+
+        return new Document<>(
+                item,
+                name == null ? "" : name.toLowerCase(Locale.ROOT),
+                tokenize(name),
+                otherTokens);
+    }
+
+
+    private static <T> void addPostings(Map<String, Set<Long>> postings,
+                                        long id,
+                                        Document<T> document) {
+        document.allTokens()
+                .forEach(token -> postings
+                        .computeIfAbsent(token, t -> new HashSet<>())
+                        .add(id));
+    }
+
+
+    private void removeDocument(long id) {
+        Document<T> existing = documentsById.remove(id);
+        if (existing == null) {
+            return;
+        }
+
+        existing.allTokens()
+                .forEach(token -> {
+                    Set<Long> ids = postings.get(token);
+                    if (ids != null) {
+                        ids.remove(id);
+                        if (ids.isEmpty()) {
+                            postings.remove(token);
+                        }
+                    }
+                });
+    }
+
+
+    private Set<Long> findCandidates(List<String> terms) {
+        List<Set<Long>> idsPerTerm = terms
+                .stream()
+                .map(this::findIdsForPrefix)
+                .sorted(Comparator.comparingInt(Set::size))
+                .collect(toList());
+
+        Set<Long> candidates = new HashSet<>(idsPerTerm.get(0));
+        for (int i = 1; i < idsPerTerm.size() && ! candidates.isEmpty(); i++) {
+            candidates.retainAll(idsPerTerm.get(i));
+        }
+        return candidates;
+    }
+
+
+    private Set<Long> findIdsForPrefix(String prefix) {
+        Set<Long> ids = new HashSet<>();
+        postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false)
+                .values()
+                .forEach(ids::addAll);
+        return ids;
+    }
+
+
+    private static <T> int score(Document<T> document,
+                                 List<String> terms,
+                                 String lowerQuery) {
+        int score = document.lowerName.startsWith(lowerQuery)
+                ? NAME_STARTS_WITH_QUERY_BONUS
+                : 0;
+
+        for (String term : terms) {
+            score += scoreTerm(document, term);
+        }
+        return score;
+    }
+
+
+    private static <T> int scoreTerm(Document<T> document, String term) {
+        if (document.nameTokens.contains(term)) {
+            return NAME_EXACT_SCORE;
+        }
+        if (hasTokenStartingWith(document.nameTokens, term)) {
+            return NAME_PREFIX_SCORE;
+        }
+        if (document.otherTokens.contains(term)) {
+            return OTHER_EXACT_SCORE;
+        }
+        return hasTokenStartingWith(document.otherTokens, term)
+                ? OTHER_PREFIX_SCORE
+                : 0;
+    }
+
+
+    private static boolean hasTokenStartingWith(Set<String> tokens, String prefix) {
+        for (String token : tokens) {
+            if (token.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
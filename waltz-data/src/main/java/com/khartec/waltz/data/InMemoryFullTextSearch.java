@@ -0,0 +1,218 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+package com.khartec.waltz.data;
+
+import com.khartec.waltz.model.entity_search.EntitySearchOptions;
+import org.jooq.DSLContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+
+import static com.khartec.waltz.common.Checks.checkNotNull;
+
+
+/**
+ * Full text search backed by a {@link FullTextIndex} rather than the vendor
+ * specific database full text facilities.  This gives consistent ranking
+ * regardless of the database in use and avoids scanning the underlying table
+ * on every keystroke.
+ *
+ * The index is loaded, and periodically reloaded, on a background thread
+ * so searches never wait for a load.  Until the first load completes (or if
+ * it fails) the vendor specific <code>fallback</code> is used, callers can
+ * check {@link #isLoaded()} to decide whether their own database queries
+ * are still needed.  Callers which
+ * modify the underlying entities should call {@link #index(Object)} or
+ * {@link #unindex(long)} so changes are visible immediately, changes made
+ * whilst a reload is in progress are replayed onto the reloaded index.
+ *
+ * @param <T> type of the searchable entity
+ */
+public class InMemoryFullTextSearch<T> implements FullTextSearch<T> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(InMemoryFullTextSearch.class);
+
+    private static final long RELOAD_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(15);
+    private static final long RETRY_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    // shared by all indexes, loads run one at a time to limit the load on the database
+    private static final ExecutorService LOADER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread t = new Thread(runnable, "Search Index Loader");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final String description;
+    private final FullTextIndex<T> index;
+    private final Function<DSLContext, Collection<T>> loader;
+    private final BiPredicate<T, EntitySearchOptions> filter;
+    private final FullTextSearch<T> fallback;
+
+    private final AtomicBoolean loadPending = new AtomicBoolean(false);
+    private final Object updateLock = new Object();
+    private List<Runnable> updatesDuringLoad = null;  // guarded by updateLock, non null whilst loading
+    private volatile long lastLoadRequestedAt = 0;
+    private volatile boolean loaded = false;
+
+
+    /**
+     * @param description  used in log messages, e.g. the entity kind
+     * @param index  index to populate
+     * @param loader  loads all searchable entities
+     * @param filter  determines if an entity is eligible given the search options (e.g. lifecycle status)
+     * @param fallback  database search to use if the index is not (yet) loaded
+     */
+    public InMemoryFullTextSearch(String description,
+                                  FullTextIndex<T> index,
+                                  Function<DSLContext, Collection<T>> loader,
+                                  BiPredicate<T, EntitySearchOptions> filter,
+                                  FullTextSearch<T> fallback) {
+        checkNotNull(index, "index cannot be null");
+        checkNotNull(loader, "loader cannot be null");
+        checkNotNull(filter, "filter cannot be null");
+        checkNotNull(fallback, "fallback cannot be null");
+
+        this.description = description;
+        this.index = index;
+        this.loader = loader;
+        this.filter = filter;
+        this.fallback = fallback;
+    }
+
+
+    @Override
+    public List<T> searchFullText(DSLContext dsl, EntitySearchOptions options) {
+        checkNotNull(options, "options cannot be null");
+
+        if (isDue(loaded ? RELOAD_INTERVAL_NANOS : RETRY_INTERVAL_NANOS)) {
+            requestLoad(dsl);
+        }
+
+        if (! loaded) {
+            return fallback.searchFullText(dsl, options);
+        }
+
+        return index.search(
+                options.searchQuery(),
+                t -> filter.test(t, options),
+                options.limit());
+    }
+
+
+    /**
+     * @return  true once the index has been loaded, it then remains loaded (and is periodically reloaded)
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+
+    public void index(T item) {
+        checkNotNull(item, "item cannot be null");
+        applyUpdate(() -> index.put(item));
+    }
+
+
+    public void unindex(long id) {
+        applyUpdate(() -> index.remove(id));
+    }
+
+
+    /**
+     * Forces the index to be reloaded on next use, for use after bulk changes.
+     */
+    public void invalidate() {
+        lastLoadRequestedAt = 0;
+    }
+
+
+    // --- helpers ---
+
+    private void applyUpdate(Runnable update) {
+        synchronized (updateLock) {
+            if (updatesDuringLoad != null) {
+                // the load may have read the entity before this change, replay it afterwards
+                updatesDuringLoad.add(update);
+            }
+            if (loaded) {
+                update.run();
+            }
+        }
+    }
+
+
+    private boolean isDue(long intervalNanos) {
+        return lastLoadRequestedAt == 0 || System.nanoTime() - lastLoadRequestedAt > intervalNanos;
+    }
+
+
+    private void requestLoad(DSLContext dsl) {
+        if (! loadPending.compareAndSet(false, true)) {
+            return;
+        }
+
+        lastLoadRequestedAt = System.nanoTime();
+        try {
+            LOADER.execute(() -> {
+                try {
+                    load(dsl);
+                } finally {
+                    loadPending.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            loadPending.set(false);
+            LOG.warn("Could not schedule load of {} search index", description, e);
+        }
+    }
+
+
+    private void load(DSLContext dsl) {
+        synchronized (updateLock) {
+            updatesDuringLoad = new ArrayList<>();
+        }
+
+        try {
+            long start = System.currentTimeMillis();
+            Collection<T> items = loader.apply(dsl);
+            synchronized (updateLock) {
+                index.replaceAll(items);
+                updatesDuringLoad.forEach(Runnable::run);
+                loaded = true;
+            }
+            LOG.info("Loaded {} search index with {} entries in {}ms", description, index.size(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            LOG.error("Failed to load " + description + " search index", e);
+        } finally {
+            synchronized (updateLock) {
+                updatesDuringLoad = null;
+            }
+        }
+    }
+
+}
@@ -60,6 +60,15 @@ public class InlineSelectFieldFactory {
     }
 
 
+    /**
+     * @param kind  entity kind
+     * @return  (table, id field, name field) used to resolve names for the kind, if supported
+     */
+    static Optional<Tuple3<Table, Field<Long>, Field<String>>> findNameMapping(EntityKind kind) {
+        return Optional.ofNullable(NAME_RESOLVER.mappings.get(kind));
+    }
+
+
     // --- External Id
 
     public static Field<String> mkExternalIdField(Field<Long> idCompareField,
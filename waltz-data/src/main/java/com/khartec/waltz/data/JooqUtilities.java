@@ -41,6 +41,7 @@ import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static com.khartec.waltz.common.Checks.checkNotNull;
+import static com.khartec.waltz.common.Checks.checkTrue;
 import static com.khartec.waltz.common.DateTimeUtilities.toLocalDate;
 import static com.khartec.waltz.common.DateTimeUtilities.toSqlDate;
 import static com.khartec.waltz.model.EntityReference.mkRef;
@@ -52,6 +53,23 @@ public class JooqUtilities {
 
     public static final Field<Integer> TALLY_COUNT_FIELD = DSL.field("count", Integer.class);
 
+    /**
+     * Upper bound on the number of bind parameters in a single statement.
+     * SQL Server allows at most 2100, this leaves headroom for any
+     * parameters outside of the values list.
+     */
+    public static final int MAX_BIND_PARAMETERS = 2000;
+
+
+    /**
+     * @param columnCount  number of (bound) columns per row
+     * @return  number of rows which can be written by a single multi-row insert without exceeding <code>MAX_BIND_PARAMETERS</code>
+     */
+    public static int maxRowsPerInsert(int columnCount) {
+        checkTrue(columnCount > 0, "columnCount must be positive");
+        return Math.max(1, MAX_BIND_PARAMETERS / columnCount);
+    }
+
 
     public static Optional<EntityReference> maybeReadRef(Record record,
                                                          Field<String> kindField,
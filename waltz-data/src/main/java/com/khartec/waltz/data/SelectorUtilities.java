@@ -18,11 +18,15 @@
 
 package com.khartec.waltz.data;
 
+import com.khartec.waltz.data.entity_hierarchy.EntityHierarchyIndexes;
+import com.khartec.waltz.model.EntityKind;
 import com.khartec.waltz.model.HierarchyQueryScope;
 import com.khartec.waltz.model.IdSelectionOptions;
 import com.khartec.waltz.model.application.ApplicationKind;
-import org.jooq.Condition;
+import org.jooq.*;
+import org.jooq.impl.DSL;
 
+import java.util.Optional;
 import java.util.Set;
 
 import static com.khartec.waltz.common.Checks.checkTrue;
@@ -32,6 +36,13 @@ import static com.khartec.waltz.schema.tables.Application.APPLICATION;
 
 public class SelectorUtilities {
 
+    /**
+     * Upper bound on the number of ids we are willing to inline into a
+     * query.  Some vendors (e.g. SQL Server) limit the number of bind
+     * parameters, beyond this we fall back to joining the underlying tables.
+     */
+    public static final int MAX_INLINED_IDS = 1000;
+
     public static <T extends IdSelectionOptions> void ensureScopeIsExact(T options) {
         checkTrue(
                 options.scope() == HierarchyQueryScope.EXACT,
@@ -61,4 +72,59 @@ public class SelectorUtilities {
 
     }
 
+
+    /**
+     * Attempts to resolve the ids related to the options entity reference
+     * (according to the options scope) via the resident hierarchy index for
+     * the given kind.
+     *
+     * @param indexes  resident hierarchy indexes, absent if they should not be consulted
+     * @param kind  hierarchy kind to consult
+     * @param options  selection options, the entity reference should be of the given kind
+     * @return  ids or empty if there is no loaded index, the entity is not indexed,
+     * or the result is too large to inline
+     */
+    public static Optional<long[]> lookupIdsViaHierarchyIndex(Optional<EntityHierarchyIndexes> indexes,
+                                                              EntityKind kind,
+                                                              IdSelectionOptions options) {
+        long id = options.entityReference().id();
+        return indexes
+                .flatMap(idx -> idx.find(kind))
+                .filter(index -> index.contains(id))
+                .map(index -> {
+                    switch (options.scope()) {
+                        case CHILDREN:
+                            return index.findDescendantIds(id);
+                        case PARENTS:
+                            return index.findAncestorIds(id);
+                        default:
+                            return new long[] { id };
+                    }
+                })
+                .filter(ids -> ids.length <= MAX_INLINED_IDS);
+    }
+
+
+    /**
+     * Converts a set of ids into a selector which does not touch any tables,
+     * rendered as <code>select id from (values (..), (..)) ids(id)</code>.
+     *
+     * @param ids  ids to include in the selector, must not be empty
+     * @return  selector over the given ids
+     */
+    @SuppressWarnings("unchecked")
+    public static Select<Record1<Long>> mkInlineIdSelector(long[] ids) {
+        checkTrue(ids.length > 0, "Cannot create an inline selector without any ids");
+
+        Row1<Long>[] rows = new Row1[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            rows[i] = DSL.row(ids[i]);
+        }
+
+        Table<Record1<Long>> idTable = DSL.values(rows).as("ids", "id");
+        return DSL
+                .select(idTable.field("id", Long.class))
+                .from(idTable);
+    }
+
 }
@@ -82,10 +82,16 @@ public class ApplicationDao {
 
     private final DSLContext dsl;
 
+    // application id sets filter on, and org unit sets are derived from, applications so every write below invalidates them
+    private final ApplicationIdSetCache applicationIdSetCache;
+
 
     @Autowired
-    public ApplicationDao(DSLContext dsl) {
+    public ApplicationDao(DSLContext dsl,
+                          ApplicationIdSetCache applicationIdSetCache) {
+        checkNotNull(applicationIdSetCache, "applicationIdSetCache must not be null");
         this.dsl = dsl;
+        this.applicationIdSetCache = applicationIdSetCache;
     }
 
 
@@ -186,6 +192,7 @@ public class ApplicationDao {
             int count = record.insert();
 
             if (count == 1) {
+                applicationIdSetCache.invalidateAll();
                 return ImmutableAppRegistrationResponse.builder()
                         .id(record.getId())
                         .message("created")
@@ -229,7 +236,9 @@ public class ApplicationDao {
 
         Condition condition = APPLICATION.ID.eq(application.id().get());
 
-        return dsl.executeUpdate(record, condition);
+        int count = dsl.executeUpdate(record, condition);
+        applicationIdSetCache.invalidateAll();
+        return count;
     }
 
 
@@ -30,14 +30,19 @@ import org.jooq.*;
 import org.jooq.impl.DSL;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.Optional;
+import java.util.Set;
 import java.util.function.Function;
 
 import static com.khartec.waltz.common.Checks.checkNotNull;
 import static com.khartec.waltz.common.Checks.checkTrue;
+import static com.khartec.waltz.common.SetUtilities.asSet;
 import static com.khartec.waltz.data.SelectorUtilities.ensureScopeIsExact;
 import static com.khartec.waltz.data.SelectorUtilities.mkApplicationConditions;
+import static com.khartec.waltz.data.SelectorUtilities.mkInlineIdSelector;
 import static com.khartec.waltz.data.logical_flow.LogicalFlowDao.LOGICAL_NOT_REMOVED;
 import static com.khartec.waltz.model.EntityLifecycleStatus.REMOVED;
 import static com.khartec.waltz.model.HierarchyQueryScope.EXACT;
@@ -58,10 +63,6 @@ public class ApplicationIdSelectorFactory implements Function<IdSelectionOptions
 
     private static final Logger LOG = LoggerFactory.getLogger(ApplicationIdSelectorFactory.class);
 
-    private static final DataTypeIdSelectorFactory dataTypeIdSelectorFactory = new DataTypeIdSelectorFactory();
-    private static final MeasurableIdSelectorFactory measurableIdSelectorFactory = new MeasurableIdSelectorFactory();
-    private static final OrganisationalUnitIdSelectorFactory orgUnitIdSelectorFactory = new OrganisationalUnitIdSelectorFactory();
-
     private static final FlowDiagramEntity flowDiagram = FLOW_DIAGRAM_ENTITY.as("fd");
     private static final Involvement involvement = INVOLVEMENT.as("inv");
     private static final LogicalFlow logicalFlow = LOGICAL_FLOW.as("lf");
@@ -69,9 +70,70 @@ public class ApplicationIdSelectorFactory implements Function<IdSelectionOptions
     private static final Person person = PERSON.as("p");
     private static final PersonHierarchy personHierarchy = PERSON_HIERARCHY.as("ph");
 
+    // kinds whose selectors walk a hierarchy and are therefore worth materializing
+    private static final Set<EntityKind> MATERIALIZABLE_KINDS = asSet(
+            EntityKind.DATA_TYPE,
+            EntityKind.MEASURABLE,
+            EntityKind.ORG_UNIT,
+            EntityKind.PERSON);
+
+    private final DataTypeIdSelectorFactory dataTypeIdSelectorFactory;
+    private final MeasurableIdSelectorFactory measurableIdSelectorFactory;
+    private final OrganisationalUnitIdSelectorFactory orgUnitIdSelectorFactory;
+
+    // absent when the factory is created directly (e.g. by extracts and jobs), selectors are then always evaluated in sql
+    private final Optional<ApplicationIdSetCache> applicationIdSetCache;
+
+
+    public ApplicationIdSelectorFactory() {
+        this.dataTypeIdSelectorFactory = new DataTypeIdSelectorFactory();
+        this.measurableIdSelectorFactory = new MeasurableIdSelectorFactory();
+        this.orgUnitIdSelectorFactory = new OrganisationalUnitIdSelectorFactory();
+        this.applicationIdSetCache = Optional.empty();
+    }
+
+
+    @Autowired
+    public ApplicationIdSelectorFactory(ApplicationIdSetCache applicationIdSetCache,
+                                        DataTypeIdSelectorFactory dataTypeIdSelectorFactory,
+                                        MeasurableIdSelectorFactory measurableIdSelectorFactory,
+                                        OrganisationalUnitIdSelectorFactory orgUnitIdSelectorFactory) {
+        checkNotNull(applicationIdSetCache, "applicationIdSetCache cannot be null");
+        checkNotNull(dataTypeIdSelectorFactory, "dataTypeIdSelectorFactory cannot be null");
+        checkNotNull(measurableIdSelectorFactory, "measurableIdSelectorFactory cannot be null");
+        checkNotNull(orgUnitIdSelectorFactory, "orgUnitIdSelectorFactory cannot be null");
+        this.dataTypeIdSelectorFactory = dataTypeIdSelectorFactory;
+        this.measurableIdSelectorFactory = measurableIdSelectorFactory;
+        this.orgUnitIdSelectorFactory = orgUnitIdSelectorFactory;
+        this.applicationIdSetCache = Optional.of(applicationIdSetCache);
+    }
+
 
     public Select<Record1<Long>> apply(IdSelectionOptions options) {
         checkNotNull(options, "options cannot be null");
+
+        if (MATERIALIZABLE_KINDS.contains(options.entityReference().kind())) {
+            Optional<Select<Record1<Long>>> materialized = applicationIdSetCache
+                    .flatMap(cache -> cache.findAppIds(options, this::mkSelector))
+                    .map(ApplicationIdSelectorFactory::mkForMaterializedIds);
+
+            if (materialized.isPresent()) {
+                return materialized.get();
+            }
+        }
+
+        return mkSelector(options);
+    }
+
+
+    private static Select<Record1<Long>> mkForMaterializedIds(long[] appIds) {
+        return appIds.length == 0
+                ? DSL.select(APPLICATION.ID).from(APPLICATION).where(DSL.falseCondition())
+                : mkInlineIdSelector(appIds);
+    }
+
+
+    private Select<Record1<Long>> mkSelector(IdSelectionOptions options) {
         EntityReference ref = options.entityReference();
         switch (ref.kind()) {
             case ACTOR:
@@ -0,0 +1,157 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package com.khartec.waltz.data.application;
+
+import com.khartec.waltz.common.ExpiringCache;
+import com.khartec.waltz.model.IdSelectionOptions;
+import org.jooq.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static com.khartec.waltz.common.Checks.checkNotNull;
+import static com.khartec.waltz.data.SelectorUtilities.MAX_INLINED_IDS;
+
+
+/**
+ * Materialized application id sets for selection options whose selectors
+ * are expensive to evaluate (i.e. those which walk a hierarchy).
+ *
+ * A dashboard typically issues many queries against the same selection
+ * options, without this cache every one of them re-evaluates the selector
+ * as a sub-query.  Instead the selector is resolved once to a sorted
+ * array of ids which callers can inline.  Only sets of up to
+ * <code>MAX_INLINED_IDS</code> are materialized, larger sets are
+ * remembered as such so callers fall straight back to the sql selector.
+ *
+ * Entries are invalidated by the writers of the data the selectors depend
+ * on: the application, measurable rating, involvement, person, logical flow
+ * and flow decorator daos, and the entity / person hierarchy services.
+ * Changes made outside of this Waltz instance (other nodes, loaders and
+ * jobs writing directly to the database, e.g. org unit or data type
+ * hierarchies) are only seen once entries expire after the (configurable)
+ * ttl.
+ *
+ * The cache is consulted by the Spring managed
+ * <code>ApplicationIdSelectorFactory</code>, factories created directly
+ * do not use it.
+ */
+@Repository
+public class ApplicationIdSetCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ApplicationIdSetCache.class);
+
+    // marker for sets too large to inline, compared by identity
+    private static final long[] TOO_LARGE = new long[0];
+
+    private final DSLContext dsl;
+    private final boolean enabled;
+    private final ExpiringCache<IdSelectionOptions, long[]> cache;
+
+
+    @Autowired
+    public ApplicationIdSetCache(DSLContext dsl,
+                                 @Value("${waltz.selector.cache.enabled:true}") boolean enabled,
+                                 @Value("${waltz.selector.cache.ttl.seconds:600}") long ttlSeconds,
+                                 @Value("${waltz.selector.cache.max.size:1000}") int maxSize) {
+        checkNotNull(dsl, "dsl cannot be null");
+
+        this.dsl = dsl;
+        this.enabled = enabled;
+        this.cache = new ExpiringCache<>(ttlSeconds, TimeUnit.SECONDS, maxSize);
+
+        if (! enabled) {
+            LOG.info("Application id set cache is disabled");
+        }
+    }
+
+
+    // --- lookup ---
+
+    /**
+     * Resolves the application ids for the given options, evaluating the
+     * selector (via the supplied function) on a miss.
+     *
+     * @param options  selection options, used as the cache key
+     * @param selectorFn  function to create the sql selector for the options
+     * @return  sorted application ids, or empty if the set is too large to inline (or the cache is disabled)
+     */
+    public Optional<long[]> findAppIds(IdSelectionOptions options,
+                                       Function<IdSelectionOptions, Select<Record1<Long>>> selectorFn) {
+        checkNotNull(options, "options cannot be null");
+        checkNotNull(selectorFn, "selectorFn cannot be null");
+
+        if (! enabled) {
+            return Optional.empty();
+        }
+
+        long[] ids = cache.get(options, opts -> resolve(selectorFn.apply(opts)));
+        return ids == TOO_LARGE
+                ? Optional.empty()
+                : Optional.of(ids);
+    }
+
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+
+    public int size() {
+        return cache.size();
+    }
+
+
+    public double getHitRatio() {
+        return cache.getHitRatio();
+    }
+
+
+    // --- helpers ---
+
+    private long[] resolve(Select<Record1<Long>> selector) {
+        Table<Record1<Long>> appIds = selector.asTable("app_ids");
+        Field<Long> appId = appIds.field(0, Long.class);
+
+        // fetch one more than we are willing to inline so we can tell if the set is too large
+        long[] ids = dsl
+                .selectDistinct(appId)
+                .from(appIds)
+                .limit(MAX_INLINED_IDS + 1)
+                .fetch()
+                .stream()
+                .mapToLong(Record1::value1)
+                .toArray();
+
+        if (ids.length > MAX_INLINED_IDS) {
+            return TOO_LARGE;
+        }
+
+        Arrays.sort(ids);
+        return ids;
+    }
+
+}
@@ -19,7 +19,9 @@
 package com.khartec.waltz.data.application.search;
 
 import com.khartec.waltz.data.DBExecutorPoolInterface;
+import com.khartec.waltz.data.FullTextIndex;
 import com.khartec.waltz.data.FullTextSearch;
+import com.khartec.waltz.data.InMemoryFullTextSearch;
 import com.khartec.waltz.data.SearchDao;
 import com.khartec.waltz.data.UnsupportedSearcher;
 import com.khartec.waltz.data.application.ApplicationDao;
@@ -27,6 +29,7 @@ import com.khartec.waltz.model.EntityKind;
 import com.khartec.waltz.model.NameProvider;
 import com.khartec.waltz.model.application.Application;
 import com.khartec.waltz.model.entity_search.EntitySearchOptions;
+import com.khartec.waltz.model.external_identifier.ExternalIdValue;
 import org.jooq.Condition;
 import org.jooq.DSLContext;
 import org.jooq.SQLDialect;
@@ -35,13 +38,17 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Future;
 import java.util.function.Supplier;
 
 import static com.khartec.waltz.common.Checks.checkNotNull;
 import static com.khartec.waltz.common.CollectionUtilities.sort;
+import static com.khartec.waltz.common.ListUtilities.map;
+import static com.khartec.waltz.common.ListUtilities.newArrayList;
 import static com.khartec.waltz.common.SetUtilities.orderedUnion;
 import static com.khartec.waltz.data.JooqUtilities.*;
 import static com.khartec.waltz.data.SearchUtilities.mkRelevancyComparator;
@@ -49,13 +56,25 @@ import static com.khartec.waltz.data.SearchUtilities.mkTerms;
 import static com.khartec.waltz.schema.tables.Application.APPLICATION;
 import static com.khartec.waltz.schema.tables.EntityAlias.ENTITY_ALIAS;
 import static java.util.Collections.emptyList;
+import static java.util.stream.Collectors.toList;
 
 @Repository
 public class ApplicationSearchDao implements SearchDao<Application> {
 
+    // aliases are held in entity_alias rather than on the application, so are indexed alongside it
+    private static class IndexedApplication {
+        private final Application app;
+        private final List<String> aliases;
+
+        private IndexedApplication(Application app, List<String> aliases) {
+            this.app = app;
+            this.aliases = aliases;
+        }
+    }
+
 
     private final DSLContext dsl;
-    private final FullTextSearch<Application> searcher;
+    private final InMemoryFullTextSearch<IndexedApplication> searcher;
     private final DBExecutorPoolInterface dbExecutorPool;
 
 
@@ -63,7 +82,7 @@ public class ApplicationSearchDao implements SearchDao<Application> {
     public ApplicationSearchDao(DSLContext dsl, DBExecutorPoolInterface dbExecutorPool) {
         this.dsl = dsl;
         this.dbExecutorPool = dbExecutorPool;
-        this.searcher = determineSearcher(dsl.dialect());
+        this.searcher = mkSearcher(dsl.dialect());
     }
 
 
@@ -77,6 +96,11 @@ public class ApplicationSearchDao implements SearchDao<Application> {
             return emptyList();
         }
 
+        if (searcher.isLoaded()) {
+            // the index covers names, asset codes and aliases so the database queries below are not needed
+            return map(searcher.searchFullText(dsl, options), ia -> ia.app);
+        }
+
         Condition lifecycleCondition = APPLICATION.ENTITY_LIFECYCLE_STATUS.in(options.entityLifecycleStatuses());
         Condition nameCondition = mkBasicTermSearch(APPLICATION.NAME, terms);
         Condition assetCodeCondition = mkStartsWithTermSearch(APPLICATION.ASSET_CODE, terms);
@@ -114,7 +138,9 @@ public class ApplicationSearchDao implements SearchDao<Application> {
                     .fetch(ApplicationDao.TO_DOMAIN_MAPPER),
                 mkRelevancyComparator(NameProvider::name, terms.get(0))));
 
-        Future<List<Application>> appsViaFullText = dbExecutorPool.submit(() -> searcher.searchFullText(dsl, options));
+        Future<List<Application>> appsViaFullText = dbExecutorPool.submit(() -> map(
+                searcher.searchFullText(dsl, options),
+                ia -> ia.app));
 
         Supplier<Set<Application>> result = Unchecked.supplier(() -> orderedUnion(
                 appsViaAssetCode.get(),
@@ -126,6 +152,78 @@ public class ApplicationSearchDao implements SearchDao<Application> {
     }
 
 
+    /**
+     * Refreshes the search index entry for the given application, should be
+     * called whenever an application (or its aliases) is registered or updated.
+     * @param appId  identifier of the application
+     */
+    public void reindex(long appId) {
+        Application app = dsl
+                .select(APPLICATION.fields())
+                .from(APPLICATION)
+                .where(APPLICATION.ID.eq(appId))
+                .fetchOne(ApplicationDao.TO_DOMAIN_MAPPER);
+
+        if (app == null) {
+            searcher.unindex(appId);
+        } else {
+            List<String> aliases = dsl
+                    .select(ENTITY_ALIAS.ALIAS)
+                    .from(ENTITY_ALIAS)
+                    .where(ENTITY_ALIAS.KIND.eq(EntityKind.APPLICATION.name()))
+                    .and(ENTITY_ALIAS.ID.eq(appId))
+                    .fetch(ENTITY_ALIAS.ALIAS);
+
+            searcher.index(new IndexedApplication(app, aliases));
+        }
+    }
+
+
+    private InMemoryFullTextSearch<IndexedApplication> mkSearcher(SQLDialect dialect) {
+        FullTextIndex<IndexedApplication> index = new FullTextIndex<>(
+                ia -> ia.app.id().get(),
+                ia -> ia.app.name(),
+                ia -> {
+                    List<String> otherText = newArrayList(
+                            ia.app.description(),
+                            ia.app.assetCode().map(ExternalIdValue::value).orElse(null),
+                            ia.app.parentAssetCode().map(ExternalIdValue::value).orElse(null));
+                    otherText.addAll(ia.aliases);
+                    return otherText;
+                });
+
+        FullTextSearch<Application> vendorSearch = determineSearcher(dialect);
+
+        return new InMemoryFullTextSearch<>(
+                "application",
+                index,
+                this::loadIndexedApplications,
+                (ia, options) -> options.entityLifecycleStatuses().contains(ia.app.entityLifecycleStatus()),
+                (ctx, options) -> map(
+                        vendorSearch.searchFullText(ctx, options),
+                        app -> new IndexedApplication(app, emptyList())));
+    }
+
+
+    private Collection<IndexedApplication> loadIndexedApplications(DSLContext ctx) {
+        Map<Long, List<String>> aliasesByAppId = ctx
+                .select(ENTITY_ALIAS.ID, ENTITY_ALIAS.ALIAS)
+                .from(ENTITY_ALIAS)
+                .where(ENTITY_ALIAS.KIND.eq(EntityKind.APPLICATION.name()))
+                .fetchGroups(ENTITY_ALIAS.ID, ENTITY_ALIAS.ALIAS);
+
+        return ctx
+                .select(APPLICATION.fields())
+                .from(APPLICATION)
+                .fetch(ApplicationDao.TO_DOMAIN_MAPPER)
+                .stream()
+                .map(app -> new IndexedApplication(
+                        app,
+                        aliasesByAppId.getOrDefault(app.id().get(), emptyList())))
+                .collect(toList());
+    }
+
+
     private FullTextSearch<Application> determineSearcher(SQLDialect dialect) {
 
         if (isPostgres(dialect)) {
@@ -21,6 +21,7 @@ package com.khartec.waltz.data.assessment_rating;
 
 import com.khartec.waltz.data.GenericSelector;
 import com.khartec.waltz.data.InlineSelectFieldFactory;
+import com.khartec.waltz.data.report_grid.ReportGridInstanceCache;
 import com.khartec.waltz.model.EntityKind;
 import com.khartec.waltz.model.EntityReference;
 import com.khartec.waltz.model.ImmutableEntityReference;
@@ -115,12 +116,18 @@ public class AssessmentRatingDao {
 
     private final DSLContext dsl;
 
+    // report grids show assessments, every write below invalidates them
+    private final ReportGridInstanceCache reportGridInstanceCache;
+
 
     @Autowired
-    public AssessmentRatingDao(DSLContext dsl) {
+    public AssessmentRatingDao(DSLContext dsl,
+                               ReportGridInstanceCache reportGridInstanceCache) {
         checkNotNull(dsl, "dsl cannot be null");
+        checkNotNull(reportGridInstanceCache, "reportGridInstanceCache cannot be null");
 
         this.dsl = dsl;
+        this.reportGridInstanceCache = reportGridInstanceCache;
     }
 
 
@@ -174,34 +181,44 @@ public class AssessmentRatingDao {
                 .and(ASSESSMENT_RATING.ENTITY_ID.eq(ref.id()))
                 .and(ASSESSMENT_RATING.ASSESSMENT_DEFINITION_ID.eq(command.assessmentDefinitionId())));
 
-        return isUpdate
+        boolean stored = isUpdate
                 ? dsl.executeUpdate(record) == 1
                 : dsl.executeInsert(record) == 1;
+        reportGridInstanceCache.invalidateAll();
+        return stored;
     }
 
 
     public boolean remove(RemoveAssessmentRatingCommand rating) {
-        return dsl.deleteFrom(ASSESSMENT_RATING)
+        boolean removed = dsl.deleteFrom(ASSESSMENT_RATING)
                 .where(ASSESSMENT_RATING.ENTITY_KIND.eq(rating.entityReference().kind().name()))
                 .and(ASSESSMENT_RATING.ENTITY_ID.eq(rating.entityReference().id()))
                 .and(ASSESSMENT_RATING.ASSESSMENT_DEFINITION_ID.eq(rating.assessmentDefinitionId()))
                 .execute() == 1;
+        reportGridInstanceCache.invalidateAll();
+        return removed;
     }
 
     public int add(Set<AssessmentRating> assessmentRatings) {
         Set<AssessmentRatingRecord> recordsToStore = mkAssessmentRatingRecords(assessmentRatings);
-         return dsl.batchInsert(recordsToStore).execute().length;
+         int added = dsl.batchInsert(recordsToStore).execute().length;
+         reportGridInstanceCache.invalidateAll();
+         return added;
 
     }
 
     public int update(Set<AssessmentRating> assessmentRatings) {
             Set<AssessmentRatingRecord> recordsToUpdate = mkAssessmentRatingRecords(assessmentRatings);
-            return dsl.batchUpdate(recordsToUpdate).execute().length;
+            int updated = dsl.batchUpdate(recordsToUpdate).execute().length;
+            reportGridInstanceCache.invalidateAll();
+            return updated;
     }
 
     public int remove(Set<AssessmentRating> assessmentRatings) {
         Set<AssessmentRatingRecord> ratingsToRemove = mkAssessmentRatingRecords(assessmentRatings);
-        return dsl.batchDelete(ratingsToRemove).execute().length;
+        int removed = dsl.batchDelete(ratingsToRemove).execute().length;
+        reportGridInstanceCache.invalidateAll();
+        return removed;
     }
 
 
@@ -25,6 +25,7 @@ import com.khartec.waltz.model.EntityReference;
 import com.khartec.waltz.model.attestation.AttestEntityCommand;
 import com.khartec.waltz.model.attestation.AttestationInstance;
 import com.khartec.waltz.model.attestation.ImmutableAttestationInstance;
+import com.khartec.waltz.schema.tables.records.AttestationInstanceRecipientRecord;
 import com.khartec.waltz.schema.tables.records.AttestationInstanceRecord;
 import org.jooq.*;
 import org.jooq.impl.DSL;
@@ -33,11 +34,12 @@ import org.springframework.stereotype.Repository;
 
 import java.sql.Timestamp;
 import java.time.LocalDateTime;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
 
 import static com.khartec.waltz.common.Checks.checkNotNull;
 import static com.khartec.waltz.common.ListUtilities.newArrayList;
+import static com.khartec.waltz.common.ListUtilities.partition;
+import static com.khartec.waltz.data.JooqUtilities.maxRowsPerInsert;
 import static com.khartec.waltz.schema.Tables.*;
 import static com.khartec.waltz.schema.tables.Application.APPLICATION;
 
@@ -45,6 +47,9 @@ import static com.khartec.waltz.schema.tables.Application.APPLICATION;
 @Repository
 public class AttestationInstanceDao {
 
+    // instances are inserted with 4 bound columns per row
+    private static final int INSERT_BATCH_SIZE = maxRowsPerInsert(4);
+
     private static final Field<String> ENTITY_NAME_FIELD = InlineSelectFieldFactory.mkNameField(
             ATTESTATION_INSTANCE.PARENT_ENTITY_ID,
             ATTESTATION_INSTANCE.PARENT_ENTITY_KIND,
@@ -234,4 +239,90 @@ public class AttestationInstanceDao {
                 .and(ATTESTATION_INSTANCE.ATTESTED_AT.isNotNull())
                 .fetch(TO_DOMAIN_MAPPER);
     }
-}
\ No newline at end of file
+
+
+    /**
+     * Creates instances, and their recipients, using multi-row inserts within a
+     * single transaction.
+     *
+     * @param recipientUserIdsByInstance  instances to create with the user ids of their recipients
+     * @return  map of given instance to its generated id
+     */
+    public Map<AttestationInstance, Long> createInstancesAndRecipients(Map<AttestationInstance, List<String>> recipientUserIdsByInstance) {
+        checkNotNull(recipientUserIdsByInstance, "recipientUserIdsByInstance cannot be null");
+
+        return dsl.transactionResult(ctx -> {
+            DSLContext tx = ctx.dsl();
+            Map<AttestationInstance, Long> idsByInstance = new HashMap<>();
+
+            for (List<AttestationInstance> batch : partition(recipientUserIdsByInstance.keySet(), INSERT_BATCH_SIZE)) {
+                InsertValuesStep4<AttestationInstanceRecord, Long, String, Long, String> insert = tx
+                        .insertInto(ATTESTATION_INSTANCE)
+                        .columns(ATTESTATION_INSTANCE.ATTESTATION_RUN_ID,
+                                ATTESTATION_INSTANCE.PARENT_ENTITY_KIND,
+                                ATTESTATION_INSTANCE.PARENT_ENTITY_ID,
+                                ATTESTATION_INSTANCE.ATTESTED_ENTITY_KIND);
+
+                Map<List<Object>, AttestationInstance> instancesByKey = new HashMap<>();
+                for (AttestationInstance instance : batch) {
+                    insert = insert.values(
+                            instance.attestationRunId(),
+                            instance.parentEntity().kind().name(),
+                            instance.parentEntity().id(),
+                            instance.attestedEntityKind().name());
+                    instancesByKey.put(
+                            mkInstanceKey(
+                                    instance.attestationRunId(),
+                                    instance.parentEntity().kind().name(),
+                                    instance.parentEntity().id(),
+                                    instance.attestedEntityKind().name()),
+                            instance);
+                }
+
+                // returned rows are not guaranteed to be in insertion order, so match on the inserted values
+                insert.returning(
+                            ATTESTATION_INSTANCE.ID,
+                            ATTESTATION_INSTANCE.ATTESTATION_RUN_ID,
+                            ATTESTATION_INSTANCE.PARENT_ENTITY_KIND,
+                            ATTESTATION_INSTANCE.PARENT_ENTITY_ID,
+                            ATTESTATION_INSTANCE.ATTESTED_ENTITY_KIND)
+                        .fetch()
+                        .forEach(r -> idsByInstance.put(
+                                instancesByKey.get(mkInstanceKey(
+                                        r.getAttestationRunId(),
+                                        r.getParentEntityKind(),
+                                        r.getParentEntityId(),
+                                        r.getAttestedEntityKind())),
+                                r.getId()));
+
+                List<AttestationInstanceRecipientRecord> recipientRecords = new ArrayList<>();
+                batch.forEach(instance -> {
+                    Long instanceId = checkNotNull(
+                            idsByInstance.get(instance),
+                            "Could not determine id of inserted attestation instance: %s",
+                            instance);
+                    recipientUserIdsByInstance
+                            .get(instance)
+                            .forEach(userId -> {
+                                AttestationInstanceRecipientRecord record = new AttestationInstanceRecipientRecord();
+                                record.setAttestationInstanceId(instanceId);
+                                record.setUserId(userId);
+                                recipientRecords.add(record);
+                            });
+                });
+
+                tx.batchInsert(recipientRecords).execute();
+            }
+
+            return idsByInstance;
+        });
+    }
+
+
+    private static List<Object> mkInstanceKey(Long runId,
+                                              String parentKind,
+                                              Long parentId,
+                                              String attestedKind) {
+        return Arrays.asList(runId, parentKind, parentId, attestedKind);
+    }
+}
@@ -19,6 +19,7 @@
 package com.khartec.waltz.data.change_initiative;
 
 import com.khartec.waltz.data.entity_hierarchy.AbstractIdSelectorFactory;
+import com.khartec.waltz.data.entity_hierarchy.EntityHierarchyIndexes;
 import com.khartec.waltz.data.orgunit.OrganisationalUnitIdSelectorFactory;
 import com.khartec.waltz.model.EntityKind;
 import com.khartec.waltz.model.EntityReference;
@@ -27,6 +28,8 @@ import org.jooq.Record1;
 import org.jooq.Select;
 import org.jooq.SelectConditionStep;
 import org.jooq.impl.DSL;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
 
 import static com.khartec.waltz.data.SelectorUtilities.ensureScopeIsExact;
 import static com.khartec.waltz.schema.tables.ChangeInitiative.CHANGE_INITIATIVE;
@@ -35,13 +38,22 @@ import static com.khartec.waltz.schema.tables.FlowDiagramEntity.FLOW_DIAGRAM_ENT
 import static com.khartec.waltz.schema.tables.Involvement.INVOLVEMENT;
 import static com.khartec.waltz.schema.tables.Person.PERSON;
 
+@Service
 public class ChangeInitiativeIdSelectorFactory extends AbstractIdSelectorFactory {
 
-    private final OrganisationalUnitIdSelectorFactory organisationalUnitIdSelectorFactory = new OrganisationalUnitIdSelectorFactory();
+    private final OrganisationalUnitIdSelectorFactory organisationalUnitIdSelectorFactory;
 
 
     public ChangeInitiativeIdSelectorFactory() {
         super(EntityKind.CHANGE_INITIATIVE);
+        this.organisationalUnitIdSelectorFactory = new OrganisationalUnitIdSelectorFactory();
+    }
+
+
+    @Autowired
+    public ChangeInitiativeIdSelectorFactory(EntityHierarchyIndexes entityHierarchyIndexes) {
+        super(EntityKind.CHANGE_INITIATIVE, entityHierarchyIndexes);
+        this.organisationalUnitIdSelectorFactory = new OrganisationalUnitIdSelectorFactory(entityHierarchyIndexes);
     }
 
 
@@ -18,7 +18,9 @@
 
 package com.khartec.waltz.data.change_initiative.search;
 
+import com.khartec.waltz.data.FullTextIndex;
 import com.khartec.waltz.data.FullTextSearch;
+import com.khartec.waltz.data.InMemoryFullTextSearch;
 import com.khartec.waltz.data.SearchDao;
 import com.khartec.waltz.data.UnsupportedSearcher;
 import com.khartec.waltz.data.change_initiative.ChangeInitiativeDao;
@@ -33,6 +35,7 @@ import org.springframework.stereotype.Repository;
 import java.util.ArrayList;
 import java.util.List;
 
+import static com.khartec.waltz.common.ListUtilities.newArrayList;
 import static com.khartec.waltz.common.SetUtilities.orderedUnion;
 import static com.khartec.waltz.data.JooqUtilities.*;
 import static com.khartec.waltz.data.SearchUtilities.mkTerms;
@@ -44,13 +47,13 @@ public class ChangeInitiativeSearchDao implements SearchDao<ChangeInitiative> {
 
 
     private final DSLContext dsl;
-    private final FullTextSearch<ChangeInitiative> searcher;
+    private final InMemoryFullTextSearch<ChangeInitiative> searcher;
 
 
     @Autowired
     public ChangeInitiativeSearchDao(DSLContext dsl) {
         this.dsl = dsl;
-        this.searcher = determineSearcher(dsl.dialect());
+        this.searcher = mkSearcher(dsl.dialect());
     }
 
 
@@ -76,6 +79,26 @@ public class ChangeInitiativeSearchDao implements SearchDao<ChangeInitiative> {
     }
 
 
+    private InMemoryFullTextSearch<ChangeInitiative> mkSearcher(SQLDialect dialect) {
+        FullTextIndex<ChangeInitiative> index = new FullTextIndex<>(
+                ci -> ci.id().get(),
+                ChangeInitiative::name,
+                ci -> newArrayList(
+                        ci.description(),
+                        ci.externalId().orElse(null)));
+
+        return new InMemoryFullTextSearch<>(
+                "change initiative",
+                index,
+                ctx -> ctx
+                        .select(CHANGE_INITIATIVE.fields())
+                        .from(CHANGE_INITIATIVE)
+                        .fetch(ChangeInitiativeDao.TO_DOMAIN_MAPPER),
+                (ci, options) -> true,
+                determineSearcher(dialect));
+    }
+
+
     private FullTextSearch<ChangeInitiative> determineSearcher(SQLDialect dialect) {
 
         if (isPostgres(dialect)) {
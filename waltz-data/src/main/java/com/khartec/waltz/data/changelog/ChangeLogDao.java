@@ -18,9 +18,12 @@
 
 package com.khartec.waltz.data.changelog;
 
+import com.khartec.waltz.common.RankedCounter;
 import com.khartec.waltz.model.*;
 import com.khartec.waltz.model.changelog.ChangeLog;
 import com.khartec.waltz.model.changelog.ImmutableChangeLog;
+import com.khartec.waltz.model.tally.ImmutableOrderedTally;
+import com.khartec.waltz.model.tally.ImmutableTally;
 import com.khartec.waltz.model.tally.OrderedTally;
 import com.khartec.waltz.model.tally.Tally;
 import com.khartec.waltz.schema.tables.AttestationInstance;
@@ -31,11 +34,17 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
 import java.sql.Timestamp;
-import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static com.khartec.waltz.common.Checks.checkNotEmpty;
 import static com.khartec.waltz.common.Checks.checkNotNull;
@@ -43,6 +52,7 @@ import static com.khartec.waltz.common.DateTimeUtilities.nowUtc;
 import static com.khartec.waltz.data.JooqUtilities.*;
 import static com.khartec.waltz.schema.Tables.PERSON;
 import static com.khartec.waltz.schema.tables.ChangeLog.CHANGE_LOG;
+import static org.jooq.lambda.tuple.Tuple.tuple;
 
 
 @Repository
@@ -50,6 +60,9 @@ public class ChangeLogDao {
 
     private final DSLContext dsl;
 
+    // loaded on first use, see getContributionCounts
+    private volatile ContributionCounts contributionCounts;
+
     public static final RecordMapper<? super Record, ChangeLog> TO_DOMAIN_MAPPER = r -> {
         ChangeLogRecord record = r.into(ChangeLogRecord.class);
 
@@ -59,6 +72,7 @@ public class ChangeLogDao {
                 .build();
 
         return ImmutableChangeLog.builder()
+                .id(record.getId())
                 .userId(record.getUserId())
                 .message(record.getMessage())
                 .severity(Severity.valueOf(record.getSeverity()))
@@ -70,6 +84,16 @@ public class ChangeLogDao {
     };
 
 
+    /**
+     * The order change log pages are read in, the id breaks ties between
+     * entries with the same timestamp so pages neither overlap nor skip.
+     */
+    public static final Comparator<ChangeLog> NEWEST_FIRST = Comparator
+            .comparing(ChangeLog::createdAt)
+            .thenComparing(c -> c.id().orElse(0L))
+            .reversed();
+
+
     public static SelectConditionStep<Record> mkUnattestedChangesQuery(EntityReference ref) {
         com.khartec.waltz.schema.tables.ChangeLog cl = com.khartec.waltz.schema.tables.ChangeLog.CHANGE_LOG.as("cl");
         AttestationInstance ai = AttestationInstance.ATTESTATION_INSTANCE.as("ai");
@@ -115,129 +139,169 @@ public class ChangeLogDao {
     }
 
 
+    /**
+     * Results are ordered newest first (by <code>created_at</code> then
+     * <code>id</code>).  To fetch the next page pass the id of the last
+     * entry of the previous page as <code>beforeId</code>.
+     */
     public List<ChangeLog> findByParentReference(EntityReference ref,
                                                  Optional<Date> date,
+                                                 Optional<Long> beforeId,
                                                  Optional<Integer> limit) {
         checkNotNull(ref, "ref must not be null");
 
-        Condition dateCondition = date
-                .map(d -> mkDateRangeCondition(CHANGE_LOG.CREATED_AT, d))
-                .orElse(DSL.trueCondition());
-        Integer limitValue = limit.orElse(Integer.MAX_VALUE);
-
-        return dsl.select()
-                .from(CHANGE_LOG)
-                .where(CHANGE_LOG.PARENT_ID.eq(ref.id()))
+        Condition condition = CHANGE_LOG.PARENT_ID.eq(ref.id())
                 .and(CHANGE_LOG.PARENT_KIND.eq(ref.kind().name()))
-                .and(dateCondition)
-                .orderBy(CHANGE_LOG.CREATED_AT.desc())
-                .limit(limitValue)
-                .fetch(TO_DOMAIN_MAPPER);
+                .and(mkDateCondition(date))
+                .and(mkBeforeCondition(beforeId));
+
+        return findPage(condition, limit);
     }
 
 
+    /**
+     * Entries about the person and entries made by the person, ordered and
+     * paged as for <code>findByParentReference</code>.  Each half is read
+     * as a separate page and the two are merged.
+     */
     public List<ChangeLog> findByPersonReference(EntityReference ref,
                                                  Optional<Date> date,
+                                                 Optional<Long> beforeId,
                                                  Optional<Integer> limit) {
         checkNotNull(ref, "ref must not be null");
 
-        Condition dateCondition = date
-                .map(d -> mkDateRangeCondition(CHANGE_LOG.CREATED_AT, d))
-                .orElse(DSL.trueCondition());
-
-        Integer limitValue = limit.orElse(Integer.MAX_VALUE);
+        Condition commonCondition = mkDateCondition(date)
+                .and(mkBeforeCondition(beforeId));
 
-        SelectConditionStep<Record> byParentRef = DSL
-                .select(CHANGE_LOG.fields())
-                .from(CHANGE_LOG)
-                .where(CHANGE_LOG.PARENT_ID.eq(ref.id()))
-                .and(dateCondition)
-                .and(CHANGE_LOG.PARENT_KIND.eq(ref.kind().name()));
+        List<ChangeLog> byParentRef = findPage(
+                CHANGE_LOG.PARENT_ID.eq(ref.id())
+                        .and(CHANGE_LOG.PARENT_KIND.eq(ref.kind().name()))
+                        .and(commonCondition),
+                limit);
 
-        SelectConditionStep<Record> byUserId = DSL
-                .select(CHANGE_LOG.fields())
-                .from(CHANGE_LOG)
-                .innerJoin(PERSON).on(PERSON.EMAIL.eq(CHANGE_LOG.USER_ID))
+        String userId = dsl
+                .select(PERSON.EMAIL)
+                .from(PERSON)
                 .where(PERSON.ID.eq(ref.id()))
-                .and(dateCondition);
+                .fetchOne(PERSON.EMAIL);
 
-        SelectOrderByStep<Record> union = byParentRef.unionAll(byUserId);
+        List<ChangeLog> byUserId = userId == null
+                ? Collections.emptyList()
+                : findPage(CHANGE_LOG.USER_ID.eq(userId).and(commonCondition), limit);
 
-        return dsl
-                .select(union.fields())
-                .from(union.asTable())
-                .orderBy(union.field("created_at").desc())
-                .limit(limitValue)
-                .fetch(TO_DOMAIN_MAPPER);
+        return mergePages(byParentRef, byUserId, limit);
     }
 
 
+    /**
+     * Ordered and paged as for <code>findByParentReference</code>.
+     */
     public List<ChangeLog> findByUser(String userName,
+                                      Optional<Long> beforeId,
                                       Optional<Integer> limit) {
         checkNotEmpty(userName, "Username cannot be empty");
 
-        return dsl.select()
-                .from(CHANGE_LOG)
-                .where(CHANGE_LOG.USER_ID.equalIgnoreCase(userName))
-                .orderBy(CHANGE_LOG.CREATED_AT.desc())
+        return findPage(
+                CHANGE_LOG.USER_ID.equalIgnoreCase(userName)
+                        .and(mkBeforeCondition(beforeId)),
+                limit);
+    }
+
+
+    /**
+     * Merges pages (each ordered newest first) into a single page, entries
+     * appearing in more than one page are only included once.
+     */
+    public static List<ChangeLog> mergePages(List<ChangeLog> a,
+                                             List<ChangeLog> b,
+                                             Optional<Integer> limit) {
+        Set<Long> seenIds = new HashSet<>();
+        return Stream
+                .concat(a.stream(), b.stream())
+                .sorted(NEWEST_FIRST)
+                .filter(c -> c.id().map(seenIds::add).orElse(true))
                 .limit(limit.orElse(Integer.MAX_VALUE))
-                .fetch(TO_DOMAIN_MAPPER);
+                .collect(Collectors.toList());
     }
 
 
     public List<OrderedTally<String>> getContributionLeaderBoard(int limit) {
-        return makeOrderedTallyQuery(
-                    dsl,
-                    CHANGE_LOG,
-                    CHANGE_LOG.USER_ID,
-                    DSL.trueCondition())
-                .orderBy(TALLY_COUNT_FIELD.desc())
-                .limit(limit)
-                .fetch(TO_ORDERED_STRING_TALLY);
-
+        return toOrderedTallies(getContributionCounts()
+                .allTime()
+                .findTop(limit));
     }
 
 
     public List<OrderedTally<String>> getContributionLeaderBoardLastMonth(int limit) {
-
-        LocalDateTime monthStart = LocalDateTime.of(nowUtc().getYear(), nowUtc().getMonth(), 1, 0, 0);
-        Condition condition = CHANGE_LOG.CREATED_AT.greaterThan(Timestamp.valueOf(monthStart));
-
-        return makeOrderedTallyQuery(
-                    dsl,
-                    CHANGE_LOG,
-                    CHANGE_LOG.USER_ID,
-                    condition)
-                .orderBy(TALLY_COUNT_FIELD.desc())
-                .limit(limit)
-                .fetch(TO_ORDERED_STRING_TALLY);
+        return toOrderedTallies(getContributionCounts()
+                .month(YearMonth.from(nowUtc()))
+                .findTop(limit));
     }
 
 
     public List<OrderedTally<String>> getRankingOfContributors() {
+        return getContributionLeaderBoard(Integer.MAX_VALUE);
+    }
+
 
-        return makeOrderedTallyQuery(
-                dsl,
-                CHANGE_LOG,
-                CHANGE_LOG.USER_ID,
-                DSL.trueCondition())
-                .fetch(TO_ORDERED_STRING_TALLY);
+    /**
+     * @param fromRank  one-based rank of the first contributor to return
+     * @param limit  maximum number of contributors to return
+     * @return  all-time contributors ranked from <code>fromRank</code> onwards
+     */
+    public List<OrderedTally<String>> findContributorsByRank(int fromRank, int limit) {
+        return toOrderedTallies(getContributionCounts()
+                .allTime()
+                .findRange(fromRank, limit));
+    }
+
+
+    public Optional<OrderedTally<String>> getContributionRank(String userId) {
+        return getContributionCounts()
+                .allTime()
+                .find(userId)
+                .map(ChangeLogDao::toOrderedTally);
+    }
+
+
+    public int countContributors() {
+        return getContributionCounts()
+                .allTime()
+                .size();
     }
 
 
     public List<Tally<String>> getContributionScoresForUsers(List<String> userIds) {
-        return calculateStringTallies(
-                dsl,
-                CHANGE_LOG,
-                CHANGE_LOG.USER_ID,
-                CHANGE_LOG.USER_ID.in(userIds));
+        RankedCounter<String> allTime = getContributionCounts().allTime();
+        return userIds
+                .stream()
+                .distinct()
+                .map(userId -> tuple(userId, allTime.getCount(userId)))
+                .filter(t -> t.v2 > 0)
+                .map(t -> ImmutableTally.<String>builder()
+                        .id(t.v1)
+                        .count(t.v2)
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+
+    /**
+     * Re-reads the contribution counts (if they have been loaded) to pick
+     * up entries written by other Waltz instances or loaded directly into
+     * the database.
+     */
+    public void reloadContributionCounts() {
+        if (contributionCounts != null) {
+            contributionCounts = loadContributionCounts();
+        }
     }
 
 
     public int write(ChangeLog changeLog) {
         checkNotNull(changeLog, "changeLog must not be null");
 
-        return dsl.insertInto(CHANGE_LOG)
+        int rc = dsl.insertInto(CHANGE_LOG)
                 .set(CHANGE_LOG.MESSAGE, changeLog.message())
                 .set(CHANGE_LOG.PARENT_ID, changeLog.parentReference().id())
                 .set(CHANGE_LOG.PARENT_KIND, changeLog.parentReference().kind().name())
@@ -247,6 +311,8 @@ public class ChangeLogDao {
                 .set(CHANGE_LOG.OPERATION, changeLog.operation().name())
                 .set(CHANGE_LOG.CREATED_AT, Timestamp.valueOf(changeLog.createdAt()))
                 .execute();
+        recordContributions(Collections.singletonList(changeLog));
+        return rc;
     }
 
 
@@ -265,7 +331,9 @@ public class ChangeLogDao {
                         .set(CHANGE_LOG.OPERATION, changeLog.operation().name())
                         .set(CHANGE_LOG.CREATED_AT, Timestamp.valueOf(changeLog.createdAt())))
                 .toArray(Query[]::new);
-        return dsl.batch(queries).execute();
+        int[] rcs = dsl.batch(queries).execute();
+        recordContributions(changeLogs);
+        return rcs;
     }
 
 
@@ -286,4 +354,125 @@ public class ChangeLogDao {
                 .fetch(TO_DOMAIN_MAPPER);
     }
 
+
+
+    // --- paging ---
+
+    private List<ChangeLog> findPage(Condition condition,
+                                     Optional<Integer> limit) {
+        return dsl
+                .select(CHANGE_LOG.fields())
+                .from(CHANGE_LOG)
+                .where(condition)
+                .orderBy(CHANGE_LOG.CREATED_AT.desc(), CHANGE_LOG.ID.desc())
+                .limit(limit.orElse(Integer.MAX_VALUE))
+                .fetch(TO_DOMAIN_MAPPER);
+    }
+
+
+    private static Condition mkDateCondition(Optional<Date> date) {
+        return date
+                .map(d -> mkDateRangeCondition(CHANGE_LOG.CREATED_AT, d))
+                .orElse(DSL.trueCondition());
+    }
+
+
+    /**
+     * Keyset condition selecting entries which come after the given entry
+     * (i.e. are older, or as old with a lower id).  If the entry cannot be
+     * found only the id is used.
+     */
+    private Condition mkBeforeCondition(Optional<Long> beforeId) {
+        return beforeId
+                .map(id -> {
+                    Timestamp createdAt = dsl
+                            .select(CHANGE_LOG.CREATED_AT)
+                            .from(CHANGE_LOG)
+                            .where(CHANGE_LOG.ID.eq(id))
+                            .fetchOne(CHANGE_LOG.CREATED_AT);
+
+                    return createdAt == null
+                            ? CHANGE_LOG.ID.lt(id)
+                            : CHANGE_LOG.CREATED_AT.lt(createdAt)
+                                .or(CHANGE_LOG.CREATED_AT.eq(createdAt).and(CHANGE_LOG.ID.lt(id)));
+                })
+                .orElse(DSL.trueCondition());
+    }
+
+
+    // --- contribution counts ---
+
+    private ContributionCounts getContributionCounts() {
+        ContributionCounts counts = contributionCounts;
+        return counts == null
+                ? loadContributionCountsIfNeeded()
+                : counts;
+    }
+
+
+    private synchronized ContributionCounts loadContributionCountsIfNeeded() {
+        if (contributionCounts == null) {
+            contributionCounts = loadContributionCounts();
+        }
+        return contributionCounts;
+    }
+
+
+    private ContributionCounts loadContributionCounts() {
+        YearMonth month = YearMonth.from(nowUtc());
+        Timestamp monthStart = Timestamp.valueOf(month.atDay(1).atStartOfDay());
+
+        return new ContributionCounts(
+                toRankedCounter(calculateStringTallies(
+                        dsl,
+                        CHANGE_LOG,
+                        CHANGE_LOG.USER_ID,
+                        DSL.trueCondition())),
+                month,
+                toRankedCounter(calculateStringTallies(
+                        dsl,
+                        CHANGE_LOG,
+                        CHANGE_LOG.USER_ID,
+                        CHANGE_LOG.CREATED_AT.greaterOrEqual(monthStart))));
+    }
+
+
+    /**
+     * Counts are only maintained once loaded, until then the load will
+     * include these entries.
+     */
+    private void recordContributions(Collection<ChangeLog> changeLogs) {
+        ContributionCounts counts = contributionCounts;
+        if (counts != null) {
+            changeLogs.forEach(c -> counts.record(c.userId(), c.createdAt()));
+        }
+    }
+
+
+    private static RankedCounter<String> toRankedCounter(List<Tally<String>> tallies) {
+        RankedCounter<String> counter = new RankedCounter<>();
+        tallies
+                .stream()
+                .filter(t -> t.id() != null)
+                .forEach(t -> counter.add(t.id(), (int) t.count()));
+        return counter;
+    }
+
+
+    private static List<OrderedTally<String>> toOrderedTallies(List<RankedCounter.Entry<String>> entries) {
+        return entries
+                .stream()
+                .map(ChangeLogDao::toOrderedTally)
+                .collect(Collectors.toList());
+    }
+
+
+    private static OrderedTally<String> toOrderedTally(RankedCounter.Entry<String> entry) {
+        return ImmutableOrderedTally.<String>builder()
+                .id(entry.key())
+                .count(entry.count())
+                .index(entry.rank())
+                .build();
+    }
+
 }
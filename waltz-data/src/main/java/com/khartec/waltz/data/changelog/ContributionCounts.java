@@ -0,0 +1,107 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package com.khartec.waltz.data.changelog;
+
+import com.khartec.waltz.common.RankedCounter;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+
+import static com.khartec.waltz.common.Checks.checkNotNull;
+
+
+/**
+ * Number of change log entries per user, all-time and for the most recent
+ * month, ranked so leader boards can be read without grouping the change
+ * log.  Counts are seeded from the database and then incremented as
+ * entries are written.
+ */
+class ContributionCounts {
+
+    private static final class MonthCounts {
+
+        private final YearMonth month;
+        private final RankedCounter<String> counter;
+
+
+        private MonthCounts(YearMonth month, RankedCounter<String> counter) {
+            this.month = month;
+            this.counter = counter;
+        }
+    }
+
+
+    private final RankedCounter<String> allTime;
+    private volatile MonthCounts latestMonth;
+
+
+    ContributionCounts(RankedCounter<String> allTime,
+                       YearMonth month,
+                       RankedCounter<String> monthCounter) {
+        checkNotNull(allTime, "allTime cannot be null");
+        checkNotNull(month, "month cannot be null");
+        checkNotNull(monthCounter, "monthCounter cannot be null");
+
+        this.allTime = allTime;
+        this.latestMonth = new MonthCounts(month, monthCounter);
+    }
+
+
+    void record(String userId, LocalDateTime createdAt) {
+        allTime.add(userId, 1);
+        monthCounter(YearMonth.from(createdAt), true).add(userId, 1);
+    }
+
+
+    RankedCounter<String> allTime() {
+        return allTime;
+    }
+
+
+    /**
+     * @param month  month of interest
+     * @return  counts for that month, empty if the month is not the most recent month seen
+     */
+    RankedCounter<String> month(YearMonth month) {
+        return monthCounter(month, false);
+    }
+
+
+    private RankedCounter<String> monthCounter(YearMonth month, boolean forWrite) {
+        MonthCounts current = latestMonth;
+        if (current.month.equals(month)) {
+            return current.counter;
+        }
+        if (month.isBefore(current.month)) {
+            // back-dated entry, older months are not held
+            return new RankedCounter<>();
+        }
+        if (! forWrite) {
+            // no entries yet in the new month
+            return new RankedCounter<>();
+        }
+        synchronized (this) {
+            if (latestMonth.month.isBefore(month)) {
+                latestMonth = new MonthCounts(month, new RankedCounter<>());
+            }
+            return monthCounter(month, true);
+        }
+    }
+
+}
@@ -20,16 +20,20 @@ package com.khartec.waltz.data.data_type;
 
 
 import com.khartec.waltz.data.entity_hierarchy.AbstractIdSelectorFactory;
+import com.khartec.waltz.data.entity_hierarchy.EntityHierarchyIndexes;
 import com.khartec.waltz.model.EntityKind;
 import com.khartec.waltz.model.IdSelectionOptions;
 import org.jooq.Record1;
 import org.jooq.Select;
 import org.jooq.impl.DSL;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
 
 import static com.khartec.waltz.data.SelectorUtilities.ensureScopeIsExact;
 import static com.khartec.waltz.schema.tables.LogicalFlowDecorator.LOGICAL_FLOW_DECORATOR;
 import static com.khartec.waltz.schema.tables.PhysicalSpecDataType.PHYSICAL_SPEC_DATA_TYPE;
 
+@Service
 public class DataTypeIdSelectorFactory extends AbstractIdSelectorFactory {
 
 
@@ -37,6 +41,12 @@ public class DataTypeIdSelectorFactory extends AbstractIdSelectorFactory {
         super(EntityKind.DATA_TYPE);
     }
 
+
+    @Autowired
+    public DataTypeIdSelectorFactory(EntityHierarchyIndexes entityHierarchyIndexes) {
+        super(EntityKind.DATA_TYPE, entityHierarchyIndexes);
+    }
+
     @Override
     protected Select<Record1<Long>> mkForOptions(IdSelectionOptions options) {
         switch (options.entityReference().kind()) {
@@ -19,6 +19,7 @@
 package com.khartec.waltz.data.datatype_decorator;
 
 import com.khartec.waltz.common.SetUtilities;
+import com.khartec.waltz.data.application.ApplicationIdSetCache;
 import com.khartec.waltz.model.EntityKind;
 import com.khartec.waltz.model.EntityLifecycleStatus;
 import com.khartec.waltz.model.EntityReference;
@@ -99,10 +100,16 @@ public class LogicalFlowDecoratorDao extends DataTypeDecoratorDao {
 
     private final DSLContext dsl;
 
+    // application id sets for data types are derived from decorators, adding or removing them invalidates the sets
+    private final ApplicationIdSetCache applicationIdSetCache;
+
     @Autowired
-    public LogicalFlowDecoratorDao(DSLContext dsl) {
+    public LogicalFlowDecoratorDao(DSLContext dsl,
+                                   ApplicationIdSetCache applicationIdSetCache) {
         checkNotNull(dsl, "dsl cannot be null");
+        checkNotNull(applicationIdSetCache, "applicationIdSetCache cannot be null");
         this.dsl = dsl;
+        this.applicationIdSetCache = applicationIdSetCache;
     }
 
 
@@ -197,13 +204,15 @@ public class LogicalFlowDecoratorDao extends DataTypeDecoratorDao {
 
     @Override
     public int removeDataTypes(EntityReference associatedEntityRef, Collection<Long> dataTypeIds) {
-        return dsl
+        int rc = dsl
                 .deleteFrom(LOGICAL_FLOW_DECORATOR)
                 .where(LOGICAL_FLOW_DECORATOR.LOGICAL_FLOW_ID.eq(associatedEntityRef.id()))
                 .and(LOGICAL_FLOW_DECORATOR.DECORATOR_ENTITY_KIND.eq(DATA_TYPE.name()))
                 .and(LOGICAL_FLOW_DECORATOR.DECORATOR_ENTITY_ID.in(dataTypeIds))
                         .and(LOGICAL_FLOW_DECORATOR.IS_READONLY.isFalse())
                 .execute();
+        applicationIdSetCache.invalidateAll();
+        return rc;
     }
 
 
@@ -222,7 +231,9 @@ public class LogicalFlowDecoratorDao extends DataTypeDecoratorDao {
                         .onDuplicateKeyUpdate()
                         .set(record))
                 .toArray(Query[]::new);
-        return dsl.batch(queries).execute();
+        int[] rcs = dsl.batch(queries).execute();
+        applicationIdSetCache.invalidateAll();
+        return rcs;
         // todo: in jOOQ 3.10.0 this can be written as follows #2979
         // return dsl.batchInsert(records).onDuplicateKeyIgnore().execute();
     }
@@ -18,6 +18,7 @@
 
 package com.khartec.waltz.data.datatype_decorator;
 
+import com.khartec.waltz.data.application.ApplicationIdSetCache;
 import com.khartec.waltz.model.EntityKind;
 import com.khartec.waltz.model.EntityLifecycleStatus;
 import com.khartec.waltz.model.EntityReference;
@@ -80,13 +81,17 @@ public class PhysicalSpecDecoratorDao extends DataTypeDecoratorDao {
 
 
     private final DSLContext dsl;
+    private final ApplicationIdSetCache applicationIdSetCache;
 
 
     @Autowired
-    public PhysicalSpecDecoratorDao(DSLContext dsl) {
+    public PhysicalSpecDecoratorDao(DSLContext dsl,
+                                    ApplicationIdSetCache applicationIdSetCache) {
         checkNotNull(dsl, "dsl cannot be null");
+        checkNotNull(applicationIdSetCache, "applicationIdSetCache cannot be null");
 
         this.dsl = dsl;
+        this.applicationIdSetCache = applicationIdSetCache;
     }
 
 
@@ -206,7 +211,7 @@ public class PhysicalSpecDecoratorDao extends DataTypeDecoratorDao {
 
 
     public int rippleDataTypesToLogicalFlows() {
-        return dsl.insertInto(LOGICAL_FLOW_DECORATOR)
+        int rc = dsl.insertInto(LOGICAL_FLOW_DECORATOR)
                 .select(DSL
                         .selectDistinct(
                                 PHYSICAL_FLOW.LOGICAL_FLOW_ID,
@@ -223,5 +228,8 @@ public class PhysicalSpecDecoratorDao extends DataTypeDecoratorDao {
                                 .and(LOGICAL_FLOW_DECORATOR.DECORATOR_ENTITY_ID.eq(PHYSICAL_SPEC_DATA_TYPE.DATA_TYPE_ID)))
                         .where(LOGICAL_FLOW_DECORATOR.LOGICAL_FLOW_ID.isNull()))
                 .execute();
+        // logical flows have gained data types, application id sets for data types are derived from them
+        applicationIdSetCache.invalidateAll();
+        return rc;
     }
 }
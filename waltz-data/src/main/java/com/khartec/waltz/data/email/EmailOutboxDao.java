@@ -0,0 +1,278 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+package com.khartec.waltz.data.email;
+
+import com.khartec.waltz.model.email.ImmutableOutboundEmail;
+import com.khartec.waltz.model.email.OutboundEmail;
+import com.khartec.waltz.model.email.OutboundEmailStatus;
+import com.khartec.waltz.schema.tables.records.EmailOutboxRecord;
+import org.jooq.*;
+import org.jooq.impl.DSL;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.IntStream;
+
+import static com.khartec.waltz.common.Checks.checkNotNull;
+import static com.khartec.waltz.common.DateTimeUtilities.nowUtcTimestamp;
+import static com.khartec.waltz.common.StringUtilities.join;
+import static com.khartec.waltz.common.StringUtilities.limit;
+import static com.khartec.waltz.common.StringUtilities.splitThenMap;
+import static com.khartec.waltz.schema.Tables.EMAIL_OUTBOX;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
+
+
+@Repository
+public class EmailOutboxDao {
+
+    private static final String RECIPIENT_SEPARATOR = ";";
+    private static final int MAX_ERROR_LENGTH = 4000;
+
+    private static final RecordMapper<Record, OutboundEmail> TO_DOMAIN_MAPPER = r -> {
+        EmailOutboxRecord record = r.into(EMAIL_OUTBOX);
+        return ImmutableOutboundEmail.builder()
+                .id(record.getId())
+                .subject(record.getSubject())
+                .body(record.getBody())
+                .recipients(splitThenMap(record.getRecipients(), RECIPIENT_SEPARATOR, String::trim))
+                .status(OutboundEmailStatus.valueOf(record.getStatus()))
+                .attempts(record.getAttempts())
+                .createdAt(record.getCreatedAt().toLocalDateTime())
+                .lastError(Optional.ofNullable(record.getLastError()))
+                .build();
+    };
+
+
+    private final DSLContext dsl;
+
+
+    @Autowired
+    public EmailOutboxDao(DSLContext dsl) {
+        checkNotNull(dsl, "dsl cannot be null");
+        this.dsl = dsl;
+    }
+
+
+    /**
+     * Adds an email to the outbox for each batch of recipients.
+     *
+     * @param subject  email subject
+     * @param body  email body (html)
+     * @param recipientBatches  batches of recipient email addresses, one email is queued per batch
+     * @return  number of emails queued
+     */
+    public int enqueue(String subject, String body, Collection<? extends Collection<String>> recipientBatches) {
+        checkNotNull(recipientBatches, "recipientBatches cannot be null");
+
+        Timestamp now = nowUtcTimestamp();
+
+        List<EmailOutboxRecord> records = recipientBatches
+                .stream()
+                .filter(batch -> ! batch.isEmpty())
+                .map(batch -> {
+                    EmailOutboxRecord record = dsl.newRecord(EMAIL_OUTBOX);
+                    record.setSubject(subject);
+                    record.setBody(body);
+                    record.setRecipients(join(batch, RECIPIENT_SEPARATOR));
+                    record.setStatus(OutboundEmailStatus.PENDING.name());
+                    record.setAttempts(0);
+                    record.setNextAttemptAt(now);
+                    record.setCreatedAt(now);
+                    return record;
+                })
+                .collect(toList());
+
+        return IntStream
+                .of(dsl.batchInsert(records).execute())
+                .sum();
+    }
+
+
+    /**
+     * Claims (marks as SENDING) up to <code>limit</code> pending emails which are due.
+     * Each row is claimed with a conditional update so concurrent dispatchers
+     * (e.g. on other nodes) never claim the same email.  The claim records
+     * when, and by which dispatcher, it was made, see <code>releaseExpiredClaims</code>.
+     *
+     * @param limit  maximum number of emails to claim
+     * @param claimedBy  identifies the claiming dispatcher
+     * @return  claimed emails, oldest first
+     */
+    public List<OutboundEmail> claimDue(int limit, String claimedBy) {
+        checkNotNull(claimedBy, "claimedBy cannot be null");
+
+        List<OutboundEmail> due = dsl
+                .select(EMAIL_OUTBOX.fields())
+                .from(EMAIL_OUTBOX)
+                .where(EMAIL_OUTBOX.STATUS.eq(OutboundEmailStatus.PENDING.name()))
+                .and(EMAIL_OUTBOX.NEXT_ATTEMPT_AT.le(nowUtcTimestamp()))
+                .orderBy(EMAIL_OUTBOX.NEXT_ATTEMPT_AT, EMAIL_OUTBOX.ID)
+                .limit(limit)
+                .fetch(TO_DOMAIN_MAPPER);
+
+        if (due.isEmpty()) {
+            return due;
+        }
+
+        Timestamp claimedAt = nowUtcTimestamp();
+
+        List<Query> claims = due
+                .stream()
+                .map(email -> dsl
+                        .update(EMAIL_OUTBOX)
+                        .set(EMAIL_OUTBOX.STATUS, OutboundEmailStatus.SENDING.name())
+                        .set(EMAIL_OUTBOX.CLAIMED_AT, claimedAt)
+                        .set(EMAIL_OUTBOX.CLAIMED_BY, claimedBy)
+                        .where(EMAIL_OUTBOX.ID.eq(email.id().get()))
+                        .and(EMAIL_OUTBOX.STATUS.eq(OutboundEmailStatus.PENDING.name())))
+                .collect(toList());
+
+        int[] claimCounts = dsl.batch(claims).execute();
+
+        return IntStream
+                .range(0, due.size())
+                .filter(i -> claimCounts[i] != 0)
+                .mapToObj(i -> ImmutableOutboundEmail
+                        .copyOf(due.get(i))
+                        .withStatus(OutboundEmailStatus.SENDING))
+                .collect(toList());
+    }
+
+
+    public int markSent(long id) {
+        return dsl
+                .update(EMAIL_OUTBOX)
+                .set(EMAIL_OUTBOX.STATUS, OutboundEmailStatus.SENT.name())
+                .set(EMAIL_OUTBOX.ATTEMPTS, EMAIL_OUTBOX.ATTEMPTS.plus(1))
+                .set(EMAIL_OUTBOX.SENT_AT, nowUtcTimestamp())
+                .setNull(EMAIL_OUTBOX.LAST_ERROR)
+                .where(EMAIL_OUTBOX.ID.eq(id))
+                .execute();
+    }
+
+
+    public int markForRetry(long id, String error, Timestamp nextAttemptAt) {
+        return dsl
+                .update(EMAIL_OUTBOX)
+                .set(EMAIL_OUTBOX.STATUS, OutboundEmailStatus.PENDING.name())
+                .set(EMAIL_OUTBOX.ATTEMPTS, EMAIL_OUTBOX.ATTEMPTS.plus(1))
+                .set(EMAIL_OUTBOX.NEXT_ATTEMPT_AT, nextAttemptAt)
+                .set(EMAIL_OUTBOX.LAST_ERROR, limit(error, MAX_ERROR_LENGTH))
+                .where(EMAIL_OUTBOX.ID.eq(id))
+                .execute();
+    }
+
+
+    public int markFailed(long id, String error) {
+        return dsl
+                .update(EMAIL_OUTBOX)
+                .set(EMAIL_OUTBOX.STATUS, OutboundEmailStatus.FAILED.name())
+                .set(EMAIL_OUTBOX.ATTEMPTS, EMAIL_OUTBOX.ATTEMPTS.plus(1))
+                .set(EMAIL_OUTBOX.LAST_ERROR, limit(error, MAX_ERROR_LENGTH))
+                .where(EMAIL_OUTBOX.ID.eq(id))
+                .execute();
+    }
+
+
+    /**
+     * Returns emails claimed before the cutoff, and still in the SENDING
+     * state, to the PENDING state.  Claims are held only for as long as it
+     * takes to send a batch so, given a cutoff well beyond that, these are
+     * emails abandoned by a dispatcher which stopped mid dispatch.  They
+     * may be sent twice.
+     *
+     * @param cutoff  claims made before this time are released
+     * @return  number of emails released
+     */
+    public int releaseExpiredClaims(Timestamp cutoff) {
+        checkNotNull(cutoff, "cutoff cannot be null");
+        return dsl
+                .update(EMAIL_OUTBOX)
+                .set(EMAIL_OUTBOX.STATUS, OutboundEmailStatus.PENDING.name())
+                .setNull(EMAIL_OUTBOX.CLAIMED_AT)
+                .setNull(EMAIL_OUTBOX.CLAIMED_BY)
+                .where(EMAIL_OUTBOX.STATUS.eq(OutboundEmailStatus.SENDING.name()))
+                .and(EMAIL_OUTBOX.CLAIMED_AT.lt(cutoff).or(EMAIL_OUTBOX.CLAIMED_AT.isNull()))
+                .execute();
+    }
+
+
+    /**
+     * Returns emails claimed by the given dispatcher, and still in the
+     * SENDING state, to the PENDING state.  Used by a dispatcher which is
+     * shutting down to hand back emails it has not sent.
+     *
+     * @param claimedBy  identifies the dispatcher
+     * @return  number of emails released
+     */
+    public int releaseClaims(String claimedBy) {
+        checkNotNull(claimedBy, "claimedBy cannot be null");
+        return dsl
+                .update(EMAIL_OUTBOX)
+                .set(EMAIL_OUTBOX.STATUS, OutboundEmailStatus.PENDING.name())
+                .setNull(EMAIL_OUTBOX.CLAIMED_AT)
+                .setNull(EMAIL_OUTBOX.CLAIMED_BY)
+                .where(EMAIL_OUTBOX.STATUS.eq(OutboundEmailStatus.SENDING.name()))
+                .and(EMAIL_OUTBOX.CLAIMED_BY.eq(claimedBy))
+                .execute();
+    }
+
+
+    /**
+     * @return  number of FAILED emails returned to the PENDING state, with their attempts reset
+     */
+    public int retryFailed() {
+        return dsl
+                .update(EMAIL_OUTBOX)
+                .set(EMAIL_OUTBOX.STATUS, OutboundEmailStatus.PENDING.name())
+                .set(EMAIL_OUTBOX.ATTEMPTS, 0)
+                .set(EMAIL_OUTBOX.NEXT_ATTEMPT_AT, nowUtcTimestamp())
+                .where(EMAIL_OUTBOX.STATUS.eq(OutboundEmailStatus.FAILED.name()))
+                .execute();
+    }
+
+
+    public int deleteSentBefore(Timestamp cutoff) {
+        return dsl
+                .deleteFrom(EMAIL_OUTBOX)
+                .where(EMAIL_OUTBOX.STATUS.eq(OutboundEmailStatus.SENT.name()))
+                .and(EMAIL_OUTBOX.SENT_AT.lt(cutoff))
+                .execute();
+    }
+
+
+    public Map<OutboundEmailStatus, Integer> countByStatus() {
+        Field<Integer> countField = DSL.count().as("count");
+        return dsl
+                .select(EMAIL_OUTBOX.STATUS, countField)
+                .from(EMAIL_OUTBOX)
+                .groupBy(EMAIL_OUTBOX.STATUS)
+                .fetch()
+                .stream()
+                .collect(toMap(
+                        r -> OutboundEmailStatus.valueOf(r.get(EMAIL_OUTBOX.STATUS)),
+                        r -> r.get(countField)));
+    }
+
+}
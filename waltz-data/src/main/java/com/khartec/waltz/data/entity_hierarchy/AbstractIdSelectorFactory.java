@@ -21,21 +21,38 @@ package com.khartec.waltz.data.entity_hierarchy;
 import com.khartec.waltz.common.Checks;
 import com.khartec.waltz.data.IdSelectorFactory;
 import com.khartec.waltz.model.EntityKind;
+import com.khartec.waltz.model.HierarchyQueryScope;
 import com.khartec.waltz.model.IdSelectionOptions;
 import org.jooq.Record1;
 import org.jooq.Select;
 import org.jooq.impl.DSL;
 
+import java.util.Optional;
+
+import static com.khartec.waltz.data.SelectorUtilities.lookupIdsViaHierarchyIndex;
+import static com.khartec.waltz.data.SelectorUtilities.mkInlineIdSelector;
 import static com.khartec.waltz.schema.tables.EntityHierarchy.ENTITY_HIERARCHY;
 
 public abstract class AbstractIdSelectorFactory implements IdSelectorFactory {
 
     private final EntityKind entityKind;
 
+    // absent when the factory is created directly (e.g. by extracts and jobs), hierarchies are then always walked in sql
+    private final Optional<EntityHierarchyIndexes> entityHierarchyIndexes;
+
 
     public AbstractIdSelectorFactory(EntityKind entityKind) {
         Checks.checkNotNull(entityKind, "entityKind cannot be null");
         this.entityKind = entityKind;
+        this.entityHierarchyIndexes = Optional.empty();
+    }
+
+
+    public AbstractIdSelectorFactory(EntityKind entityKind, EntityHierarchyIndexes entityHierarchyIndexes) {
+        Checks.checkNotNull(entityKind, "entityKind cannot be null");
+        Checks.checkNotNull(entityHierarchyIndexes, "entityHierarchyIndexes cannot be null");
+        this.entityKind = entityKind;
+        this.entityHierarchyIndexes = Optional.of(entityHierarchyIndexes);
     }
 
 
@@ -54,12 +71,20 @@ public abstract class AbstractIdSelectorFactory implements IdSelectorFactory {
 
 
     private Select<Record1<Long>> mkForSelf(IdSelectionOptions options) {
+        if (options.scope() == HierarchyQueryScope.EXACT) {
+            return DSL.select(DSL.val(options.entityReference().id()));
+        }
+
+        return lookupIdsViaHierarchyIndex(entityHierarchyIndexes, entityKind, options)
+                .map(ids -> mkInlineIdSelector(ids))
+                .orElseGet(() -> mkForSelfViaHierarchyTable(options));
+    }
+
+
+    private Select<Record1<Long>> mkForSelfViaHierarchyTable(IdSelectionOptions options) {
 
         Select<Record1<Long>> selector = null;
         switch (options.scope()) {
-            case EXACT:
-                selector = DSL.select(DSL.val(options.entityReference().id()));
-                break;
             case CHILDREN:
                 selector = DSL.select(ENTITY_HIERARCHY.ID)
                         .from(ENTITY_HIERARCHY)
@@ -18,6 +18,7 @@
 
 package com.khartec.waltz.data.entity_hierarchy;
 
+import com.khartec.waltz.common.hierarchy.Forest;
 import com.khartec.waltz.data.JooqUtilities;
 import com.khartec.waltz.model.EntityKind;
 import com.khartec.waltz.model.EntityReference;
@@ -38,12 +39,15 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.function.Function;
+import java.util.stream.LongStream;
 
 import static com.khartec.waltz.common.Checks.checkNotNull;
 import static com.khartec.waltz.common.ListUtilities.map;
 import static com.khartec.waltz.data.JooqUtilities.TO_STRING_TALLY;
 import static com.khartec.waltz.schema.tables.EntityHierarchy.ENTITY_HIERARCHY;
+import static java.util.stream.Collectors.toList;
 
 @Repository
 public class EntityHierarchyDao {
@@ -72,12 +76,15 @@ public class EntityHierarchyDao {
     };
 
     private final DSLContext dsl;
+    private final EntityHierarchyIndexes entityHierarchyIndexes;
 
     @Autowired
-    public EntityHierarchyDao(DSLContext dsl) {
+    public EntityHierarchyDao(DSLContext dsl, EntityHierarchyIndexes entityHierarchyIndexes) {
         checkNotNull(dsl, "dsl cannot be null");
+        checkNotNull(entityHierarchyIndexes, "entityHierarchyIndexes cannot be null");
 
         this.dsl = dsl;
+        this.entityHierarchyIndexes = entityHierarchyIndexes;
     }
 
 
@@ -118,13 +125,65 @@ public class EntityHierarchyDao {
     }
 
 
+    /**
+     * Builds (and registers) the resident index for the given kind.  Once
+     * registered the index is used by the id selector factories and
+     * <code>findDesendents</code> in preference to ENTITY_HIERARCHY.
+     *
+     * @param kind  entity kind of the hierarchy
+     * @param forest  complete forest for the kind
+     * @return  the newly registered index
+     */
+    public EntityHierarchyIndex indexHierarchy(EntityKind kind, Forest<?, Long> forest) {
+        checkNotNull(kind, "kind cannot be null");
+        checkNotNull(forest, "forest cannot be null");
+
+        EntityHierarchyIndex index = EntityHierarchyIndex.fromForest(kind, forest);
+        entityHierarchyIndexes.register(index);
+
+        LOG.info("Indexed hierarchy for kind: {}, (#{} nodes)", kind, index.size());
+        return index;
+    }
+
+
+    public Optional<EntityHierarchyIndex> findIndex(EntityKind kind) {
+        return entityHierarchyIndexes.find(kind);
+    }
+
+
+    /**
+     * Discards the resident index for the given kind, callers fall back to
+     * ENTITY_HIERARCHY until it is rebuilt.
+     */
+    public void removeIndex(EntityKind kind) {
+        entityHierarchyIndexes.unregister(kind);
+    }
+
+
     public List<EntityHierarchyItem> findDesendents(EntityReference ref) {
         checkNotNull(ref, "ref cannot be null");
-        return dsl
-                .selectFrom(ENTITY_HIERARCHY)
-                .where(ENTITY_HIERARCHY.KIND.eq(ref.kind().name()))
-                .and(ENTITY_HIERARCHY.ANCESTOR_ID.eq(ref.id()))
-                .fetch(TO_DOMAIN_MAPPER);
+        return findIndex(ref.kind())
+                .filter(index -> index.contains(ref.id()))
+                .map(index -> mkDescendantItems(index, ref))
+                .orElseGet(() -> dsl
+                        .selectFrom(ENTITY_HIERARCHY)
+                        .where(ENTITY_HIERARCHY.KIND.eq(ref.kind().name()))
+                        .and(ENTITY_HIERARCHY.ANCESTOR_ID.eq(ref.id()))
+                        .fetch(TO_DOMAIN_MAPPER));
+    }
+
+
+    private static List<EntityHierarchyItem> mkDescendantItems(EntityHierarchyIndex index, EntityReference ref) {
+        int level = index.getLevel(ref.id());
+        return LongStream
+                .of(index.findDescendantIds(ref.id()))
+                .mapToObj(id -> (EntityHierarchyItem) ImmutableEntityHierarchyItem.builder()
+                        .id(id)
+                        .kind(ref.kind())
+                        .parentId(ref.id())
+                        .level(level)
+                        .build())
+                .collect(toList());
     }
 
 }
@@ -0,0 +1,318 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package com.khartec.waltz.data.entity_hierarchy;
+
+import com.khartec.waltz.common.hierarchy.Forest;
+import com.khartec.waltz.common.hierarchy.Node;
+import com.khartec.waltz.model.EntityKind;
+
+import java.util.*;
+
+import static com.khartec.waltz.common.Checks.checkNotNull;
+import static com.khartec.waltz.common.Checks.checkTrue;
+
+
+/**
+ * Resident copy of the closure held in ENTITY_HIERARCHY for a single entity kind.
+ *
+ * For every node we keep two primitive arrays:
+ * <ul>
+ *     <li>ancestors - root first, ending with the node itself</li>
+ *     <li>descendants - starting with the node itself</li>
+ * </ul>
+ * The depth of a node (<code>ENTITY_HIERARCHY.LEVEL</code>) is therefore the
+ * length of its ancestor array.
+ *
+ * The index is copy-on-write.  Modifications (which are serialized on the
+ * index) build new maps off to the side and publish them with a single
+ * volatile write, so a reader sees either all of a change or none of it and
+ * never needs to synchronize.  Published maps and arrays are never mutated.
+ *
+ * The resident index for each kind is held by {@link EntityHierarchyIndexes}.
+ */
+public class EntityHierarchyIndex {
+
+    private static final long[] NO_IDS = new long[0];
+
+    private final EntityKind kind;
+    private volatile State state;
+
+
+    private EntityHierarchyIndex(EntityKind kind,
+                                 Map<Long, long[]> ancestorsById,
+                                 Map<Long, long[]> descendantsById) {
+        this.kind = kind;
+        this.state = new State(ancestorsById, descendantsById);
+    }
+
+
+    // --- construction ---
+
+    /**
+     * Builds an index by walking the given forest from its roots.  Nodes
+     * which cannot be reached from a root (i.e. are part of a cycle) are
+     * not indexed, mirroring the behaviour of
+     * <code>HierarchyUtilities.assignDepths</code>.
+     *
+     * @param kind  entity kind this index describes
+     * @param forest  forest, typically produced via <code>HierarchyUtilities.toForest</code>
+     * @param <T>  type of node data (ignored)
+     * @return  populated index
+     */
+    public static <T> EntityHierarchyIndex fromForest(EntityKind kind, Forest<T, Long> forest) {
+        checkNotNull(kind, "kind cannot be null");
+        checkNotNull(forest, "forest cannot be null");
+
+        int expectedSize = forest.getAllNodes().size();
+        Map<Long, long[]> ancestorsById = new HashMap<>(expectedSize);
+        Map<Long, long[]> descendantsById = new HashMap<>(expectedSize);
+
+        for (Node<T, Long> root : forest.getRootNodes()) {
+            indexNode(root, NO_IDS, ancestorsById, descendantsById);
+        }
+
+        return new EntityHierarchyIndex(kind, ancestorsById, descendantsById);
+    }
+
+
+    private static <T> long[] indexNode(Node<T, Long> node,
+                                        long[] parentAncestors,
+                                        Map<Long, long[]> ancestorsById,
+                                        Map<Long, long[]> descendantsById) {
+        long id = node.getId();
+        long[] ancestors = append(parentAncestors, id);
+        ancestorsById.put(id, ancestors);
+
+        List<long[]> childDescendants = new ArrayList<>(node.getChildren().size());
+        int total = 1;
+        for (Node<T, Long> child : node.getChildren()) {
+            long[] descendants = indexNode(child, ancestors, ancestorsById, descendantsById);
+            childDescendants.add(descendants);
+            total += descendants.length;
+        }
+
+        long[] descendants = new long[total];
+        descendants[0] = id;
+        int offset = 1;
+        for (long[] cd : childDescendants) {
+            System.arraycopy(cd, 0, descendants, offset, cd.length);
+            offset += cd.length;
+        }
+
+        descendantsById.put(id, descendants);
+        return descendants;
+    }
+
+
+    // --- queries ---
+
+    public EntityKind getKind() {
+        return kind;
+    }
+
+
+    public int size() {
+        return state.ancestorsById.size();
+    }
+
+
+    public boolean contains(long id) {
+        return state.ancestorsById.containsKey(id);
+    }
+
+
+    /**
+     * @param id  node identifier
+     * @return  ancestors of the node, root first and including the node itself,
+     * or an empty array if the node is not indexed
+     */
+    public long[] findAncestorIds(long id) {
+        return state.ancestorsById.getOrDefault(id, NO_IDS);
+    }
+
+
+    /**
+     * @param id  node identifier
+     * @return  descendants of the node (including the node itself), or an
+     * empty array if the node is not indexed
+     */
+    public long[] findDescendantIds(long id) {
+        return state.descendantsById.getOrDefault(id, NO_IDS);
+    }
+
+
+    /**
+     * @param id  node identifier
+     * @return  depth of node (roots are at level 1), or -1 if not indexed
+     */
+    public int getLevel(long id) {
+        long[] ancestors = state.ancestorsById.get(id);
+        return ancestors == null
+                ? -1
+                : ancestors.length;
+    }
+
+
+    // --- incremental maintenance ---
+
+    /**
+     * Registers a new leaf node beneath the given parent.
+     *
+     * @param id  identifier of the new node
+     * @param parentId  identifier of the parent, or null if the node is a new root
+     */
+    public synchronized void addNode(long id, Long parentId) {
+        checkTrue(! contains(id), "Node %d is already in the %s hierarchy", id, kind);
+
+        long[] parentAncestors = lookupParentAncestors(parentId);
+        long[] self = new long[] { id };
+
+        State current = state;
+        Map<Long, long[]> ancestorsById = new HashMap<>(current.ancestorsById);
+        Map<Long, long[]> descendantsById = new HashMap<>(current.descendantsById);
+
+        ancestorsById.put(id, append(parentAncestors, id));
+        descendantsById.put(id, self);
+
+        for (long ancestorId : parentAncestors) {
+            descendantsById.put(ancestorId, concat(current.descendantsById.get(ancestorId), self));
+        }
+
+        state = new State(ancestorsById, descendantsById);
+    }
+
+
+    /**
+     * Re-parents the given node (and therefore its entire subtree).  Only the
+     * entries for the moved subtree and the old and new ancestor chains are
+     * touched.
+     *
+     * @param id  identifier of the node to move
+     * @param newParentId  identifier of the new parent, or null to make the node a root
+     * @return  ids of all nodes whose ancestry has changed (i.e. the moved subtree)
+     */
+    public synchronized long[] moveNode(long id, Long newParentId) {
+        checkTrue(contains(id), "Node %d is not in the %s hierarchy", id, kind);
+
+        long[] oldAncestors = findAncestorIds(id);
+        long[] newParentAncestors = lookupParentAncestors(newParentId);
+        long[] subtree = findDescendantIds(id);
+
+        checkTrue(
+                newParentId == null || ! containsId(subtree, newParentId),
+                "Cannot move node %d beneath its own descendant %d",
+                id,
+                newParentId);
+
+        State current = state;
+        Map<Long, long[]> ancestorsById = new HashMap<>(current.ancestorsById);
+        Map<Long, long[]> descendantsById = new HashMap<>(current.descendantsById);
+
+        // the node's old ancestors (excluding itself) are the common prefix of every subtree ancestry
+        int oldPrefixLength = oldAncestors.length - 1;
+
+        for (long subtreeId : subtree) {
+            long[] currentAncestors = current.ancestorsById.get(subtreeId);
+            long[] relativeAncestry = Arrays.copyOfRange(currentAncestors, oldPrefixLength, currentAncestors.length);
+            ancestorsById.put(subtreeId, concat(newParentAncestors, relativeAncestry));
+        }
+
+        for (int i = 0; i < oldPrefixLength; i++) {
+            long ancestorId = oldAncestors[i];
+            descendantsById.put(ancestorId, minus(descendantsById.get(ancestorId), subtree));
+        }
+
+        for (long ancestorId : newParentAncestors) {
+            descendantsById.put(ancestorId, concat(descendantsById.get(ancestorId), subtree));
+        }
+
+        state = new State(ancestorsById, descendantsById);
+        return subtree;
+    }
+
+
+    // --- helpers ---
+
+    /**
+     * Published (and thereafter unmodified) ancestor and descendant maps.
+     */
+    private static final class State {
+
+        private final Map<Long, long[]> ancestorsById;
+        private final Map<Long, long[]> descendantsById;
+
+
+        private State(Map<Long, long[]> ancestorsById,
+                      Map<Long, long[]> descendantsById) {
+            this.ancestorsById = ancestorsById;
+            this.descendantsById = descendantsById;
+        }
+    }
+
+
+    private long[] lookupParentAncestors(Long parentId) {
+        if (parentId == null) {
+            return NO_IDS;
+        }
+        long[] parentAncestors = findAncestorIds(parentId);
+        checkTrue(parentAncestors.length > 0, "Parent %d is not in the %s hierarchy", parentId, kind);
+        return parentAncestors;
+    }
+
+
+    private static boolean containsId(long[] ids, long id) {
+        for (long candidate : ids) {
+            if (candidate == id) return true;
+        }
+        return false;
+    }
+
+
+    private static long[] append(long[] arr, long id) {
+        long[] result = Arrays.copyOf(arr, arr.length + 1);
+        result[arr.length] = id;
+        return result;
+    }
+
+
+    private static long[] concat(long[] a, long[] b) {
+        long[] result = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, result, a.length, b.length);
+        return result;
+    }
+
+
+    private static long[] minus(long[] arr, long[] toRemove) {
+        long[] sortedToRemove = Arrays.copyOf(toRemove, toRemove.length);
+        Arrays.sort(sortedToRemove);
+        return Arrays
+                .stream(arr)
+                .filter(id -> Arrays.binarySearch(sortedToRemove, id) < 0)
+                .toArray();
+    }
+
+
+    @Override
+    public String toString() {
+        return "EntityHierarchyIndex{" +
+                "kind=" + kind +
+                ", #nodes=" + size() +
+                '}';
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package com.khartec.waltz.data.entity_hierarchy;
+
+import com.khartec.waltz.model.EntityKind;
+import org.springframework.stereotype.Repository;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.khartec.waltz.common.Checks.checkNotNull;
+
+
+/**
+ * Holds the resident {@link EntityHierarchyIndex} for each indexed kind.
+ * Indexes are built (and rebuilt) by <code>EntityHierarchyDao.indexHierarchy</code>,
+ * readers (e.g. the id selector factories) should treat a missing index as
+ * a signal to fall back to ENTITY_HIERARCHY.
+ */
+@Repository
+public class EntityHierarchyIndexes {
+
+    private final Map<EntityKind, EntityHierarchyIndex> indexesByKind = new ConcurrentHashMap<>();
+
+
+    public Optional<EntityHierarchyIndex> find(EntityKind kind) {
+        checkNotNull(kind, "kind cannot be null");
+        return Optional.ofNullable(indexesByKind.get(kind));
+    }
+
+
+    public void register(EntityHierarchyIndex index) {
+        checkNotNull(index, "index cannot be null");
+        indexesByKind.put(index.getKind(), index);
+    }
+
+
+    public void unregister(EntityKind kind) {
+        checkNotNull(kind, "kind cannot be null");
+        indexesByKind.remove(kind);
+    }
+
+}
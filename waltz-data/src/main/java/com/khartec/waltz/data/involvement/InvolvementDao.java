@@ -21,8 +21,10 @@ package com.khartec.waltz.data.involvement;
 import com.khartec.waltz.data.GenericSelector;
 import com.khartec.waltz.data.InlineSelectFieldFactory;
 import com.khartec.waltz.data.application.ApplicationDao;
+import com.khartec.waltz.data.application.ApplicationIdSetCache;
 import com.khartec.waltz.data.end_user_app.EndUserAppDao;
 import com.khartec.waltz.data.person.PersonDao;
+import com.khartec.waltz.data.report_grid.ReportGridInstanceCache;
 import com.khartec.waltz.model.EntityKind;
 import com.khartec.waltz.model.EntityReference;
 import com.khartec.waltz.model.ImmutableEntityReference;
@@ -86,11 +88,24 @@ public class InvolvementDao {
     };
 
 
+    // application id sets (e.g. for people) are derived from involvements, every write below invalidates them
+    private final ApplicationIdSetCache applicationIdSetCache;
+
+    // report grids show involvements, every write below invalidates them
+    private final ReportGridInstanceCache reportGridInstanceCache;
+
+
     @Autowired
-    public InvolvementDao(DSLContext dsl) {
+    public InvolvementDao(DSLContext dsl,
+                          ApplicationIdSetCache applicationIdSetCache,
+                          ReportGridInstanceCache reportGridInstanceCache) {
         checkNotNull(dsl, "dsl must not be null");
+        checkNotNull(applicationIdSetCache, "applicationIdSetCache must not be null");
+        checkNotNull(reportGridInstanceCache, "reportGridInstanceCache must not be null");
 
         this.dsl = dsl;
+        this.applicationIdSetCache = applicationIdSetCache;
+        this.reportGridInstanceCache = reportGridInstanceCache;
     }
 
 
@@ -241,19 +256,25 @@ public class InvolvementDao {
 
 
     public int save(Involvement involvement) {
-        return ! exists(involvement)
+        int saved = ! exists(involvement)
                 ? dsl.executeInsert(TO_RECORD_MAPPER.apply(involvement))
                 : 0;
+        applicationIdSetCache.invalidateAll();
+        reportGridInstanceCache.invalidateAll();
+        return saved;
     }
 
 
     public int remove(Involvement involvement) {
 
-        return exists(involvement)
+        int removed = exists(involvement)
                 ? dsl.deleteFrom(INVOLVEMENT)
                     .where(involvementRecordSelectCondition(involvement))
                     .execute()
                 : 0;
+        applicationIdSetCache.invalidateAll();
+        reportGridInstanceCache.invalidateAll();
+        return removed;
     }
 
 
@@ -286,10 +307,13 @@ public class InvolvementDao {
      * @return count of removed involvements
      */
     public int deleteByGenericEntitySelector(GenericSelector genericSelector) {
-        return dsl
+        int removed = dsl
                 .deleteFrom(INVOLVEMENT)
                 .where(INVOLVEMENT.ENTITY_KIND.eq(genericSelector.kind().name()))
                 .and(INVOLVEMENT.ENTITY_ID.in(genericSelector.selector()))
                 .execute();
+        applicationIdSetCache.invalidateAll();
+        reportGridInstanceCache.invalidateAll();
+        return removed;
     }
 }
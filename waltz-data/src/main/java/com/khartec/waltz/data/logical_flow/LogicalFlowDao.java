@@ -19,6 +19,7 @@
 package com.khartec.waltz.data.logical_flow;
 
 import com.khartec.waltz.data.InlineSelectFieldFactory;
+import com.khartec.waltz.data.application.ApplicationIdSetCache;
 import com.khartec.waltz.model.*;
 import com.khartec.waltz.model.logical_flow.ImmutableLogicalFlow;
 import com.khartec.waltz.model.logical_flow.LogicalFlow;
@@ -127,11 +128,17 @@ public class LogicalFlowDao {
 
     private final DSLContext dsl;
 
+    // application id sets (e.g. for data types) are derived from flows, every write below invalidates them
+    private final ApplicationIdSetCache applicationIdSetCache;
+
 
     @Autowired
-    public LogicalFlowDao(DSLContext dsl) {
+    public LogicalFlowDao(DSLContext dsl,
+                          ApplicationIdSetCache applicationIdSetCache) {
         checkNotNull(dsl, "dsl must not be null");
+        checkNotNull(applicationIdSetCache, "applicationIdSetCache must not be null");
         this.dsl = dsl;
+        this.applicationIdSetCache = applicationIdSetCache;
     }
 
 
@@ -193,22 +200,26 @@ public class LogicalFlowDao {
 
 
     public int removeFlow(Long flowId, String user) {
-        return dsl.update(LOGICAL_FLOW)
+        int rc = dsl.update(LOGICAL_FLOW)
                 .set(LOGICAL_FLOW.ENTITY_LIFECYCLE_STATUS, REMOVED.name())
                 .set(LOGICAL_FLOW.IS_REMOVED, true)
                 .set(LOGICAL_FLOW.LAST_UPDATED_AT, Timestamp.valueOf(nowUtc()))
                 .set(LOGICAL_FLOW.LAST_UPDATED_BY, user)
                 .where(LOGICAL_FLOW.ID.eq(flowId))
                 .execute();
+        applicationIdSetCache.invalidateAll();
+        return rc;
     }
 
 
     public LogicalFlow addFlow(LogicalFlow flow) {
         if (restoreFlow(flow, flow.lastUpdatedBy())) {
+            applicationIdSetCache.invalidateAll();
             return getBySourceAndTarget(flow.source(), flow.target());
         } else {
             LogicalFlowRecord record = TO_RECORD_MAPPER.apply(flow, dsl);
             record.store();
+            applicationIdSetCache.invalidateAll();
             return ImmutableLogicalFlow
                     .copyOf(flow)
                     .withId(record.getId());
@@ -236,12 +247,12 @@ public class LogicalFlowDao {
 
         Map<Tuple2<EntityReference, EntityReference>, LogicalFlow> existing = removedFlows
                 .stream()
-                .collect(Collectors.toMap(f -> Tuple.tuple(f.source(), f.target()), f -> f));
+                .collect(Collectors.toMap(f -> mkEndpointsKey(f.source(), f.target()), f -> f));
 
 
         List<LogicalFlow> addedFlows = flows
                 .stream()
-                .filter(f -> !existing.containsKey(Tuple.tuple(f.source(), f.target())))
+                .filter(f -> !existing.containsKey(mkEndpointsKey(f.source(), f.target())))
                 .map(f -> {
                     LogicalFlowRecord record = TO_RECORD_MAPPER.apply(f, dsl);
                     record.store();
@@ -251,6 +262,7 @@ public class LogicalFlowDao {
                 })
                 .collect(toList());
 
+        applicationIdSetCache.invalidateAll();
 
         addedFlows.addAll(removedFlows);
         return addedFlows;
@@ -279,7 +291,7 @@ public class LogicalFlowDao {
 
 
     public boolean restoreFlow(long logicalFlowId, String username) {
-        return dsl
+        boolean restored = dsl
                 .update(LOGICAL_FLOW)
                 .set(LOGICAL_FLOW.ENTITY_LIFECYCLE_STATUS, ACTIVE.name())
                 .set(LOGICAL_FLOW.IS_REMOVED, false)
@@ -287,6 +299,8 @@ public class LogicalFlowDao {
                 .set(LOGICAL_FLOW.LAST_UPDATED_AT, Timestamp.valueOf(nowUtc()))
                 .where(LOGICAL_FLOW.ID.eq(logicalFlowId))
                 .execute() == 1;
+        applicationIdSetCache.invalidateAll();
+        return restored;
     }
 
 
@@ -347,12 +361,14 @@ public class LogicalFlowDao {
 
         LOG.info("Logical flow cleanupOrphans. The following flows will be marked as removed as one or both endpoints no longer exist: {}", flowIds);
 
-        return dsl
+        int rc = dsl
                 .update(LOGICAL_FLOW)
                 .set(LOGICAL_FLOW.ENTITY_LIFECYCLE_STATUS, REMOVED.name())
                 .set(LOGICAL_FLOW.IS_REMOVED, true)
                 .where(requiringCleanup)
                 .execute();
+        applicationIdSetCache.invalidateAll();
+        return rc;
     }
 
 
@@ -373,12 +389,14 @@ public class LogicalFlowDao {
 
         LOG.info("Logical flow cleanupSelfReferencingFlows. The following flows will be marked as removed as one or both endpoints no longer exist: {}", flowIds);
 
-        return dsl
+        int rc = dsl
                 .update(LOGICAL_FLOW)
                 .set(LOGICAL_FLOW.ENTITY_LIFECYCLE_STATUS, REMOVED.name())
                 .set(LOGICAL_FLOW.IS_REMOVED, true)
                 .where(requiringCleanup)
                 .execute();
+        applicationIdSetCache.invalidateAll();
+        return rc;
     }
 
     // -- HELPERS ---
@@ -414,6 +432,15 @@ public class LogicalFlowDao {
     }
 
 
+    // names are resolved when reading flows, so are ignored when matching
+    private static Tuple2<EntityReference, EntityReference> mkEndpointsKey(EntityReference source,
+                                                                           EntityReference target) {
+        return Tuple.tuple(
+                EntityReference.mkRef(source.kind(), source.id()),
+                EntityReference.mkRef(target.kind(), target.id()));
+    }
+
+
     private int restoreFlows(List<LogicalFlow> flows, String username) {
         if(flows.isEmpty()) {
             return 0;
@@ -0,0 +1,532 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package com.khartec.waltz.data.logical_flow;
+
+import com.khartec.waltz.model.EntityKind;
+import com.khartec.waltz.model.EntityReference;
+
+import java.util.*;
+
+import static com.khartec.waltz.common.Checks.checkNotNull;
+
+
+/**
+ * Resident, read-only, adjacency graph of active logical flows.
+ *
+ * Entities are interned to int node indexes (ordered by kind and then id so
+ * a node can be found by binary search within its kind's segment) and
+ * flows are held as parallel edge arrays.  Outbound and inbound adjacency
+ * are both held in compressed sparse row form:
+ * <code>outEdges[outStart[n] .. outStart[n + 1])</code> are the edges
+ * leaving node <code>n</code>.
+ *
+ * Graphs are never mutated, <code>withChanges</code> produces a new graph
+ * so readers can traverse a snapshot without synchronizing.
+ */
+public class LogicalFlowGraph {
+
+    public static final int UNLIMITED_DEPTH = Integer.MAX_VALUE;
+
+    private static final long[] NO_IDS = new long[0];
+
+    // nodes, ordered by kind then id
+    private final EntityKind[] nodeKinds;
+    private final long[] nodeIds;
+    private final Map<EntityKind, int[]> segmentByKind;  // [start, end)
+
+    // edges
+    private final long[] edgeFlowIds;
+    private final int[] edgeSources;
+    private final int[] edgeTargets;
+    private final long[][] edgeDataTypeIds;  // sorted
+
+    // adjacency (csr)
+    private final int[] outStart;
+    private final int[] outEdges;
+    private final int[] inStart;
+    private final int[] inEdges;
+
+
+    private LogicalFlowGraph(EntityKind[] nodeKinds,
+                             long[] nodeIds,
+                             Map<EntityKind, int[]> segmentByKind,
+                             long[] edgeFlowIds,
+                             int[] edgeSources,
+                             int[] edgeTargets,
+                             long[][] edgeDataTypeIds) {
+        this.nodeKinds = nodeKinds;
+        this.nodeIds = nodeIds;
+        this.segmentByKind = segmentByKind;
+        this.edgeFlowIds = edgeFlowIds;
+        this.edgeSources = edgeSources;
+        this.edgeTargets = edgeTargets;
+        this.edgeDataTypeIds = edgeDataTypeIds;
+
+        int nodeCount = nodeIds.length;
+        this.outStart = new int[nodeCount + 1];
+        this.inStart = new int[nodeCount + 1];
+        this.outEdges = new int[edgeFlowIds.length];
+        this.inEdges = new int[edgeFlowIds.length];
+        fillAdjacency(edgeSources, outStart, outEdges);
+        fillAdjacency(edgeTargets, inStart, inEdges);
+    }
+
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+
+    public static LogicalFlowGraph empty() {
+        return builder().build();
+    }
+
+
+    private static void fillAdjacency(int[] edgeEnds, int[] start, int[] edges) {
+        for (int end : edgeEnds) {
+            start[end + 1]++;
+        }
+        for (int i = 1; i < start.length; i++) {
+            start[i] += start[i - 1];
+        }
+        int[] cursor = Arrays.copyOf(start, start.length - 1);
+        for (int e = 0; e < edgeEnds.length; e++) {
+            edges[cursor[edgeEnds[e]]++] = e;
+        }
+    }
+
+
+    // --- queries ---
+
+    public int getNodeCount() {
+        return nodeIds.length;
+    }
+
+
+    public int getFlowCount() {
+        return edgeFlowIds.length;
+    }
+
+
+    public boolean contains(EntityReference ref) {
+        return indexOf(ref) >= 0;
+    }
+
+
+    /**
+     * Breadth first traversal from the given starting points.  Upstream
+     * traversals follow flows from target to source, downstream from source
+     * to target.
+     *
+     * @param startingPoints  entities to start from, unknown entities are ignored
+     * @param upstream  true to follow flows against their direction
+     * @param maxDepth  maximum number of hops, see <code>UNLIMITED_DEPTH</code>
+     * @param dataTypeIds  sorted data type ids, only flows with one of these data types are followed (empty means all flows)
+     * @return  ids of the flows traversed, nearest first
+     */
+    public long[] findLineageFlowIds(Collection<EntityReference> startingPoints,
+                                     boolean upstream,
+                                     int maxDepth,
+                                     long[] dataTypeIds) {
+        checkNotNull(startingPoints, "startingPoints cannot be null");
+        checkNotNull(dataTypeIds, "dataTypeIds cannot be null");
+
+        int[] start = upstream ? inStart : outStart;
+        int[] adjacentEdges = upstream ? inEdges : outEdges;
+        int[] otherEnds = upstream ? edgeSources : edgeTargets;
+
+        boolean[] visited = new boolean[nodeIds.length];
+        int[] frontier = new int[nodeIds.length];
+        int frontierSize = 0;
+        for (EntityReference ref : startingPoints) {
+            int node = indexOf(ref);
+            if (node >= 0 && ! visited[node]) {
+                visited[node] = true;
+                frontier[frontierSize++] = node;
+            }
+        }
+
+        long[] flowIds = new long[16];
+        int flowCount = 0;
+        int[] next = new int[nodeIds.length];
+
+        for (int depth = 0; depth < maxDepth && frontierSize > 0; depth++) {
+            int nextSize = 0;
+            for (int f = 0; f < frontierSize; f++) {
+                int node = frontier[f];
+                for (int a = start[node]; a < start[node + 1]; a++) {
+                    int edge = adjacentEdges[a];
+                    if (! hasAnyDataType(edge, dataTypeIds)) {
+                        continue;
+                    }
+                    if (flowCount == flowIds.length) {
+                        flowIds = Arrays.copyOf(flowIds, flowCount * 2);
+                    }
+                    flowIds[flowCount++] = edgeFlowIds[edge];
+
+                    int other = otherEnds[edge];
+                    if (! visited[other]) {
+                        visited[other] = true;
+                        next[nextSize++] = other;
+                    }
+                }
+            }
+            int[] swap = frontier;
+            frontier = next;
+            next = swap;
+            frontierSize = nextSize;
+        }
+
+        return Arrays.copyOf(flowIds, flowCount);
+    }
+
+
+    /**
+     * Finds a path with the fewest hops from source to target following flows
+     * in their direction.
+     *
+     * @param source  starting entity
+     * @param target  destination entity
+     * @param maxDepth  maximum number of hops, see <code>UNLIMITED_DEPTH</code>
+     * @param dataTypeIds  sorted data type ids, only flows with one of these data types are followed (empty means all flows)
+     * @return  ids of the flows making up the path (in order) or empty if there is no path (or source equals target)
+     */
+    public long[] findShortestPathFlowIds(EntityReference source,
+                                          EntityReference target,
+                                          int maxDepth,
+                                          long[] dataTypeIds) {
+        checkNotNull(source, "source cannot be null");
+        checkNotNull(target, "target cannot be null");
+        checkNotNull(dataTypeIds, "dataTypeIds cannot be null");
+
+        int sourceNode = indexOf(source);
+        int targetNode = indexOf(target);
+        if (sourceNode < 0 || targetNode < 0 || sourceNode == targetNode) {
+            return NO_IDS;
+        }
+
+        int[] viaEdge = new int[nodeIds.length];
+        Arrays.fill(viaEdge, -1);
+        boolean[] visited = new boolean[nodeIds.length];
+        visited[sourceNode] = true;
+
+        int[] queue = new int[nodeIds.length];
+        int[] depths = new int[nodeIds.length];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = sourceNode;
+
+        while (head < tail && ! visited[targetNode]) {
+            int node = queue[head++];
+            if (depths[node] >= maxDepth) {
+                continue;
+            }
+            for (int a = outStart[node]; a < outStart[node + 1]; a++) {
+                int edge = outEdges[a];
+                int other = edgeTargets[edge];
+                if (visited[other] || ! hasAnyDataType(edge, dataTypeIds)) {
+                    continue;
+                }
+                visited[other] = true;
+                viaEdge[other] = edge;
+                depths[other] = depths[node] + 1;
+                queue[tail++] = other;
+            }
+        }
+
+        if (! visited[targetNode]) {
+            return NO_IDS;
+        }
+
+        long[] path = new long[depths[targetNode]];
+        for (int node = targetNode, i = path.length - 1; node != sourceNode; node = edgeSources[viaEdge[node]], i--) {
+            path[i] = edgeFlowIds[viaEdge[node]];
+        }
+        return path;
+    }
+
+
+    /**
+     * @return true if target can be reached from source (an entity can always reach itself)
+     */
+    public boolean isReachable(EntityReference source,
+                               EntityReference target,
+                               int maxDepth,
+                               long[] dataTypeIds) {
+        return sameEntity(source, target)
+                || findShortestPathFlowIds(source, target, maxDepth, dataTypeIds).length > 0;
+    }
+
+
+    // --- maintenance ---
+
+    /**
+     * Creates a new graph where the given flows have been replaced.
+     *
+     * @param changedFlowIds  flows which have been added, removed or modified
+     * @param changedFlows  current (active) state of the changed flows, flows absent from here are removed
+     * @return  a new graph, this graph is unaffected
+     */
+    public LogicalFlowGraph withChanges(Set<Long> changedFlowIds, Builder changedFlows) {
+        checkNotNull(changedFlowIds, "changedFlowIds cannot be null");
+        checkNotNull(changedFlows, "changedFlows cannot be null");
+
+        Builder builder = new Builder();
+        for (int e = 0; e < edgeFlowIds.length; e++) {
+            if (! changedFlowIds.contains(edgeFlowIds[e])) {
+                builder.addFlow(
+                        edgeFlowIds[e],
+                        nodeKinds[edgeSources[e]],
+                        nodeIds[edgeSources[e]],
+                        nodeKinds[edgeTargets[e]],
+                        nodeIds[edgeTargets[e]],
+                        edgeDataTypeIds[e]);
+            }
+        }
+        builder.addAll(changedFlows);
+        return builder.build();
+    }
+
+
+    // --- helpers ---
+
+    private int indexOf(EntityReference ref) {
+        int[] segment = segmentByKind.get(ref.kind());
+        if (segment == null) {
+            return -1;
+        }
+        int pos = Arrays.binarySearch(nodeIds, segment[0], segment[1], ref.id());
+        return pos < 0 ? -1 : pos;
+    }
+
+
+    private boolean hasAnyDataType(int edge, long[] dataTypeIds) {
+        if (dataTypeIds.length == 0) {
+            return true;
+        }
+        for (long dataTypeId : edgeDataTypeIds[edge]) {
+            if (Arrays.binarySearch(dataTypeIds, dataTypeId) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+    private static boolean sameEntity(EntityReference a, EntityReference b) {
+        return a.kind() == b.kind() && a.id() == b.id();
+    }
+
+
+    @Override
+    public String toString() {
+        return "LogicalFlowGraph{" +
+                "#nodes=" + getNodeCount() +
+                ", #flows=" + getFlowCount() +
+                '}';
+    }
+
+
+    // --- builder ---
+
+    /**
+     * Accumulates flows in primitive arrays.  Consecutive calls for the same
+     * flow id are merged (accumulating data types) so flows can be streamed
+     * from a query joined to their data types and ordered by flow id.
+     */
+    public static class Builder {
+
+        private int size = 0;
+        private long[] flowIds = new long[64];
+        private EntityKind[] sourceKinds = new EntityKind[64];
+        private long[] sourceIds = new long[64];
+        private EntityKind[] targetKinds = new EntityKind[64];
+        private long[] targetIds = new long[64];
+        private long[][] dataTypeIds = new long[64][];
+
+
+        private Builder() {
+        }
+
+
+        public Builder addFlow(long flowId,
+                               EntityKind sourceKind,
+                               long sourceId,
+                               EntityKind targetKind,
+                               long targetId,
+                               Long dataTypeId) {
+            return addFlow(
+                    flowId,
+                    sourceKind,
+                    sourceId,
+                    targetKind,
+                    targetId,
+                    dataTypeId == null ? NO_IDS : new long[] { dataTypeId });
+        }
+
+
+        private Builder addFlow(long flowId,
+                                EntityKind sourceKind,
+                                long sourceId,
+                                EntityKind targetKind,
+                                long targetId,
+                                long[] flowDataTypeIds) {
+            checkNotNull(sourceKind, "sourceKind cannot be null");
+            checkNotNull(targetKind, "targetKind cannot be null");
+
+            if (size > 0 && flowIds[size - 1] == flowId) {
+                dataTypeIds[size - 1] = union(dataTypeIds[size - 1], flowDataTypeIds);
+                return this;
+            }
+
+            if (size == flowIds.length) {
+                grow();
+            }
+            flowIds[size] = flowId;
+            sourceKinds[size] = sourceKind;
+            sourceIds[size] = sourceId;
+            targetKinds[size] = targetKind;
+            targetIds[size] = targetId;
+            dataTypeIds[size] = flowDataTypeIds;
+            size++;
+            return this;
+        }
+
+
+        private void addAll(Builder other) {
+            for (int i = 0; i < other.size; i++) {
+                addFlow(
+                        other.flowIds[i],
+                        other.sourceKinds[i],
+                        other.sourceIds[i],
+                        other.targetKinds[i],
+                        other.targetIds[i],
+                        other.dataTypeIds[i]);
+            }
+        }
+
+
+        public LogicalFlowGraph build() {
+            // count entities per kind (with duplicates) so we can size the segments
+            Map<EntityKind, long[]> idsByKind = new EnumMap<>(EntityKind.class);
+            Map<EntityKind, Integer> countsByKind = new EnumMap<>(EntityKind.class);
+            for (int i = 0; i < size; i++) {
+                countsByKind.merge(sourceKinds[i], 1, Integer::sum);
+                countsByKind.merge(targetKinds[i], 1, Integer::sum);
+            }
+            countsByKind.forEach((kind, count) -> idsByKind.put(kind, new long[count]));
+
+            Map<EntityKind, Integer> fillByKind = new EnumMap<>(EntityKind.class);
+            for (int i = 0; i < size; i++) {
+                append(idsByKind, fillByKind, sourceKinds[i], sourceIds[i]);
+                append(idsByKind, fillByKind, targetKinds[i], targetIds[i]);
+            }
+
+            // sort and de-duplicate each kind, then lay the kinds out end to end
+            int nodeCount = 0;
+            for (Map.Entry<EntityKind, long[]> entry : idsByKind.entrySet()) {
+                long[] ids = entry.getValue();
+                Arrays.sort(ids);
+                long[] distinct = distinct(ids);
+                entry.setValue(distinct);
+                nodeCount += distinct.length;
+            }
+
+            EntityKind[] nodeKinds = new EntityKind[nodeCount];
+            long[] nodeIds = new long[nodeCount];
+            Map<EntityKind, int[]> segmentByKind = new EnumMap<>(EntityKind.class);
+            int offset = 0;
+            for (Map.Entry<EntityKind, long[]> entry : idsByKind.entrySet()) {
+                long[] ids = entry.getValue();
+                System.arraycopy(ids, 0, nodeIds, offset, ids.length);
+                Arrays.fill(nodeKinds, offset, offset + ids.length, entry.getKey());
+                segmentByKind.put(entry.getKey(), new int[] { offset, offset + ids.length });
+                offset += ids.length;
+            }
+
+            int[] edgeSources = new int[size];
+            int[] edgeTargets = new int[size];
+            for (int i = 0; i < size; i++) {
+                edgeSources[i] = lookup(nodeIds, segmentByKind, sourceKinds[i], sourceIds[i]);
+                edgeTargets[i] = lookup(nodeIds, segmentByKind, targetKinds[i], targetIds[i]);
+            }
+
+            return new LogicalFlowGraph(
+                    nodeKinds,
+                    nodeIds,
+                    segmentByKind,
+                    Arrays.copyOf(flowIds, size),
+                    edgeSources,
+                    edgeTargets,
+                    Arrays.copyOf(dataTypeIds, size));
+        }
+
+
+        private void grow() {
+            int capacity = flowIds.length * 2;
+            flowIds = Arrays.copyOf(flowIds, capacity);
+            sourceKinds = Arrays.copyOf(sourceKinds, capacity);
+            sourceIds = Arrays.copyOf(sourceIds, capacity);
+            targetKinds = Arrays.copyOf(targetKinds, capacity);
+            targetIds = Arrays.copyOf(targetIds, capacity);
+            dataTypeIds = Arrays.copyOf(dataTypeIds, capacity);
+        }
+
+
+        private static void append(Map<EntityKind, long[]> idsByKind,
+                                   Map<EntityKind, Integer> fillByKind,
+                                   EntityKind kind,
+                                   long id) {
+            int pos = fillByKind.merge(kind, 1, Integer::sum) - 1;
+            idsByKind.get(kind)[pos] = id;
+        }
+
+
+        private static int lookup(long[] nodeIds, Map<EntityKind, int[]> segmentByKind, EntityKind kind, long id) {
+            int[] segment = segmentByKind.get(kind);
+            return Arrays.binarySearch(nodeIds, segment[0], segment[1], id);
+        }
+
+
+        private static long[] distinct(long[] sorted) {
+            if (sorted.length == 0) {
+                return sorted;
+            }
+            int count = 1;
+            for (int i = 1; i < sorted.length; i++) {
+                if (sorted[i] != sorted[count - 1]) {
+                    sorted[count++] = sorted[i];
+                }
+            }
+            return Arrays.copyOf(sorted, count);
+        }
+
+
+        private static long[] union(long[] a, long[] b) {
+            if (b.length == 0) {
+                return a;
+            }
+            long[] result = Arrays.copyOf(a, a.length + b.length);
+            System.arraycopy(b, 0, result, a.length, b.length);
+            Arrays.sort(result);
+            return distinct(result);
+        }
+    }
+
+}
@@ -0,0 +1,110 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package com.khartec.waltz.data.logical_flow;
+
+import com.khartec.waltz.model.EntityKind;
+import org.jooq.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+
+import static com.khartec.waltz.common.Checks.checkNotNull;
+import static com.khartec.waltz.common.ListUtilities.partition;
+import static com.khartec.waltz.data.SelectorUtilities.MAX_INLINED_IDS;
+import static com.khartec.waltz.data.logical_flow.LogicalFlowDao.LOGICAL_NOT_REMOVED;
+import static com.khartec.waltz.schema.Tables.LOGICAL_FLOW_DECORATOR;
+import static com.khartec.waltz.schema.tables.LogicalFlow.LOGICAL_FLOW;
+
+
+/**
+ * Loads the (lightweight) rows needed to build a <code>LogicalFlowGraph</code>.
+ * Rows are streamed, ordered by flow id, so the builder can merge the
+ * data types of each flow without materializing <code>LogicalFlow</code>s.
+ */
+@Repository
+public class LogicalFlowGraphDao {
+
+    private final DSLContext dsl;
+
+
+    @Autowired
+    public LogicalFlowGraphDao(DSLContext dsl) {
+        checkNotNull(dsl, "dsl cannot be null");
+        this.dsl = dsl;
+    }
+
+
+    /**
+     * @return  builder populated with all active flows
+     */
+    public LogicalFlowGraph.Builder loadAllActive() {
+        return load(LOGICAL_NOT_REMOVED);
+    }
+
+
+    /**
+     * @param flowIds  flows to load
+     * @return  builder populated with those of the given flows which are active
+     */
+    public LogicalFlowGraph.Builder loadActiveByFlowIds(Collection<Long> flowIds) {
+        checkNotNull(flowIds, "flowIds cannot be null");
+        LogicalFlowGraph.Builder builder = LogicalFlowGraph.builder();
+        partition(flowIds, MAX_INLINED_IDS)
+                .forEach(chunk -> load(builder, LOGICAL_NOT_REMOVED.and(LOGICAL_FLOW.ID.in(chunk))));
+        return builder;
+    }
+
+
+    private LogicalFlowGraph.Builder load(Condition condition) {
+        return load(LogicalFlowGraph.builder(), condition);
+    }
+
+
+    private LogicalFlowGraph.Builder load(LogicalFlowGraph.Builder builder, Condition condition) {
+        SelectSeekStep1<Record6<Long, String, Long, String, Long, Long>, Long> qry = dsl
+                .select(LOGICAL_FLOW.ID,
+                        LOGICAL_FLOW.SOURCE_ENTITY_KIND,
+                        LOGICAL_FLOW.SOURCE_ENTITY_ID,
+                        LOGICAL_FLOW.TARGET_ENTITY_KIND,
+                        LOGICAL_FLOW.TARGET_ENTITY_ID,
+                        LOGICAL_FLOW_DECORATOR.DECORATOR_ENTITY_ID)
+                .from(LOGICAL_FLOW)
+                .leftJoin(LOGICAL_FLOW_DECORATOR)
+                .on(LOGICAL_FLOW_DECORATOR.LOGICAL_FLOW_ID.eq(LOGICAL_FLOW.ID)
+                        .and(LOGICAL_FLOW_DECORATOR.DECORATOR_ENTITY_KIND.eq(EntityKind.DATA_TYPE.name())))
+                .where(condition)
+                .orderBy(LOGICAL_FLOW.ID);
+
+        try (Cursor<Record6<Long, String, Long, String, Long, Long>> cursor = qry.fetchLazy()) {
+            for (Record6<Long, String, Long, String, Long, Long> r : cursor) {
+                builder.addFlow(
+                        r.value1(),
+                        EntityKind.valueOf(r.value2()),
+                        r.value3(),
+                        EntityKind.valueOf(r.value4()),
+                        r.value5(),
+                        r.value6());
+            }
+        }
+
+        return builder;
+    }
+
+}
@@ -21,15 +21,23 @@ package com.khartec.waltz.data.measurable;
 
 import com.khartec.waltz.data.IdSelectorFactory;
 import com.khartec.waltz.data.application.ApplicationIdSelectorFactory;
+import com.khartec.waltz.data.entity_hierarchy.EntityHierarchyIndexes;
 import com.khartec.waltz.data.orgunit.OrganisationalUnitIdSelectorFactory;
 import com.khartec.waltz.model.EntityKind;
 import com.khartec.waltz.model.HierarchyQueryScope;
 import com.khartec.waltz.model.IdSelectionOptions;
 import org.jooq.*;
 import org.jooq.impl.DSL;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
 
+import java.util.Optional;
+import java.util.stream.LongStream;
+
+import static com.khartec.waltz.common.Checks.checkNotNull;
 import static com.khartec.waltz.common.Checks.checkTrue;
 import static com.khartec.waltz.data.SelectorUtilities.ensureScopeIsExact;
+import static com.khartec.waltz.data.SelectorUtilities.lookupIdsViaHierarchyIndex;
 import static com.khartec.waltz.data.SelectorUtilities.mkApplicationConditions;
 import static com.khartec.waltz.schema.Tables.*;
 import static com.khartec.waltz.schema.tables.Application.APPLICATION;
@@ -37,10 +45,29 @@ import static com.khartec.waltz.schema.tables.EntityHierarchy.ENTITY_HIERARCHY;
 import static com.khartec.waltz.schema.tables.Measurable.MEASURABLE;
 import static com.khartec.waltz.schema.tables.MeasurableRating.MEASURABLE_RATING;
 import static java.lang.String.format;
+import static java.util.stream.Collectors.toList;
 
+@Service
 public class MeasurableIdSelectorFactory implements IdSelectorFactory {
 
-    private final OrganisationalUnitIdSelectorFactory orgUnitIdSelectorFactory = new OrganisationalUnitIdSelectorFactory();
+    private final OrganisationalUnitIdSelectorFactory orgUnitIdSelectorFactory;
+
+    // absent when the factory is created directly (e.g. by extracts and jobs), hierarchies are then always walked in sql
+    private final Optional<EntityHierarchyIndexes> entityHierarchyIndexes;
+
+
+    public MeasurableIdSelectorFactory() {
+        this.orgUnitIdSelectorFactory = new OrganisationalUnitIdSelectorFactory();
+        this.entityHierarchyIndexes = Optional.empty();
+    }
+
+
+    @Autowired
+    public MeasurableIdSelectorFactory(EntityHierarchyIndexes entityHierarchyIndexes) {
+        checkNotNull(entityHierarchyIndexes, "entityHierarchyIndexes cannot be null");
+        this.orgUnitIdSelectorFactory = new OrganisationalUnitIdSelectorFactory(entityHierarchyIndexes);
+        this.entityHierarchyIndexes = Optional.of(entityHierarchyIndexes);
+    }
 
 
     @Override
@@ -245,12 +272,24 @@ public class MeasurableIdSelectorFactory implements IdSelectorFactory {
 
 
     private Select<Record1<Long>> mkForMeasurable(IdSelectionOptions options) {
+        if (options.scope() == HierarchyQueryScope.EXACT) {
+            return DSL.select(DSL.val(options.entityReference().id()));
+        }
+
+        return lookupIdsViaHierarchyIndex(entityHierarchyIndexes, EntityKind.MEASURABLE, options)
+                .map(ids -> (Select<Record1<Long>>) DSL
+                        .select(MEASURABLE.ID)
+                        .from(MEASURABLE)
+                        .where(MEASURABLE.ID.in(LongStream.of(ids).boxed().collect(toList())))
+                        .and(mkLifecycleCondition(options)))
+                .orElseGet(() -> mkForMeasurableViaHierarchyTable(options));
+    }
+
+
+    private Select<Record1<Long>> mkForMeasurableViaHierarchyTable(IdSelectionOptions options) {
         Select<Record1<Long>> selector = null;
         final Condition isMeasurable = ENTITY_HIERARCHY.KIND.eq(EntityKind.MEASURABLE.name());
         switch (options.scope()) {
-            case EXACT:
-                selector = DSL.select(DSL.val(options.entityReference().id()));
-                break;
             case CHILDREN:
                 selector = DSL
                         .select(ENTITY_HIERARCHY.ID)
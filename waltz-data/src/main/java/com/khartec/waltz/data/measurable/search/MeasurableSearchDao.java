@@ -18,7 +18,9 @@
 
 package com.khartec.waltz.data.measurable.search;
 
+import com.khartec.waltz.data.FullTextIndex;
 import com.khartec.waltz.data.FullTextSearch;
+import com.khartec.waltz.data.InMemoryFullTextSearch;
 import com.khartec.waltz.data.SearchDao;
 import com.khartec.waltz.data.UnsupportedSearcher;
 import com.khartec.waltz.data.measurable.MeasurableDao;
@@ -33,6 +35,7 @@ import org.springframework.stereotype.Repository;
 import java.util.ArrayList;
 import java.util.List;
 
+import static com.khartec.waltz.common.ListUtilities.newArrayList;
 import static com.khartec.waltz.common.SetUtilities.orderedUnion;
 import static com.khartec.waltz.common.StringUtilities.lower;
 import static com.khartec.waltz.data.JooqUtilities.*;
@@ -45,13 +48,13 @@ public class MeasurableSearchDao implements SearchDao<Measurable> {
 
 
     private final DSLContext dsl;
-    private final FullTextSearch<Measurable> searcher;
+    private final InMemoryFullTextSearch<Measurable> searcher;
 
 
     @Autowired
     public MeasurableSearchDao(DSLContext dsl) {
         this.dsl = dsl;
-        this.searcher = determineSearcher(dsl.dialect());
+        this.searcher = mkSearcher(dsl.dialect());
     }
 
 
@@ -63,6 +66,11 @@ public class MeasurableSearchDao implements SearchDao<Measurable> {
             return emptyList();
         }
 
+        if (searcher.isLoaded()) {
+            // the index covers names and external ids so the database queries below are not needed
+            return searcher.searchFullText(dsl, options);
+        }
+
         Condition externalIdCondition = mkStartsWithTermSearch(MEASURABLE.EXTERNAL_ID, terms);
         Condition nameCondition = mkBasicTermSearch(MEASURABLE.NAME, terms);
 
@@ -95,6 +103,54 @@ public class MeasurableSearchDao implements SearchDao<Measurable> {
     }
 
 
+    /**
+     * Refreshes the search index entry for the given measurable, should be
+     * called whenever a measurable is created or updated.
+     * @param measurableId  identifier of the measurable
+     */
+    public void reindex(long measurableId) {
+        Measurable measurable = dsl
+                .select(MEASURABLE.fields())
+                .from(MEASURABLE)
+                .where(MEASURABLE.ID.eq(measurableId))
+                .fetchOne(MeasurableDao.TO_DOMAIN_MAPPER);
+
+        if (measurable == null) {
+            searcher.unindex(measurableId);
+        } else {
+            searcher.index(measurable);
+        }
+    }
+
+
+    /**
+     * Forces the search index to be reloaded, for use after bulk changes.
+     */
+    public void invalidateIndex() {
+        searcher.invalidate();
+    }
+
+
+    private InMemoryFullTextSearch<Measurable> mkSearcher(SQLDialect dialect) {
+        FullTextIndex<Measurable> index = new FullTextIndex<>(
+                m -> m.id().get(),
+                Measurable::name,
+                m -> newArrayList(
+                        m.description(),
+                        m.externalId().orElse(null)));
+
+        return new InMemoryFullTextSearch<>(
+                "measurable",
+                index,
+                ctx -> ctx
+                        .select(MEASURABLE.fields())
+                        .from(MEASURABLE)
+                        .fetch(MeasurableDao.TO_DOMAIN_MAPPER),
+                (m, options) -> options.entityLifecycleStatuses().contains(m.entityLifecycleStatus()),
+                determineSearcher(dialect));
+    }
+
+
     private FullTextSearch<Measurable> determineSearcher(SQLDialect dialect) {
 
         if (isPostgres(dialect)) {
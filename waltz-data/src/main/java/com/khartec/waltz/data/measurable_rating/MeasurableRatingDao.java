@@ -20,6 +20,8 @@ package com.khartec.waltz.data.measurable_rating;
 
 import com.khartec.waltz.common.exception.NotFoundException;
 import com.khartec.waltz.data.InlineSelectFieldFactory;
+import com.khartec.waltz.data.application.ApplicationIdSetCache;
+import com.khartec.waltz.data.report_grid.ReportGridInstanceCache;
 import com.khartec.waltz.model.*;
 import com.khartec.waltz.model.measurable_rating.ImmutableMeasurableRating;
 import com.khartec.waltz.model.measurable_rating.MeasurableRating;
@@ -121,11 +123,23 @@ public class MeasurableRatingDao {
 
     private final DSLContext dsl;
 
+    // application id sets (e.g. for measurables) are derived from ratings, adding or removing a rating invalidates them
+    private final ApplicationIdSetCache applicationIdSetCache;
+
+    // report grids show ratings, every write below invalidates them
+    private final ReportGridInstanceCache reportGridInstanceCache;
+
 
     @Autowired
-    public MeasurableRatingDao(DSLContext dsl) {
+    public MeasurableRatingDao(DSLContext dsl,
+                               ApplicationIdSetCache applicationIdSetCache,
+                               ReportGridInstanceCache reportGridInstanceCache) {
         checkNotNull(dsl, "dsl cannot be null");
+        checkNotNull(applicationIdSetCache, "applicationIdSetCache cannot be null");
+        checkNotNull(reportGridInstanceCache, "reportGridInstanceCache cannot be null");
         this.dsl = dsl;
+        this.applicationIdSetCache = applicationIdSetCache;
+        this.reportGridInstanceCache = reportGridInstanceCache;
     }
 
     // --- save
@@ -162,6 +176,7 @@ public class MeasurableRatingDao {
                         "MR_SAVE_UPDATE_FAILED",
                         format("Could find writable associated record to update for rating: %s", command));
             };
+            reportGridInstanceCache.invalidateAll();
             return Operation.UPDATE;
         } else {
             if (dsl.executeInsert(record) != 1) {
@@ -169,6 +184,8 @@ public class MeasurableRatingDao {
                         "MR_SAVE_INSERT_FAILED",
                         format("Creation of record failed: %s", command));
             };
+            applicationIdSetCache.invalidateAll();
+            reportGridInstanceCache.invalidateAll();
             return Operation.ADD;
         }
     }
@@ -176,11 +193,14 @@ public class MeasurableRatingDao {
 
     public boolean remove(RemoveMeasurableRatingCommand command) {
         EntityReference ref = command.entityReference();
-        return dsl.deleteFrom(MEASURABLE_RATING)
+        boolean removed = dsl.deleteFrom(MEASURABLE_RATING)
                 .where(MEASURABLE_RATING.ENTITY_KIND.eq(ref.kind().name()))
                 .and(MEASURABLE_RATING.ENTITY_ID.eq(ref.id()))
                 .and(MEASURABLE_RATING.MEASURABLE_ID.eq(command.measurableId()))
                 .execute() == 1;
+        applicationIdSetCache.invalidateAll();
+        reportGridInstanceCache.invalidateAll();
+        return removed;
     }
 
 
@@ -280,10 +300,13 @@ public class MeasurableRatingDao {
 
 
     public int deleteByMeasurableIdSelector(Select<Record1<Long>> selector) {
-        return dsl
+        int removed = dsl
                 .deleteFrom(MEASURABLE_RATING)
                 .where(MEASURABLE_RATING.MEASURABLE_ID.in(selector))
                 .execute();
+        applicationIdSetCache.invalidateAll();
+        reportGridInstanceCache.invalidateAll();
+        return removed;
     }
 
 
@@ -293,12 +316,15 @@ public class MeasurableRatingDao {
                 .from(MEASURABLE)
                 .where(MEASURABLE.MEASURABLE_CATEGORY_ID.eq(categoryId));
 
-        return dsl
+        int removed = dsl
                 .deleteFrom(MEASURABLE_RATING)
                 .where(MEASURABLE_RATING.ENTITY_ID.eq(ref.id()))
                 .and(MEASURABLE_RATING.ENTITY_KIND.eq(ref.kind().name()))
                 .and(MEASURABLE_RATING.MEASURABLE_ID.in(relevantMeasurableIds))
                 .execute();
+        applicationIdSetCache.invalidateAll();
+        reportGridInstanceCache.invalidateAll();
+        return removed;
     }
 
 
@@ -20,11 +20,15 @@ package com.khartec.waltz.data.orgunit;
 
 
 import com.khartec.waltz.data.entity_hierarchy.AbstractIdSelectorFactory;
+import com.khartec.waltz.data.entity_hierarchy.EntityHierarchyIndexes;
 import com.khartec.waltz.model.EntityKind;
 import com.khartec.waltz.model.IdSelectionOptions;
 import org.jooq.Record1;
 import org.jooq.Select;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
 
+@Service
 public class OrganisationalUnitIdSelectorFactory extends AbstractIdSelectorFactory {
 
 
@@ -32,6 +36,12 @@ public class OrganisationalUnitIdSelectorFactory extends AbstractIdSelectorFacto
         super(EntityKind.ORG_UNIT);
     }
 
+
+    @Autowired
+    public OrganisationalUnitIdSelectorFactory(EntityHierarchyIndexes entityHierarchyIndexes) {
+        super(EntityKind.ORG_UNIT, entityHierarchyIndexes);
+    }
+
     @Override
     protected Select<Record1<Long>> mkForOptions(IdSelectionOptions options) {
         throw new UnsupportedOperationException("Cannot create orgUnit selector from kind: "+options.entityReference().kind());
@@ -18,7 +18,9 @@
 
 package com.khartec.waltz.data.orgunit.search;
 
+import com.khartec.waltz.data.FullTextIndex;
 import com.khartec.waltz.data.FullTextSearch;
+import com.khartec.waltz.data.InMemoryFullTextSearch;
 import com.khartec.waltz.data.SearchDao;
 import com.khartec.waltz.data.UnsupportedSearcher;
 import com.khartec.waltz.data.orgunit.OrganisationalUnitDao;
@@ -34,6 +36,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
+import static com.khartec.waltz.common.ListUtilities.newArrayList;
 import static com.khartec.waltz.common.SetUtilities.orderedUnion;
 import static com.khartec.waltz.data.JooqUtilities.*;
 import static com.khartec.waltz.data.SearchUtilities.mkTerms;
@@ -43,13 +46,13 @@ import static com.khartec.waltz.schema.tables.OrganisationalUnit.ORGANISATIONAL_
 public class OrganisationalUnitSearchDao implements SearchDao<OrganisationalUnit> {
 
     private final DSLContext dsl;
-    private final FullTextSearch<OrganisationalUnit> searcher;
+    private final InMemoryFullTextSearch<OrganisationalUnit> searcher;
 
 
     @Autowired
     public OrganisationalUnitSearchDao(DSLContext dsl) {
         this.dsl = dsl;
-        this.searcher = determineSearcher(dsl.dialect());
+        this.searcher = mkSearcher(dsl.dialect());
     }
 
 
@@ -76,6 +79,26 @@ public class OrganisationalUnitSearchDao implements SearchDao<OrganisationalUnit
     }
 
 
+    private InMemoryFullTextSearch<OrganisationalUnit> mkSearcher(SQLDialect dialect) {
+        FullTextIndex<OrganisationalUnit> index = new FullTextIndex<>(
+                ou -> ou.id().get(),
+                OrganisationalUnit::name,
+                ou -> newArrayList(
+                        ou.description(),
+                        ou.externalId().orElse(null)));
+
+        return new InMemoryFullTextSearch<>(
+                "org unit",
+                index,
+                ctx -> ctx
+                        .select(ORGANISATIONAL_UNIT.fields())
+                        .from(ORGANISATIONAL_UNIT)
+                        .fetch(OrganisationalUnitDao.TO_DOMAIN_MAPPER),
+                (ou, options) -> true,
+                determineSearcher(dialect));
+    }
+
+
     private FullTextSearch<OrganisationalUnit> determineSearcher(SQLDialect dialect) {
 
         if (isPostgres(dialect)) {
@@ -18,6 +18,7 @@
 
 package com.khartec.waltz.data.person;
 
+import com.khartec.waltz.data.application.ApplicationIdSetCache;
 import com.khartec.waltz.model.person.ImmutablePerson;
 import com.khartec.waltz.model.person.Person;
 import com.khartec.waltz.model.person.PersonKind;
@@ -69,12 +70,18 @@ public class PersonDao {
     };
     private final DSLContext dsl;
 
+    // application id sets for people are derived from (non removed) people, every write below invalidates them
+    private final ApplicationIdSetCache applicationIdSetCache;
+
 
     @Autowired
-    public PersonDao(DSLContext dsl) {
+    public PersonDao(DSLContext dsl,
+                     ApplicationIdSetCache applicationIdSetCache) {
         checkNotNull(dsl, "dsl must not be null");
+        checkNotNull(applicationIdSetCache, "applicationIdSetCache must not be null");
 
         this.dsl = dsl;
+        this.applicationIdSetCache = applicationIdSetCache;
     }
 
 
@@ -181,7 +188,9 @@ public class PersonDao {
                 })
                 .collect(Collectors.toList());
 
-        return dsl.batchInsert(records).execute();
+        int[] result = dsl.batchInsert(records).execute();
+        applicationIdSetCache.invalidateAll();
+        return result;
     }
 
 
@@ -19,6 +19,8 @@
 package com.khartec.waltz.data.person.search;
 
 import com.khartec.waltz.data.DBExecutorPoolInterface;
+import com.khartec.waltz.data.FullTextIndex;
+import com.khartec.waltz.data.InMemoryFullTextSearch;
 import com.khartec.waltz.data.SearchDao;
 import com.khartec.waltz.data.person.PersonDao;
 import com.khartec.waltz.model.EntityLifecycleStatus;
@@ -36,6 +38,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.Future;
 
+import static com.khartec.waltz.common.ListUtilities.newArrayList;
 import static com.khartec.waltz.common.SetUtilities.orderedUnion;
 import static com.khartec.waltz.data.JooqUtilities.mkBasicTermSearch;
 import static com.khartec.waltz.data.SearchUtilities.mkTerms;
@@ -46,6 +49,7 @@ public class PersonSearchDao implements SearchDao<Person> {
 
     private final DSLContext dsl;
     private final DBExecutorPoolInterface dbExecutorPool;
+    private final InMemoryFullTextSearch<Person> searcher = mkSearcher();
 
 
     @Autowired
@@ -62,23 +66,65 @@ public class PersonSearchDao implements SearchDao<Person> {
             return Collections.emptyList();
         }
 
+        if (searcher.isLoaded()) {
+            // the index covers display names and emails so the database queries below are not needed
+            return searcher.searchFullText(dsl, options);
+        }
+
         Condition displayNameCondition = mkBasicTermSearch(PERSON.DISPLAY_NAME, terms);
 
         Future<List<Person>> peopleViaEmail = dbExecutorPool.submit(() -> executeWithCondition(options, PERSON.EMAIL.startsWithIgnoreCase(options.searchQuery())));
         Future<List<Person>> peopleViaName = dbExecutorPool.submit(() -> executeWithCondition(options, displayNameCondition));
+        List<Person> peopleViaFullText = searcher.searchFullText(dsl, options);
 
         return new ArrayList<>(Unchecked.supplier(() ->
                 orderedUnion(
                         peopleViaEmail.get(),
-                        peopleViaName.get()))
+                        peopleViaName.get(),
+                        peopleViaFullText))
                 .get());
     }
 
 
-    private List<Person> executeWithCondition(EntitySearchOptions options, Condition condition) {
-        boolean showRemoved = options
+    /**
+     * Forces the search index to be reloaded, for use after bulk changes
+     * (e.g. loading people).
+     */
+    public void invalidateIndex() {
+        searcher.invalidate();
+    }
+
+
+    private static InMemoryFullTextSearch<Person> mkSearcher() {
+        FullTextIndex<Person> index = new FullTextIndex<>(
+                p -> p.id().get(),
+                Person::displayName,
+                p -> newArrayList(
+                        p.email(),
+                        p.title().orElse(null),
+                        p.departmentName().orElse(null)));
+
+        return new InMemoryFullTextSearch<>(
+                "person",
+                index,
+                ctx -> ctx
+                        .select(PERSON.fields())
+                        .from(PERSON)
+                        .fetch(PersonDao.personMapper),
+                (p, options) -> ! p.isRemoved() || showRemoved(options),
+                (ctx, options) -> Collections.emptyList());
+    }
+
+
+    private static boolean showRemoved(EntitySearchOptions options) {
+        return options
                 .entityLifecycleStatuses()
                 .contains(EntityLifecycleStatus.REMOVED);
+    }
+
+
+    private List<Person> executeWithCondition(EntitySearchOptions options, Condition condition) {
+        boolean showRemoved = showRemoved(options);
 
         Condition maybeFilterRemoved = showRemoved
                 ? DSL.trueCondition()  // match anything
@@ -31,13 +31,21 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
 import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import static com.khartec.waltz.common.Checks.checkFalse;
 import static com.khartec.waltz.common.Checks.checkNotNull;
 import static com.khartec.waltz.common.DateTimeUtilities.nowUtcTimestamp;
 import static com.khartec.waltz.common.EnumUtilities.readEnum;
+import static com.khartec.waltz.common.ListUtilities.partition;
+import static com.khartec.waltz.common.SetUtilities.map;
 import static com.khartec.waltz.data.logical_flow.LogicalFlowDao.LOGICAL_NOT_REMOVED;
 import static com.khartec.waltz.model.EntityLifecycleStatus.REMOVED;
 import static com.khartec.waltz.schema.Tables.EXTERNAL_IDENTIFIER;
@@ -52,6 +60,8 @@ public class PhysicalFlowDao {
 
     private static final Logger LOG = LoggerFactory.getLogger(PhysicalFlowDao.class);
 
+    private static final int BULK_QUERY_CHUNK_SIZE = 500;
+
     public static final RecordMapper<Record, PhysicalFlow> TO_DOMAIN_MAPPER = r -> {
         PhysicalFlowRecord record = r.into(PHYSICAL_FLOW);
         return ImmutablePhysicalFlow.builder()
@@ -211,6 +221,108 @@ public class PhysicalFlowDao {
     }
 
 
+    /**
+     * Bulk equivalent of <code>getByParsedFlow</code>.  Candidate flows are
+     * fetched in chunks (restricted by source and specification name) and
+     * matched to the parsed flows in memory.
+     *
+     * @param flows  parsed (and fully resolved) flows
+     * @return  map of parsed flow to an existing, matching, physical flow.
+     * Parsed flows without a match are not included.
+     */
+    public Map<PhysicalFlowParsed, PhysicalFlow> findByParsedFlows(Collection<PhysicalFlowParsed> flows) {
+        checkNotNull(flows, "flows cannot be null");
+
+        Map<PhysicalFlowParsed, PhysicalFlow> result = new HashMap<>();
+
+        for (List<PhysicalFlowParsed> chunk : partition(flows, BULK_QUERY_CHUNK_SIZE)) {
+            Set<Long> sourceIds = map(chunk, f -> f.source().id());
+            Set<String> names = map(chunk, PhysicalFlowParsed::name);
+
+            Map<List<Object>, PhysicalFlow> candidatesByKey = new HashMap<>();
+            dsl.select(PHYSICAL_FLOW.fields())
+                    .select(LOGICAL_FLOW.SOURCE_ENTITY_KIND,
+                            LOGICAL_FLOW.SOURCE_ENTITY_ID,
+                            LOGICAL_FLOW.TARGET_ENTITY_KIND,
+                            LOGICAL_FLOW.TARGET_ENTITY_ID,
+                            PHYSICAL_SPECIFICATION.OWNING_ENTITY_KIND,
+                            PHYSICAL_SPECIFICATION.OWNING_ENTITY_ID,
+                            PHYSICAL_SPECIFICATION.FORMAT,
+                            PHYSICAL_SPECIFICATION.NAME,
+                            PHYSICAL_SPEC_DATA_TYPE.DATA_TYPE_ID)
+                    .from(PHYSICAL_FLOW)
+                    .join(LOGICAL_FLOW).on(LOGICAL_FLOW.ID.eq(PHYSICAL_FLOW.LOGICAL_FLOW_ID))
+                    .join(PHYSICAL_SPECIFICATION).on(PHYSICAL_SPECIFICATION.ID.eq(PHYSICAL_FLOW.SPECIFICATION_ID))
+                    .join(PHYSICAL_SPEC_DATA_TYPE).on(PHYSICAL_SPEC_DATA_TYPE.SPECIFICATION_ID.eq(PHYSICAL_SPECIFICATION.ID))
+                    .where(LOGICAL_FLOW.SOURCE_ENTITY_ID.in(sourceIds))
+                    .and(PHYSICAL_SPECIFICATION.NAME.in(names))
+                    .and(LOGICAL_FLOW.ENTITY_LIFECYCLE_STATUS.ne(REMOVED.name()))
+                    .and(PHYSICAL_SPECIFICATION.IS_REMOVED.isFalse())
+                    .and(PHYSICAL_FLOW_NOT_REMOVED)
+                    .fetch()
+                    .forEach(r -> candidatesByKey.putIfAbsent(
+                            mkParsedFlowKey(
+                                    r.get(LOGICAL_FLOW.SOURCE_ENTITY_KIND),
+                                    r.get(LOGICAL_FLOW.SOURCE_ENTITY_ID),
+                                    r.get(LOGICAL_FLOW.TARGET_ENTITY_KIND),
+                                    r.get(LOGICAL_FLOW.TARGET_ENTITY_ID),
+                                    r.get(PHYSICAL_SPECIFICATION.OWNING_ENTITY_KIND),
+                                    r.get(PHYSICAL_SPECIFICATION.OWNING_ENTITY_ID),
+                                    r.get(PHYSICAL_SPECIFICATION.FORMAT),
+                                    r.get(PHYSICAL_SPECIFICATION.NAME),
+                                    r.get(PHYSICAL_SPEC_DATA_TYPE.DATA_TYPE_ID),
+                                    r.get(PHYSICAL_FLOW.BASIS_OFFSET),
+                                    r.get(PHYSICAL_FLOW.FREQUENCY),
+                                    r.get(PHYSICAL_FLOW.TRANSPORT),
+                                    r.get(PHYSICAL_FLOW.CRITICALITY)),
+                            TO_DOMAIN_MAPPER.map(r)));
+
+            chunk.forEach(f -> {
+                PhysicalFlow match = candidatesByKey.get(mkParsedFlowKey(
+                        f.source().kind().name(),
+                        f.source().id(),
+                        f.target().kind().name(),
+                        f.target().id(),
+                        f.owner().kind().name(),
+                        f.owner().id(),
+                        f.format().name(),
+                        f.name(),
+                        f.dataType().id(),
+                        f.basisOffset(),
+                        f.frequency().name(),
+                        f.transport().value(),
+                        f.criticality().name()));
+                if (match != null) {
+                    result.put(f, match);
+                }
+            });
+        }
+
+        return result;
+    }
+
+
+    /**
+     * Returns all flows (including removed flows) for the given logical flows.
+     * Used, with <code>matchPhysicalFlow</code> semantics, when bulk matching.
+     *
+     * @param logicalFlowIds  logical flow identifiers
+     * @return  physical flows belonging to any of the logical flows
+     */
+    public List<PhysicalFlow> findAllByLogicalFlowIds(Collection<Long> logicalFlowIds) {
+        checkNotNull(logicalFlowIds, "logicalFlowIds cannot be null");
+
+        return partition(logicalFlowIds, BULK_QUERY_CHUNK_SIZE)
+                .stream()
+                .flatMap(ids -> dsl
+                        .selectFrom(PHYSICAL_FLOW)
+                        .where(PHYSICAL_FLOW.LOGICAL_FLOW_ID.in(ids))
+                        .fetch(TO_DOMAIN_MAPPER)
+                        .stream())
+                .collect(Collectors.toList());
+    }
+
+
     /**
      * Returns the flow in the database that matches the parameter based on all attributes except possibly id
      *
@@ -262,6 +374,34 @@ public class PhysicalFlowDao {
         checkNotNull(flow, "flow cannot be null");
         checkFalse(flow.id().isPresent(), "flow must not have an id");
 
+        PhysicalFlowRecord record = mkRecord(flow);
+        record.store();
+        return record.getId();
+    }
+
+
+    /**
+     * Inserts the given flows using a single jdbc batch.  Identifiers are
+     * not returned, callers needing them should re-query (e.g. via
+     * <code>findAllByLogicalFlowIds</code>).
+     *
+     * @param flows  new flows (without ids)
+     * @return  insert counts
+     */
+    public int[] createAll(Collection<PhysicalFlow> flows) {
+        checkNotNull(flows, "flows cannot be null");
+        flows.forEach(f -> checkFalse(f.id().isPresent(), "flow must not have an id"));
+
+        List<PhysicalFlowRecord> records = flows
+                .stream()
+                .map(this::mkRecord)
+                .collect(Collectors.toList());
+
+        return dsl.batchInsert(records).execute();
+    }
+
+
+    private PhysicalFlowRecord mkRecord(PhysicalFlow flow) {
         PhysicalFlowRecord record = dsl.newRecord(PHYSICAL_FLOW);
         record.setLogicalFlowId(flow.logicalFlowId());
 
@@ -284,8 +424,7 @@ public class PhysicalFlowDao {
         record.setCreatedAt(flow.created().map(UserTimestamp::atTimestamp).orElse(Timestamp.valueOf(flow.lastUpdatedAt())));
         record.setCreatedBy(flow.created().map(UserTimestamp::by).orElse(flow.lastUpdatedBy()));
 
-        record.store();
-        return record.getId();
+        return record;
     }
 
 
@@ -455,4 +594,27 @@ public class PhysicalFlowDao {
                 .where(PHYSICAL_FLOW.ID.eq(flowId))
                 .execute();
     }
+
+
+    private static List<Object> mkParsedFlowKey(String sourceKind,
+                                                long sourceId,
+                                                String targetKind,
+                                                long targetId,
+                                                String ownerKind,
+                                                long ownerId,
+                                                String format,
+                                                String name,
+                                                long dataTypeId,
+                                                int basisOffset,
+                                                String frequency,
+                                                String transport,
+                                                String criticality) {
+        return Arrays.asList(
+                sourceKind, sourceId,
+                targetKind, targetId,
+                ownerKind, ownerId,
+                format, name, dataTypeId,
+                basisOffset, frequency, transport, criticality);
+    }
+
 }
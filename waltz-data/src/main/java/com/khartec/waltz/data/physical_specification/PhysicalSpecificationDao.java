@@ -33,13 +33,19 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
 import java.sql.Timestamp;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import static com.khartec.waltz.common.Checks.checkFalse;
 import static com.khartec.waltz.common.Checks.checkNotNull;
 import static com.khartec.waltz.common.ListUtilities.newArrayList;
+import static com.khartec.waltz.common.ListUtilities.partition;
+import static com.khartec.waltz.common.SetUtilities.map;
 import static com.khartec.waltz.data.logical_flow.LogicalFlowDao.LOGICAL_NOT_REMOVED;
 import static com.khartec.waltz.data.physical_flow.PhysicalFlowDao.PHYSICAL_FLOW_NOT_REMOVED;
 import static com.khartec.waltz.model.EntityReference.mkRef;
@@ -81,6 +87,8 @@ public class PhysicalSpecificationDao {
 
     public static final Condition PHYSICAL_SPEC_NOT_REMOVED = PHYSICAL_SPECIFICATION.IS_REMOVED.isFalse();
 
+    private static final int BULK_QUERY_CHUNK_SIZE = 500;
+
 
     private final DSLContext dsl;
 
@@ -150,6 +158,44 @@ public class PhysicalSpecificationDao {
     }
 
 
+    /**
+     * Bulk equivalent of <code>getByParsedFlow</code>.  Candidate
+     * specifications are fetched in chunks (restricted by owner and name) and
+     * matched to the parsed flows in memory.
+     *
+     * @param flows  parsed (and fully resolved) flows
+     * @return  map of parsed flow to an existing, matching, specification.
+     * Parsed flows without a match are not included.
+     */
+    public Map<PhysicalFlowParsed, PhysicalSpecification> findByParsedFlows(Collection<PhysicalFlowParsed> flows) {
+        checkNotNull(flows, "flows cannot be null");
+
+        Map<PhysicalFlowParsed, PhysicalSpecification> result = new HashMap<>();
+
+        for (List<PhysicalFlowParsed> chunk : partition(flows, BULK_QUERY_CHUNK_SIZE)) {
+            Condition condition = PHYSICAL_SPECIFICATION.OWNING_ENTITY_ID.in(map(chunk, f -> f.owner().id()))
+                    .and(PHYSICAL_SPECIFICATION.NAME.in(map(chunk, PhysicalFlowParsed::name)))
+                    .and(PHYSICAL_SPEC_NOT_REMOVED);
+
+            Map<List<Object>, PhysicalSpecification> candidatesByKey = new HashMap<>();
+            basicSelectByCondition(condition)
+                    .fetch(TO_DOMAIN_MAPPER)
+                    .forEach(spec -> candidatesByKey.putIfAbsent(
+                            mkSpecKey(spec.owningEntity(), spec.format(), spec.name()),
+                            spec));
+
+            chunk.forEach(f -> {
+                PhysicalSpecification match = candidatesByKey.get(mkSpecKey(f.owner(), f.format(), f.name()));
+                if (match != null) {
+                    result.put(f, match);
+                }
+            });
+        }
+
+        return result;
+    }
+
+
     public boolean isUsed(long id) {
         Field<Boolean> specUsed = DSL.when(
                     exists(selectFrom(PHYSICAL_FLOW)
@@ -169,6 +215,34 @@ public class PhysicalSpecificationDao {
         checkNotNull(specification, "specification cannot be null");
         checkFalse(specification.id().isPresent(), "specification must not have an id");
 
+        PhysicalSpecificationRecord record = mkRecord(specification);
+        record.store();
+        return record.getId();
+    }
+
+
+    /**
+     * Inserts the given specifications using a single jdbc batch.  Identifiers
+     * are not returned, callers needing them should re-query (e.g. via
+     * <code>findByParsedFlows</code>).
+     *
+     * @param specifications  new specifications (without ids)
+     * @return  insert counts
+     */
+    public int[] createAll(Collection<PhysicalSpecification> specifications) {
+        checkNotNull(specifications, "specifications cannot be null");
+        specifications.forEach(s -> checkFalse(s.id().isPresent(), "specification must not have an id"));
+
+        List<PhysicalSpecificationRecord> records = specifications
+                .stream()
+                .map(this::mkRecord)
+                .collect(Collectors.toList());
+
+        return dsl.batchInsert(records).execute();
+    }
+
+
+    private PhysicalSpecificationRecord mkRecord(PhysicalSpecification specification) {
         PhysicalSpecificationRecord record = dsl.newRecord(PHYSICAL_SPECIFICATION);
         record.setOwningEntityKind(specification.owningEntity().kind().name());
         record.setOwningEntityId(specification.owningEntity().id());
@@ -185,8 +259,7 @@ public class PhysicalSpecificationDao {
         record.setCreatedAt(specification.created().get().atTimestamp());
         record.setCreatedBy(specification.created().get().by());
 
-        record.store();
-        return record.getId();
+        return record;
     }
 
 
@@ -223,4 +296,10 @@ public class PhysicalSpecificationDao {
                 .where(PHYSICAL_SPECIFICATION.ID.eq(specificationId))
                 .execute();
     }
+
+
+    private static List<Object> mkSpecKey(EntityReference owner, DataFormatKind format, String name) {
+        return Arrays.asList(owner.kind(), owner.id(), format, name);
+    }
+
 }
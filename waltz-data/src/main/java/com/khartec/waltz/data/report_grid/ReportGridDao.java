@@ -27,13 +27,18 @@ import com.khartec.waltz.schema.Tables;
 import com.khartec.waltz.schema.tables.records.ReportGridRecord;
 import org.jooq.*;
 import org.jooq.impl.DSL;
+import org.jooq.lambda.Unchecked;
 import org.jooq.lambda.tuple.Tuple2;
 import org.jooq.lambda.tuple.Tuple3;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 
 import java.util.Comparator;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.Function;
 import java.util.function.ToIntFunction;
 import java.util.stream.Collectors;
@@ -55,6 +60,9 @@ public class ReportGridDao {
 
     private final DSLContext dsl;
 
+    // cell queries run here rather than on the shared db executor pool, whose callers may already be on that pool
+    private final ExecutorService cellQueryExecutor;
+
     private final com.khartec.waltz.schema.tables.Measurable m = MEASURABLE.as("m");
     private final com.khartec.waltz.schema.tables.MeasurableRating mr = MEASURABLE_RATING.as("mr");
     private final com.khartec.waltz.schema.tables.MeasurableCategory mc = MEASURABLE_CATEGORY.as("mc");
@@ -72,8 +80,16 @@ public class ReportGridDao {
 
 
     @Autowired
-    public ReportGridDao(DSLContext dsl) {
+    public ReportGridDao(DSLContext dsl,
+                         @Value("${waltz.report_grid.query.threads:4}") int queryThreads) {
         this.dsl = dsl;
+        this.cellQueryExecutor = Executors.newFixedThreadPool(
+                Integer.max(queryThreads, 1),
+                (runnable) -> {
+                    Thread t = new Thread(runnable, "Report Grid Executor");
+                    t.setDaemon(true);
+                    return t;
+                });
     }
 
 
@@ -227,12 +243,20 @@ public class ReportGridDao {
                 cd -> cd.columnEntityReference().id());
 
 
-        return union(
-                fetchSummaryMeasurableData(appSelector, summaryMeasurableIdsUsingHighest, summaryMeasurableIdsUsingLowest),
-                fetchAssessmentData(appSelector, requiredAssessmentDefinitions),
-                fetchExactMeasurableData(appSelector, exactMeasurableIds),
-                fetchCostData(appSelector, requiredCostKinds),
-                fetchInvolvementData(appSelector, requiredInvolvementKinds));
+        // the column kinds are independent of each other so are fetched concurrently
+        Future<Set<ReportGridCell>> summaryMeasurableData = cellQueryExecutor.submit(() -> fetchSummaryMeasurableData(appSelector, summaryMeasurableIdsUsingHighest, summaryMeasurableIdsUsingLowest));
+        Future<Set<ReportGridCell>> assessmentData = cellQueryExecutor.submit(() -> fetchAssessmentData(appSelector, requiredAssessmentDefinitions));
+        Future<Set<ReportGridCell>> exactMeasurableData = cellQueryExecutor.submit(() -> fetchExactMeasurableData(appSelector, exactMeasurableIds));
+        Future<Set<ReportGridCell>> costData = cellQueryExecutor.submit(() -> fetchCostData(appSelector, requiredCostKinds));
+        Future<Set<ReportGridCell>> involvementData = cellQueryExecutor.submit(() -> fetchInvolvementData(appSelector, requiredInvolvementKinds));
+
+        return Unchecked.supplier(() -> union(
+                    summaryMeasurableData.get(),
+                    assessmentData.get(),
+                    exactMeasurableData.get(),
+                    costData.get(),
+                    involvementData.get()))
+                .get();
     }
 
 
@@ -0,0 +1,72 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package com.khartec.waltz.data.report_grid;
+
+import com.khartec.waltz.common.ExpiringCache;
+import com.khartec.waltz.model.IdSelectionOptions;
+import com.khartec.waltz.model.report_grid.ReportGridInstance;
+import org.jooq.lambda.tuple.Tuple2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static com.khartec.waltz.common.Checks.checkNotNull;
+import static org.jooq.lambda.tuple.Tuple.tuple;
+
+
+/**
+ * Computed report grid instances keyed by grid id and selection options.
+ *
+ * The daos which write the data shown in grid cells (measurable ratings,
+ * assessment ratings and involvements) clear the cache, costs are only
+ * written by external loaders.  Changes made outside of Waltz, or to the
+ * set of applications selected (e.g. org unit moves), are picked up when
+ * entries expire after the (configurable) ttl.
+ */
+@Repository
+public class ReportGridInstanceCache {
+
+    private final ExpiringCache<Tuple2<Long, IdSelectionOptions>, ReportGridInstance> cache;
+
+
+    @Autowired
+    public ReportGridInstanceCache(@Value("${waltz.report_grid.cache.ttl.seconds:300}") long ttlSeconds,
+                                   @Value("${waltz.report_grid.cache.max.size:200}") int maxSize) {
+        this.cache = new ExpiringCache<>(ttlSeconds, TimeUnit.SECONDS, maxSize);
+    }
+
+
+    public ReportGridInstance get(long gridId,
+                                  IdSelectionOptions options,
+                                  Supplier<ReportGridInstance> loader) {
+        checkNotNull(options, "options cannot be null");
+        checkNotNull(loader, "loader cannot be null");
+
+        return cache.get(tuple(gridId, options), k -> loader.get());
+    }
+
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+}
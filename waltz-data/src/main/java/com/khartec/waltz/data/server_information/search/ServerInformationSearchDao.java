@@ -18,7 +18,9 @@
 
 package com.khartec.waltz.data.server_information.search;
 
+import com.khartec.waltz.data.FullTextIndex;
 import com.khartec.waltz.data.FullTextSearch;
+import com.khartec.waltz.data.InMemoryFullTextSearch;
 import com.khartec.waltz.data.SearchDao;
 import com.khartec.waltz.data.UnsupportedSearcher;
 import com.khartec.waltz.data.server_information.ServerInformationDao;
@@ -35,6 +37,7 @@ import java.util.Collections;
 import java.util.List;
 
 import static com.khartec.waltz.common.Checks.checkNotNull;
+import static com.khartec.waltz.common.ListUtilities.newArrayList;
 import static com.khartec.waltz.common.SetUtilities.orderedUnion;
 import static com.khartec.waltz.data.JooqUtilities.*;
 import static com.khartec.waltz.data.SearchUtilities.mkRelevancyComparator;
@@ -46,13 +49,13 @@ import static com.khartec.waltz.schema.Tables.SERVER_INFORMATION;
 public class ServerInformationSearchDao implements SearchDao<ServerInformation> {
 
     private final DSLContext dsl;
-    private final FullTextSearch<ServerInformation> searcher;
+    private final InMemoryFullTextSearch<ServerInformation> searcher;
 
 
     @Autowired
     public ServerInformationSearchDao(DSLContext dsl) {
         this.dsl = dsl;
-        this.searcher = determineSearcher(dsl.dialect());
+        this.searcher = mkSearcher(dsl.dialect());
     }
 
 
@@ -94,6 +97,27 @@ public class ServerInformationSearchDao implements SearchDao<ServerInformation>
     }
 
 
+    private InMemoryFullTextSearch<ServerInformation> mkSearcher(SQLDialect dialect) {
+        FullTextIndex<ServerInformation> index = new FullTextIndex<>(
+                s -> s.id().get(),
+                ServerInformation::hostname,
+                s -> newArrayList(
+                        s.operatingSystem(),
+                        s.location(),
+                        s.externalId().orElse(null)));
+
+        return new InMemoryFullTextSearch<>(
+                "server",
+                index,
+                ctx -> ctx
+                        .select(SERVER_INFORMATION.fields())
+                        .from(SERVER_INFORMATION)
+                        .fetch(ServerInformationDao.TO_DOMAIN_MAPPER),
+                (s, options) -> true,
+                determineSearcher(dialect));
+    }
+
+
     private FullTextSearch<ServerInformation> determineSearcher(SQLDialect dialect) {
 
         if (isPostgres(dialect)) {
@@ -26,6 +26,7 @@ import com.khartec.waltz.schema.tables.records.SurveyInstanceRecipientRecord;
 import com.khartec.waltz.schema.tables.records.SurveyInstanceRecord;
 import org.jooq.*;
 import org.jooq.impl.DSL;
+import org.jooq.lambda.tuple.Tuple2;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
@@ -36,9 +37,13 @@ import java.util.*;
 import java.util.stream.Collectors;
 
 import static com.khartec.waltz.common.Checks.checkNotNull;
+import static com.khartec.waltz.common.Checks.checkTrue;
 import static com.khartec.waltz.common.DateTimeUtilities.nowUtc;
 import static com.khartec.waltz.common.DateTimeUtilities.toSqlDate;
+import static com.khartec.waltz.common.ListUtilities.map;
 import static com.khartec.waltz.common.ListUtilities.newArrayList;
+import static com.khartec.waltz.common.ListUtilities.partition;
+import static com.khartec.waltz.data.JooqUtilities.maxRowsPerInsert;
 import static com.khartec.waltz.data.JooqUtilities.maybeReadRef;
 import static com.khartec.waltz.model.EntityReference.mkRef;
 import static com.khartec.waltz.schema.Tables.*;
@@ -47,6 +52,9 @@ import static java.util.Optional.ofNullable;
 @Repository
 public class SurveyInstanceDao {
 
+    // instances are inserted with 7 bound columns per row
+    private static final int INSERT_BATCH_SIZE = maxRowsPerInsert(7);
+
     private static final Field<String> ENTITY_NAME_FIELD = InlineSelectFieldFactory.mkNameField(
                 SURVEY_INSTANCE.ENTITY_ID,
                 SURVEY_INSTANCE.ENTITY_KIND,
@@ -362,4 +370,139 @@ public class SurveyInstanceDao {
 
         return dsl.batchInsert(records).execute();
     }
+
+
+    /**
+     * Creates instances, and their recipients, using multi-row inserts within a
+     * single transaction.  If <code>replaceForSurveyRunId</code> is given any
+     * existing instances (and recipients) for that run are removed as part of
+     * the same transaction.
+     *
+     * @param replaceForSurveyRunId  optional run whose existing instances should be replaced
+     * @param instancesWithRecipients  instances to create, each paired with the person ids of its recipients
+     * @return  ids of the created instances, in the same order as <code>instancesWithRecipients</code>
+     */
+    public List<Long> createInstancesAndRecipients(Optional<Long> replaceForSurveyRunId,
+                                                   List<Tuple2<SurveyInstanceCreateCommand, List<Long>>> instancesWithRecipients) {
+        checkNotNull(replaceForSurveyRunId, "replaceForSurveyRunId cannot be null");
+        checkNotNull(instancesWithRecipients, "instancesWithRecipients cannot be null");
+
+        return dsl.transactionResult(ctx -> {
+            DSLContext tx = ctx.dsl();
+
+            replaceForSurveyRunId.ifPresent(runId -> {
+                tx.deleteFrom(SURVEY_INSTANCE_RECIPIENT)
+                        .where(SURVEY_INSTANCE_RECIPIENT.SURVEY_INSTANCE_ID.in(DSL
+                                .select(SURVEY_INSTANCE.ID)
+                                .from(SURVEY_INSTANCE)
+                                .where(SURVEY_INSTANCE.SURVEY_RUN_ID.eq(runId))))
+                        .execute();
+                tx.deleteFrom(SURVEY_INSTANCE)
+                        .where(SURVEY_INSTANCE.SURVEY_RUN_ID.eq(runId))
+                        .execute();
+            });
+
+            List<Long> instanceIds = new ArrayList<>(instancesWithRecipients.size());
+
+            for (List<Tuple2<SurveyInstanceCreateCommand, List<Long>>> batch : partition(instancesWithRecipients, INSERT_BATCH_SIZE)) {
+                List<Long> batchIds = insertInstances(tx, map(batch, t -> t.v1));
+
+                List<SurveyInstanceRecipientRecord> recipientRecords = new ArrayList<>();
+                for (int i = 0; i < batch.size(); i++) {
+                    long instanceId = batchIds.get(i);
+                    batch.get(i).v2.forEach(personId -> {
+                        SurveyInstanceRecipientRecord record = new SurveyInstanceRecipientRecord();
+                        record.setSurveyInstanceId(instanceId);
+                        record.setPersonId(personId);
+                        recipientRecords.add(record);
+                    });
+                }
+
+                tx.batchInsert(recipientRecords).execute();
+                instanceIds.addAll(batchIds);
+            }
+
+            return instanceIds;
+        });
+    }
+
+
+    /**
+     * Rows returned from a multi-row insert are not guaranteed to be in insertion
+     * order on all databases, so ids are paired with commands by matching all
+     * inserted values.  Commands with identical values are interchangeable.
+     */
+    private static List<Long> insertInstances(DSLContext tx, List<SurveyInstanceCreateCommand> commands) {
+        InsertValuesStep7<SurveyInstanceRecord, Long, String, Long, String, Date, Long, String> insert = tx
+                .insertInto(SURVEY_INSTANCE)
+                .columns(SURVEY_INSTANCE.SURVEY_RUN_ID,
+                        SURVEY_INSTANCE.ENTITY_KIND,
+                        SURVEY_INSTANCE.ENTITY_ID,
+                        SURVEY_INSTANCE.STATUS,
+                        SURVEY_INSTANCE.DUE_DATE,
+                        SURVEY_INSTANCE.OWNER_ID,
+                        SURVEY_INSTANCE.OWNING_ROLE);
+
+        for (SurveyInstanceCreateCommand command : commands) {
+            insert = insert.values(
+                    command.surveyRunId(),
+                    command.entityReference().kind().name(),
+                    command.entityReference().id(),
+                    command.status().name(),
+                    command.dueDate().map(Date::valueOf).orElse(null),
+                    command.ownerId(),
+                    command.owningRole());
+        }
+
+        Map<List<Object>, Deque<Long>> idsByKey = new HashMap<>();
+        insert.returning(
+                    SURVEY_INSTANCE.ID,
+                    SURVEY_INSTANCE.SURVEY_RUN_ID,
+                    SURVEY_INSTANCE.ENTITY_KIND,
+                    SURVEY_INSTANCE.ENTITY_ID,
+                    SURVEY_INSTANCE.STATUS,
+                    SURVEY_INSTANCE.DUE_DATE,
+                    SURVEY_INSTANCE.OWNER_ID,
+                    SURVEY_INSTANCE.OWNING_ROLE)
+                .fetch()
+                .forEach(r -> idsByKey
+                        .computeIfAbsent(
+                                mkInstanceKey(
+                                        r.getSurveyRunId(),
+                                        r.getEntityKind(),
+                                        r.getEntityId(),
+                                        r.getStatus(),
+                                        ofNullable(r.getDueDate()).map(Date::toLocalDate).orElse(null),
+                                        r.getOwnerId(),
+                                        r.getOwningRole()),
+                                k -> new ArrayDeque<>())
+                        .add(r.getId()));
+
+        return commands
+                .stream()
+                .map(c -> {
+                    Deque<Long> ids = idsByKey.get(mkInstanceKey(
+                            c.surveyRunId(),
+                            c.entityReference().kind().name(),
+                            c.entityReference().id(),
+                            c.status().name(),
+                            c.dueDate().orElse(null),
+                            c.ownerId(),
+                            c.owningRole()));
+                    checkTrue(ids != null && ! ids.isEmpty(), "Could not determine id of inserted survey instance: %s", c);
+                    return ids.remove();
+                })
+                .collect(Collectors.toList());
+    }
+
+
+    private static List<Object> mkInstanceKey(Long surveyRunId,
+                                              String entityKind,
+                                              Long entityId,
+                                              String status,
+                                              LocalDate dueDate,
+                                              Long ownerId,
+                                              String owningRole) {
+        return Arrays.asList(surveyRunId, entityKind, entityId, status, dueDate, ownerId, owningRole);
+    }
 }
@@ -32,6 +32,7 @@ import com.khartec.waltz.schema.tables.records.SurveyQuestionListResponseRecord;
 import com.khartec.waltz.schema.tables.records.SurveyQuestionResponseRecord;
 import org.jooq.*;
 import org.jooq.impl.DSL;
+import org.jooq.lambda.tuple.Tuple2;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
@@ -108,26 +109,47 @@ public class SurveyQuestionResponseDao {
 
 
     public List<SurveyInstanceQuestionResponse> findForInstance(long surveyInstanceId) {
+        return findForInstanceIdSelector(DSL.select(DSL.val(surveyInstanceId)));
+    }
+
+
+    /**
+     * Responses for every (original) instance in the run, used when evaluating
+     * a whole run in one pass rather than instance by instance.
+     *
+     * @param surveyRunId  survey run identifier
+     * @return  responses for all instances in the run
+     */
+    public List<SurveyInstanceQuestionResponse> findForSurveyRun(long surveyRunId) {
+        return findForInstanceIdSelector(DSL
+                .select(SURVEY_INSTANCE.ID)
+                .from(SURVEY_INSTANCE)
+                .where(SURVEY_INSTANCE.SURVEY_RUN_ID.eq(surveyRunId))
+                .and(SURVEY_INSTANCE.ORIGINAL_INSTANCE_ID.isNull()));
+    }
+
+
+    private List<SurveyInstanceQuestionResponse> findForInstanceIdSelector(Select<Record1<Long>> instanceIdSelector) {
         // fetch list responses
         List<SurveyQuestionListResponseRecord> listResponses = dsl
                 .selectFrom(SURVEY_QUESTION_LIST_RESPONSE)
-                .where(SURVEY_QUESTION_LIST_RESPONSE.SURVEY_INSTANCE_ID.eq(surveyInstanceId))
+                .where(SURVEY_QUESTION_LIST_RESPONSE.SURVEY_INSTANCE_ID.in(instanceIdSelector))
                 .orderBy(SURVEY_QUESTION_LIST_RESPONSE.POSITION)
                 .fetch();
 
-        Map<Long, List<EntityReference>> entityListResponsesByQuestionId = listResponses
+        Map<Tuple2<Long, Long>, List<EntityReference>> entityListResponsesByInstanceAndQuestionId = listResponses
                 .stream()
                 .filter(d -> d.getEntityKind() != null)
-                .map(d -> tuple(d.getQuestionId(), mkRef(
+                .map(d -> tuple(tuple(d.getSurveyInstanceId(), d.getQuestionId()), mkRef(
                         EntityKind.valueOf(d.getEntityKind()),
                         d.getEntityId(),
                         d.getResponse())))
                 .collect(groupingBy(d -> d.v1, mapping(t -> t.v2, toList())));
 
-        Map<Long, List<String>> stringListResponsesByQuestionId = listResponses
+        Map<Tuple2<Long, Long>, List<String>> stringListResponsesByInstanceAndQuestionId = listResponses
                 .stream()
                 .filter(d -> d.getEntityKind() == null)
-                .map(d -> tuple(d.getQuestionId(),d.getResponse()))
+                .map(d -> tuple(tuple(d.getSurveyInstanceId(), d.getQuestionId()), d.getResponse()))
                 .collect(groupingBy(
                         d -> d.v1,
                         mapping(t -> t.v2, toList())));
@@ -137,16 +159,19 @@ public class SurveyQuestionResponseDao {
                 .select(SURVEY_QUESTION_RESPONSE.fields())
                 .select(entityNameField)
                 .from(SURVEY_QUESTION_RESPONSE)
-                .where(SURVEY_QUESTION_RESPONSE.SURVEY_INSTANCE_ID.eq(surveyInstanceId))
+                .where(SURVEY_QUESTION_RESPONSE.SURVEY_INSTANCE_ID.in(instanceIdSelector))
                 .fetch(TO_DOMAIN_MAPPER);
 
         return responses
                 .stream()
-                .map(r -> ImmutableSurveyInstanceQuestionResponse
-                        .copyOf(r)
-                        .withQuestionResponse(ImmutableSurveyQuestionResponse.copyOf(r.questionResponse())
-                        .withListResponse(ofNullable(stringListResponsesByQuestionId.get(r.questionResponse().questionId())))
-                        .withEntityListResponse(ofNullable(entityListResponsesByQuestionId.get(r.questionResponse().questionId())))))
+                .map(r -> {
+                    Tuple2<Long, Long> key = tuple(r.surveyInstanceId(), r.questionResponse().questionId());
+                    return ImmutableSurveyInstanceQuestionResponse
+                            .copyOf(r)
+                            .withQuestionResponse(ImmutableSurveyQuestionResponse.copyOf(r.questionResponse())
+                            .withListResponse(ofNullable(stringListResponsesByInstanceAndQuestionId.get(key)))
+                            .withEntityListResponse(ofNullable(entityListResponsesByInstanceAndQuestionId.get(key))));
+                })
                 .collect(toList());
     }
 
@@ -37,6 +37,7 @@ import org.springframework.stereotype.Repository;
 import java.sql.Timestamp;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.function.BiFunction;
 
@@ -153,6 +154,17 @@ public class TaxonomyChangeDao {
     }
 
 
+    public List<TaxonomyChangeCommand> findDraftCommandsByIds(Collection<Long> ids) {
+        return dsl
+                .select(TAXONOMY_CHANGE.fields())
+                .select(PRIMARY_REF_NAME, CHANGE_DOMAIN_NAME)
+                .from(TAXONOMY_CHANGE)
+                .where(TAXONOMY_CHANGE.ID.in(ids))
+                .and(TAXONOMY_CHANGE.STATUS.eq(TaxonomyChangeLifecycleStatus.DRAFT.name()))
+                .fetch(TO_DOMAIN_MAPPER);
+    }
+
+
     public TaxonomyChangeCommand createCommand(TaxonomyChangeCommand cmd) {
         TaxonomyChangeRecord r = TO_RECORD_MAPPER.apply(cmd, dsl);
         r.insert();
@@ -0,0 +1,97 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package com.khartec.waltz.data;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class EntityNameIndexTest {
+
+    @Test
+    public void namesCanBeAddedReplacedAndRemoved() {
+        EntityNameIndex index = new EntityNameIndex();
+        index.put(1L, "a");
+        index.put(2L, "b");
+        index.put(1L, "a2");
+
+        assertEquals("a2", index.get(1L));
+        assertEquals("b", index.get(2L));
+        assertNull(index.get(3L));
+        assertEquals(2, index.size());
+
+        index.remove(1L);
+        assertNull(index.get(1L));
+        assertEquals("b", index.get(2L));
+        assertEquals(1, index.size());
+    }
+
+
+    @Test
+    public void bulkLoadIgnoresNullNames() {
+        EntityNameIndex index = new EntityNameIndex();
+        index.putAll(new long[] {1, 2, 3}, new String[] {"a", null, "c"});
+
+        assertEquals("a", index.get(1L));
+        assertNull(index.get(2L));
+        assertEquals("c", index.get(3L));
+        assertEquals(2, index.size());
+    }
+
+
+    @Test
+    public void agreesWithHashMapUnderRandomGrowthAndRemoval() {
+        Random random = new Random(42);
+        EntityNameIndex index = new EntityNameIndex();
+        Map<Long, String> expected = new HashMap<>();
+
+        for (int i = 0; i < 20_000; i++) {
+            long id = random.nextInt(2_000);
+            if (random.nextInt(3) == 0) {
+                index.remove(id);
+                expected.remove(id);
+            } else {
+                index.put(id, "n" + i);
+                expected.put(id, "n" + i);
+            }
+        }
+
+        assertEquals(expected.size(), index.size());
+        for (long id = 0; id < 2_000; id++) {
+            assertEquals(expected.get(id), index.get(id));
+        }
+    }
+
+
+    @Test
+    public void clearEmptiesTheIndex() {
+        EntityNameIndex index = new EntityNameIndex(100);
+        index.put(7L, "x");
+        index.clear();
+
+        assertNull(index.get(7L));
+        assertEquals(0, index.size());
+    }
+
+}
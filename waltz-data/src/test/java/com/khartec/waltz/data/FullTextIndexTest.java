@@ -0,0 +1,134 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+package com.khartec.waltz.data;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.assertEquals;
+
+public class FullTextIndexTest {
+
+    private static class Thing {
+        private final long id;
+        private final String name;
+        private final String description;
+        private final boolean active;
+
+        private Thing(long id, String name, String description, boolean active) {
+            this.id = id;
+            this.name = name;
+            this.description = description;
+            this.active = active;
+        }
+    }
+
+
+    private static FullTextIndex<Thing> mkIndex(Thing... things) {
+        FullTextIndex<Thing> index = new FullTextIndex<>(
+                t -> t.id,
+                t -> t.name,
+                t -> Collections.singletonList(t.description));
+        index.replaceAll(Arrays.asList(things));
+        return index;
+    }
+
+
+    @Test
+    public void termsMatchTokenPrefixes() {
+        FullTextIndex<Thing> index = mkIndex(
+                new Thing(1, "Trade Capture", "books trades", true),
+                new Thing(2, "Settlement", "settles trades", true),
+                new Thing(3, "Payments", "moves money", true));
+
+        assertEquals(asList(1L, 2L), ids(index.search("trad", t -> true, 10)));
+        assertEquals(asList(3L), ids(index.search("money", t -> true, 10)));
+    }
+
+
+    @Test
+    public void allTermsMustMatch() {
+        FullTextIndex<Thing> index = mkIndex(
+                new Thing(1, "Equities Trading", "", true),
+                new Thing(2, "Fixed Income Trading", "", true));
+
+        assertEquals(asList(2L), ids(index.search("trad fixed", t -> true, 10)));
+        assertEquals(Collections.emptyList(), ids(index.search("trad bonds", t -> true, 10)));
+    }
+
+
+    @Test
+    public void nameMatchesOutrankOtherText() {
+        FullTextIndex<Thing> index = mkIndex(
+                new Thing(1, "Ledger", "general reporting", true),
+                new Thing(2, "Reporting Hub", "", true),
+                new Thing(3, "Regulatory Reporting", "", true));
+
+        assertEquals(asList(2L, 3L, 1L), ids(index.search("reporting", t -> true, 10)));
+    }
+
+
+    @Test
+    public void filterAndLimitAreApplied() {
+        FullTextIndex<Thing> index = mkIndex(
+                new Thing(1, "Alpha One", "", true),
+                new Thing(2, "Alpha Two", "", false),
+                new Thing(3, "Alpha Three", "", true));
+
+        assertEquals(asList(1L, 3L), ids(index.search("alpha", t -> t.active, 10)));
+        assertEquals(1, index.search("alpha", t -> true, 1).size());
+    }
+
+
+    @Test
+    public void incrementalUpdatesAreVisible() {
+        FullTextIndex<Thing> index = mkIndex(new Thing(1, "Old Name", "", true));
+
+        index.put(new Thing(1, "New Name", "", true));
+        index.put(new Thing(2, "Another", "", true));
+
+        assertEquals(Collections.emptyList(), ids(index.search("old", t -> true, 10)));
+        assertEquals(asList(1L), ids(index.search("new", t -> true, 10)));
+
+        index.remove(2);
+        assertEquals(Collections.emptyList(), ids(index.search("another", t -> true, 10)));
+        assertEquals(1, index.size());
+    }
+
+
+    @Test
+    public void tokenizationIgnoresPunctuationAndCase() {
+        assertEquals(
+                asList("abc", "123", "déjà", "vu"),
+                new ArrayList<>(FullTextIndex.tokenize("ABC-123 (Déjà vu)")));
+    }
+
+
+    // -- helpers --
+
+    private static List<Long> ids(List<Thing> things) {
+        return things.stream().map(t -> t.id).collect(toList());
+    }
+
+}
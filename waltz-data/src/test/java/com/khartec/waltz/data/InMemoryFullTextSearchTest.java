@@ -0,0 +1,139 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package com.khartec.waltz.data;
+
+import com.khartec.waltz.model.EntityKind;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static com.khartec.waltz.model.entity_search.EntitySearchOptions.mkForEntity;
+import static java.util.Arrays.asList;
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class InMemoryFullTextSearchTest {
+
+    private static class Thing {
+        private final long id;
+        private final String name;
+
+        private Thing(long id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+    }
+
+
+    private static final Thing FALLBACK_THING = new Thing(-1, "fallback");
+
+
+    private static InMemoryFullTextSearch<Thing> mkSearch(CountDownLatch loadStarted,
+                                                          CountDownLatch allowLoad,
+                                                          Thing... things) {
+        FullTextIndex<Thing> index = new FullTextIndex<>(
+                t -> t.id,
+                t -> t.name,
+                t -> Collections.emptyList());
+
+        return new InMemoryFullTextSearch<>(
+                "test",
+                index,
+                dsl -> {
+                    loadStarted.countDown();
+                    try {
+                        allowLoad.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return asList(things);
+                },
+                (t, opts) -> true,
+                (dsl, opts) -> new ArrayList<>(Collections.singletonList(FALLBACK_THING)));
+    }
+
+
+    private static List<String> search(InMemoryFullTextSearch<Thing> search, String query) {
+        return search
+                .searchFullText(null, mkForEntity(EntityKind.MEASURABLE, query))
+                .stream()
+                .map(t -> t.name)
+                .collect(toList());
+    }
+
+
+    private static void awaitCondition(Supplier<Boolean> condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (! condition.get()) {
+            assertTrue("condition not met in time", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+
+
+    @Test
+    public void fallbackIsUsedUntilIndexIsLoaded() throws InterruptedException {
+        CountDownLatch loadStarted = new CountDownLatch(1);
+        CountDownLatch allowLoad = new CountDownLatch(1);
+        InMemoryFullTextSearch<Thing> search = mkSearch(loadStarted, allowLoad, new Thing(1, "apple"));
+
+        assertEquals(asList("fallback"), search(search, "apple"));
+        assertTrue(loadStarted.await(5, TimeUnit.SECONDS));
+        assertEquals("search should not wait for the load", asList("fallback"), search(search, "apple"));
+        assertFalse(search.isLoaded());
+
+        allowLoad.countDown();
+        awaitCondition(() -> search(search, "apple").equals(asList("apple")));
+        assertTrue(search.isLoaded());
+    }
+
+
+    @Test
+    public void changesMadeDuringLoadAreReplayed() throws InterruptedException {
+        CountDownLatch loadStarted = new CountDownLatch(1);
+        CountDownLatch allowLoad = new CountDownLatch(1);
+        InMemoryFullTextSearch<Thing> search = mkSearch(
+                loadStarted,
+                allowLoad,
+                new Thing(1, "apple"),
+                new Thing(2, "banana"));
+
+        search(search, "apple");
+        assertTrue(loadStarted.await(5, TimeUnit.SECONDS));
+
+        // the loader has already read its (now stale) snapshot
+        search.index(new Thing(3, "cherry"));
+        search.index(new Thing(1, "apricot"));
+        search.unindex(2);
+        allowLoad.countDown();
+
+        awaitCondition(() -> search(search, "cherry").equals(asList("cherry")));
+        assertEquals(asList("apricot"), search(search, "apricot"));
+        assertEquals(Collections.emptyList(), search(search, "apple"));
+        assertEquals(Collections.emptyList(), search(search, "banana"));
+    }
+
+}
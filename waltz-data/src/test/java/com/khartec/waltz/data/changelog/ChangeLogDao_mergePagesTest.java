@@ -0,0 +1,118 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package com.khartec.waltz.data.changelog;
+
+import com.khartec.waltz.common.ListUtilities;
+import com.khartec.waltz.model.EntityKind;
+import com.khartec.waltz.model.Operation;
+import com.khartec.waltz.model.changelog.ChangeLog;
+import com.khartec.waltz.model.changelog.ImmutableChangeLog;
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static com.khartec.waltz.model.EntityReference.mkRef;
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.assertEquals;
+
+public class ChangeLogDao_mergePagesTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2021, 7, 1, 12, 0);
+
+
+    @Test
+    public void pagesAreMergedNewestFirst() {
+        List<ChangeLog> a = ListUtilities.newArrayList(mkChange(5, 50), mkChange(3, 30), mkChange(1, 10));
+        List<ChangeLog> b = ListUtilities.newArrayList(mkChange(4, 40), mkChange(2, 20));
+
+        List<ChangeLog> merged = ChangeLogDao.mergePages(a, b, Optional.empty());
+
+        assertEquals(ListUtilities.newArrayList(5L, 4L, 3L, 2L, 1L), toIds(merged));
+    }
+
+
+    @Test
+    public void entriesInBothPagesAreOnlyIncludedOnce() {
+        List<ChangeLog> a = ListUtilities.newArrayList(mkChange(3, 30), mkChange(2, 20));
+        List<ChangeLog> b = ListUtilities.newArrayList(mkChange(3, 30), mkChange(1, 10));
+
+        List<ChangeLog> merged = ChangeLogDao.mergePages(a, b, Optional.empty());
+
+        assertEquals(ListUtilities.newArrayList(3L, 2L, 1L), toIds(merged));
+    }
+
+
+    @Test
+    public void limitIsAppliedAfterMerging() {
+        List<ChangeLog> a = ListUtilities.newArrayList(mkChange(4, 40), mkChange(1, 10));
+        List<ChangeLog> b = ListUtilities.newArrayList(mkChange(4, 40), mkChange(3, 30), mkChange(2, 20));
+
+        List<ChangeLog> merged = ChangeLogDao.mergePages(a, b, Optional.of(3));
+
+        assertEquals(ListUtilities.newArrayList(4L, 3L, 2L), toIds(merged));
+    }
+
+
+    @Test
+    public void entriesCreatedAtTheSameTimeAreOrderedByIdDescending() {
+        List<ChangeLog> a = ListUtilities.newArrayList(mkChange(7, 10), mkChange(2, 10));
+        List<ChangeLog> b = ListUtilities.newArrayList(mkChange(9, 10), mkChange(5, 10), mkChange(1, 5));
+
+        List<ChangeLog> merged = ChangeLogDao.mergePages(a, b, Optional.empty());
+
+        assertEquals(ListUtilities.newArrayList(9L, 7L, 5L, 2L, 1L), toIds(merged));
+    }
+
+
+    @Test
+    public void emptyPagesGiveAnEmptyResult() {
+        List<ChangeLog> merged = ChangeLogDao.mergePages(
+                Collections.emptyList(),
+                Collections.emptyList(),
+                Optional.of(10));
+
+        assertEquals(Collections.emptyList(), merged);
+    }
+
+
+    // --- helpers ---
+
+    private static ChangeLog mkChange(long id, int minutesAfterBase) {
+        return ImmutableChangeLog.builder()
+                .id(id)
+                .parentReference(mkRef(EntityKind.APPLICATION, 1L))
+                .message("change " + id)
+                .userId("test")
+                .operation(Operation.UPDATE)
+                .createdAt(BASE.plusMinutes(minutesAfterBase))
+                .build();
+    }
+
+
+    private static List<Long> toIds(List<ChangeLog> changes) {
+        return changes
+                .stream()
+                .map(c -> c.id().get())
+                .collect(toList());
+    }
+
+}
@@ -0,0 +1,177 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package com.khartec.waltz.data.entity_hierarchy;
+
+import com.khartec.waltz.common.ListUtilities;
+import com.khartec.waltz.common.hierarchy.FlatNode;
+import com.khartec.waltz.common.hierarchy.HierarchyUtilities;
+import com.khartec.waltz.model.EntityKind;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class EntityHierarchyIndexTest {
+
+    /*
+     *   1          10
+     *   +- 2
+     *   |  +- 3
+     *   |     +- 4
+     *   +- 5
+     */
+    private EntityHierarchyIndex mkIndex() {
+        List<FlatNode<Long, Long>> nodes = ListUtilities.newArrayList(
+                mkNode(1L, null),
+                mkNode(2L, 1L),
+                mkNode(3L, 2L),
+                mkNode(4L, 3L),
+                mkNode(5L, 1L),
+                mkNode(10L, null));
+
+        return EntityHierarchyIndex.fromForest(EntityKind.MEASURABLE, HierarchyUtilities.toForest(nodes));
+    }
+
+
+    @Test
+    public void ancestorsAreRootFirstAndIncludeSelf() {
+        EntityHierarchyIndex index = mkIndex();
+        assertArrayEquals(new long[] {1, 2, 3, 4}, index.findAncestorIds(4));
+        assertArrayEquals(new long[] {10}, index.findAncestorIds(10));
+        assertEquals(4, index.getLevel(4));
+        assertEquals(1, index.getLevel(1));
+    }
+
+
+    @Test
+    public void descendantsIncludeSelf() {
+        EntityHierarchyIndex index = mkIndex();
+        assertArrayEquals(new long[] {1, 2, 3, 4, 5}, sorted(index.findDescendantIds(1)));
+        assertArrayEquals(new long[] {4}, index.findDescendantIds(4));
+    }
+
+
+    @Test
+    public void unknownNodesGiveEmptyResults() {
+        EntityHierarchyIndex index = mkIndex();
+        assertEquals(0, index.findAncestorIds(99).length);
+        assertEquals(0, index.findDescendantIds(99).length);
+        assertEquals(-1, index.getLevel(99));
+    }
+
+
+    @Test
+    public void addedNodesAreVisibleToAncestors() {
+        EntityHierarchyIndex index = mkIndex();
+        index.addNode(6L, 3L);
+
+        assertArrayEquals(new long[] {1, 2, 3, 6}, index.findAncestorIds(6));
+        assertArrayEquals(new long[] {1, 2, 3, 4, 5, 6}, sorted(index.findDescendantIds(1)));
+        assertArrayEquals(new long[] {3, 4, 6}, sorted(index.findDescendantIds(3)));
+        assertArrayEquals(new long[] {10}, index.findDescendantIds(10));
+    }
+
+
+    @Test
+    public void movingANodeMovesItsSubtree() {
+        EntityHierarchyIndex index = mkIndex();
+        long[] moved = index.moveNode(2L, 10L);
+
+        assertArrayEquals(new long[] {2, 3, 4}, sorted(moved));
+        assertArrayEquals(new long[] {10, 2, 3, 4}, index.findAncestorIds(4));
+        assertArrayEquals(new long[] {1, 5}, sorted(index.findDescendantIds(1)));
+        assertArrayEquals(new long[] {2, 3, 4, 10}, sorted(index.findDescendantIds(10)));
+        assertEquals(2, index.getLevel(2));
+    }
+
+
+    @Test
+    public void nodesCanBeMovedToTheRoot() {
+        EntityHierarchyIndex index = mkIndex();
+        index.moveNode(3L, null);
+
+        assertArrayEquals(new long[] {3, 4}, index.findAncestorIds(4));
+        assertArrayEquals(new long[] {1, 2, 5}, sorted(index.findDescendantIds(1)));
+        assertEquals(1, index.getLevel(3));
+    }
+
+
+    @Test(expected = IllegalArgumentException.class)
+    public void cannotMoveANodeBeneathItsOwnDescendant() {
+        mkIndex().moveNode(2L, 4L);
+    }
+
+
+    @Test
+    public void previouslyReturnedArraysAreNotModified() {
+        EntityHierarchyIndex index = mkIndex();
+        long[] before = index.findDescendantIds(1);
+        index.moveNode(2L, 10L);
+
+        assertArrayEquals(new long[] {1, 2, 3, 4, 5}, sorted(before));
+    }
+
+
+    @Test
+    public void readersNeverSeeAPartiallyAppliedMove() throws InterruptedException {
+        for (int attempt = 0; attempt < 100; attempt++) {
+            EntityHierarchyIndex index = mkIndex();
+            AtomicBoolean inconsistent = new AtomicBoolean(false);
+            AtomicBoolean done = new AtomicBoolean(false);
+
+            Thread reader = new Thread(() -> {
+                while (! done.get()) {
+                    boolean movedUnder10 = index.findAncestorIds(4)[0] == 10;
+                    boolean stillUnder1 = Arrays.stream(index.findDescendantIds(1)).anyMatch(id -> id == 4);
+                    if (movedUnder10 && stillUnder1) {
+                        inconsistent.set(true);
+                    }
+                }
+            });
+
+            reader.start();
+            index.moveNode(2L, 10L);
+            done.set(true);
+            reader.join();
+
+            assertFalse(inconsistent.get());
+        }
+    }
+
+
+    // -- helpers --
+
+    private static FlatNode<Long, Long> mkNode(Long id, Long parentId) {
+        return new FlatNode<>(id, Optional.ofNullable(parentId), id);
+    }
+
+
+    private static long[] sorted(long[] arr) {
+        long[] copy = Arrays.copyOf(arr, arr.length);
+        Arrays.sort(copy);
+        return copy;
+    }
+
+}
@@ -0,0 +1,138 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package com.khartec.waltz.data.logical_flow;
+
+import com.khartec.waltz.model.EntityKind;
+import com.khartec.waltz.model.EntityReference;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static com.khartec.waltz.common.ListUtilities.newArrayList;
+import static com.khartec.waltz.common.SetUtilities.asSet;
+import static com.khartec.waltz.data.logical_flow.LogicalFlowGraph.UNLIMITED_DEPTH;
+import static com.khartec.waltz.model.EntityReference.mkRef;
+import static org.junit.Assert.*;
+
+public class LogicalFlowGraphTest {
+
+    private static final long[] ALL_TYPES = new long[0];
+
+    private static final EntityReference A = mkRef(EntityKind.APPLICATION, 1);
+    private static final EntityReference B = mkRef(EntityKind.APPLICATION, 2);
+    private static final EntityReference C = mkRef(EntityKind.APPLICATION, 3);
+    private static final EntityReference D = mkRef(EntityKind.APPLICATION, 4);
+    private static final EntityReference X = mkRef(EntityKind.ACTOR, 1);
+
+
+    /*
+     *  X --(10: dt 100)--> A --(11: dt 100, 200)--> B --(12: dt 200)--> C
+     *                      A ---------------(13: dt 100)--------------> C
+     *                                                                   C --(14)--> D
+     */
+    private LogicalFlowGraph mkGraph() {
+        return LogicalFlowGraph.builder()
+                .addFlow(10, EntityKind.ACTOR, 1, EntityKind.APPLICATION, 1, 100L)
+                .addFlow(11, EntityKind.APPLICATION, 1, EntityKind.APPLICATION, 2, 100L)
+                .addFlow(11, EntityKind.APPLICATION, 1, EntityKind.APPLICATION, 2, 200L)
+                .addFlow(12, EntityKind.APPLICATION, 2, EntityKind.APPLICATION, 3, 200L)
+                .addFlow(13, EntityKind.APPLICATION, 1, EntityKind.APPLICATION, 3, 100L)
+                .addFlow(14, EntityKind.APPLICATION, 3, EntityKind.APPLICATION, 4, null)
+                .build();
+    }
+
+
+    @Test
+    public void entitiesOfDifferentKindsAreDistinctNodes() {
+        LogicalFlowGraph graph = mkGraph();
+        assertEquals(5, graph.getNodeCount());
+        assertEquals(5, graph.getFlowCount());
+        assertTrue(graph.contains(X));
+        assertFalse(graph.contains(mkRef(EntityKind.ACTOR, 2)));
+    }
+
+
+    @Test
+    public void upstreamLineageIsNearestFirst() {
+        long[] flowIds = mkGraph().findLineageFlowIds(newArrayList(C), true, UNLIMITED_DEPTH, ALL_TYPES);
+        assertArrayEquals(new long[] {12, 13}, sorted(Arrays.copyOf(flowIds, 2)));
+        assertArrayEquals(new long[] {10, 11, 12, 13}, sorted(flowIds));
+    }
+
+
+    @Test
+    public void lineageRespectsDepth() {
+        LogicalFlowGraph graph = mkGraph();
+        assertArrayEquals(new long[] {12, 13}, sorted(graph.findLineageFlowIds(newArrayList(C), true, 1, ALL_TYPES)));
+        assertArrayEquals(new long[] {11, 13}, sorted(graph.findLineageFlowIds(newArrayList(A), false, 1, ALL_TYPES)));
+        assertEquals(0, graph.findLineageFlowIds(newArrayList(C), true, 0, ALL_TYPES).length);
+    }
+
+
+    @Test
+    public void lineageCanBeFilteredByDataType() {
+        LogicalFlowGraph graph = mkGraph();
+        assertArrayEquals(new long[] {10, 13}, sorted(graph.findLineageFlowIds(newArrayList(C), true, UNLIMITED_DEPTH, new long[] {100})));
+        assertArrayEquals(new long[] {11, 12}, sorted(graph.findLineageFlowIds(newArrayList(C), true, UNLIMITED_DEPTH, new long[] {200})));
+    }
+
+
+    @Test
+    public void shortestPathPrefersFewestHops() {
+        LogicalFlowGraph graph = mkGraph();
+        assertArrayEquals(new long[] {10, 13, 14}, graph.findShortestPathFlowIds(X, D, UNLIMITED_DEPTH, ALL_TYPES));
+        assertArrayEquals(new long[] {11, 12}, graph.findShortestPathFlowIds(A, C, UNLIMITED_DEPTH, new long[] {200}));
+        assertEquals(0, graph.findShortestPathFlowIds(D, A, UNLIMITED_DEPTH, ALL_TYPES).length);
+        assertEquals(0, graph.findShortestPathFlowIds(X, D, 2, ALL_TYPES).length);
+    }
+
+
+    @Test
+    public void reachabilityFollowsFlowDirection() {
+        LogicalFlowGraph graph = mkGraph();
+        assertTrue(graph.isReachable(X, D, UNLIMITED_DEPTH, ALL_TYPES));
+        assertTrue(graph.isReachable(B, B, UNLIMITED_DEPTH, ALL_TYPES));
+        assertFalse(graph.isReachable(D, X, UNLIMITED_DEPTH, ALL_TYPES));
+        assertFalse(graph.isReachable(X, D, UNLIMITED_DEPTH, new long[] {100}));
+    }
+
+
+    @Test
+    public void changesProduceANewGraph() {
+        LogicalFlowGraph graph = mkGraph();
+        LogicalFlowGraph changed = graph.withChanges(
+                asSet(13L, 15L),
+                LogicalFlowGraph.builder()
+                        .addFlow(15, EntityKind.APPLICATION, 4, EntityKind.APPLICATION, 5, null));
+
+        assertArrayEquals(new long[] {10, 13, 14}, graph.findShortestPathFlowIds(X, D, UNLIMITED_DEPTH, ALL_TYPES));
+        assertArrayEquals(new long[] {10, 11, 12, 14, 15}, changed.findShortestPathFlowIds(X, mkRef(EntityKind.APPLICATION, 5), UNLIMITED_DEPTH, ALL_TYPES));
+        assertEquals(5, changed.getFlowCount());
+    }
+
+
+    // -- helpers --
+
+    private static long[] sorted(long[] arr) {
+        long[] copy = Arrays.copyOf(arr, arr.length);
+        Arrays.sort(copy);
+        return copy;
+    }
+
+}
@@ -22,6 +22,7 @@ import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.khartec.waltz.model.EntityKind;
 import com.khartec.waltz.model.EntityReference;
+import com.khartec.waltz.model.IdProvider;
 import com.khartec.waltz.model.Operation;
 import com.khartec.waltz.model.Severity;
 import org.immutables.value.Value;
@@ -34,7 +35,7 @@ import java.util.Optional;
 @Value.Immutable
 @JsonSerialize(as = ImmutableChangeLog.class)
 @JsonDeserialize(as = ImmutableChangeLog.class)
-public abstract class ChangeLog {
+public abstract class ChangeLog implements IdProvider {
 
     public abstract EntityReference parentReference();
     public abstract String message();
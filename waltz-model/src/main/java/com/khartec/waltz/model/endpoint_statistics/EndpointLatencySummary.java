@@ -0,0 +1,47 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package com.khartec.waltz.model.endpoint_statistics;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.immutables.value.Value;
+
+
+/**
+ * Request statistics for a single api route (http method and path pattern,
+ * e.g. <code>GET api/app/:id</code>).  Times are in milliseconds, response
+ * sizes are the uncompressed size of the json body in bytes.
+ */
+@Value.Immutable
+@JsonSerialize(as = ImmutableEndpointLatencySummary.class)
+@JsonDeserialize(as = ImmutableEndpointLatencySummary.class)
+public abstract class EndpointLatencySummary {
+
+    public abstract String route();
+    public abstract long count();
+    public abstract long errorCount();
+    public abstract double errorRate();
+    public abstract double totalMillis();
+    public abstract double p50Millis();
+    public abstract double p99Millis();
+    public abstract double maxMillis();
+    public abstract long totalResponseBytes();
+    public abstract long maxResponseBytes();
+
+}
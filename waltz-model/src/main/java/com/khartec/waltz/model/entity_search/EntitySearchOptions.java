@@ -25,6 +25,7 @@ import com.khartec.waltz.model.EntityLifecycleStatus;
 import org.immutables.value.Value;
 
 import java.util.List;
+import java.util.Optional;
 
 import static com.khartec.waltz.common.ListUtilities.newArrayList;
 import static com.khartec.waltz.model.EntityLifecycleStatus.ACTIVE;
@@ -60,6 +61,14 @@ public abstract class EntitySearchOptions {
     }
 
 
+    /**
+     * Client supplied id for the search box (or picker) issuing the search.
+     * A new search replaces any search still running for the same user and
+     * session id.  If absent, searches are never cancelled.
+     */
+    public abstract Optional<String> searchSessionId();
+
+
     public static EntitySearchOptions mkForEntity(EntityKind entityKind, String searchQuery) {
         return ImmutableEntitySearchOptions.builder()
                 .entityKinds(newArrayList(entityKind))
@@ -0,0 +1,57 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package com.khartec.waltz.model.logical_flow;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.khartec.waltz.model.EntityReference;
+import org.immutables.value.Value;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+
+/**
+ * Multi-hop lineage request.  Starting from the given entities flows are
+ * followed upstream (towards their sources) or downstream (towards their
+ * targets) for up to <code>maxDepth</code> hops (unlimited if absent).  If
+ * data type ids are given only flows carrying one of those data types (or
+ * their descendants) are followed.
+ */
+@Value.Immutable
+@JsonSerialize(as = ImmutableFlowLineageQuery.class)
+@JsonDeserialize(as = ImmutableFlowLineageQuery.class)
+public abstract class FlowLineageQuery {
+
+    public abstract List<EntityReference> entityReferences();
+
+
+    @Value.Default
+    public FlowLineageDirection direction() {
+        return FlowLineageDirection.UPSTREAM;
+    }
+
+
+    public abstract Optional<Integer> maxDepth();
+
+
+    public abstract Set<Long> dataTypeIds();
+
+}
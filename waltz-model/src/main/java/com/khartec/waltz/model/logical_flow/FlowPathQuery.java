@@ -0,0 +1,51 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package com.khartec.waltz.model.logical_flow;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.khartec.waltz.model.EntityReference;
+import org.immutables.value.Value;
+
+import java.util.Optional;
+import java.util.Set;
+
+
+/**
+ * Request for a path (following flows in their direction) from the source
+ * entity to the target entity, optionally limited by number of hops and
+ * data types (see <code>FlowLineageQuery</code>).
+ */
+@Value.Immutable
+@JsonSerialize(as = ImmutableFlowPathQuery.class)
+@JsonDeserialize(as = ImmutableFlowPathQuery.class)
+public abstract class FlowPathQuery {
+
+    public abstract EntityReference source();
+
+
+    public abstract EntityReference target();
+
+
+    public abstract Optional<Integer> maxDepth();
+
+
+    public abstract Set<Long> dataTypeIds();
+
+}
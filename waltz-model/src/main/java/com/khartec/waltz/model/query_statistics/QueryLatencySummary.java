@@ -0,0 +1,42 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package com.khartec.waltz.model.query_statistics;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.immutables.value.Value;
+
+
+/**
+ * Latency statistics for all executions of a normalized query (i.e. the
+ * sql with literals and bind values removed).  Times are in milliseconds.
+ */
+@Value.Immutable
+@JsonSerialize(as = ImmutableQueryLatencySummary.class)
+@JsonDeserialize(as = ImmutableQueryLatencySummary.class)
+public abstract class QueryLatencySummary {
+
+    public abstract String fingerprint();
+    public abstract long count();
+    public abstract double totalMillis();
+    public abstract double p50Millis();
+    public abstract double p99Millis();
+    public abstract double maxMillis();
+
+}
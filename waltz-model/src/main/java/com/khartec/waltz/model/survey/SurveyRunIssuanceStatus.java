@@ -0,0 +1,53 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package com.khartec.waltz.model.survey;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.immutables.value.Value;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Progress of an asynchronous survey run issuance (creation of the run's
+ * instances and recipients).
+ */
+@Value.Immutable
+@JsonSerialize(as = ImmutableSurveyRunIssuanceStatus.class)
+@JsonDeserialize(as = ImmutableSurveyRunIssuanceStatus.class)
+public abstract class SurveyRunIssuanceStatus {
+
+    public abstract long surveyRunId();
+    public abstract SurveyRunIssuanceState state();
+    public abstract LocalDateTime startedAt();
+    public abstract Optional<LocalDateTime> completedAt();
+    public abstract Optional<String> message();
+
+    @Value.Default
+    public int instanceCount() {
+        return 0;
+    }
+
+
+    @Value.Default
+    public int recipientCount() {
+        return 0;
+    }
+}
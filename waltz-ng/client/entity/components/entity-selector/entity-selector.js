@@ -47,11 +47,15 @@ const initialState = {
 function controller(entitySearchStore) {
     const vm = initialiseData(this, initialState);
 
+    // lets the server cancel this selector's stale searches as the user types
+    const searchSessionId = _.uniqueId("entity-selector-");
+
     vm.$onChanges = (changes) => {
         vm.options = {
             entityKinds: vm.entityKinds,
             limit: vm.limit,
-            entityLifecycleStatuses: vm.entityLifecycleStatuses
+            entityLifecycleStatuses: vm.entityLifecycleStatuses,
+            searchSessionId
         };
 
         if (changes.entityKinds) {
@@ -21,13 +21,16 @@ package com.khartec.waltz.service;
 
 import com.khartec.waltz.data.DBExecutorPool;
 import com.khartec.waltz.data.DBExecutorPoolInterface;
+import com.khartec.waltz.service.query_statistics.QueryStatistics;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
 import org.jooq.DSLContext;
 import org.jooq.SQLDialect;
 import org.jooq.conf.Settings;
 import org.jooq.impl.DSL;
+import org.jooq.impl.DataSourceConnectionProvider;
 import org.jooq.impl.DefaultConfiguration;
+import org.jooq.impl.ThreadLocalTransactionProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -36,6 +39,7 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.PropertySource;
 
 import javax.sql.DataSource;
+import java.util.concurrent.TimeUnit;
 
 @Configuration
 @PropertySource(value = "classpath:waltz.properties", ignoreResourceNotFound = true)
@@ -72,6 +76,13 @@ public class DIBaseConfiguration {
     @Value("${database.performance.query.slow.threshold:10}")
     private int databasePerformanceQuerySlowThreshold;
 
+    // overrides the (seconds based) threshold above if set
+    @Value("${database.performance.query.slow.threshold.millis:-1}")
+    private long databasePerformanceQuerySlowThresholdMillis;
+
+    @Value("${database.performance.query.statistics.max.fingerprints:1000}")
+    private int databasePerformanceQueryStatisticsMaxFingerprints;
+
     @Bean
     public DataSource dataSource() {
 
@@ -92,9 +103,15 @@ public class DIBaseConfiguration {
     }
 
 
+    @Bean
+    public QueryStatistics queryStatistics() {
+        return new QueryStatistics(databasePerformanceQueryStatisticsMaxFingerprints);
+    }
+
+
     @Bean
     @Autowired
-    public DSLContext dsl(DataSource dataSource) {
+    public DSLContext dsl(DataSource dataSource, QueryStatistics queryStatistics) {
         try {
             SQLDialect.valueOf(dialect);
         } catch (IllegalArgumentException iae) {
@@ -112,13 +129,30 @@ public class DIBaseConfiguration {
                     .withExecuteLogging(true);
         }
 
+        // thread bound transactions let services group the writes of several daos,
+        // e.g. dsl.transaction(() -> ...), outside a transaction each
+        // query acquires its own connection from the pool as before.
+        //
+        // Whilst a transaction is open on a thread:
+        //  - queries on that thread join it, even if issued via this (non transactional) dsl
+        //  - nested dsl.transaction(...) calls (e.g. dao level replace operations) become
+        //    savepoints, so roll back with the enclosing transaction
+        //  - work submitted to other threads (e.g. DBExecutorPool) does not join it, so
+        //    must not be relied upon to see, or wait on, uncommitted changes
         org.jooq.Configuration configuration = new DefaultConfiguration()
-                .set(dataSource)
+                .set(new ThreadLocalTransactionProvider(new DataSourceConnectionProvider(dataSource)))
                 .set(SQLDialect.valueOf(dialect))
                 .set(dslSettings)
-                .set(new SlowQueryListener(databasePerformanceQuerySlowThreshold));
+                .set(new SlowQueryListener(determineSlowQueryThresholdMillis(), queryStatistics));
 
         return DSL.using(configuration);
     }
 
+
+    private long determineSlowQueryThresholdMillis() {
+        return databasePerformanceQuerySlowThresholdMillis >= 0
+                ? databasePerformanceQuerySlowThresholdMillis
+                : TimeUnit.SECONDS.toMillis(databasePerformanceQuerySlowThreshold);
+    }
+
 }
@@ -22,9 +22,19 @@ import com.khartec.waltz.model.ImmutableWaltzVersionInfo;
 import com.khartec.waltz.model.WaltzVersionInfo;
 import com.khartec.waltz.model.settings.ImmutableSetting;
 import com.khartec.waltz.model.settings.Setting;
+import com.khartec.waltz.service.access_log.AccessLogService;
 import com.khartec.waltz.service.email.DummyJavaMailSender;
+import com.khartec.waltz.service.email.EmailOutboxDispatcher;
+import com.khartec.waltz.service.jmx.AccessLogMaintenance;
+import com.khartec.waltz.service.jmx.DataTypeUsageRecalculationMaintenance;
+import com.khartec.waltz.service.jmx.EmailOutboxMaintenance;
 import com.khartec.waltz.service.jmx.PersonMaintenance;
+import com.khartec.waltz.service.jmx.QueryStatisticsMaintenance;
+import com.khartec.waltz.service.jmx.UserRoleMaintenance;
 import com.khartec.waltz.service.person_hierarchy.PersonHierarchyService;
+import com.khartec.waltz.service.query_statistics.QueryStatistics;
+import com.khartec.waltz.service.usage_info.DataTypeUsageRecalculationQueue;
+import com.khartec.waltz.service.user.UserRoleService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.*;
@@ -60,6 +70,10 @@ public class DIConfiguration implements SchedulingConfigurer {
     @Value("${smtpPort:25}")
     private int smtpPort;
 
+    // shared by all @Scheduled methods, so a slow task does not delay the others
+    @Value("${waltz.scheduler.pool.size:4}")
+    private int schedulerPoolSize;
+
     // -- BUILD ---
 
     @Value("${build.pom:dev}")
@@ -119,6 +133,41 @@ public class DIConfiguration implements SchedulingConfigurer {
     }
 
 
+    @Bean
+    @Autowired
+    public UserRoleMaintenance userRoleMaintenance(UserRoleService userRoleService) {
+        return new UserRoleMaintenance(userRoleService);
+    }
+
+
+    @Bean
+    @Autowired
+    public DataTypeUsageRecalculationMaintenance dataTypeUsageRecalculationMaintenance(DataTypeUsageRecalculationQueue recalculationQueue) {
+        return new DataTypeUsageRecalculationMaintenance(recalculationQueue);
+    }
+
+
+    @Bean
+    @Autowired
+    public QueryStatisticsMaintenance queryStatisticsMaintenance(QueryStatistics queryStatistics) {
+        return new QueryStatisticsMaintenance(queryStatistics);
+    }
+
+
+    @Bean
+    @Autowired
+    public EmailOutboxMaintenance emailOutboxMaintenance(EmailOutboxDispatcher emailOutboxDispatcher) {
+        return new EmailOutboxMaintenance(emailOutboxDispatcher);
+    }
+
+
+    @Bean
+    @Autowired
+    public AccessLogMaintenance accessLogMaintenance(AccessLogService accessLogService) {
+        return new AccessLogMaintenance(accessLogService);
+    }
+
+
     @Bean
     public JavaMailSender mailSender() {
         if (smtpHost == null) {
@@ -135,6 +184,8 @@ public class DIConfiguration implements SchedulingConfigurer {
     @Bean
     public TaskScheduler taskScheduler() {
         ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(Math.max(schedulerPoolSize, 1));
+        scheduler.setThreadNamePrefix("Waltz Scheduler ");
         scheduler.setDaemon(true);
         return scheduler;
     }
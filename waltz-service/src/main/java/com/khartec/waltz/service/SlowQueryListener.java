@@ -19,25 +19,38 @@
 package com.khartec.waltz.service;
 
 
+import com.khartec.waltz.service.query_statistics.QueryStatistics;
 import org.jooq.DSLContext;
 import org.jooq.ExecuteContext;
 import org.jooq.conf.Settings;
 import org.jooq.impl.DSL;
 import org.jooq.impl.DefaultExecuteListener;
-import org.jooq.tools.StopWatch;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.concurrent.TimeUnit;
 
+import static com.khartec.waltz.common.Checks.checkNotNull;
 
+
+/**
+ * Times every query, recording the latency against the query's shape in
+ * <code>QueryStatistics</code> and logging any which exceed the slow query
+ * threshold.
+ *
+ * A single listener instance is shared by every query executed via the
+ * DSLContext, so the start time is held in the (per execution)
+ * <code>ExecuteContext</code> rather than on the listener.
+ */
 public class SlowQueryListener extends DefaultExecuteListener {
 
     private static final String PERFORMANCE_APPENDER = "WALTZ.PERFORMANCE";
     private static final Logger LOG = LoggerFactory.getLogger(PERFORMANCE_APPENDER);
 
-    private StopWatch stopWatch;
-    private long slowQueryThresholdInNanos;
+    private static final String START_KEY = SlowQueryListener.class.getName() + ".start";
+
+    private final long slowQueryThresholdInNanos;
+    private final QueryStatistics queryStatistics;
 
     public class SQLPerformanceWarning
             extends Exception {
@@ -48,29 +61,55 @@ public class SlowQueryListener extends DefaultExecuteListener {
     }
 
 
-    public SlowQueryListener(int slowQueryThresholdSeconds) {
-        LOG.info("Initialising with {} second threshold", slowQueryThresholdSeconds);
-        this.slowQueryThresholdInNanos = TimeUnit.SECONDS.toNanos(slowQueryThresholdSeconds);
+    public SlowQueryListener(long slowQueryThresholdMillis,
+                             QueryStatistics queryStatistics) {
+        checkNotNull(queryStatistics, "queryStatistics cannot be null");
+        LOG.info("Initialising with {} millisecond threshold", slowQueryThresholdMillis);
+        this.slowQueryThresholdInNanos = TimeUnit.MILLISECONDS.toNanos(slowQueryThresholdMillis);
+        this.queryStatistics = queryStatistics;
     }
 
 
     @Override
     public void executeStart(ExecuteContext ctx) {
         super.executeStart(ctx);
-        stopWatch = new StopWatch();
+        ctx.data(START_KEY, System.nanoTime());
     }
 
 
     @Override
     public void executeEnd(ExecuteContext ctx) {
         super.executeEnd(ctx);
-        long split = stopWatch.split();
-        if (split > slowQueryThresholdInNanos) {
+
+        Object start = ctx.data(START_KEY);
+        if (! (start instanceof Long)) {
+            return;
+        }
+
+        long elapsed = System.nanoTime() - (Long) start;
+        queryStatistics.record(determineSql(ctx), elapsed);
+
+        if (elapsed > slowQueryThresholdInNanos) {
             DSLContext context = DSL.using(ctx.dialect(),
                     // ... and the flag for pretty-printing
                     new Settings().withRenderFormatted(true));
 
-            LOG.warn(String.format("Slow SQL executed in %d seconds", TimeUnit.NANOSECONDS.toSeconds(split)), new SQLPerformanceWarning(context.renderInlined(ctx.query())));
+            String sql = ctx.query() == null
+                    ? determineSql(ctx)
+                    : context.renderInlined(ctx.query());
+
+            LOG.warn(String.format("Slow SQL executed in %d milliseconds", TimeUnit.NANOSECONDS.toMillis(elapsed)), new SQLPerformanceWarning(sql));
+        }
+    }
+
+
+    private static String determineSql(ExecuteContext ctx) {
+        if (ctx.sql() != null) {
+            return ctx.sql();
         }
+        String[] batchSql = ctx.batchSQL();
+        return batchSql.length > 0
+                ? batchSql[0]
+                : "";
     }
 }
@@ -18,36 +18,119 @@
 
 package com.khartec.waltz.service.access_log;
 
+import com.khartec.waltz.common.RingBuffer;
 import com.khartec.waltz.data.access_log.AccessLogDao;
 import com.khartec.waltz.model.accesslog.AccessLog;
 import com.khartec.waltz.model.accesslog.AccessTime;
+import com.khartec.waltz.model.accesslog.ImmutableAccessTime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PreDestroy;
 import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
 import static com.khartec.waltz.common.Checks.checkNotEmpty;
 import static com.khartec.waltz.common.Checks.checkNotNull;
+import static com.khartec.waltz.common.Checks.checkTrue;
 import static com.khartec.waltz.common.DateTimeUtilities.nowUtc;
+import static java.util.stream.Collectors.toList;
 
 
+/**
+ * Access log entries are written on every UI navigation so, rather than
+ * inserting each one on the request thread, they are accumulated in a
+ * bounded, lock-free, ring buffer and written in jdbc batches.  A flush is
+ * triggered (on a background thread) whenever a batch worth of entries is
+ * waiting, and periodically to write stragglers.  When the buffer is full
+ * new entries are dropped (and counted) rather than blocking requests.
+ * Pending entries are flushed on shutdown.
+ *
+ * The most recent access time of each user is also held in memory so
+ * active user queries do not need to group the entire access log.  The map
+ * is periodically merged with the database (covering a configurable window)
+ * to include activity recorded by other Waltz instances, queries reaching
+ * further back than the window go to the database.
+ */
 @Service
 public class AccessLogService {
 
+    private static final Logger LOG = LoggerFactory.getLogger(AccessLogService.class);
+
     private final AccessLogDao accessLogDao;
+    private final RingBuffer<AccessLog> buffer;
+    private final int batchSize;
+    private final int lastSeenWindowHours;
+
+    private final ExecutorService flushExecutor;
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicBoolean flushRequested = new AtomicBoolean(false);
+
+    private final Map<String, LocalDateTime> lastSeenByUserId = new ConcurrentHashMap<>();
+    // null until the map has been loaded, thereafter the start of the period the map is complete for
+    private volatile LocalDateTime lastSeenCompleteSince = null;
+
+    private final AtomicLong writtenCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong flushCount = new AtomicLong();
+
 
     @Autowired
-    public AccessLogService(AccessLogDao accessLogDao) {
+    public AccessLogService(AccessLogDao accessLogDao,
+                            @Value("${waltz.access.log.buffer.size:8192}") int bufferSize,
+                            @Value("${waltz.access.log.batch.size:500}") int batchSize,
+                            @Value("${waltz.access.log.last.seen.window.hours:24}") int lastSeenWindowHours) {
+        checkNotNull(accessLogDao, "accessLogDao cannot be null");
+        checkTrue(batchSize > 0, "batchSize must be positive");
+        checkTrue(lastSeenWindowHours > 0, "lastSeenWindowHours must be positive");
+
         this.accessLogDao = accessLogDao;
+        this.buffer = new RingBuffer<>(bufferSize);
+        this.batchSize = batchSize;
+        this.lastSeenWindowHours = lastSeenWindowHours;
+        this.flushExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread t = new Thread(runnable, "Access Log Writer");
+            t.setDaemon(true);
+            return t;
+        });
     }
 
 
+    /**
+     * Queues the entry to be written.
+     *
+     * @param logEntry  entry to write
+     * @return  1 if the entry was queued, 0 if it was dropped as the buffer is full
+     */
     public int write(AccessLog logEntry) {
         checkNotNull(logEntry, "logEntry must not be null");
-        return accessLogDao.write(logEntry);
+
+        lastSeenByUserId.merge(logEntry.userId(), logEntry.createdAt(), AccessLogService::latest);
+
+        if (! buffer.offer(logEntry)) {
+            if (droppedCount.incrementAndGet() % 1000 == 1) {
+                LOG.warn("Access log buffer is full, dropping entries ({} dropped so far)", droppedCount.get());
+            }
+            requestFlush();
+            return 0;
+        }
+
+        if (buffer.size() >= batchSize) {
+            requestFlush();
+        }
+        return 1;
     }
 
 
@@ -60,7 +143,162 @@ public class AccessLogService {
 
     public List<AccessTime> findActiveUsersSince(Duration duration) {
         LocalDateTime sinceTime = nowUtc().minus(duration);
-        return accessLogDao.findActiveUsersSince(sinceTime);
+        LocalDateTime completeSince = lastSeenCompleteSince;
+
+        if (completeSince == null || sinceTime.isBefore(completeSince)) {
+            flush();
+            return accessLogDao.findActiveUsersSince(sinceTime);
+        }
+
+        return lastSeenByUserId
+                .entrySet()
+                .stream()
+                .filter(e -> ! e.getValue().isBefore(sinceTime))
+                .sorted(Map.Entry.<String, LocalDateTime>comparingByValue().reversed())
+                .map(e -> ImmutableAccessTime
+                        .builder()
+                        .userId(e.getKey())
+                        .createdAt(e.getValue())
+                        .build())
+                .collect(toList());
+    }
+
+
+    // --- background work ---
+
+    /**
+     * Writes all buffered entries.  If a flush is already in progress this
+     * call returns immediately.
+     *
+     * @return  number of entries written
+     */
+    @Scheduled(fixedDelayString = "${waltz.access.log.flush.millis:1000}")
+    public int flush() {
+        if (! flushLock.tryLock()) {
+            return 0;
+        }
+        try {
+            return drain();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+
+    /**
+     * Merges the last access times recorded in the database (within the
+     * window) into the in-memory map and discards entries older than the
+     * window.
+     */
+    @Scheduled(fixedDelayString = "${waltz.access.log.last.seen.refresh.millis:300000}")
+    public void refreshLastSeen() {
+        LocalDateTime windowStart = nowUtc().minusHours(lastSeenWindowHours);
+
+        accessLogDao
+                .findActiveUsersSince(windowStart)
+                .forEach(t -> lastSeenByUserId.merge(t.userId(), t.createdAt(), AccessLogService::latest));
+
+        // conditional removes so concurrent updates are not lost
+        lastSeenByUserId.forEach((userId, lastSeen) -> {
+            if (lastSeen.isBefore(windowStart)) {
+                lastSeenByUserId.remove(userId, lastSeen);
+            }
+        });
+
+        lastSeenCompleteSince = windowStart;
+    }
+
+
+    @PreDestroy
+    public void shutdown() {
+        flushExecutor.shutdown();
+        flushLock.lock();
+        try {
+            int written = drain();
+            LOG.info("Flushed {} access log entries on shutdown", written);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+
+    // --- metrics ---
+
+    public int getBufferedCount() {
+        return buffer.size();
+    }
+
+
+    public int getBufferCapacity() {
+        return buffer.capacity();
+    }
+
+
+    public long getWrittenCount() {
+        return writtenCount.get();
+    }
+
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+
+    public long getFlushCount() {
+        return flushCount.get();
+    }
+
+
+    public int getLastSeenUserCount() {
+        return lastSeenByUserId.size();
+    }
+
+
+    // --- helpers ---
+
+    private void requestFlush() {
+        if (flushRequested.compareAndSet(false, true)) {
+            try {
+                flushExecutor.execute(() -> {
+                    flushRequested.set(false);
+                    flush();
+                });
+            } catch (RuntimeException e) {
+                // executor has been shut down, the shutdown flush will write what it can
+                flushRequested.set(false);
+            }
+        }
+    }
+
+
+    private int drain() {
+        int written = 0;
+        List<AccessLog> batch = new ArrayList<>(batchSize);
+        while (buffer.drainTo(batch, batchSize) > 0) {
+            try {
+                accessLogDao.write(batch);
+                written += batch.size();
+                writtenCount.addAndGet(batch.size());
+            } catch (Exception e) {
+                failedCount.addAndGet(batch.size());
+                LOG.error("Failed to write batch of {} access log entries, they have been discarded", batch.size(), e);
+            }
+            batch.clear();
+        }
+        if (written > 0) {
+            flushCount.incrementAndGet();
+        }
+        return written;
+    }
+
+
+    private static LocalDateTime latest(LocalDateTime a, LocalDateTime b) {
+        return a.isAfter(b) ? a : b;
     }
 
 }
@@ -18,6 +18,7 @@
 
 package com.khartec.waltz.service.actor;
 
+import com.khartec.waltz.data.EntityReferenceNameResolver;
 import com.khartec.waltz.data.actor.ActorDao;
 import com.khartec.waltz.data.actor.ActorSearchDao;
 import com.khartec.waltz.model.EntityKind;
@@ -46,15 +47,20 @@ public class ActorService {
 
     private final ActorDao actorDao;
     private final ActorSearchDao actorSearchDao;
+    private final EntityReferenceNameResolver nameResolver;
 
 
     @Autowired
-    public ActorService(ActorDao actorDao, ActorSearchDao actorSearchDao) {
+    public ActorService(ActorDao actorDao,
+                        ActorSearchDao actorSearchDao,
+                        EntityReferenceNameResolver nameResolver) {
         checkNotNull(actorDao, "actorDao cannot be null");
         checkNotNull(actorSearchDao, "actorSearchDao cannot be null");
+        checkNotNull(nameResolver, "nameResolver cannot be null");
 
         this.actorDao = actorDao;
         this.actorSearchDao = actorSearchDao;
+        this.nameResolver = nameResolver;
     }
 
 
@@ -85,6 +91,7 @@ public class ActorService {
                 .withLastUpdate(UserTimestamp.mkForUser(username));
 
         boolean success = actorDao.update(updateCommand);
+        nameResolver.invalidate(EntityReference.mkRef(EntityKind.ACTOR, command.id()));
         return ImmutableCommandResponse.<ActorChangeCommand>builder()
                 .originalCommand(command)
                 .entityReference(EntityReference.mkRef(EntityKind.ACTOR, command.id()))
@@ -20,6 +20,7 @@ package com.khartec.waltz.service.app_group;
 
 import com.khartec.waltz.common.Checks;
 import com.khartec.waltz.common.exception.InsufficientPrivelegeException;
+import com.khartec.waltz.data.EntityReferenceNameResolver;
 import com.khartec.waltz.data.app_group.AppGroupDao;
 import com.khartec.waltz.data.app_group.AppGroupEntryDao;
 import com.khartec.waltz.data.app_group.AppGroupMemberDao;
@@ -68,6 +69,7 @@ public class AppGroupService {
     private final EntityRelationshipDao entityRelationshipDao;
     private final ChangeInitiativeService changeInitiativeService;
     private final ChangeLogService changeLogService;
+    private final EntityReferenceNameResolver nameResolver;
 
 
     @Autowired
@@ -79,7 +81,8 @@ public class AppGroupService {
                            OrganisationalUnitDao organisationalUnitDao,
                            EntityRelationshipDao entityRelationshipDao,
                            ChangeInitiativeService changeInitiativeService,
-                           ChangeLogService changeLogService) {
+                           ChangeLogService changeLogService,
+                           EntityReferenceNameResolver nameResolver) {
         checkNotNull(appGroupDao, "appGroupDao cannot be null");
         checkNotNull(appGroupEntryDao, "appGroupEntryDao cannot be null");
         checkNotNull(appGroupEntryDao, "appGroupEntryDao cannot be null");
@@ -89,6 +92,7 @@ public class AppGroupService {
         checkNotNull(entityRelationshipDao, "entityRelationshipDao cannot be null");
         checkNotNull(changeInitiativeService, "changeInitiativeService cannot be null");
         checkNotNull(changeLogService, "changeLogService cannot be null");
+        checkNotNull(nameResolver, "nameResolver cannot be null");
 
         this.appGroupDao = appGroupDao;
         this.appGroupMemberDao = appGroupMemberDao;
@@ -99,6 +103,7 @@ public class AppGroupService {
         this.entityRelationshipDao = entityRelationshipDao;
         this.changeInitiativeService = changeInitiativeService;
         this.changeLogService = changeLogService;
+        this.nameResolver = nameResolver;
     }
 
 
@@ -316,6 +321,7 @@ public class AppGroupService {
     public AppGroupDetail updateOverview(String userId, AppGroup appGroup) throws InsufficientPrivelegeException {
         verifyUserCanUpdateGroup(userId, appGroup.id().get());
         appGroupDao.update(appGroup);
+        nameResolver.invalidate(mkRef(EntityKind.APP_GROUP, appGroup.id().get()));
         audit(appGroup.id().get(), userId, "Updated group overview", null, Operation.UPDATE);
         return getGroupDetailById(appGroup.id().get());
     }
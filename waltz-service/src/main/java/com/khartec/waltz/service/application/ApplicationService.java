@@ -18,6 +18,7 @@
 
 package com.khartec.waltz.service.application;
 
+import com.khartec.waltz.data.EntityReferenceNameResolver;
 import com.khartec.waltz.data.application.ApplicationDao;
 import com.khartec.waltz.data.application.ApplicationIdSelectorFactory;
 import com.khartec.waltz.data.application.search.ApplicationSearchDao;
@@ -61,23 +62,30 @@ public class ApplicationService {
     private final TagService tagService;
     private final EntityAliasDao entityAliasDao;
     private final ApplicationSearchDao appSearchDao;
-    private final ApplicationIdSelectorFactory appIdSelectorFactory = new ApplicationIdSelectorFactory();
+    private final EntityReferenceNameResolver nameResolver;
+    private final ApplicationIdSelectorFactory appIdSelectorFactory;
 
 
     @Autowired
     public ApplicationService(ApplicationDao appDao,
                               TagService tagService,
                               EntityAliasDao entityAliasDao,
-                              ApplicationSearchDao appSearchDao) {
+                              ApplicationSearchDao appSearchDao,
+                              EntityReferenceNameResolver nameResolver,
+                              ApplicationIdSelectorFactory appIdSelectorFactory) {
         checkNotNull(appDao, "appDao must not be null");
         checkNotNull(tagService, "tagService must not be null");
         checkNotNull(entityAliasDao, "entityAliasDao must not be null");
         checkNotNull(appSearchDao, "appSearchDao must not be null");
+        checkNotNull(nameResolver, "nameResolver must not be null");
+        checkNotNull(appIdSelectorFactory, "appIdSelectorFactory must not be null");
 
         this.applicationDao = appDao;
         this.tagService = tagService;
         this.entityAliasDao = entityAliasDao;
         this.appSearchDao = appSearchDao;
+        this.nameResolver = nameResolver;
+        this.appIdSelectorFactory = appIdSelectorFactory;
     }
 
 
@@ -132,6 +140,7 @@ public class ApplicationService {
                     request.aliases());
 
             tagService.updateTags(entityReference, request.tags(), username);
+            appSearchDao.reindex(response.id().get());
         }
 
         return response;
@@ -139,7 +148,10 @@ public class ApplicationService {
 
 
     public Integer update(Application application) {
-        return applicationDao.update(application);
+        Integer updateCount = applicationDao.update(application);
+        application.id().ifPresent(appSearchDao::reindex);
+        application.id().ifPresent(id -> nameResolver.invalidate(EntityReference.mkRef(EntityKind.APPLICATION, id)));
+        return updateCount;
     }
 
 
@@ -43,17 +43,20 @@ public class AssetCostService {
 
     private final AssetCostDao assetCostDao;
     private final AssetCostStatsDao assetCostStatsDao;
-    private final ApplicationIdSelectorFactory idSelectorFactory = new ApplicationIdSelectorFactory();
+    private final ApplicationIdSelectorFactory idSelectorFactory;
 
 
     @Autowired
     public AssetCostService(AssetCostDao assetCodeDao,
-                            AssetCostStatsDao assetCostStatsDao) {
+                            AssetCostStatsDao assetCostStatsDao,
+                            ApplicationIdSelectorFactory idSelectorFactory) {
         checkNotNull(assetCodeDao, "assetCodeDao cannot be null");
         checkNotNull(assetCostStatsDao, "assetCostStatsDao cannot be null");
+        checkNotNull(idSelectorFactory, "idSelectorFactory cannot be null");
 
         this.assetCostDao = assetCodeDao;
         this.assetCostStatsDao = assetCostStatsDao;
+        this.idSelectorFactory = idSelectorFactory;
     }
 
 
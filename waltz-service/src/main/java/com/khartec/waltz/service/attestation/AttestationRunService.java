@@ -22,7 +22,6 @@ package com.khartec.waltz.service.attestation;
 import com.khartec.waltz.data.GenericSelector;
 import com.khartec.waltz.data.GenericSelectorFactory;
 import com.khartec.waltz.data.attestation.AttestationInstanceDao;
-import com.khartec.waltz.data.attestation.AttestationInstanceRecipientDao;
 import com.khartec.waltz.data.attestation.AttestationRunDao;
 import com.khartec.waltz.data.involvement.InvolvementDao;
 import com.khartec.waltz.model.*;
@@ -51,13 +50,13 @@ import static com.khartec.waltz.model.attestation.AttestationStatus.ISSUING;
 import static com.khartec.waltz.model.utils.IdUtilities.toIds;
 import static java.util.Optional.empty;
 import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.mapping;
 import static java.util.stream.Collectors.toList;
 
 @Service
 public class AttestationRunService {
 
     private final AttestationInstanceDao attestationInstanceDao;
-    private final AttestationInstanceRecipientDao attestationInstanceRecipientDao;
     private final AttestationRunDao attestationRunDao;
     private final EmailService emailService;
     private final GenericSelectorFactory genericSelectorFactory = new GenericSelectorFactory();
@@ -65,18 +64,15 @@ public class AttestationRunService {
 
     @Autowired
     public AttestationRunService(AttestationInstanceDao attestationInstanceDao,
-                                 AttestationInstanceRecipientDao attestationInstanceRecipientDao,
                                  AttestationRunDao attestationRunDao,
                                  EmailService emailService,
                                  InvolvementDao involvementDao) {
-        checkNotNull(attestationInstanceRecipientDao, "attestationInstanceRecipientDao cannot be null");
         checkNotNull(attestationInstanceDao, "attestationInstanceDao cannot be null");
         checkNotNull(attestationRunDao, "attestationRunDao cannot be null");
         checkNotNull(emailService, "emailService cannot be null");
         checkNotNull(involvementDao, "involvementDao cannot be null");
 
         this.attestationInstanceDao = attestationInstanceDao;
-        this.attestationInstanceRecipientDao = attestationInstanceRecipientDao;
         this.attestationRunDao = attestationRunDao;
         this.emailService = emailService;
         this.involvementDao = involvementDao;
@@ -231,24 +227,15 @@ public class AttestationRunService {
 
     private void createAttestationInstancesAndRecipients(List<AttestationInstanceRecipient> instanceRecipients) {
 
-        Map<AttestationInstance, List<AttestationInstanceRecipient>> instancesAndRecipientsToSave = instanceRecipients
+        Map<AttestationInstance, List<String>> recipientUserIdsByInstance = instanceRecipients
                 .stream()
                 .collect(groupingBy(
                         AttestationInstanceRecipient::attestationInstance,
-                        toList()
+                        mapping(AttestationInstanceRecipient::userId, toList())
                 ));
 
-
-        // insert new instances and recipients
-        instancesAndRecipientsToSave.forEach(
-                (k, v) -> {
-                    // create instance
-                    long instanceId = attestationInstanceDao.create(k);
-
-                    // create recipients for the instance
-                    v.forEach(r -> attestationInstanceRecipientDao.create(instanceId, r.userId()));
-                }
-        );
+        // insert new instances and recipients, in batches, within a single transaction
+        attestationInstanceDao.createInstancesAndRecipients(recipientUserIdsByInstance);
     }
 
 
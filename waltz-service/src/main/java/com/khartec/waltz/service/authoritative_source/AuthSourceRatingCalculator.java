@@ -52,7 +52,7 @@ public class AuthSourceRatingCalculator {
 
     private static final Logger LOG = LoggerFactory.getLogger(AuthSourceRatingCalculator.class);
 
-    private final ApplicationIdSelectorFactory appIdSelectorFactory = new ApplicationIdSelectorFactory();
+    private final ApplicationIdSelectorFactory appIdSelectorFactory;
     private final DataTypeDao dataTypeDao;
     private final EntityHierarchyDao entityHierarchyDao;
     private final LogicalFlowDecoratorDao logicalFlowDecoratorDao;
@@ -63,16 +63,19 @@ public class AuthSourceRatingCalculator {
     public AuthSourceRatingCalculator(DataTypeDao dataTypeDao,
                                       EntityHierarchyDao entityHierarchyDao,
                                       LogicalFlowDecoratorRatingsCalculator ratingsCalculator,
-                                      LogicalFlowDecoratorDao logicalFlowDecoratorDao) {
+                                      LogicalFlowDecoratorDao logicalFlowDecoratorDao,
+                                      ApplicationIdSelectorFactory appIdSelectorFactory) {
         checkNotNull(dataTypeDao, "dataTypeDao cannot be null");
         checkNotNull(entityHierarchyDao, "entityHierarchyDao cannot be null");
         checkNotNull(ratingsCalculator, "ratingsCalculator cannot be null");
         checkNotNull(logicalFlowDecoratorDao, "logicalFlowDecoratorDao cannot be null");
+        checkNotNull(appIdSelectorFactory, "appIdSelectorFactory cannot be null");
 
         this.dataTypeDao = dataTypeDao;
         this.entityHierarchyDao = entityHierarchyDao;
         this.logicalFlowDecoratorDao = logicalFlowDecoratorDao;
         this.ratingsCalculator = ratingsCalculator;
+        this.appIdSelectorFactory = appIdSelectorFactory;
     }
 
 
@@ -0,0 +1,240 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package com.khartec.waltz.service.authoritative_source;
+
+import com.khartec.waltz.data.authoritative_source.AuthoritativeSourceDao;
+import com.khartec.waltz.data.data_type.DataTypeDao;
+import com.khartec.waltz.data.entity_hierarchy.EntityHierarchyDao;
+import com.khartec.waltz.data.entity_hierarchy.EntityHierarchyIndex;
+import com.khartec.waltz.model.EntityKind;
+import com.khartec.waltz.model.authoritativesource.AuthoritativeRatingVantagePoint;
+import com.khartec.waltz.model.authoritativesource.ImmutableAuthoritativeRatingVantagePoint;
+import com.khartec.waltz.model.datatype.DataType;
+import com.khartec.waltz.model.rating.AuthoritativenessRating;
+import org.jooq.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static com.khartec.waltz.common.Checks.checkNotNull;
+import static com.khartec.waltz.common.MapUtilities.indexBy;
+import static com.khartec.waltz.common.StreamUtilities.batchProcessingCollector;
+import static com.khartec.waltz.model.EntityReference.mkRef;
+import static com.khartec.waltz.schema.tables.Application.APPLICATION;
+import static com.khartec.waltz.schema.tables.LogicalFlow.LOGICAL_FLOW;
+import static com.khartec.waltz.schema.tables.LogicalFlowDecorator.LOGICAL_FLOW_DECORATOR;
+
+
+/**
+ * Recalculates the authoritativeness rating of every logical flow decorator
+ * in memory (see <code>FlowRatingTable</code>) and writes back only the
+ * decorators whose rating or auth source has changed.
+ *
+ * Relies on the resident org unit and data type hierarchy indexes, if
+ * either is unavailable no calculation is performed and callers should
+ * fall back to the sql based recalculation.
+ */
+@Service
+public class AuthSourceRatingRecalculator {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AuthSourceRatingRecalculator.class);
+
+    private static final int BATCH_SIZE = 1000;
+
+    private final DSLContext dsl;
+    private final AuthoritativeSourceDao authoritativeSourceDao;
+    private final DataTypeDao dataTypeDao;
+    private final EntityHierarchyDao entityHierarchyDao;
+
+
+    @Autowired
+    public AuthSourceRatingRecalculator(DSLContext dsl,
+                                        AuthoritativeSourceDao authoritativeSourceDao,
+                                        DataTypeDao dataTypeDao,
+                                        EntityHierarchyDao entityHierarchyDao) {
+        checkNotNull(dsl, "dsl cannot be null");
+        checkNotNull(authoritativeSourceDao, "authoritativeSourceDao cannot be null");
+        checkNotNull(dataTypeDao, "dataTypeDao cannot be null");
+        checkNotNull(entityHierarchyDao, "entityHierarchyDao cannot be null");
+
+        this.dsl = dsl;
+        this.authoritativeSourceDao = authoritativeSourceDao;
+        this.dataTypeDao = dataTypeDao;
+        this.entityHierarchyDao = entityHierarchyDao;
+    }
+
+
+    /**
+     * @return  number of decorators updated, or empty if the hierarchy indexes
+     * needed for the calculation are not loaded
+     */
+    public Optional<Integer> recalculateAll() {
+        Optional<EntityHierarchyIndex> orgUnitIndex = entityHierarchyDao.findIndex(EntityKind.ORG_UNIT);
+        Optional<EntityHierarchyIndex> dataTypeIndex = entityHierarchyDao.findIndex(EntityKind.DATA_TYPE);
+
+        if (! orgUnitIndex.isPresent() || ! dataTypeIndex.isPresent()) {
+            LOG.info("Hierarchy indexes not loaded, cannot recalculate flow ratings in memory");
+            return Optional.empty();
+        }
+
+        long start = System.currentTimeMillis();
+
+        List<AuthoritativeRatingVantagePoint> vantagePoints = authoritativeSourceDao.findAuthoritativeRatingVantagePoints();
+        List<AuthoritativeRatingVantagePoint> pointToPointDeclarations = findPointToPointDeclarations(dataTypeIndex.get());
+        FlowRatingTable table = loadTable();
+
+        int changeCount = table.calculate(
+                vantagePoints,
+                pointToPointDeclarations,
+                orgUnitIndex.get()::findAncestorIds,
+                dataTypeIndex.get()::findAncestorIds);
+
+        AtomicInteger updateCount = new AtomicInteger();
+        IntStream
+                .of(table.findChangedRows())
+                .boxed()
+                .collect(batchProcessingCollector(
+                        BATCH_SIZE,
+                        batch -> {
+                            if (! batch.isEmpty()) {
+                                updateCount.addAndGet(writeBatch(table, batch));
+                            }
+                        }));
+
+        LOG.info(
+                "Recalculated ratings for {} flow decorators, {} required updating ({} updated), took {}ms",
+                table.size(),
+                changeCount,
+                updateCount.get(),
+                System.currentTimeMillis() - start);
+
+        return Optional.of(updateCount.get());
+    }
+
+
+    // --- helpers ---
+
+    private FlowRatingTable loadTable() {
+        FlowRatingTable table = new FlowRatingTable(BATCH_SIZE);
+
+        Field<Long> targetOrgUnitId = APPLICATION.ORGANISATIONAL_UNIT_ID.as("target_ou_id");
+
+        try (Cursor<Record9<Long, String, Long, String, Long, Long, Long, String, Long>> cursor = dsl
+                .select(LOGICAL_FLOW_DECORATOR.ID,
+                        LOGICAL_FLOW.SOURCE_ENTITY_KIND,
+                        LOGICAL_FLOW.SOURCE_ENTITY_ID,
+                        LOGICAL_FLOW.TARGET_ENTITY_KIND,
+                        LOGICAL_FLOW.TARGET_ENTITY_ID,
+                        targetOrgUnitId,
+                        LOGICAL_FLOW_DECORATOR.DECORATOR_ENTITY_ID,
+                        LOGICAL_FLOW_DECORATOR.RATING,
+                        LOGICAL_FLOW_DECORATOR.AUTH_SOURCE_ID)
+                .from(LOGICAL_FLOW_DECORATOR)
+                .innerJoin(LOGICAL_FLOW)
+                    .on(LOGICAL_FLOW.ID.eq(LOGICAL_FLOW_DECORATOR.LOGICAL_FLOW_ID))
+                .leftJoin(APPLICATION)
+                    .on(APPLICATION.ID.eq(LOGICAL_FLOW.TARGET_ENTITY_ID)
+                            .and(LOGICAL_FLOW.TARGET_ENTITY_KIND.eq(EntityKind.APPLICATION.name())))
+                .where(LOGICAL_FLOW_DECORATOR.DECORATOR_ENTITY_KIND.eq(EntityKind.DATA_TYPE.name()))
+                .fetchSize(BATCH_SIZE)
+                .fetchLazy()) {
+            for (Record r : cursor) {
+                boolean sourceIsApp = EntityKind.APPLICATION.name().equals(r.get(LOGICAL_FLOW.SOURCE_ENTITY_KIND));
+                Long ouId = r.get(targetOrgUnitId);
+                Long authSourceId = r.get(LOGICAL_FLOW_DECORATOR.AUTH_SOURCE_ID);
+
+                table.add(
+                        r.get(LOGICAL_FLOW_DECORATOR.ID),
+                        sourceIsApp ? r.get(LOGICAL_FLOW.SOURCE_ENTITY_ID) : FlowRatingTable.NONE,
+                        EntityKind.valueOf(r.get(LOGICAL_FLOW.TARGET_ENTITY_KIND)),
+                        r.get(LOGICAL_FLOW.TARGET_ENTITY_ID),
+                        ouId == null ? FlowRatingTable.NONE : ouId,
+                        r.get(LOGICAL_FLOW_DECORATOR.DECORATOR_ENTITY_ID),
+                        AuthoritativenessRating.valueOf(r.get(LOGICAL_FLOW_DECORATOR.RATING)),
+                        authSourceId == null ? FlowRatingTable.NONE : authSourceId);
+            }
+        }
+
+        return table;
+    }
+
+
+    /**
+     * Point-to-point declarations are auth sources whose parent is matched
+     * against the flow target directly (rather than via the org unit
+     * hierarchy).  Any auth source may apply in this manner.
+     */
+    private List<AuthoritativeRatingVantagePoint> findPointToPointDeclarations(EntityHierarchyIndex dataTypeIndex) {
+        Map<String, DataType> dataTypesByCode = indexBy(DataType::code, dataTypeDao.findAll());
+
+        return authoritativeSourceDao
+                .findAll()
+                .stream()
+                .filter(authSource -> authSource.id().isPresent() && dataTypesByCode.containsKey(authSource.dataType()))
+                .map(authSource -> {
+                    long dataTypeId = dataTypesByCode.get(authSource.dataType()).id().get();
+                    return ImmutableAuthoritativeRatingVantagePoint
+                            .builder()
+                            .vantagePoint(authSource.parentReference())
+                            .vantagePointRank(0)
+                            .dataType(mkRef(EntityKind.DATA_TYPE, dataTypeId))
+                            .dataTypeCode(authSource.dataType())
+                            .dataTypeRank(dataTypeIndex.getLevel(dataTypeId))
+                            .applicationId(authSource.applicationReference().id())
+                            .authSourceId(authSource.id().get())
+                            .rating(authSource.rating())
+                            .build();
+                })
+                .collect(Collectors.toList());
+    }
+
+
+    private int writeBatch(FlowRatingTable table, List<Integer> positions) {
+        List<Query> updates = positions
+                .stream()
+                .map(pos -> {
+                    long authSourceId = table.getCalculatedAuthSourceId(pos);
+                    long loadedAuthSourceId = table.getAuthSourceId(pos);
+                    return dsl
+                            .update(LOGICAL_FLOW_DECORATOR)
+                            .set(LOGICAL_FLOW_DECORATOR.RATING, table.getCalculatedRating(pos).name())
+                            .set(LOGICAL_FLOW_DECORATOR.AUTH_SOURCE_ID, authSourceId == FlowRatingTable.NONE ? null : authSourceId)
+                            .where(LOGICAL_FLOW_DECORATOR.ID.eq(table.getDecoratorId(pos)))
+                            // skip decorators which have been modified since they were loaded
+                            .and(LOGICAL_FLOW_DECORATOR.RATING.eq(table.getRating(pos).name()))
+                            .and(loadedAuthSourceId == FlowRatingTable.NONE
+                                    ? LOGICAL_FLOW_DECORATOR.AUTH_SOURCE_ID.isNull()
+                                    : LOGICAL_FLOW_DECORATOR.AUTH_SOURCE_ID.eq(loadedAuthSourceId));
+                })
+                .collect(Collectors.toList());
+
+        return IntStream
+                .of(dsl.batch(updates).execute())
+                .sum();
+    }
+
+}
@@ -33,6 +33,15 @@ import static com.khartec.waltz.common.MapUtilities.isEmpty;
 
 public class AuthoritativeSourceResolver {
 
+    /**
+     * Orders vantage points by (descending) rank, deepest org unit first and
+     * then deepest data type.
+     */
+    static final Comparator<AuthoritativeRatingVantagePoint> MOST_SPECIFIC_FIRST = Comparator
+            .comparingInt(AuthoritativeRatingVantagePoint::vantagePointRank)
+            .thenComparingInt(AuthoritativeRatingVantagePoint::dataTypeRank)
+            .reversed();
+
     private final Map<EntityReference, Map<String, Map<Long, Optional<AuthoritativeRatingVantagePoint>>>> byOuThenDataTypeThenApp;
 
 
@@ -107,13 +116,10 @@ public class AuthoritativeSourceResolver {
      * @return
      */
     static Optional<AuthoritativeRatingVantagePoint> getMostSpecificRanked(Collection<AuthoritativeRatingVantagePoint> vantagePoints) {
-        Comparator<AuthoritativeRatingVantagePoint> comparator = Comparator
-                .comparingInt(AuthoritativeRatingVantagePoint::vantagePointRank)
-                .thenComparingInt(AuthoritativeRatingVantagePoint::dataTypeRank);
         return head(
                 sort(
                     vantagePoints,
-                    (x, y) -> comparator.compare(y, x))); //note the reversal of parameters because we want descending order
+                    MOST_SPECIFIC_FIRST));
     }
 
 }
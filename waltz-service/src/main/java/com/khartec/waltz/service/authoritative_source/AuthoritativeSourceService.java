@@ -50,6 +50,7 @@ import org.springframework.stereotype.Service;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 import static com.khartec.waltz.common.Checks.checkNotNull;
 import static com.khartec.waltz.model.EntityKind.ACTOR;
@@ -72,10 +73,11 @@ public class AuthoritativeSourceService {
     private final ApplicationDao applicationDao;
     private final ActorDao actorDao;
     private final AuthSourceRatingCalculator ratingCalculator;
+    private final AuthSourceRatingRecalculator ratingRecalculator;
     private final ChangeLogService changeLogService;
     private final LogicalFlowDecoratorDao logicalFlowDecoratorDao;
-    private final DataTypeIdSelectorFactory dataTypeIdSelectorFactory = new DataTypeIdSelectorFactory();
-    private final ApplicationIdSelectorFactory applicationIdSelectorFactory = new ApplicationIdSelectorFactory();
+    private final DataTypeIdSelectorFactory dataTypeIdSelectorFactory;
+    private final ApplicationIdSelectorFactory applicationIdSelectorFactory;
     private final GenericSelectorFactory genericSelectorFactory = new GenericSelectorFactory();
 
 
@@ -86,16 +88,22 @@ public class AuthoritativeSourceService {
                                       ApplicationDao applicationDao,
                                       ActorDao actorDao,
                                       AuthSourceRatingCalculator ratingCalculator,
+                                      AuthSourceRatingRecalculator ratingRecalculator,
                                       ChangeLogService changeLogService,
-                                      LogicalFlowDecoratorDao logicalFlowDecoratorDao) {
+                                      LogicalFlowDecoratorDao logicalFlowDecoratorDao,
+                                      ApplicationIdSelectorFactory applicationIdSelectorFactory,
+                                      DataTypeIdSelectorFactory dataTypeIdSelectorFactory) {
         checkNotNull(authoritativeSourceDao, "authoritativeSourceDao must not be null");
         checkNotNull(actorDao, "actorDao must not be null");
         checkNotNull(dataTypeDao, "dataTypeDao cannot be null");
         checkNotNull(organisationalUnitDao, "organisationalUnitDao cannot be null");
         checkNotNull(applicationDao, "applicationDao cannot be null");
         checkNotNull(ratingCalculator, "ratingCalculator cannot be null");
+        checkNotNull(ratingRecalculator, "ratingRecalculator cannot be null");
         checkNotNull(changeLogService, "changeLogService cannot be null");
         checkNotNull(logicalFlowDecoratorDao, "logicalFlowDecoratorDao cannot be null");
+        checkNotNull(applicationIdSelectorFactory, "applicationIdSelectorFactory cannot be null");
+        checkNotNull(dataTypeIdSelectorFactory, "dataTypeIdSelectorFactory cannot be null");
 
         this.authoritativeSourceDao = authoritativeSourceDao;
         this.dataTypeDao = dataTypeDao;
@@ -103,8 +111,11 @@ public class AuthoritativeSourceService {
         this.applicationDao = applicationDao;
         this.actorDao = actorDao;
         this.ratingCalculator = ratingCalculator;
+        this.ratingRecalculator = ratingRecalculator;
         this.changeLogService = changeLogService;
         this.logicalFlowDecoratorDao = logicalFlowDecoratorDao;
+        this.applicationIdSelectorFactory = applicationIdSelectorFactory;
+        this.dataTypeIdSelectorFactory = dataTypeIdSelectorFactory;
     }
 
 
@@ -196,7 +207,19 @@ public class AuthoritativeSourceService {
     }
 
 
+    /**
+     * Recalculates the ratings of all flow decorators.  The calculation is
+     * performed in memory (writing back only changed decorators) when the
+     * hierarchy indexes are available, otherwise the ratings are reset and
+     * recalculated via bulk updates.
+     */
     public boolean fastRecalculateAllFlowRatings() {
+        Optional<Integer> updateCount = ratingRecalculator.recalculateAll();
+        if (updateCount.isPresent()) {
+            LOG.info("Updated {} decorator ratings", updateCount.get());
+            return true;
+        }
+
         logicalFlowDecoratorDao.updateRatingsByCondition(AuthoritativenessRating.NO_OPINION, DSL.trueCondition());
 
         //finds all the vantage points to apply using parent as selector
@@ -0,0 +1,348 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package com.khartec.waltz.service.authoritative_source;
+
+import com.khartec.waltz.model.EntityKind;
+import com.khartec.waltz.model.authoritativesource.AuthoritativeRatingVantagePoint;
+import com.khartec.waltz.model.rating.AuthoritativenessRating;
+
+import java.util.*;
+import java.util.function.LongFunction;
+import java.util.stream.IntStream;
+
+import static com.khartec.waltz.common.Checks.checkNotNull;
+import static com.khartec.waltz.common.CollectionUtilities.sort;
+
+
+/**
+ * Resident copy of the data type decorators of every logical flow, used to
+ * recalculate their authoritativeness ratings without issuing a bulk update
+ * per vantage point.
+ *
+ * Each row is held in a set of primitive arrays (one slot per decorator).
+ * After <code>calculate</code> each row also has a calculated rating and
+ * auth source, only rows where these differ from the loaded values need to
+ * be written back.
+ *
+ * The calculation mirrors the sql based approach:
+ * <ol>
+ *     <li>every decorator starts as NO_OPINION (with no auth source)</li>
+ *     <li>vantage points are applied most specific first, a decorator
+ *     which is NO_OPINION or DISCOURAGED takes the rating of the vantage
+ *     point if the flow source is the authoritative app, otherwise it
+ *     becomes DISCOURAGED</li>
+ *     <li>point-to-point declarations (where the auth source parent is the
+ *     flow target) are then applied, least specific data type first</li>
+ * </ol>
+ */
+public class FlowRatingTable {
+
+    /** Marker for absent ids (e.g. flows not sourced from an app, or no auth source) */
+    public static final long NONE = -1;
+
+    private static final AuthoritativenessRating[] RATINGS = AuthoritativenessRating.values();
+    private static final byte NO_OPINION = (byte) AuthoritativenessRating.NO_OPINION.ordinal();
+    private static final byte DISCOURAGED = (byte) AuthoritativenessRating.DISCOURAGED.ordinal();
+
+    private int size = 0;
+
+    private long[] decoratorIds;
+    private long[] sourceAppIds;
+    private EntityKind[] targetKinds;
+    private long[] targetIds;
+    private long[] targetOrgUnitIds;
+    private long[] dataTypeIds;
+    private byte[] ratings;
+    private long[] authSourceIds;
+
+    private byte[] calculatedRatings;
+    private long[] calculatedAuthSourceIds;
+
+
+    public FlowRatingTable(int expectedSize) {
+        int capacity = Math.max(expectedSize, 16);
+        decoratorIds = new long[capacity];
+        sourceAppIds = new long[capacity];
+        targetKinds = new EntityKind[capacity];
+        targetIds = new long[capacity];
+        targetOrgUnitIds = new long[capacity];
+        dataTypeIds = new long[capacity];
+        ratings = new byte[capacity];
+        authSourceIds = new long[capacity];
+    }
+
+
+    /**
+     * Adds a decorator to the table.
+     *
+     * @param decoratorId  identifier of the decorator row
+     * @param sourceAppId  id of the flow source if it is an application, otherwise NONE
+     * @param targetKind  kind of the flow target
+     * @param targetId  id of the flow target
+     * @param targetOrgUnitId  org unit of the flow target if it is an application, otherwise NONE
+     * @param dataTypeId  data type of the decorator
+     * @param rating  current rating of the decorator
+     * @param authSourceId  current auth source of the decorator, or NONE
+     */
+    public void add(long decoratorId,
+                    long sourceAppId,
+                    EntityKind targetKind,
+                    long targetId,
+                    long targetOrgUnitId,
+                    long dataTypeId,
+                    AuthoritativenessRating rating,
+                    long authSourceId) {
+        checkNotNull(targetKind, "targetKind cannot be null");
+        checkNotNull(rating, "rating cannot be null");
+
+        if (size == decoratorIds.length) {
+            grow();
+        }
+
+        decoratorIds[size] = decoratorId;
+        sourceAppIds[size] = sourceAppId;
+        targetKinds[size] = targetKind;
+        targetIds[size] = targetId;
+        targetOrgUnitIds[size] = targetOrgUnitId;
+        dataTypeIds[size] = dataTypeId;
+        ratings[size] = (byte) rating.ordinal();
+        authSourceIds[size] = authSourceId;
+        size++;
+
+        calculatedRatings = null;
+        calculatedAuthSourceIds = null;
+    }
+
+
+    /**
+     * Calculates the rating of every row.
+     *
+     * @param vantagePoints  org unit based auth source declarations (in any order)
+     * @param pointToPointDeclarations  auth source declarations where the vantage point is the flow target
+     * @param orgUnitAncestors  gives the ancestors (including self) of an org unit
+     * @param dataTypeAncestors  gives the ancestors (including self) of a data type
+     * @return  number of rows whose calculated rating or auth source differs from the loaded values
+     */
+    public int calculate(Collection<AuthoritativeRatingVantagePoint> vantagePoints,
+                         Collection<AuthoritativeRatingVantagePoint> pointToPointDeclarations,
+                         LongFunction<long[]> orgUnitAncestors,
+                         LongFunction<long[]> dataTypeAncestors) {
+        checkNotNull(vantagePoints, "vantagePoints cannot be null");
+        checkNotNull(pointToPointDeclarations, "pointToPointDeclarations cannot be null");
+        checkNotNull(orgUnitAncestors, "orgUnitAncestors cannot be null");
+        checkNotNull(dataTypeAncestors, "dataTypeAncestors cannot be null");
+
+        List<AuthoritativeRatingVantagePoint> ranked = sort(
+                vantagePoints,
+                AuthoritativeSourceResolver.MOST_SPECIFIC_FIRST);
+        Map<Long, Map<Long, int[]>> rankByOrgUnitThenDataType = indexRanks(ranked);
+        Map<Long, List<AuthoritativeRatingVantagePoint>> pointToPointByApp = indexPointToPoint(pointToPointDeclarations);
+
+        byte[] newRatings = new byte[size];
+        long[] newAuthSourceIds = new long[size];
+        int[] candidates = new int[16];
+        int changeCount = 0;
+
+        for (int i = 0; i < size; i++) {
+            byte rating = NO_OPINION;
+            long authSourceId = NONE;
+            long[] dataTypeAncestry = null;
+
+            if (sourceAppIds[i] != NONE && targetOrgUnitIds[i] != NONE) {
+                dataTypeAncestry = dataTypeAncestors.apply(dataTypeIds[i]);
+                int candidateCount = 0;
+                for (long orgUnitId : orgUnitAncestors.apply(targetOrgUnitIds[i])) {
+                    Map<Long, int[]> byDataType = rankByOrgUnitThenDataType.get(orgUnitId);
+                    if (byDataType == null) {
+                        continue;
+                    }
+                    for (long dataTypeId : dataTypeAncestry) {
+                        int[] positions = byDataType.get(dataTypeId);
+                        if (positions == null) {
+                            continue;
+                        }
+                        if (candidateCount + positions.length > candidates.length) {
+                            candidates = Arrays.copyOf(candidates, (candidateCount + positions.length) * 2);
+                        }
+                        System.arraycopy(positions, 0, candidates, candidateCount, positions.length);
+                        candidateCount += positions.length;
+                    }
+                }
+
+                Arrays.sort(candidates, 0, candidateCount);
+                for (int c = 0; c < candidateCount; c++) {
+                    if (rating != NO_OPINION && rating != DISCOURAGED) {
+                        break;
+                    }
+                    AuthoritativeRatingVantagePoint vantagePoint = ranked.get(candidates[c]);
+                    rating = vantagePoint.applicationId() == sourceAppIds[i]
+                            ? (byte) vantagePoint.rating().ordinal()
+                            : DISCOURAGED;
+                    authSourceId = vantagePoint.authSourceId();
+                }
+            }
+
+            List<AuthoritativeRatingVantagePoint> pointToPoint = sourceAppIds[i] == NONE
+                    ? null
+                    : pointToPointByApp.get(sourceAppIds[i]);
+
+            if (pointToPoint != null) {
+                if (dataTypeAncestry == null) {
+                    dataTypeAncestry = dataTypeAncestors.apply(dataTypeIds[i]);
+                }
+                for (AuthoritativeRatingVantagePoint declaration : pointToPoint) {
+                    boolean applies = declaration.vantagePoint().kind() == targetKinds[i]
+                            && declaration.vantagePoint().id() == targetIds[i]
+                            && contains(dataTypeAncestry, declaration.dataType().id())
+                            && declaration.rating().ordinal() != rating;
+                    if (applies) {
+                        rating = (byte) declaration.rating().ordinal();
+                        authSourceId = declaration.authSourceId();
+                    }
+                }
+            }
+
+            newRatings[i] = rating;
+            newAuthSourceIds[i] = authSourceId;
+
+            if (rating != ratings[i] || authSourceId != authSourceIds[i]) {
+                changeCount++;
+            }
+        }
+
+        calculatedRatings = newRatings;
+        calculatedAuthSourceIds = newAuthSourceIds;
+        return changeCount;
+    }
+
+
+    /**
+     * @return  positions of the rows whose calculated values differ from the loaded ones
+     */
+    public int[] findChangedRows() {
+        ensureCalculated();
+        return IntStream
+                .range(0, size)
+                .filter(i -> calculatedRatings[i] != ratings[i] || calculatedAuthSourceIds[i] != authSourceIds[i])
+                .toArray();
+    }
+
+
+    public int size() {
+        return size;
+    }
+
+
+    public long getDecoratorId(int pos) {
+        return decoratorIds[pos];
+    }
+
+
+    public AuthoritativenessRating getRating(int pos) {
+        return RATINGS[ratings[pos]];
+    }
+
+
+    /**
+     * @param pos  row position
+     * @return  auth source id as loaded, or NONE
+     */
+    public long getAuthSourceId(int pos) {
+        return authSourceIds[pos];
+    }
+
+
+    public AuthoritativenessRating getCalculatedRating(int pos) {
+        ensureCalculated();
+        return RATINGS[calculatedRatings[pos]];
+    }
+
+
+    /**
+     * @param pos  row position
+     * @return  calculated auth source id, or NONE
+     */
+    public long getCalculatedAuthSourceId(int pos) {
+        ensureCalculated();
+        return calculatedAuthSourceIds[pos];
+    }
+
+
+    // --- helpers ---
+
+    private void ensureCalculated() {
+        if (calculatedRatings == null) {
+            throw new IllegalStateException("Ratings have not been calculated");
+        }
+    }
+
+
+    private static Map<Long, Map<Long, int[]>> indexRanks(List<AuthoritativeRatingVantagePoint> ranked) {
+        Map<Long, Map<Long, List<Integer>>> positions = new HashMap<>();
+        for (int i = 0; i < ranked.size(); i++) {
+            AuthoritativeRatingVantagePoint vantagePoint = ranked.get(i);
+            positions
+                    .computeIfAbsent(vantagePoint.vantagePoint().id(), k -> new HashMap<>())
+                    .computeIfAbsent(vantagePoint.dataType().id(), k -> new ArrayList<>())
+                    .add(i);
+        }
+
+        Map<Long, Map<Long, int[]>> result = new HashMap<>(positions.size() * 2);
+        positions.forEach((orgUnitId, byDataType) -> {
+            Map<Long, int[]> converted = new HashMap<>(byDataType.size() * 2);
+            byDataType.forEach((dataTypeId, xs) -> converted.put(
+                    dataTypeId,
+                    xs.stream().mapToInt(Integer::intValue).toArray()));
+            result.put(orgUnitId, converted);
+        });
+        return result;
+    }
+
+
+    private static Map<Long, List<AuthoritativeRatingVantagePoint>> indexPointToPoint(Collection<AuthoritativeRatingVantagePoint> declarations) {
+        Map<Long, List<AuthoritativeRatingVantagePoint>> byApp = new HashMap<>();
+        sort(declarations, Comparator.comparingInt(AuthoritativeRatingVantagePoint::dataTypeRank))
+                .forEach(d -> byApp
+                        .computeIfAbsent(d.applicationId(), k -> new ArrayList<>())
+                        .add(d));
+        return byApp;
+    }
+
+
+    private static boolean contains(long[] ids, long id) {
+        for (long candidate : ids) {
+            if (candidate == id) return true;
+        }
+        return false;
+    }
+
+
+    private void grow() {
+        int capacity = decoratorIds.length * 2;
+        decoratorIds = Arrays.copyOf(decoratorIds, capacity);
+        sourceAppIds = Arrays.copyOf(sourceAppIds, capacity);
+        targetKinds = Arrays.copyOf(targetKinds, capacity);
+        targetIds = Arrays.copyOf(targetIds, capacity);
+        targetOrgUnitIds = Arrays.copyOf(targetOrgUnitIds, capacity);
+        dataTypeIds = Arrays.copyOf(dataTypeIds, capacity);
+        ratings = Arrays.copyOf(ratings, capacity);
+        authSourceIds = Arrays.copyOf(authSourceIds, capacity);
+    }
+
+}
@@ -52,23 +52,26 @@ public class ChangeInitiativeService {
     private final ChangeInitiativeSearchDao searchDao;
     private final EntityRelationshipDao relationshipDao;
     private final ChangeLogService changeLogService;
-    private final ChangeInitiativeIdSelectorFactory changeInitiativeIdSelectorFactory = new ChangeInitiativeIdSelectorFactory();
+    private final ChangeInitiativeIdSelectorFactory changeInitiativeIdSelectorFactory;
 
     @Autowired
     public ChangeInitiativeService(ChangeInitiativeDao changeInitiativeDao,
                                    ChangeInitiativeSearchDao searchDao,
                                    EntityRelationshipDao relationshipDao,
-                                   ChangeLogService changeLogService)
+                                   ChangeLogService changeLogService,
+                                   ChangeInitiativeIdSelectorFactory changeInitiativeIdSelectorFactory)
     {
         checkNotNull(changeInitiativeDao, "changeInitiativeDao cannot be null");
         checkNotNull(searchDao, "searchDao cannot be null");
         checkNotNull(relationshipDao, "relationshipDao cannot be null");
         checkNotNull(changeLogService, "changeLogService cannot be null");
+        checkNotNull(changeInitiativeIdSelectorFactory, "changeInitiativeIdSelectorFactory cannot be null");
 
         this.changeInitiativeDao = changeInitiativeDao;
         this.searchDao = searchDao;
         this.relationshipDao = relationshipDao;
         this.changeLogService = changeLogService;
+        this.changeInitiativeIdSelectorFactory = changeInitiativeIdSelectorFactory;
     }
 
 
@@ -18,7 +18,6 @@
 
 package com.khartec.waltz.service.changelog;
 
-import com.khartec.waltz.common.CollectionUtilities;
 import com.khartec.waltz.data.DBExecutorPoolInterface;
 import com.khartec.waltz.data.EntityReferenceNameResolver;
 import com.khartec.waltz.data.GenericSelector;
@@ -109,27 +108,30 @@ public class ChangeLogService {
 
     public List<ChangeLog> findByParentReference(EntityReference ref,
                                                  Optional<Date> date,
+                                                 Optional<Long> beforeId,
                                                  Optional<Integer> limit) {
         checkNotNull(ref, "ref must not be null");
         if(ref.kind() == EntityKind.PHYSICAL_FLOW) {
-            return findByParentReferenceForPhysicalFlow(ref, date, limit);
+            return findByParentReferenceForPhysicalFlow(ref, date, beforeId, limit);
         }
-        return changeLogDao.findByParentReference(ref, date, limit);
+        return changeLogDao.findByParentReference(ref, date, beforeId, limit);
     }
 
 
     public List<ChangeLog> findByPersonReference(EntityReference ref,
                                                  Optional<Date> date,
+                                                 Optional<Long> beforeId,
                                                  Optional<Integer> limit) {
         checkNotNull(ref, "ref must not be null");
-        return changeLogDao.findByPersonReference(ref, date, limit);
+        return changeLogDao.findByPersonReference(ref, date, beforeId, limit);
     }
 
 
     public List<ChangeLog> findByUser(String userName,
+                                      Optional<Long> beforeId,
                                       Optional<Integer> limit) {
         checkNotEmpty(userName, "Username cannot be empty");
-        return changeLogDao.findByUser(userName, limit);
+        return changeLogDao.findByUser(userName, beforeId, limit);
     }
 
 
@@ -228,27 +230,23 @@ public class ChangeLogService {
 
     private List<ChangeLog> findByParentReferenceForPhysicalFlow(EntityReference ref,
                                                                  Optional<Date> date,
+                                                                 Optional<Long> beforeId,
                                                                  Optional<Integer> limit) {
         checkNotNull(ref, "ref must not be null");
         checkTrue(ref.kind() == EntityKind.PHYSICAL_FLOW, "ref should refer to a Physical Flow");
 
-        Future<List<ChangeLog>> flowLogsFuture = dbExecutorPool.submit(() -> changeLogDao.findByParentReference(ref, date, limit));
+        Future<List<ChangeLog>> flowLogsFuture = dbExecutorPool.submit(() -> changeLogDao.findByParentReference(ref, date, beforeId, limit));
 
         Future<List<ChangeLog>> specLogsFuture = dbExecutorPool.submit(() -> {
             PhysicalFlow flow = physicalFlowDao.getById(ref.id());
-            return changeLogDao.findByParentReference(mkRef(EntityKind.PHYSICAL_SPECIFICATION, flow.specificationId()), date, limit);
+            return changeLogDao.findByParentReference(mkRef(EntityKind.PHYSICAL_SPECIFICATION, flow.specificationId()), date, beforeId, limit);
         });
 
-        return Unchecked.supplier(() -> {
-            List<ChangeLog> flowLogs = flowLogsFuture.get();
-            List<ChangeLog> specLogs = specLogsFuture.get();
-            List<ChangeLog> all = new ArrayList<>();
-            all.addAll(flowLogs);
-            all.addAll(specLogs);
-            return CollectionUtilities.sort(
-                    all,
-                    Comparator.comparing(ChangeLog::createdAt).reversed());
-        }).get();
+        return Unchecked.supplier(() -> ChangeLogDao.mergePages(
+                    flowLogsFuture.get(),
+                    specLogsFuture.get(),
+                    limit))
+                .get();
     }
 
 
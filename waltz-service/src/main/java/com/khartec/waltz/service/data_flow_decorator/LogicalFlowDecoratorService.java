@@ -39,6 +39,7 @@ import com.khartec.waltz.model.logical_flow.ImmutableLogicalFlowMeasures;
 import com.khartec.waltz.model.logical_flow.LogicalFlow;
 import com.khartec.waltz.model.rating.AuthoritativenessRating;
 import com.khartec.waltz.service.changelog.ChangeLogService;
+import com.khartec.waltz.service.logical_flow.LogicalFlowLineageService;
 import com.khartec.waltz.service.logical_flow.LogicalFlowService;
 import com.khartec.waltz.service.usage_info.DataTypeUsageService;
 import org.jooq.Record1;
@@ -72,11 +73,12 @@ public class LogicalFlowDecoratorService {
     private final LogicalFlowDecoratorSummaryDao logicalFlowDecoratorSummaryDao;
     private final LogicalFlowDecoratorDao logicalFlowDecoratorDao;
     private final LogicalFlowDecoratorRatingsCalculator ratingsCalculator;
-    private final ApplicationIdSelectorFactory applicationIdSelectorFactory = new ApplicationIdSelectorFactory();
+    private final ApplicationIdSelectorFactory applicationIdSelectorFactory;
     private final DataTypeUsageService dataTypeUsageService;
     private final DataTypeDao dataTypeDao;
     private final LogicalFlowDao logicalFlowDao;
     private final ChangeLogService changeLogService;
+    private final LogicalFlowLineageService logicalFlowLineageService;
 
 
     @Autowired
@@ -88,7 +90,9 @@ public class LogicalFlowDecoratorService {
                                        LogicalFlowDao logicalFlowDao,
                                        LogicalFlowService logicalFlowService,
                                        LogicalFlowStatsDao logicalFlowStatsDao,
-                                       ChangeLogService changeLogService) {
+                                       ChangeLogService changeLogService,
+                                       ApplicationIdSelectorFactory applicationIdSelectorFactory,
+                                       LogicalFlowLineageService logicalFlowLineageService) {
 
         checkNotNull(logicalFlowDecoratorSummaryDao, "logicalFlowDecoratorDao cannot be null");
         checkNotNull(ratingsCalculator, "ratingsCalculator cannot be null");
@@ -98,6 +102,8 @@ public class LogicalFlowDecoratorService {
         checkNotNull(logicalFlowService, "logicalFlowService cannot be null");
         checkNotNull(logicalFlowStatsDao, "logicalFlowStatsDao cannot be null");
         checkNotNull(changeLogService, "changeLogService cannot be null");
+        checkNotNull(applicationIdSelectorFactory, "applicationIdSelectorFactory cannot be null");
+        checkNotNull(logicalFlowLineageService, "logicalFlowLineageService cannot be null");
 
         this.logicalFlowDecoratorSummaryDao = logicalFlowDecoratorSummaryDao;
         this.ratingsCalculator = ratingsCalculator;
@@ -106,6 +112,8 @@ public class LogicalFlowDecoratorService {
         this.logicalFlowDao = logicalFlowDao;
         this.changeLogService = changeLogService;
         this.logicalFlowDecoratorDao = logicalFlowDecoratorDao;
+        this.applicationIdSelectorFactory = applicationIdSelectorFactory;
+        this.logicalFlowLineageService = logicalFlowLineageService;
     }
 
 
@@ -133,6 +141,7 @@ public class LogicalFlowDecoratorService {
 
         Collection<DataTypeDecorator> decorators = ratingsCalculator.calculate(unrated);
         int[] added = logicalFlowDecoratorDao.addDecorators(decorators);
+        logicalFlowLineageService.flowsChanged(map(actions, UpdateDataFlowDecoratorsAction::flowId));
 
         List<LogicalFlow> effectedFlows = logicalFlowDao.findActiveByFlowIds(
                 map(actions, UpdateDataFlowDecoratorsAction::flowId));
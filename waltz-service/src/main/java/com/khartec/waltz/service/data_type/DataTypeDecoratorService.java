@@ -24,6 +24,7 @@ import com.khartec.waltz.data.datatype_decorator.DataTypeDecoratorDaoSelectorFac
 import com.khartec.waltz.data.logical_flow.LogicalFlowDao;
 import com.khartec.waltz.data.physical_specification.PhysicalSpecificationDao;
 import com.khartec.waltz.model.*;
+import com.khartec.waltz.model.changelog.ChangeLog;
 import com.khartec.waltz.model.changelog.ImmutableChangeLog;
 import com.khartec.waltz.model.datatype.DataType;
 import com.khartec.waltz.model.datatype.DataTypeDecorator;
@@ -36,6 +37,7 @@ import com.khartec.waltz.model.rating.AuthoritativenessRating;
 import com.khartec.waltz.service.changelog.ChangeLogService;
 import com.khartec.waltz.service.data_flow_decorator.LogicalFlowDecoratorRatingsCalculator;
 import com.khartec.waltz.service.data_flow_decorator.LogicalFlowDecoratorService;
+import com.khartec.waltz.service.logical_flow.LogicalFlowLineageService;
 import com.khartec.waltz.service.logical_flow.LogicalFlowService;
 import com.khartec.waltz.service.physical_flow.PhysicalFlowService;
 import com.khartec.waltz.service.usage_info.DataTypeUsageService;
@@ -49,9 +51,11 @@ import java.util.*;
 import java.util.stream.Collectors;
 
 import static com.khartec.waltz.common.Checks.checkNotNull;
+import static com.khartec.waltz.common.Checks.checkTrue;
 import static com.khartec.waltz.common.CollectionUtilities.*;
 import static com.khartec.waltz.common.DateTimeUtilities.nowUtc;
 import static com.khartec.waltz.common.ListUtilities.newArrayList;
+import static com.khartec.waltz.common.ListUtilities.partition;
 import static com.khartec.waltz.model.EntityKind.*;
 import static com.khartec.waltz.model.EntityReference.mkRef;
 import static com.khartec.waltz.model.IdSelectionOptions.mkOpts;
@@ -66,12 +70,19 @@ public class DataTypeDecoratorService {
     private final DataTypeDecoratorDaoSelectorFactory dataTypeDecoratorDaoSelectorFactory;
     private final LogicalFlowDao logicalFlowDao;
     private final LogicalFlowService logicalFlowService;
+    private final LogicalFlowLineageService logicalFlowLineageService;
     private final LogicalFlowDecoratorRatingsCalculator ratingsCalculator;
     private final DataTypeUsageService dataTypeUsageService;
     private final DataTypeService dataTypeService;
     private final GenericSelectorFactory genericSelectorFactory = new GenericSelectorFactory();
     private final PhysicalSpecificationDao physicalSpecificationDao;
 
+    private static final int BULK_QUERY_CHUNK_SIZE = 1000;
+
+    // qualified as the EntityKind constant of the same name is statically imported
+    private static final com.khartec.waltz.schema.tables.PhysicalSpecification SPEC_TABLE =
+            com.khartec.waltz.schema.tables.PhysicalSpecification.PHYSICAL_SPECIFICATION;
+
 
     @Autowired
     public DataTypeDecoratorService(ChangeLogService changeLogService,
@@ -80,6 +91,7 @@ public class DataTypeDecoratorService {
                                     DataTypeDecoratorDaoSelectorFactory dataTypeDecoratorDaoSelectorFactory,
                                     LogicalFlowDao logicalFlowDao,
                                     LogicalFlowService logicalFlowService,
+                                    LogicalFlowLineageService logicalFlowLineageService,
                                     LogicalFlowDecoratorRatingsCalculator ratingsCalculator,
                                     DataTypeUsageService dataTypeUsageService,
                                     DataTypeService dataTypeService,
@@ -92,6 +104,7 @@ public class DataTypeDecoratorService {
         this.physicalFlowService = physicalFlowService;
         this.logicalFlowDao = logicalFlowDao;
         this.logicalFlowService = logicalFlowService;
+        this.logicalFlowLineageService = logicalFlowLineageService;
         this.ratingsCalculator = ratingsCalculator;
         this.dataTypeUsageService = dataTypeUsageService;
         this.dataTypeService = dataTypeService;
@@ -167,6 +180,7 @@ public class DataTypeDecoratorService {
         audit(String.format("Added data types: %s", dataTypeIds.toString()),
                 entityReference, userName);
 
+        notifyLineageIfLogicalFlow(entityReference);
         recalculateDataTypeUsageForApplications(entityReference);
         // now update logical flow data types
         // find all physicals with this spec id, for each physical update it's logical decorators
@@ -177,6 +191,124 @@ public class DataTypeDecoratorService {
         return result;
     }
 
+    /**
+     * Bulk equivalent of <code>addDecorators</code> for many entities of the
+     * same kind (logical flows or physical specifications).  Callers are
+     * expected to have excluded decorators which already exist.  Unlike
+     * <code>addDecorators</code>, data types added to a specification are
+     * not propagated to the logical flows of its physical flows.
+     *
+     * @param userName  user making the change
+     * @param entityKind  kind of the decorated entities
+     * @param dataTypeIdsByEntityId  entity id to ids of the data types to add
+     * @return  insert counts
+     */
+    public int[] addDecoratorsBatch(String userName,
+                                    EntityKind entityKind,
+                                    Map<Long, Set<Long>> dataTypeIdsByEntityId) {
+        checkNotNull(userName, "userName cannot be null");
+        checkBulkKind(entityKind);
+        checkNotNull(dataTypeIdsByEntityId, "dataTypeIdsByEntityId cannot be null");
+
+        if (dataTypeIdsByEntityId.isEmpty()) {
+            return new int[0];
+        }
+
+        Optional<AuthoritativenessRating> defaultRating = LOGICAL_DATA_FLOW.equals(entityKind)
+                ? Optional.of(AuthoritativenessRating.NO_OPINION)
+                : Optional.empty();
+
+        List<DataTypeDecorator> decorators = dataTypeIdsByEntityId
+                .entrySet()
+                .stream()
+                .flatMap(e -> e.getValue()
+                        .stream()
+                        .map(dtId -> (DataTypeDecorator) mkDecorator(userName, mkRef(entityKind, e.getKey()), dtId, defaultRating)))
+                .collect(toList());
+
+        List<LogicalFlow> flows = LOGICAL_DATA_FLOW.equals(entityKind)
+                ? logicalFlowDao.findActiveByFlowIds(dataTypeIdsByEntityId.keySet())
+                : emptyList();
+
+        Collection<DataTypeDecorator> toAdd = LOGICAL_DATA_FLOW.equals(entityKind)
+                ? rateAppToAppDecorators(decorators, flows)
+                : decorators;
+
+        int[] result = dataTypeDecoratorDaoSelectorFactory
+                .getDao(entityKind)
+                .addDecorators(toAdd);
+
+        changeLogService.write(map(
+                dataTypeIdsByEntityId.entrySet(),
+                e -> mkAuditEntry(
+                        String.format("Added data types: %s", e.getValue().toString()),
+                        mkRef(entityKind, e.getKey()),
+                        userName)));
+
+        if (! flows.isEmpty()) {
+            logicalFlowLineageService.flowsChanged(dataTypeIdsByEntityId.keySet());
+            dataTypeUsageService.recalculateForApplications(flows
+                    .stream()
+                    .flatMap(f -> newArrayList(f.source(), f.target()).stream())
+                    .collect(toList()));
+        }
+
+        return result;
+    }
+
+
+    /**
+     * @param entityKind  kind of the decorated entities (logical flows or physical specifications)
+     * @param entityIds  ids of the decorated entities
+     * @return  all decorators for the given entities
+     */
+    public List<DataTypeDecorator> findByEntityIds(EntityKind entityKind, Collection<Long> entityIds) {
+        checkBulkKind(entityKind);
+        checkNotNull(entityIds, "entityIds cannot be null");
+
+        DataTypeDecoratorDao dao = dataTypeDecoratorDaoSelectorFactory.getDao(entityKind);
+
+        return partition(entityIds, BULK_QUERY_CHUNK_SIZE)
+                .stream()
+                .flatMap(ids -> LOGICAL_DATA_FLOW.equals(entityKind)
+                        ? dao.findByFlowIds(ids).stream()
+                        : dao.findByEntityIdSelector(
+                                DSL.select(SPEC_TABLE.ID)
+                                        .from(SPEC_TABLE)
+                                        .where(SPEC_TABLE.ID.in(ids)),
+                                Optional.of(entityKind)).stream())
+                .collect(toList());
+    }
+
+
+    private static void checkBulkKind(EntityKind entityKind) {
+        checkTrue(
+                LOGICAL_DATA_FLOW.equals(entityKind) || PHYSICAL_SPECIFICATION.equals(entityKind),
+                "Bulk decorator operations are only supported for logical flows and physical specifications, not: %s",
+                entityKind);
+    }
+
+
+    private Collection<DataTypeDecorator> rateAppToAppDecorators(List<DataTypeDecorator> decorators,
+                                                                 List<LogicalFlow> flows) {
+        Set<Long> appToAppFlowIds = flows
+                .stream()
+                .filter(f -> f.source().kind() == APPLICATION && f.target().kind() == APPLICATION)
+                .map(f -> f.id().get())
+                .collect(Collectors.toSet());
+
+        Map<Boolean, List<DataTypeDecorator>> byRequiresRating = decorators
+                .stream()
+                .collect(Collectors.partitioningBy(d -> appToAppFlowIds.contains(d.dataFlowId())));
+
+        List<DataTypeDecorator> result = new ArrayList<>(byRequiresRating.get(false));
+        if (! byRequiresRating.get(true).isEmpty()) {
+            result.addAll(ratingsCalculator.calculate(byRequiresRating.get(true)));
+        }
+        return result;
+    }
+
+
     private void updateDecoratorForLogicalFlow(String userName, EntityReference entityReference, Set<Long> dataTypeIds) {
         List<Long> logicalFlowIds = physicalFlowService
                 .findBySpecificationId(entityReference.id())
@@ -200,12 +332,20 @@ public class DataTypeDecoratorService {
 
         audit(String.format("Removed data types: %s", dataTypeIds.toString()),
                 entityReference, userName);
+        notifyLineageIfLogicalFlow(entityReference);
         recalculateDataTypeUsageForApplications(entityReference);
 
         return result;
     }
 
 
+    private void notifyLineageIfLogicalFlow(EntityReference entityReference) {
+        if (LOGICAL_DATA_FLOW.equals(entityReference.kind())) {
+            logicalFlowLineageService.flowsChanged(newArrayList(entityReference.id()));
+        }
+    }
+
+
     private void recalculateDataTypeUsageForApplications(EntityReference associatedEntityReference) {
         if(LOGICAL_DATA_FLOW.equals(associatedEntityReference.kind())) {
             LogicalFlow flow = logicalFlowDao.getByFlowId(associatedEntityReference.id());
@@ -285,8 +425,14 @@ public class DataTypeDecoratorService {
     private void audit(String message,
                        EntityReference entityReference,
                        String username) {
+        changeLogService.write(mkAuditEntry(message, entityReference, username));
+    }
 
-        ImmutableChangeLog logEntry = ImmutableChangeLog.builder()
+
+    private static ChangeLog mkAuditEntry(String message,
+                                          EntityReference entityReference,
+                                          String username) {
+        return ImmutableChangeLog.builder()
                 .parentReference(entityReference)
                 .userId(username)
                 .severity(Severity.INFORMATION)
@@ -294,8 +440,6 @@ public class DataTypeDecoratorService {
                 .childKind(EntityKind.DATA_TYPE)
                 .operation(Operation.UPDATE)
                 .build();
-
-        changeLogService.write(logEntry);
     }
 
 
@@ -36,12 +36,15 @@ import static com.khartec.waltz.common.Checks.checkNotNull;
 public class DatabaseInformationService {
 
     private final DatabaseInformationDao databaseInformationDao;
-    private final ApplicationIdSelectorFactory factory = new ApplicationIdSelectorFactory();
+    private final ApplicationIdSelectorFactory factory;
 
     @Autowired
-    public DatabaseInformationService(DatabaseInformationDao databaseInformationDao) {
+    public DatabaseInformationService(DatabaseInformationDao databaseInformationDao,
+                                      ApplicationIdSelectorFactory factory) {
         Checks.checkNotNull(databaseInformationDao, "databaseInformationDao cannot be null");
+        Checks.checkNotNull(factory, "factory cannot be null");
         this.databaseInformationDao = databaseInformationDao;
+        this.factory = factory;
     }
 
     public List<DatabaseInformation> findByApplicationId(Long id) {
@@ -0,0 +1,341 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+package com.khartec.waltz.service.email;
+
+import com.khartec.waltz.data.email.EmailOutboxDao;
+import com.khartec.waltz.model.email.OutboundEmail;
+import com.khartec.waltz.model.email.OutboundEmailStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.lang.management.ManagementFactory;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static com.khartec.waltz.common.Checks.checkNotNull;
+import static com.khartec.waltz.common.Checks.checkTrue;
+import static com.khartec.waltz.common.DateTimeUtilities.nowUtc;
+import static com.khartec.waltz.common.StringUtilities.limit;
+import static java.util.stream.Collectors.toList;
+
+
+/**
+ * Sends the emails held in the outbox (see <code>EmailOutboxDao</code>).
+ *
+ * Callers enqueue emails and return immediately.  The outbox is polled, each
+ * poll claims one batch of due emails and sends it on a small dedicated
+ * pool (so a large backlog does not hold the shared scheduler thread), at most
+ * <code>concurrency</code> messages are in flight with the mail server at any
+ * time, and sends are spaced so no more than <code>rate.per.second</code>
+ * messages are sent per second.  Failed sends are retried with exponential
+ * backoff (see <code>EmailRetryPolicy</code>) and are marked as FAILED once
+ * their attempts are exhausted.
+ *
+ * Claims are tagged with this dispatcher's id and leased: claims older
+ * than <code>claim.lease.millis</code> are assumed to have been abandoned
+ * (e.g. by a node which died mid dispatch) and are released for any node to
+ * send.  Claims held by live dispatchers are never released.  On shutdown
+ * the dispatcher stops claiming, drains the emails it has already claimed,
+ * and hands back any it could not send.
+ */
+@Service
+public class EmailOutboxDispatcher {
+
+    private static final Logger LOG = LoggerFactory.getLogger(EmailOutboxDispatcher.class);
+    private static final long MAX_RETRY_DELAY_MILLIS = TimeUnit.HOURS.toMillis(6);
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(30);
+    private static final int MAX_DISPATCHER_ID_LENGTH = 255;
+
+    private final EmailOutboxDao emailOutboxDao;
+    private final WaltzEmailer waltzEmailer;
+    private final EmailRetryPolicy retryPolicy;
+    private final ExecutorService sendPool;
+    private final int concurrency;
+    private final long minSendIntervalNanos;
+    private final long claimLeaseMillis;
+    private final String dispatcherId;
+
+    private final ReentrantLock dispatchLock = new ReentrantLock();
+    private final AtomicBoolean shuttingDown = new AtomicBoolean(false);
+
+    // rate limiting, the earliest time (nanos) the next send may start
+    private final Object rateLock = new Object();
+    private long nextSendAtNanos = System.nanoTime();
+
+    private final AtomicLong sentCount = new AtomicLong();
+    private final AtomicLong retriedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private volatile long lastDispatchDurationMillis = 0;
+    private volatile double lastDispatchRate = 0;
+
+
+    @Autowired
+    public EmailOutboxDispatcher(EmailOutboxDao emailOutboxDao,
+                                 WaltzEmailer waltzEmailer,
+                                 @Value("${waltz.email.outbox.concurrency:2}") int concurrency,
+                                 @Value("${waltz.email.outbox.rate.per.second:5}") double maxSendsPerSecond,
+                                 @Value("${waltz.email.outbox.max.attempts:5}") int maxAttempts,
+                                 @Value("${waltz.email.outbox.retry.delay.millis:60000}") long initialRetryDelayMillis,
+                                 @Value("${waltz.email.outbox.claim.lease.millis:900000}") long claimLeaseMillis) {
+        checkNotNull(emailOutboxDao, "emailOutboxDao cannot be null");
+        checkNotNull(waltzEmailer, "waltzEmailer cannot be null");
+        checkTrue(concurrency > 0, "concurrency must be positive");
+        checkTrue(maxSendsPerSecond > 0, "maxSendsPerSecond must be positive");
+        checkTrue(claimLeaseMillis > 0, "claimLeaseMillis must be positive");
+
+        this.emailOutboxDao = emailOutboxDao;
+        this.waltzEmailer = waltzEmailer;
+        this.concurrency = concurrency;
+        this.minSendIntervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / maxSendsPerSecond);
+        this.claimLeaseMillis = claimLeaseMillis;
+        // pid@host, qualified by start time so a restarted process does not inherit claims
+        this.dispatcherId = limit(
+                ManagementFactory.getRuntimeMXBean().getName() + ":" + System.currentTimeMillis(),
+                MAX_DISPATCHER_ID_LENGTH);
+        this.retryPolicy = new EmailRetryPolicy(
+                maxAttempts,
+                initialRetryDelayMillis,
+                Math.max(initialRetryDelayMillis, MAX_RETRY_DELAY_MILLIS));
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.sendPool = Executors.newFixedThreadPool(
+                concurrency,
+                (runnable) -> {
+                    Thread t = new Thread(runnable, "Email Dispatcher " + threadCount.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+
+    /**
+     * Queues an email to be sent to each batch of recipients.
+     *
+     * @param subject  email subject
+     * @param body  email body (html)
+     * @param recipientBatches  batches of recipient email addresses
+     * @return  number of emails queued
+     */
+    public int enqueue(String subject, String body, Collection<? extends Collection<String>> recipientBatches) {
+        return emailOutboxDao.enqueue(subject, body, recipientBatches);
+    }
+
+
+    /**
+     * Claims and sends one batch of due emails, any remaining emails are
+     * picked up by subsequent polls.  If a dispatch is already in progress
+     * this call returns immediately.
+     *
+     * @return  number of emails successfully sent
+     */
+    @Scheduled(fixedDelayString = "${waltz.email.outbox.poll.millis:5000}")
+    public int dispatch() {
+        if (shuttingDown.get() || ! dispatchLock.tryLock()) {
+            return 0;
+        }
+
+        try {
+            int released = emailOutboxDao.releaseExpiredClaims(Timestamp.valueOf(nowUtc().minusNanos(TimeUnit.MILLISECONDS.toNanos(claimLeaseMillis))));
+            if (released > 0) {
+                LOG.warn("Released {} emails whose claims expired, they were abandoned by a stopped dispatcher", released);
+            }
+
+            long start = System.currentTimeMillis();
+            List<OutboundEmail> claimed = emailOutboxDao.claimDue(concurrency * 10, dispatcherId);
+            int sent = sendAll(claimed);
+
+            if (sent > 0) {
+                lastDispatchDurationMillis = Math.max(1, System.currentTimeMillis() - start);
+                lastDispatchRate = sent * 1000.0 / lastDispatchDurationMillis;
+                LOG.info("Sent {} emails in {}ms", sent, lastDispatchDurationMillis);
+            }
+            return sent;
+        } finally {
+            dispatchLock.unlock();
+        }
+    }
+
+
+    /**
+     * Stops claiming emails, waits (for a bounded time) for claimed emails
+     * to be sent and returns any which were not to the outbox.
+     */
+    @PreDestroy
+    public void shutdown() {
+        shuttingDown.set(true);
+        boolean drained = false;
+        try {
+            // an in-progress dispatch finishes its current batch and then stops claiming
+            if (dispatchLock.tryLock(SHUTDOWN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                dispatchLock.unlock();
+                drained = true;
+            }
+            sendPool.shutdown();
+            if (! sendPool.awaitTermination(SHUTDOWN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                sendPool.shutdownNow();
+                drained = false;
+            }
+        } catch (InterruptedException e) {
+            sendPool.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+
+        int released = emailOutboxDao.releaseClaims(dispatcherId);
+        if (! drained || released > 0) {
+            LOG.warn("Email dispatcher stopped before draining, returned {} claimed emails to the outbox", released);
+        } else {
+            LOG.info("Email dispatcher stopped");
+        }
+    }
+
+
+    public int retryFailed() {
+        return emailOutboxDao.retryFailed();
+    }
+
+
+    public int purgeSent(int olderThanDays) {
+        checkTrue(olderThanDays >= 0, "olderThanDays cannot be negative");
+        return emailOutboxDao.deleteSentBefore(Timestamp.valueOf(nowUtc().minusDays(olderThanDays)));
+    }
+
+
+    // --- metrics ---
+
+    public Map<OutboundEmailStatus, Integer> getCountsByStatus() {
+        return emailOutboxDao.countByStatus();
+    }
+
+
+    public long getSentCount() {
+        return sentCount.get();
+    }
+
+
+    public long getRetriedCount() {
+        return retriedCount.get();
+    }
+
+
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+
+    public long getLastDispatchDurationMillis() {
+        return lastDispatchDurationMillis;
+    }
+
+
+    /**
+     * @return  emails sent per second during the last dispatch which sent anything
+     */
+    public double getLastDispatchRate() {
+        return lastDispatchRate;
+    }
+
+
+    // --- helpers ---
+
+    private int sendAll(List<OutboundEmail> emails) {
+        List<Future<Boolean>> futures;
+        try {
+            futures = emails
+                    .stream()
+                    .map(email -> sendPool.submit(() -> send(email)))
+                    .collect(toList());
+        } catch (RejectedExecutionException e) {
+            // shutting down, unsent claims are released by shutdown()
+            return 0;
+        }
+
+        int sent = 0;
+        for (Future<Boolean> future : futures) {
+            try {
+                if (future.get()) {
+                    sent++;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted whilst dispatching emails", e);
+            } catch (ExecutionException e) {
+                LOG.error("Unexpected failure whilst dispatching email", e.getCause());
+            }
+        }
+        return sent;
+    }
+
+
+    private boolean send(OutboundEmail email) throws InterruptedException {
+        long id = email.id().get();
+        acquireSendPermit();
+
+        try {
+            waltzEmailer.sendEmail(
+                    email.subject(),
+                    email.body(),
+                    email.recipients().toArray(new String[0]));
+            emailOutboxDao.markSent(id);
+            sentCount.incrementAndGet();
+            return true;
+        } catch (Exception e) {
+            int attempts = email.attempts() + 1;
+            String error = e.getClass().getSimpleName() + ": " + e.getMessage();
+
+            if (retryPolicy.shouldRetry(attempts)) {
+                LocalDateTime nextAttemptAt = nowUtc().plusNanos(TimeUnit.MILLISECONDS.toNanos(retryPolicy.delayMillis(attempts)));
+                LOG.warn("Failed to send email {} (attempt {} of {}), will retry at {}: {}", id, attempts, retryPolicy.getMaxAttempts(), nextAttemptAt, error);
+                emailOutboxDao.markForRetry(id, error, Timestamp.valueOf(nextAttemptAt));
+                retriedCount.incrementAndGet();
+            } else {
+                LOG.error("Failed to send email {} after {} attempts, giving up: {}", id, attempts, error);
+                emailOutboxDao.markFailed(id, error);
+                failedCount.incrementAndGet();
+            }
+            return false;
+        }
+    }
+
+
+    private void acquireSendPermit() throws InterruptedException {
+        long waitNanos;
+        synchronized (rateLock) {
+            long now = System.nanoTime();
+            long sendAt = Math.max(now, nextSendAtNanos);
+            nextSendAtNanos = sendAt + minSendIntervalNanos;
+            waitNanos = sendAt - now;
+        }
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+}
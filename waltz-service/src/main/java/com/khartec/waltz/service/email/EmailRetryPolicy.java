@@ -0,0 +1,75 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+package com.khartec.waltz.service.email;
+
+import static com.khartec.waltz.common.Checks.checkTrue;
+
+
+/**
+ * Exponential backoff for outbound emails which could not be sent.  The
+ * delay doubles after every failed attempt, up to a maximum, and emails are
+ * given up on once they have been attempted <code>maxAttempts</code> times.
+ */
+public class EmailRetryPolicy {
+
+    private final int maxAttempts;
+    private final long initialDelayMillis;
+    private final long maxDelayMillis;
+
+
+    public EmailRetryPolicy(int maxAttempts, long initialDelayMillis, long maxDelayMillis) {
+        checkTrue(maxAttempts > 0, "maxAttempts must be positive");
+        checkTrue(initialDelayMillis >= 0, "initialDelayMillis cannot be negative");
+        checkTrue(maxDelayMillis >= initialDelayMillis, "maxDelayMillis cannot be less than initialDelayMillis");
+
+        this.maxAttempts = maxAttempts;
+        this.initialDelayMillis = initialDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+    }
+
+
+    /**
+     * @param attempts  number of attempts made so far, including the one which has just failed
+     * @return  true if the email should be attempted again
+     */
+    public boolean shouldRetry(int attempts) {
+        return attempts < maxAttempts;
+    }
+
+
+    /**
+     * @param attempts  number of attempts made so far, including the one which has just failed
+     * @return  how long (millis) to wait before the next attempt
+     */
+    public long delayMillis(int attempts) {
+        int doublings = Math.min(Math.max(attempts - 1, 0), 62);
+
+        // guard against overflow, anything this large is capped anyway
+        if (initialDelayMillis > (maxDelayMillis >> doublings)) {
+            return maxDelayMillis;
+        }
+
+        return Math.min(maxDelayMillis, initialDelayMillis << doublings);
+    }
+
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+}
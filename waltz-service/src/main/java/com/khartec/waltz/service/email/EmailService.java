@@ -39,8 +39,8 @@ import java.util.List;
 import java.util.Set;
 
 import static com.khartec.waltz.common.Checks.checkNotNull;
+import static com.khartec.waltz.common.ListUtilities.partition;
 import static com.khartec.waltz.common.SetUtilities.fromCollection;
-import static com.khartec.waltz.common.StreamUtilities.batchProcessingCollector;
 import static com.khartec.waltz.common.StringUtilities.mkSafe;
 import static java.util.stream.Collectors.joining;
 import static java.util.stream.Collectors.toSet;
@@ -52,7 +52,7 @@ public class EmailService {
     private static final Logger LOG = LoggerFactory.getLogger(EmailService.class);
     private static final String MAIL_NEW_LINE = "<br/>";
 
-    private final WaltzEmailer waltzEmailer;
+    private final EmailOutboxDispatcher emailOutboxDispatcher;
     private final AttestationRunDao attestationRunDao;
     private final AttestationInstanceRecipientDao attestationInstanceRecipientDao;
     private final InvolvementKindService involvementKindService;
@@ -66,18 +66,18 @@ public class EmailService {
 
 
     @Autowired
-    public EmailService(WaltzEmailer waltzEmailer,
+    public EmailService(EmailOutboxDispatcher emailOutboxDispatcher,
                         AttestationRunDao attestationRunDao,
                         AttestationInstanceRecipientDao attestationInstanceRecipientDao,
                         InvolvementKindService involvementKindService,
                         PersonService personService) {
-        checkNotNull(waltzEmailer, "waltzEmailer cannot be null");
+        checkNotNull(emailOutboxDispatcher, "emailOutboxDispatcher cannot be null");
         checkNotNull(attestationRunDao, "attestationRunDao cannot be null");
         checkNotNull(attestationInstanceRecipientDao, "attestationInstanceRecipientDao cannot be null");
         checkNotNull(involvementKindService, "involvementKindService cannot be null");
         checkNotNull(personService, "personService cannot be null");
 
-        this.waltzEmailer = waltzEmailer;
+        this.emailOutboxDispatcher = emailOutboxDispatcher;
         this.attestationRunDao = attestationRunDao;
         this.attestationInstanceRecipientDao = attestationInstanceRecipientDao;
         this.involvementKindService = involvementKindService;
@@ -138,12 +138,15 @@ public class EmailService {
     }
 
 
+    /**
+     * Recipients are split into batches (of <code>waltz.email.batchSize</code>)
+     * and an email per batch is queued in the outbox, the emails are sent
+     * asynchronously by the <code>EmailOutboxDispatcher</code>.
+     */
     private void sendEmailNotification(String subject, String body, Collection<String> recipients) {
-        int count = recipients.stream().collect(batchProcessingCollector(batchSize, batch -> {
-            String[] to = batch.toArray(new String[0]);
-            waltzEmailer.sendEmail(subject, body, to);
-        }));
-        LOG.info(String.format("Sent email notification: %s to %s users", subject, count));
+        List<List<String>> batches = partition(recipients, batchSize);
+        int queued = emailOutboxDispatcher.enqueue(subject, body, batches);
+        LOG.info(String.format("Queued email notification: %s to %s users in %s emails", subject, recipients.size(), queued));
     }
 
 }
@@ -19,7 +19,9 @@
 package com.khartec.waltz.service.entity_alias;
 
 import com.khartec.waltz.common.Checks;
+import com.khartec.waltz.data.application.search.ApplicationSearchDao;
 import com.khartec.waltz.data.entity_alias.EntityAliasDao;
+import com.khartec.waltz.model.EntityKind;
 import com.khartec.waltz.model.EntityReference;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -31,11 +33,15 @@ import java.util.List;
 public class EntityAliasService {
 
     private final EntityAliasDao entityAliasDao;
+    private final ApplicationSearchDao applicationSearchDao;
 
     @Autowired
-    public EntityAliasService(EntityAliasDao entityAliasDao) {
+    public EntityAliasService(EntityAliasDao entityAliasDao,
+                              ApplicationSearchDao applicationSearchDao) {
         Checks.checkNotNull(entityAliasDao, "entityAliasDao cannot be null");
+        Checks.checkNotNull(applicationSearchDao, "applicationSearchDao cannot be null");
         this.entityAliasDao = entityAliasDao;
+        this.applicationSearchDao = applicationSearchDao;
     }
 
 
@@ -45,6 +51,11 @@ public class EntityAliasService {
 
 
     public int[] updateAliases(EntityReference ref, Collection<String> aliases) {
-        return entityAliasDao.updateAliases(ref, aliases);
+        int[] result = entityAliasDao.updateAliases(ref, aliases);
+        if (ref.kind() == EntityKind.APPLICATION) {
+            // application aliases are searchable
+            applicationSearchDao.reindex(ref.id());
+        }
+        return result;
     }
 }
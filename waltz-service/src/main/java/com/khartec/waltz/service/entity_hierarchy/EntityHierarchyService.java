@@ -23,9 +23,11 @@ import com.khartec.waltz.common.hierarchy.FlatNode;
 import com.khartec.waltz.common.hierarchy.Forest;
 import com.khartec.waltz.common.hierarchy.HierarchyUtilities;
 import com.khartec.waltz.common.hierarchy.Node;
+import com.khartec.waltz.data.application.ApplicationIdSetCache;
 import com.khartec.waltz.data.change_initiative.ChangeInitiativeDao;
 import com.khartec.waltz.data.data_type.DataTypeDao;
 import com.khartec.waltz.data.entity_hierarchy.EntityHierarchyDao;
+import com.khartec.waltz.data.entity_hierarchy.EntityHierarchyIndex;
 import com.khartec.waltz.data.entity_hierarchy.EntityRootsSelectorFactory;
 import com.khartec.waltz.data.entity_statistic.EntityStatisticDao;
 import com.khartec.waltz.data.measurable.MeasurableDao;
@@ -40,15 +42,23 @@ import com.khartec.waltz.schema.Tables;
 import com.khartec.waltz.service.person_hierarchy.PersonHierarchyService;
 import org.jooq.*;
 import org.jooq.impl.DSL;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 import java.util.stream.Stream;
 
 import static com.khartec.waltz.common.Checks.checkNotNull;
+import static com.khartec.waltz.common.SetUtilities.asSet;
+import static com.khartec.waltz.data.SelectorUtilities.MAX_INLINED_IDS;
 import static com.khartec.waltz.model.EntityKind.PERSON;
 import static com.khartec.waltz.schema.Tables.ENTITY_HIERARCHY;
 import static com.khartec.waltz.schema.Tables.MEASURABLE;
@@ -57,6 +67,15 @@ import static org.jooq.impl.DSL.select;
 @Service
 public class EntityHierarchyService {
 
+    private static final Logger LOG = LoggerFactory.getLogger(EntityHierarchyService.class);
+
+    private static final Set<EntityKind> INDEXED_KINDS = asSet(
+            EntityKind.CHANGE_INITIATIVE,
+            EntityKind.DATA_TYPE,
+            EntityKind.ENTITY_STATISTIC,
+            EntityKind.MEASURABLE,
+            EntityKind.ORG_UNIT);
+
     private final DSLContext dsl;
     private final ChangeInitiativeDao changeInitiativeDao;
     private final DataTypeDao dataTypeDao;
@@ -66,6 +85,26 @@ public class EntityHierarchyService {
     private final MeasurableDao measurableDao;
     private final OrganisationalUnitDao organisationalUnitDao;
     private final PersonHierarchyService personHierarchyService;
+    private final ApplicationIdSetCache applicationIdSetCache;
+
+    // non-null whilst the current thread is deferring maintenance, see deferMaintenance
+    private final ThreadLocal<List<PendingChange>> pendingChanges = new ThreadLocal<>();
+
+
+    private static final class PendingChange {
+
+        private final EntityReference ref;
+        private final Long parentId;
+        private final boolean added;
+
+
+        private PendingChange(EntityReference ref, Long parentId, boolean added) {
+            this.ref = ref;
+            this.parentId = parentId;
+            this.added = added;
+        }
+    }
+
 
     @Autowired
     public EntityHierarchyService(DSLContext dsl,
@@ -75,7 +114,8 @@ public class EntityHierarchyService {
                                   EntityStatisticDao entityStatisticDao,
                                   MeasurableDao measurableDao, 
                                   OrganisationalUnitDao organisationalUnitDao,
-                                  PersonHierarchyService personHierarchyService) {
+                                  PersonHierarchyService personHierarchyService,
+                                  ApplicationIdSetCache applicationIdSetCache) {
 
         checkNotNull(dsl, "dsl cannot be null");
         checkNotNull(changeInitiativeDao, "changeInitiativeDao cannot be null");
@@ -85,6 +125,7 @@ public class EntityHierarchyService {
         checkNotNull(measurableDao, "measurableDao cannot be null");
         checkNotNull(organisationalUnitDao, "organisationalUnitDao cannot be null");
         checkNotNull(personHierarchyService, "personHierarchyService cannot be null");
+        checkNotNull(applicationIdSetCache, "applicationIdSetCache cannot be null");
 
         this.dsl = dsl;
         this.changeInitiativeDao = changeInitiativeDao;
@@ -94,6 +135,7 @@ public class EntityHierarchyService {
         this.measurableDao = measurableDao;
         this.organisationalUnitDao = organisationalUnitDao;
         this.personHierarchyService = personHierarchyService;
+        this.applicationIdSetCache = applicationIdSetCache;
     }
 
 
@@ -141,22 +183,270 @@ public class EntityHierarchyService {
 
     public int buildFor(EntityKind kind) {
         if (kind == PERSON) {
-            int[] rc = personHierarchyService.build();
-            return rc.length;
+            return personHierarchyService
+                    .rebuildIncrementally(false)
+                    .closureSize();
         } else {
             Table table = determineTableToRebuild(kind);
-            return buildFor(table, kind, DSL.trueCondition(), DSL.trueCondition());
+            discardPendingChanges(kind);
+            int rc = buildFor(table, kind, DSL.trueCondition(), DSL.trueCondition());
+            loadIndex(kind);
+            applicationIdSetCache.invalidateAll();
+            return rc;
         }
     }
 
 
+    /**
+     * Rebuilds the closure for a single measurable category.  If called
+     * whilst maintenance is deferred (see <code>deferMaintenance</code>)
+     * any pending measurable changes are assumed to be within the category
+     * and are superseded by the rebuild.
+     */
     public int buildForMeasurableByCategory(long categoryId) {
-        return buildFor(MEASURABLE,
+        discardPendingChanges(EntityKind.MEASURABLE);
+        int rc = buildFor(MEASURABLE,
                         EntityKind.MEASURABLE,
                         MEASURABLE.MEASURABLE_CATEGORY_ID.eq(categoryId),
                         ENTITY_HIERARCHY.ID.in(select(MEASURABLE.ID)
                                                 .from(MEASURABLE)
                                                 .where(MEASURABLE.MEASURABLE_CATEGORY_ID.eq(categoryId))));
+        loadIndex(EntityKind.MEASURABLE);
+        applicationIdSetCache.invalidateAll();
+        return rc;
+    }
+
+
+    /**
+     * Reloads the resident hierarchy indexes from the underlying entity tables.
+     * Local changes (see <code>addNode</code> and <code>moveNode</code>) are
+     * applied incrementally, this periodic refresh picks up any changes made
+     * by other Waltz instances or by direct database loads.
+     */
+    @Scheduled(fixedRate = 600_000)
+    public void loadIndexes() {
+        INDEXED_KINDS.forEach(kind -> {
+            try {
+                loadIndex(kind);
+            } catch (Exception e) {
+                LOG.warn("Failed to load hierarchy index for kind: {}, will use ENTITY_HIERARCHY table instead", kind, e);
+                entityHierarchyDao.removeIndex(kind);
+            }
+        });
+    }
+
+
+    /**
+     * Reloads the resident hierarchy index for a single kind, discarding any
+     * in place patches (e.g. those made by a transaction which was later
+     * rolled back).
+     */
+    public void reloadIndex(EntityKind kind) {
+        checkNotNull(kind, "kind cannot be null");
+        loadIndex(kind);
+        applicationIdSetCache.invalidateAll();
+    }
+
+
+    /**
+     * Records a newly created node in the hierarchy of its kind.  The index is
+     * patched in place and only the closure rows of the new node are written
+     * to ENTITY_HIERARCHY.
+     *
+     * @param ref  reference to the new node, must already be persisted
+     * @param parentId  parent of the node or null if it is a root
+     */
+    public void addNode(EntityReference ref, Long parentId) {
+        checkNotNull(ref, "ref cannot be null");
+        if (deferIfRequested(new PendingChange(ref, parentId, true))) {
+            return;
+        }
+        EntityHierarchyIndex index = patchIndexOrReload(
+                ref.kind(),
+                idx -> idx.addNode(ref.id(), parentId));
+
+        writeClosure(index, new long[] { ref.id() });
+        applicationIdSetCache.invalidateAll();
+    }
+
+
+    /**
+     * Records a change of parent for the given node.  Only the index entries
+     * and ENTITY_HIERARCHY rows for the moved subtree (and its old and new
+     * ancestor chains) are modified, the rest of the forest is untouched.
+     *
+     * @param ref  reference to the moved node, the change must already be persisted
+     * @param newParentId  new parent of the node or null if it is now a root
+     */
+    public void moveNode(EntityReference ref, Long newParentId) {
+        checkNotNull(ref, "ref cannot be null");
+        if (deferIfRequested(new PendingChange(ref, newParentId, false))) {
+            return;
+        }
+        EntityHierarchyIndex index = patchIndexOrReload(
+                ref.kind(),
+                idx -> idx.moveNode(ref.id(), newParentId));
+
+        writeClosure(index, index.findDescendantIds(ref.id()));
+        applicationIdSetCache.invalidateAll();
+    }
+
+
+    /**
+     * Performs the work with hierarchy maintenance deferred.  Nodes added or
+     * moved on this thread during the work (see <code>addNode</code> and
+     * <code>moveNode</code>) are recorded, once the work completes the index
+     * is patched and the closure rows of the affected subtrees are written,
+     * each subtree once however many times it changed.  If the work fails
+     * the recorded changes are discarded.
+     *
+     * Intended for bulk changes (e.g. batches of taxonomy changes), callers
+     * should run this inside a transaction so the closure is written
+     * atomically with the changes themselves.
+     *
+     * @param work  the changes to make
+     * @param <T>  result type of the work
+     * @return  result of the work
+     */
+    public <T> T deferMaintenance(Supplier<T> work) {
+        checkNotNull(work, "work cannot be null");
+
+        if (pendingChanges.get() != null) {
+            // already deferring, the outermost call applies the changes
+            return work.get();
+        }
+
+        pendingChanges.set(new ArrayList<>());
+        try {
+            T result = work.get();
+            applyPendingChanges(pendingChanges.get());
+            return result;
+        } finally {
+            pendingChanges.remove();
+        }
+    }
+
+
+    private boolean deferIfRequested(PendingChange change) {
+        List<PendingChange> pending = pendingChanges.get();
+        if (pending == null) {
+            return false;
+        } else {
+            pending.add(change);
+            return true;
+        }
+    }
+
+
+    private void discardPendingChanges(EntityKind kind) {
+        List<PendingChange> pending = pendingChanges.get();
+        if (pending != null) {
+            pending.removeIf(c -> c.ref.kind() == kind);
+        }
+    }
+
+
+    private void applyPendingChanges(List<PendingChange> pending) {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        Map<EntityKind, List<PendingChange>> changesByKind = pending
+                .stream()
+                .collect(Collectors.groupingBy(c -> c.ref.kind(), LinkedHashMap::new, Collectors.toList()));
+
+        changesByKind.forEach((kind, changes) -> {
+            EntityHierarchyIndex index = patchIndexOrReload(
+                    kind,
+                    idx -> changes.forEach(c -> {
+                        if (c.added) {
+                            idx.addNode(c.ref.id(), c.parentId);
+                        } else {
+                            idx.moveNode(c.ref.id(), c.parentId);
+                        }
+                    }));
+
+            List<Long> affectedIds = changes
+                    .stream()
+                    .map(c -> c.ref.id())
+                    .distinct()
+                    .flatMapToLong(id -> index.contains(id)
+                            ? LongStream.of(index.findDescendantIds(id))
+                            : LongStream.empty())
+                    .distinct()
+                    .boxed()
+                    .collect(Collectors.toList());
+
+            writeClosure(index, affectedIds.stream().mapToLong(Long::longValue).toArray());
+
+            LOG.info("Applied {} deferred hierarchy changes for kind: {}, rewrote closure of {} nodes", changes.size(), kind, affectedIds.size());
+        });
+
+        applicationIdSetCache.invalidateAll();
+    }
+
+
+    /**
+     * Applies the patch to the resident index for the kind.  If there is no
+     * index, or the patch cannot be applied (e.g. the index is missing nodes
+     * created via another Waltz instance), the index is reloaded instead.  As
+     * callers persist their change first the reloaded index will reflect it.
+     */
+    private EntityHierarchyIndex patchIndexOrReload(EntityKind kind, Consumer<EntityHierarchyIndex> patch) {
+        return entityHierarchyDao
+                .findIndex(kind)
+                .flatMap(index -> {
+                    try {
+                        patch.accept(index);
+                        return Optional.of(index);
+                    } catch (IllegalArgumentException e) {
+                        LOG.info("Could not patch hierarchy index for kind: {}, reloading. Reason: {}", kind, e.getMessage());
+                        return Optional.empty();
+                    }
+                })
+                .orElseGet(() -> loadIndex(kind));
+    }
+
+
+    private EntityHierarchyIndex loadIndex(EntityKind kind) {
+        Table table = determineTableToRebuild(kind);
+        Forest<Long, Long> forest = HierarchyUtilities.toForest(fetchFlatNodes(table, DSL.trueCondition()));
+        return entityHierarchyDao.indexHierarchy(kind, forest);
+    }
+
+
+    /**
+     * Rewrites the closure rows of the given nodes from the index.  Large
+     * sets of nodes (e.g. moving a big subtree) are written in chunks so the
+     * delete never inlines more than <code>MAX_INLINED_IDS</code> ids.
+     */
+    private int writeClosure(EntityHierarchyIndex index, long[] ids) {
+        return ListUtilities
+                .partition(LongStream.of(ids).boxed().collect(Collectors.toList()), MAX_INLINED_IDS)
+                .stream()
+                .mapToInt(chunk -> writeClosureChunk(index, chunk))
+                .sum();
+    }
+
+
+    private int writeClosureChunk(EntityHierarchyIndex index, List<Long> ids) {
+        EntityKind kind = index.getKind();
+        List<EntityHierarchyItem> items = ids
+                .stream()
+                .flatMap(id -> {
+                    long[] ancestorIds = index.findAncestorIds(id);
+                    return LongStream
+                            .of(ancestorIds)
+                            .mapToObj(ancestorId -> (EntityHierarchyItem) ImmutableEntityHierarchyItem.builder()
+                                    .id(id)
+                                    .parentId(ancestorId)
+                                    .level(index.getLevel(ancestorId))
+                                    .kind(kind)
+                                    .build());
+                })
+                .collect(Collectors.toList());
+
+        return entityHierarchyDao.replaceHierarchy(kind, items, ENTITY_HIERARCHY.ID.in(ids));
     }
 
 
@@ -0,0 +1,154 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+package com.khartec.waltz.service.entity_search;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.khartec.waltz.common.Checks.checkNotNull;
+import static com.khartec.waltz.common.Checks.checkTrue;
+
+
+/**
+ * Runs the per-kind searches which make up an entity search.
+ *
+ * The per-kind searches run on a pool dedicated to this purpose.  They must
+ * not share the <code>DBExecutorPool</code>, as several search DAOs fan out
+ * further sub-queries onto that pool and block waiting for them.  If both
+ * levels shared one pool a burst of searches could occupy every thread with
+ * outer tasks, leaving the inner tasks queued forever.
+ *
+ * Each kind is given until the deadline to complete.  Kinds which fail to
+ * respond in time are cancelled and omitted, giving partial results rather
+ * than stalling the whole search.  Searches may be associated with a session
+ * key (e.g. the user and the search box they are typing in); starting a new
+ * search for a key cancels any search still running for that key, as the
+ * user has typed on and is no longer interested in the old results.
+ */
+public class EntitySearchExecutor {
+
+    private static final Logger LOG = LoggerFactory.getLogger(EntitySearchExecutor.class);
+
+    private final ExecutorService executorService;
+    private final long timeoutMillis;
+    private final Map<String, Collection<Future<?>>> inflightBySessionKey = new ConcurrentHashMap<>();
+
+
+    public EntitySearchExecutor(int poolSize, long timeoutMillis) {
+        checkTrue(poolSize > 0, "poolSize must be positive");
+        checkTrue(timeoutMillis > 0, "timeoutMillis must be positive");
+
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(
+                poolSize,
+                poolSize,
+                60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(poolSize * 16),
+                (runnable) -> {
+                    Thread t = new Thread(runnable, "Search Executor " + threadCount.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                // if we are saturated run the search on the requesting thread rather than failing
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        pool.allowCoreThreadTimeOut(true);
+
+        this.executorService = pool;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+
+    /**
+     * Runs the given tasks concurrently, returning the concatenation of their
+     * results (in task order).  Tasks which fail, time out or are cancelled (by a
+     * subsequent search with the same session key) contribute no results.
+     *
+     * @param sessionKey  identifies the searcher, may be null if stale searches should not be cancelled
+     * @param tasksByKey  tasks to run, keyed by a description used for logging (e.g. entity kind)
+     * @param <K>  key type
+     * @param <T>  result type
+     * @return  combined results of all tasks which completed in time
+     */
+    public <K, T> List<T> execute(String sessionKey,
+                                  Map<K, ? extends Callable<? extends Collection<? extends T>>> tasksByKey) {
+        checkNotNull(tasksByKey, "tasksByKey cannot be null");
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+
+        Map<K, Future<? extends Collection<? extends T>>> futuresByKey = new LinkedHashMap<>();
+        Collection<Future<?>> inflight = new ConcurrentLinkedQueue<>();
+
+        if (sessionKey != null) {
+            cancelAll(inflightBySessionKey.put(sessionKey, inflight));
+        }
+
+        try {
+            tasksByKey.forEach((k, task) -> {
+                Future<? extends Collection<? extends T>> future = executorService.submit(task);
+                futuresByKey.put(k, future);
+                inflight.add(future);
+            });
+
+            List<T> results = new ArrayList<>();
+            futuresByKey.forEach((k, future) -> results.addAll(awaitResult(k, future, deadline)));
+            return results;
+        } finally {
+            cancelAll(inflight);
+            if (sessionKey != null) {
+                inflightBySessionKey.remove(sessionKey, inflight);
+            }
+        }
+    }
+
+
+    // --- helpers ---
+
+    private <K, T> Collection<? extends T> awaitResult(K key,
+                                                       Future<? extends Collection<? extends T>> future,
+                                                       long deadline) {
+        try {
+            long remaining = Math.max(0, deadline - System.nanoTime());
+            Collection<? extends T> result = future.get(remaining, TimeUnit.NANOSECONDS);
+            return result == null
+                    ? Collections.emptyList()
+                    : result;
+        } catch (TimeoutException e) {
+            LOG.warn("Search for {} did not complete within {}ms, omitting from results", key, timeoutMillis);
+        } catch (CancellationException e) {
+            LOG.debug("Search for {} was cancelled by a newer search", key);
+        } catch (ExecutionException e) {
+            LOG.warn("Search for {} failed, omitting from results", key, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        future.cancel(true);
+        return Collections.emptyList();
+    }
+
+
+    private static void cancelAll(Collection<Future<?>> futures) {
+        if (futures != null) {
+            futures.forEach(f -> f.cancel(true));
+        }
+    }
+
+}
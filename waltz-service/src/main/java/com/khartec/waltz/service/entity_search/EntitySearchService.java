@@ -19,7 +19,6 @@
 package com.khartec.waltz.service.entity_search;
 
 import com.khartec.waltz.common.StringUtilities;
-import com.khartec.waltz.data.DBExecutorPoolInterface;
 import com.khartec.waltz.data.SearchUtilities;
 import com.khartec.waltz.model.*;
 import com.khartec.waltz.model.entity_search.EntitySearchOptions;
@@ -38,22 +37,21 @@ import com.khartec.waltz.service.roadmap.RoadmapService;
 import com.khartec.waltz.service.server_information.ServerInformationService;
 import com.khartec.waltz.service.software_catalog.SoftwareCatalogService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.util.Collection;
-import java.util.Collections;
-import java.util.List;
+import java.util.*;
 import java.util.concurrent.Callable;
-import java.util.concurrent.Future;
 
 import static com.khartec.waltz.common.Checks.checkNotNull;
 import static java.util.stream.Collectors.toList;
-import static org.jooq.lambda.Unchecked.supplier;
 
 @Service
 public class EntitySearchService {
 
-    private final DBExecutorPoolInterface dbExecutorPool;
+    private static final String UNKNOWN_USER_ID = "UNKNOWN";
+
+    private final EntitySearchExecutor searchExecutor;
     private final ActorService actorService;
     private final ApplicationService applicationService;
     private final AppGroupService appGroupService;
@@ -71,8 +69,7 @@ public class EntitySearchService {
 
 
     @Autowired
-    public EntitySearchService(DBExecutorPoolInterface dbExecutorPool,
-                               ActorService actorService,
+    public EntitySearchService(ActorService actorService,
                                ApplicationService applicationService,
                                AppGroupService appGroupService,
                                ChangeInitiativeService changeInitiativeService,
@@ -85,9 +82,10 @@ public class EntitySearchService {
                                RoadmapService roadmapService,
                                ServerInformationService serverInformationService,
                                SoftwareCatalogService softwareCatalogService,
-                               FlowDiagramService flowDiagramService) {
+                               FlowDiagramService flowDiagramService,
+                               @Value("${waltz.search.pool.size:16}") int searchPoolSize,
+                               @Value("${waltz.search.timeout.millis:5000}") long searchTimeoutMillis) {
 
-        checkNotNull(dbExecutorPool, "dbExecutorPool cannot be null");
         checkNotNull(actorService, "actorService cannot be null");
         checkNotNull(applicationService, "applicationService cannot be null");
         checkNotNull(appGroupService, "appGroupService cannot be null");
@@ -104,7 +102,6 @@ public class EntitySearchService {
         checkNotNull(softwareCatalogService, "softwareCatalogService cannot be null");
 
         this.actorService = actorService;
-        this.dbExecutorPool = dbExecutorPool;
         this.applicationService = applicationService;
         this.appGroupService = appGroupService;
         this.changeInitiativeService = changeInitiativeService;
@@ -118,6 +115,7 @@ public class EntitySearchService {
         this.roadmapService = roadmapService;
         this.serverInformationService = serverInformationService;
         this.softwareCatalogService = softwareCatalogService;
+        this.searchExecutor = new EntitySearchExecutor(searchPoolSize, searchTimeoutMillis);
     }
 
 
@@ -129,15 +127,19 @@ public class EntitySearchService {
             return Collections.emptyList();
         }
 
-        List<Future<Collection<? extends WaltzEntity>>> futures = options
-                .entityKinds()
-                .stream()
-                .map(ek -> dbExecutorPool.submit(mkCallable(ek, options)))
-                .collect(toList());
+        Map<EntityKind, Callable<Collection<? extends WaltzEntity>>> tasksByKind = new LinkedHashMap<>();
+        options.entityKinds().forEach(ek -> tasksByKind.put(ek, mkCallable(ek, options)));
+
+        // a new search from the same user and search box supersedes any search still in flight from it
+        String sessionKey = UNKNOWN_USER_ID.equals(options.userId())
+                ? null
+                : options.searchSessionId()
+                    .map(sessionId -> options.userId() + "/" + sessionId)
+                    .orElse(null);
 
-        return futures
+        return searchExecutor
+                .<EntityKind, WaltzEntity>execute(sessionKey, tasksByKind)
                 .stream()
-                .flatMap(f -> supplier(f::get).get().stream())
                 .map(WaltzEntity::entityReference)
                 .collect(toList());
     }
@@ -52,7 +52,7 @@ import static java.util.Collections.emptyList;
 @Service
 public class EntityStatisticService {
 
-    private final ApplicationIdSelectorFactory factory = new ApplicationIdSelectorFactory();
+    private final ApplicationIdSelectorFactory factory;
     private final EntityStatisticValueDao valueDao;
     private final EntityStatisticDefinitionDao definitionDao;
     private final EntityStatisticSummaryDao summaryDao;
@@ -63,17 +63,20 @@ public class EntityStatisticService {
     public EntityStatisticService(EntityStatisticValueDao valueDao,
                                   EntityStatisticDefinitionDao definitionDao,
                                   EntityStatisticSummaryDao summaryDao,
-                                  EntityStatisticDao statisticDao)
+                                  EntityStatisticDao statisticDao,
+                                  ApplicationIdSelectorFactory factory)
     {
         checkNotNull(valueDao, "valueDao cannot be null");
         checkNotNull(definitionDao, "definitionDao cannot be null");
         checkNotNull(summaryDao, "summaryDao cannot be null");
         checkNotNull(statisticDao, "statisticDao cannot be null");
+        checkNotNull(factory, "factory cannot be null");
 
         this.valueDao = valueDao;
         this.definitionDao = definitionDao;
         this.summaryDao = summaryDao;
         this.statisticDao = statisticDao;
+        this.factory = factory;
 
     }
 
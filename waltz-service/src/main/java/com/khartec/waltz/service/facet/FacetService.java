@@ -39,13 +39,16 @@ public class FacetService {
 
     private final ApplicationDao applicationDao;
 
-    private final ApplicationIdSelectorFactory applicationIdSelectorFactory = new ApplicationIdSelectorFactory();
+    private final ApplicationIdSelectorFactory applicationIdSelectorFactory;
 
 
     @Autowired
-    public FacetService(ApplicationDao applicationDao) {
+    public FacetService(ApplicationDao applicationDao,
+                        ApplicationIdSelectorFactory applicationIdSelectorFactory) {
         checkNotNull(applicationDao, "applicationDao cannot be null");
+        checkNotNull(applicationIdSelectorFactory, "applicationIdSelectorFactory cannot be null");
         this.applicationDao = applicationDao;
+        this.applicationIdSelectorFactory = applicationIdSelectorFactory;
     }
 
 
@@ -22,6 +22,7 @@ import com.khartec.waltz.common.DateTimeUtilities;
 import com.khartec.waltz.common.ListUtilities;
 import com.khartec.waltz.common.RandomUtilities;
 import com.khartec.waltz.common.SetUtilities;
+import com.khartec.waltz.data.EntityReferenceNameResolver;
 import com.khartec.waltz.data.actor.ActorDao;
 import com.khartec.waltz.data.application.ApplicationDao;
 import com.khartec.waltz.data.change_initiative.ChangeInitiativeDao;
@@ -88,6 +89,7 @@ public class FlowDiagramService {
     private final LogicalFlowIdSelectorFactory logicalFlowIdSelectorFactory = new LogicalFlowIdSelectorFactory();
     private final MeasurableDao measurableDao;
     private final ChangeInitiativeDao changeInitiativeDao;
+    private final EntityReferenceNameResolver nameResolver;
 
 
     @Autowired
@@ -102,7 +104,8 @@ public class FlowDiagramService {
                               PhysicalSpecificationDao physicalSpecificationDao,
                               ActorDao actorDao,
                               MeasurableDao measurableDao,
-                              ChangeInitiativeDao changeInitiativeDao) {
+                              ChangeInitiativeDao changeInitiativeDao,
+                              EntityReferenceNameResolver nameResolver) {
         checkNotNull(changeLogService, "changeLogService cannot be null");
         checkNotNull(flowDiagramDao, "flowDiagramDao cannot be null");
         checkNotNull(flowDiagramEntityDao, "flowDiagramEntityDao cannot be null");
@@ -115,6 +118,7 @@ public class FlowDiagramService {
         checkNotNull(actorDao, "actorDao cannot be null");
         checkNotNull(measurableDao, "measurableDao cannot be null");
         checkNotNull(changeInitiativeDao, "changeInitiativeDao cannot be null");
+        checkNotNull(nameResolver, "nameResolver cannot be null");
 
         this.changeLogService = changeLogService;
         this.flowDiagramDao = flowDiagramDao;
@@ -128,6 +132,7 @@ public class FlowDiagramService {
         this.actorDao = actorDao;
         this.measurableDao = measurableDao;
         this.changeInitiativeDao = changeInitiativeDao;
+        this.nameResolver = nameResolver;
     }
 
 
@@ -180,6 +185,7 @@ public class FlowDiagramService {
             if(!flowDiagramDao.update(diagram)) {
                 throw new InvalidResultException("Could not update diagram with Id: " + diagramId);
             }
+            nameResolver.invalidate(mkRef(FLOW_DIAGRAM, diagramId));
 
             existingEntities = map(flowDiagramEntityDao.findForDiagram(diagramId), fde -> fde.entityReference());
             auditChange("updated", mkRef(FLOW_DIAGRAM, diagramId), username, Operation.UPDATE);
@@ -206,7 +212,9 @@ public class FlowDiagramService {
         checkNotNull(command, "command cannot be null");
         checkNotNull(username, "username cannot be null");
 
-        return flowDiagramDao.updateName(id, command.newName());
+        boolean updated = flowDiagramDao.updateName(id, command.newName());
+        nameResolver.invalidate(mkRef(FLOW_DIAGRAM, id));
+        return updated;
     }
 
     public boolean updateDescription(long id, UpdateDescriptionCommand command, String username) {
@@ -0,0 +1,103 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package com.khartec.waltz.service.jmx;
+
+import com.khartec.waltz.service.access_log.AccessLogService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+@ManagedResource(description = "Monitoring and maintenance of the buffered access log writer")
+public class AccessLogMaintenance {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AccessLogMaintenance.class);
+
+    private final AccessLogService accessLogService;
+
+    @Autowired
+    public AccessLogMaintenance(AccessLogService accessLogService) {
+        this.accessLogService = accessLogService;
+    }
+
+
+    @ManagedOperation(description = "Write all buffered access log entries now")
+    public int flush() {
+        LOG.warn("Flushing access log buffer (via jmx)");
+        return accessLogService.flush();
+    }
+
+
+    @ManagedOperation(description = "Reload the in-memory last seen times from the database")
+    public void refreshLastSeen() {
+        LOG.warn("Refreshing access log last seen times (via jmx)");
+        accessLogService.refreshLastSeen();
+    }
+
+
+    @ManagedAttribute(description = "Number of entries waiting to be written")
+    public int getBufferedCount() {
+        return accessLogService.getBufferedCount();
+    }
+
+
+    @ManagedAttribute(description = "Maximum number of entries which can be buffered")
+    public int getBufferCapacity() {
+        return accessLogService.getBufferCapacity();
+    }
+
+
+    @ManagedAttribute(description = "Number of entries written since startup")
+    public long getWrittenCount() {
+        return accessLogService.getWrittenCount();
+    }
+
+
+    @ManagedAttribute(description = "Number of entries dropped (as the buffer was full) since startup")
+    public long getDroppedCount() {
+        return accessLogService.getDroppedCount();
+    }
+
+
+    @ManagedAttribute(description = "Number of entries discarded (as their batch failed to write) since startup")
+    public long getFailedCount() {
+        return accessLogService.getFailedCount();
+    }
+
+
+    @ManagedAttribute(description = "Number of flushes which wrote entries since startup")
+    public long getFlushCount() {
+        return accessLogService.getFlushCount();
+    }
+
+
+    @ManagedAttribute(description = "Number of users held in the last seen map")
+    public int getLastSeenUserCount() {
+        return accessLogService.getLastSeenUserCount();
+    }
+
+
+    @ManagedAttribute
+    public String getName() {
+        return "AccessLog";
+    }
+
+}
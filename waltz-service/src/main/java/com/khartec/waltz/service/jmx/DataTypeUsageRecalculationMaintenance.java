@@ -0,0 +1,84 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package com.khartec.waltz.service.jmx;
+
+import com.khartec.waltz.service.usage_info.DataTypeUsageRecalculationQueue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+@ManagedResource(description = "Monitoring and maintenance of the data type usage recalculation queue")
+public class DataTypeUsageRecalculationMaintenance {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DataTypeUsageRecalculationMaintenance.class);
+
+    private final DataTypeUsageRecalculationQueue recalculationQueue;
+
+    @Autowired
+    public DataTypeUsageRecalculationMaintenance(DataTypeUsageRecalculationQueue recalculationQueue) {
+        this.recalculationQueue = recalculationQueue;
+    }
+
+
+    @ManagedOperation(description = "Recalculate usages for all pending applications/actors now")
+    public int flush() {
+        LOG.warn("Flushing data type usage recalculation queue (via jmx)");
+        return recalculationQueue.flush();
+    }
+
+
+    @ManagedAttribute(description = "Number of applications/actors awaiting recalculation")
+    public int getDepth() {
+        return recalculationQueue.getDepth();
+    }
+
+
+    @ManagedAttribute(description = "Time (ms) the oldest pending application/actor has been waiting")
+    public long getLagMillis() {
+        return recalculationQueue.getLagMillis();
+    }
+
+
+    @ManagedAttribute(description = "Number of applications/actors recalculated since startup")
+    public long getRecalculatedCount() {
+        return recalculationQueue.getRecalculatedCount();
+    }
+
+
+    @ManagedAttribute(description = "Number of flushes which failed (and were re-queued) since startup")
+    public long getFailedFlushCount() {
+        return recalculationQueue.getFailedFlushCount();
+    }
+
+
+    @ManagedAttribute(description = "Duration (ms) of the last flush")
+    public long getLastFlushDurationMillis() {
+        return recalculationQueue.getLastFlushDurationMillis();
+    }
+
+
+    @ManagedAttribute
+    public String getName() {
+        return "DataTypeUsageRecalculation";
+    }
+
+}
@@ -0,0 +1,103 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+package com.khartec.waltz.service.jmx;
+
+import com.khartec.waltz.service.email.EmailOutboxDispatcher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+@ManagedResource(description = "Monitoring and maintenance of the outbound email queue")
+public class EmailOutboxMaintenance {
+
+    private static final Logger LOG = LoggerFactory.getLogger(EmailOutboxMaintenance.class);
+
+    private final EmailOutboxDispatcher emailOutboxDispatcher;
+
+    @Autowired
+    public EmailOutboxMaintenance(EmailOutboxDispatcher emailOutboxDispatcher) {
+        this.emailOutboxDispatcher = emailOutboxDispatcher;
+    }
+
+
+    @ManagedOperation(description = "Send a batch of due emails now")
+    public int dispatch() {
+        LOG.warn("Dispatching email outbox (via jmx)");
+        return emailOutboxDispatcher.dispatch();
+    }
+
+
+    @ManagedOperation(description = "Return emails which exhausted their attempts to the queue")
+    public int retryFailed() {
+        LOG.warn("Retrying failed emails (via jmx)");
+        return emailOutboxDispatcher.retryFailed();
+    }
+
+
+    @ManagedOperation(description = "Remove sent emails older than the given number of days")
+    public int purgeSent(int olderThanDays) {
+        LOG.warn("Purging emails sent more than {} days ago (via jmx)", olderThanDays);
+        return emailOutboxDispatcher.purgeSent(olderThanDays);
+    }
+
+
+    @ManagedAttribute(description = "Number of emails in the outbox by status")
+    public String getCountsByStatus() {
+        return emailOutboxDispatcher.getCountsByStatus().toString();
+    }
+
+
+    @ManagedAttribute(description = "Number of emails sent since startup")
+    public long getSentCount() {
+        return emailOutboxDispatcher.getSentCount();
+    }
+
+
+    @ManagedAttribute(description = "Number of failed sends which were scheduled for retry since startup")
+    public long getRetriedCount() {
+        return emailOutboxDispatcher.getRetriedCount();
+    }
+
+
+    @ManagedAttribute(description = "Number of emails given up on (after exhausting their attempts) since startup")
+    public long getFailedCount() {
+        return emailOutboxDispatcher.getFailedCount();
+    }
+
+
+    @ManagedAttribute(description = "Duration (ms) of the last dispatch which sent emails")
+    public long getLastDispatchDurationMillis() {
+        return emailOutboxDispatcher.getLastDispatchDurationMillis();
+    }
+
+
+    @ManagedAttribute(description = "Emails sent per second during the last dispatch which sent emails")
+    public double getLastDispatchRate() {
+        return emailOutboxDispatcher.getLastDispatchRate();
+    }
+
+
+    @ManagedAttribute
+    public String getName() {
+        return "EmailOutbox";
+    }
+
+}
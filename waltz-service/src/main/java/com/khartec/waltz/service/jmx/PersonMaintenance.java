@@ -18,6 +18,7 @@
 
 package com.khartec.waltz.service.jmx;
 
+import com.khartec.waltz.service.person_hierarchy.PersonHierarchyRebuildSummary;
 import com.khartec.waltz.service.person_hierarchy.PersonHierarchyService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -26,6 +27,8 @@ import org.springframework.jmx.export.annotation.ManagedAttribute;
 import org.springframework.jmx.export.annotation.ManagedOperation;
 import org.springframework.jmx.export.annotation.ManagedResource;
 
+import java.util.function.ToIntFunction;
+
 @ManagedResource(description = "Maintenance functions for the Waltz Persons")
 public class PersonMaintenance {
 
@@ -46,9 +49,54 @@ public class PersonMaintenance {
     }
 
 
+    @ManagedOperation(description = "Rebuild the person hierarchy table, only writing rows which have changed")
+    public String rebuildHierarchyTableIncrementally() {
+        LOG.warn("Incremental rebuild of person hierarchy (via jmx)");
+        return personHierarchyService.rebuildIncrementally(false).toString();
+    }
+
+
+    @ManagedOperation(description = "Calculate (but do not apply) the changes an incremental rebuild would make to the person hierarchy table")
+    public String previewHierarchyTableChanges() {
+        return personHierarchyService.rebuildIncrementally(true).toString();
+    }
+
+
+    @ManagedAttribute(description = "Rows inserted by the last incremental rebuild (-1 if none run)")
+    public int getLastRebuildInsertCount() {
+        return readLastSummary(PersonHierarchyRebuildSummary::insertCount);
+    }
+
+
+    @ManagedAttribute(description = "Rows deleted by the last incremental rebuild (-1 if none run)")
+    public int getLastRebuildDeleteCount() {
+        return readLastSummary(PersonHierarchyRebuildSummary::deleteCount);
+    }
+
+
+    @ManagedAttribute(description = "Rows whose level was updated by the last incremental rebuild (-1 if none run)")
+    public int getLastRebuildUpdateCount() {
+        return readLastSummary(PersonHierarchyRebuildSummary::updateCount);
+    }
+
+
+    @ManagedAttribute(description = "Rows in the hierarchy as of the last incremental rebuild (-1 if none run)")
+    public int getLastRebuildClosureSize() {
+        return readLastSummary(PersonHierarchyRebuildSummary::closureSize);
+    }
+
+
     @ManagedAttribute
     public String getName() {
         return "Person";
     }
 
+
+    private int readLastSummary(ToIntFunction<PersonHierarchyRebuildSummary> extractor) {
+        return personHierarchyService
+                .getLastRebuildSummary()
+                .map(extractor::applyAsInt)
+                .orElse(-1);
+    }
+
 }
@@ -0,0 +1,92 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package com.khartec.waltz.service.jmx;
+
+import com.khartec.waltz.model.query_statistics.QueryLatencySummary;
+import com.khartec.waltz.service.query_statistics.QueryStatistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+@ManagedResource(description = "Per query-shape latency statistics")
+public class QueryStatisticsMaintenance {
+
+    private static final Logger LOG = LoggerFactory.getLogger(QueryStatisticsMaintenance.class);
+
+    private final QueryStatistics queryStatistics;
+
+    @Autowired
+    public QueryStatisticsMaintenance(QueryStatistics queryStatistics) {
+        this.queryStatistics = queryStatistics;
+    }
+
+
+    @ManagedOperation(description = "Latency summaries (count, total, p50, p99, max in ms) of the queries with the highest total time")
+    public List<String> findTopQueries(int limit) {
+        return queryStatistics
+                .findSummaries(limit)
+                .stream()
+                .map(QueryStatisticsMaintenance::format)
+                .collect(Collectors.toList());
+    }
+
+
+    @ManagedOperation(description = "Discard all recorded query statistics")
+    public void reset() {
+        LOG.warn("Resetting query statistics (via jmx)");
+        queryStatistics.reset();
+    }
+
+
+    @ManagedAttribute(description = "Number of distinct query shapes being tracked")
+    public int getFingerprintCount() {
+        return queryStatistics.getFingerprintCount();
+    }
+
+
+    @ManagedAttribute(description = "Number of queries recorded")
+    public long getQueryCount() {
+        return queryStatistics.getTotalCount();
+    }
+
+
+    @ManagedAttribute
+    public String getName() {
+        return "QueryStatistics";
+    }
+
+
+    private static String format(QueryLatencySummary summary) {
+        return String.format(
+                "count=%d, total=%.1f, p50=%.1f, p99=%.1f, max=%.1f :: %s",
+                summary.count(),
+                summary.totalMillis(),
+                summary.p50Millis(),
+                summary.p99Millis(),
+                summary.maxMillis(),
+                summary.fingerprint());
+    }
+
+}
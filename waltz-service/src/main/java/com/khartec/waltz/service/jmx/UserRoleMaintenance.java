@@ -0,0 +1,85 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package com.khartec.waltz.service.jmx;
+
+import com.khartec.waltz.service.user.UserRoleService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+@ManagedResource(description = "Maintenance functions for the Waltz user role cache")
+public class UserRoleMaintenance {
+
+    private static final Logger LOG = LoggerFactory.getLogger(UserRoleMaintenance.class);
+
+    private final UserRoleService userRoleService;
+
+    @Autowired
+    public UserRoleMaintenance(UserRoleService userRoleService) {
+        this.userRoleService = userRoleService;
+    }
+
+
+    @ManagedOperation(description = "Evict all cached user roles")
+    public void clearCache() {
+        LOG.warn("Clearing user role cache (via jmx)");
+        userRoleService.evictAllCachedRoles();
+    }
+
+
+    @ManagedOperation(description = "Evict the cached roles for a single user")
+    public void evictUser(String userName) {
+        LOG.info("Evicting cached roles for user: {} (via jmx)", userName);
+        userRoleService.evictCachedRoles(userName);
+    }
+
+
+    @ManagedAttribute(description = "Number of role lookups answered from the cache")
+    public long getCacheHitCount() {
+        return userRoleService.getRoleCache().getHitCount();
+    }
+
+
+    @ManagedAttribute(description = "Number of role lookups which required a database query")
+    public long getCacheMissCount() {
+        return userRoleService.getRoleCache().getMissCount();
+    }
+
+
+    @ManagedAttribute(description = "Proportion of role lookups answered from the cache")
+    public double getCacheHitRatio() {
+        return userRoleService.getRoleCache().getHitRatio();
+    }
+
+
+    @ManagedAttribute(description = "Number of users with cached roles")
+    public int getCacheSize() {
+        return userRoleService.getRoleCache().size();
+    }
+
+
+    @ManagedAttribute
+    public String getName() {
+        return "UserRole";
+    }
+
+}
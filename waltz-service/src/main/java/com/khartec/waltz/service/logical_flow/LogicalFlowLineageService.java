@@ -0,0 +1,248 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package com.khartec.waltz.service.logical_flow;
+
+import com.khartec.waltz.data.entity_hierarchy.EntityHierarchyDao;
+import com.khartec.waltz.data.entity_hierarchy.EntityHierarchyIndex;
+import com.khartec.waltz.data.logical_flow.LogicalFlowDao;
+import com.khartec.waltz.data.logical_flow.LogicalFlowGraph;
+import com.khartec.waltz.data.logical_flow.LogicalFlowGraphDao;
+import com.khartec.waltz.model.EntityKind;
+import com.khartec.waltz.model.logical_flow.FlowLineageDirection;
+import com.khartec.waltz.model.logical_flow.FlowLineageQuery;
+import com.khartec.waltz.model.logical_flow.FlowPathQuery;
+import com.khartec.waltz.model.logical_flow.LogicalFlow;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.LongStream;
+
+import static com.khartec.waltz.common.Checks.checkNotNull;
+import static com.khartec.waltz.common.ListUtilities.partition;
+import static com.khartec.waltz.common.MapUtilities.indexBy;
+import static com.khartec.waltz.data.SelectorUtilities.MAX_INLINED_IDS;
+import static java.util.Collections.emptyList;
+import static java.util.stream.Collectors.toList;
+
+
+/**
+ * Answers multi-hop lineage, path and reachability questions over a
+ * resident <code>LogicalFlowGraph</code> of active flows.
+ *
+ * The graph is loaded on first use.  Services which add, remove or restore
+ * flows (or change their data types) report the affected flow ids via
+ * <code>flowsChanged</code>, those flows are re-read and patched into a new
+ * graph before the next query.  The graph is periodically reloaded to pick
+ * up changes made by other Waltz instances or by direct database loads.
+ */
+@Service
+public class LogicalFlowLineageService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LogicalFlowLineageService.class);
+
+    private final LogicalFlowDao logicalFlowDao;
+    private final LogicalFlowGraphDao logicalFlowGraphDao;
+    private final EntityHierarchyDao entityHierarchyDao;
+
+    private final Set<Long> changedFlowIds = ConcurrentHashMap.newKeySet();
+    private volatile LogicalFlowGraph graph;
+
+
+    @Autowired
+    public LogicalFlowLineageService(LogicalFlowDao logicalFlowDao,
+                                     LogicalFlowGraphDao logicalFlowGraphDao,
+                                     EntityHierarchyDao entityHierarchyDao) {
+        checkNotNull(logicalFlowDao, "logicalFlowDao cannot be null");
+        checkNotNull(logicalFlowGraphDao, "logicalFlowGraphDao cannot be null");
+        checkNotNull(entityHierarchyDao, "entityHierarchyDao cannot be null");
+
+        this.logicalFlowDao = logicalFlowDao;
+        this.logicalFlowGraphDao = logicalFlowGraphDao;
+        this.entityHierarchyDao = entityHierarchyDao;
+    }
+
+
+    /**
+     * @param query  starting points, direction and filters
+     * @return  active flows reached from the starting points, nearest first
+     */
+    public List<LogicalFlow> findLineage(FlowLineageQuery query) {
+        checkNotNull(query, "query cannot be null");
+
+        if (query.entityReferences().isEmpty()) {
+            return emptyList();
+        }
+
+        long[] flowIds = getGraph().findLineageFlowIds(
+                query.entityReferences(),
+                query.direction() == FlowLineageDirection.UPSTREAM,
+                query.maxDepth().orElse(LogicalFlowGraph.UNLIMITED_DEPTH),
+                expandDataTypeIds(query.dataTypeIds()));
+
+        return findFlowsInOrder(flowIds);
+    }
+
+
+    /**
+     * @param query  source, target and filters
+     * @return  active flows forming a shortest path from source to target (in order), empty if there is no such path
+     */
+    public List<LogicalFlow> findShortestPath(FlowPathQuery query) {
+        checkNotNull(query, "query cannot be null");
+
+        long[] flowIds = getGraph().findShortestPathFlowIds(
+                query.source(),
+                query.target(),
+                query.maxDepth().orElse(LogicalFlowGraph.UNLIMITED_DEPTH),
+                expandDataTypeIds(query.dataTypeIds()));
+
+        return findFlowsInOrder(flowIds);
+    }
+
+
+    public boolean isReachable(FlowPathQuery query) {
+        checkNotNull(query, "query cannot be null");
+
+        return getGraph().isReachable(
+                query.source(),
+                query.target(),
+                query.maxDepth().orElse(LogicalFlowGraph.UNLIMITED_DEPTH),
+                expandDataTypeIds(query.dataTypeIds()));
+    }
+
+
+    // --- maintenance ---
+
+    /**
+     * Records flows which have been added, removed, restored or had their
+     * data types changed.  The changes must already be persisted.
+     *
+     * @param flowIds  ids of the affected flows
+     */
+    public void flowsChanged(Collection<Long> flowIds) {
+        checkNotNull(flowIds, "flowIds cannot be null");
+        changedFlowIds.addAll(flowIds);
+    }
+
+
+    /**
+     * Discards the graph, it will be reloaded on next use.  Used after bulk
+     * operations where the affected flows are not known.
+     */
+    public synchronized void invalidate() {
+        graph = null;
+    }
+
+
+    @Scheduled(fixedRate = 600_000)
+    public void reload() {
+        if (graph == null) {
+            // never used (or already invalidated), will be loaded (in full) on next use
+            changedFlowIds.clear();
+            return;
+        }
+        try {
+            loadGraph();
+        } catch (Exception e) {
+            LOG.warn("Failed to reload logical flow graph, will retain the current graph", e);
+        }
+    }
+
+
+    // --- helpers ---
+
+    private LogicalFlowGraph getGraph() {
+        LogicalFlowGraph current = graph;
+        return current == null || ! changedFlowIds.isEmpty()
+                ? refreshGraph()
+                : current;
+    }
+
+
+    private synchronized LogicalFlowGraph refreshGraph() {
+        if (graph == null) {
+            return loadGraph();
+        }
+
+        Set<Long> changes = new HashSet<>(changedFlowIds);
+        if (! changes.isEmpty()) {
+            // removed before reading so changes made whilst we read are applied next time
+            changedFlowIds.removeAll(changes);
+            graph = graph.withChanges(changes, logicalFlowGraphDao.loadActiveByFlowIds(changes));
+        }
+        return graph;
+    }
+
+
+    private synchronized LogicalFlowGraph loadGraph() {
+        changedFlowIds.clear();
+        long start = System.currentTimeMillis();
+        LogicalFlowGraph loaded = logicalFlowGraphDao.loadAllActive().build();
+        LOG.info("Loaded {} in {}ms", loaded, System.currentTimeMillis() - start);
+        graph = loaded;
+        return loaded;
+    }
+
+
+    /**
+     * Flows are decorated with specific data types so a filter for a data
+     * type also includes its descendants.  If the data type hierarchy is
+     * not resident the ids are used as given.
+     */
+    private long[] expandDataTypeIds(Set<Long> dataTypeIds) {
+        Optional<EntityHierarchyIndex> hierarchy = entityHierarchyDao.findIndex(EntityKind.DATA_TYPE);
+
+        return dataTypeIds
+                .stream()
+                .flatMapToLong(id -> hierarchy
+                        .map(h -> h.contains(id)
+                                ? LongStream.of(h.findDescendantIds(id))
+                                : LongStream.of(id))
+                        .orElse(LongStream.of(id)))
+                .sorted()
+                .distinct()
+                .toArray();
+    }
+
+
+    private List<LogicalFlow> findFlowsInOrder(long[] flowIds) {
+        if (flowIds.length == 0) {
+            return emptyList();
+        }
+
+        List<Long> ids = LongStream.of(flowIds).boxed().collect(toList());
+        Map<Long, LogicalFlow> flowsById = new HashMap<>(ids.size());
+        partition(ids, MAX_INLINED_IDS)
+                .forEach(chunk -> flowsById.putAll(indexBy(
+                        f -> f.id().orElse(null),
+                        logicalFlowDao.findActiveByFlowIds(chunk))));
+
+        return ids
+                .stream()
+                .map(flowsById::get)
+                .filter(Objects::nonNull)
+                .collect(toList());
+    }
+
+}
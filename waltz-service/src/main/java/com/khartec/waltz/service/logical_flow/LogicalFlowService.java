@@ -47,6 +47,7 @@ import org.springframework.stereotype.Service;
 import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.Future;
@@ -76,10 +77,11 @@ public class LogicalFlowService {
     private final LogicalFlowDao logicalFlowDao;
     private final LogicalFlowStatsDao logicalFlowStatsDao;
     private final LogicalFlowDecoratorDao logicalFlowDecoratorDao;
+    private final LogicalFlowLineageService logicalFlowLineageService;
 
-    private final ApplicationIdSelectorFactory appIdSelectorFactory = new ApplicationIdSelectorFactory();
+    private final ApplicationIdSelectorFactory appIdSelectorFactory;
     private final LogicalFlowIdSelectorFactory logicalFlowIdSelectorFactory = new LogicalFlowIdSelectorFactory();
-    private final DataTypeIdSelectorFactory dataTypeIdSelectorFactory = new DataTypeIdSelectorFactory();
+    private final DataTypeIdSelectorFactory dataTypeIdSelectorFactory;
 
 
     @Autowired
@@ -89,7 +91,10 @@ public class LogicalFlowService {
                               DBExecutorPoolInterface dbExecutorPool,
                               LogicalFlowDao logicalFlowDao,
                               LogicalFlowStatsDao logicalFlowStatsDao,
-                              LogicalFlowDecoratorDao logicalFlowDecoratorDao) {
+                              LogicalFlowDecoratorDao logicalFlowDecoratorDao,
+                              LogicalFlowLineageService logicalFlowLineageService,
+                              ApplicationIdSelectorFactory appIdSelectorFactory,
+                              DataTypeIdSelectorFactory dataTypeIdSelectorFactory) {
         checkNotNull(changeLogService, "changeLogService cannot be null");
         checkNotNull(dbExecutorPool, "dbExecutorPool cannot be null");
         checkNotNull(dataTypeService, "dataTypeService cannot be null");
@@ -97,6 +102,9 @@ public class LogicalFlowService {
         checkNotNull(logicalFlowDao, "logicalFlowDao must not be null");
         checkNotNull(logicalFlowDecoratorDao, "logicalFlowDataTypeDecoratorDao cannot be null");
         checkNotNull(logicalFlowStatsDao, "logicalFlowStatsDao cannot be null");
+        checkNotNull(logicalFlowLineageService, "logicalFlowLineageService cannot be null");
+        checkNotNull(appIdSelectorFactory, "appIdSelectorFactory cannot be null");
+        checkNotNull(dataTypeIdSelectorFactory, "dataTypeIdSelectorFactory cannot be null");
 
         this.changeLogService = changeLogService;
         this.dataTypeService = dataTypeService;
@@ -105,6 +113,9 @@ public class LogicalFlowService {
         this.logicalFlowDao = logicalFlowDao;
         this.logicalFlowStatsDao = logicalFlowStatsDao;
         this.logicalFlowDecoratorDao = logicalFlowDecoratorDao;
+        this.logicalFlowLineageService = logicalFlowLineageService;
+        this.appIdSelectorFactory = appIdSelectorFactory;
+        this.dataTypeIdSelectorFactory = dataTypeIdSelectorFactory;
     }
 
 
@@ -173,6 +184,7 @@ public class LogicalFlowService {
 
         LogicalFlow logicalFlow = logicalFlowDao.addFlow(flowToAdd);
         attemptToAddUnknownDecoration(logicalFlow, username);
+        logicalFlow.id().ifPresent(id -> logicalFlowLineageService.flowsChanged(newArrayList(id)));
 
         changeLogService.writeChangeLogEntries(logicalFlow, username, "Added", Operation.ADD);
 
@@ -219,7 +231,13 @@ public class LogicalFlowService {
                         .build())
                 .collect(toList());
 
-        return logicalFlowDao.addFlows(flowsToAdd, username);
+        List<LogicalFlow> addedFlows = logicalFlowDao.addFlows(flowsToAdd, username);
+        logicalFlowLineageService.flowsChanged(addedFlows
+                .stream()
+                .map(f -> f.id().orElse(null))
+                .filter(Objects::nonNull)
+                .collect(toList()));
+        return addedFlows;
     }
 
 
@@ -247,6 +265,7 @@ public class LogicalFlowService {
         LogicalFlow logicalFlow = logicalFlowDao.getByFlowId(flowId);
 
         int deleted = logicalFlowDao.removeFlow(flowId, username);
+        logicalFlowLineageService.flowsChanged(newArrayList(flowId));
 
         Set<EntityReference> affectedEntityRefs = SetUtilities.fromArray(logicalFlow.source(), logicalFlow.target());
 
@@ -310,6 +329,7 @@ public class LogicalFlowService {
 
     public boolean restoreFlow(long logicalFlowId, String username) {
         boolean result = logicalFlowDao.restoreFlow(logicalFlowId, username);
+        logicalFlowLineageService.flowsChanged(newArrayList(logicalFlowId));
         if (result) {
             changeLogService.writeChangeLogEntries(mkRef(LOGICAL_DATA_FLOW, logicalFlowId), username, "Restored", Operation.ADD);
         }
@@ -318,12 +338,16 @@ public class LogicalFlowService {
 
 
     public Integer cleanupOrphans() {
-        return logicalFlowDao.cleanupOrphans();
+        Integer removed = logicalFlowDao.cleanupOrphans();
+        logicalFlowLineageService.invalidate();
+        return removed;
     }
 
 
     public int cleanupSelfReferencingFlows() {
-        return logicalFlowDao.cleanupSelfReferencingFlows();
+        int removed = logicalFlowDao.cleanupSelfReferencingFlows();
+        logicalFlowLineageService.invalidate();
+        return removed;
     }
 
 
@@ -332,7 +356,12 @@ public class LogicalFlowService {
             return emptyList();
         }
 
-        return logicalFlowDao.findUpstreamFlowsForEntityReferences(references);
+        return logicalFlowLineageService.findLineage(ImmutableFlowLineageQuery
+                .builder()
+                .entityReferences(references)
+                .direction(FlowLineageDirection.UPSTREAM)
+                .maxDepth(1)
+                .build());
     }
 
 
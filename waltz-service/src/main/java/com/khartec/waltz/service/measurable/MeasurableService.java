@@ -29,6 +29,7 @@ import com.khartec.waltz.model.changelog.ImmutableChangeLog;
 import com.khartec.waltz.model.entity_search.EntitySearchOptions;
 import com.khartec.waltz.model.measurable.Measurable;
 import com.khartec.waltz.service.changelog.ChangeLogService;
+import com.khartec.waltz.service.entity_hierarchy.EntityHierarchyService;
 import org.jooq.Record1;
 import org.jooq.Select;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -47,26 +48,33 @@ import static java.util.Optional.ofNullable;
 public class MeasurableService {
 
     private final MeasurableDao measurableDao;
-    private final MeasurableIdSelectorFactory measurableIdSelectorFactory = new MeasurableIdSelectorFactory();
+    private final MeasurableIdSelectorFactory measurableIdSelectorFactory;
     private final MeasurableSearchDao measurableSearchDao;
     private final ChangeLogService changeLogService;
     private final EntityReferenceNameResolver nameResolver;
+    private final EntityHierarchyService entityHierarchyService;
 
 
     @Autowired
     public MeasurableService(MeasurableDao measurableDao,
                              MeasurableSearchDao measurableSearchDao,
                              EntityReferenceNameResolver nameResolver,
-                             ChangeLogService changeLogService) {
+                             ChangeLogService changeLogService,
+                             EntityHierarchyService entityHierarchyService,
+                             MeasurableIdSelectorFactory measurableIdSelectorFactory) {
         checkNotNull(measurableDao, "measurableDao cannot be null");
         checkNotNull(measurableSearchDao, "measurableSearchDao cannot be null");
         checkNotNull(nameResolver, "nameResolver cannot be null");
         checkNotNull(changeLogService, "changeLogService cannot be null");
+        checkNotNull(entityHierarchyService, "entityHierarchyService cannot be null");
+        checkNotNull(measurableIdSelectorFactory, "measurableIdSelectorFactory cannot be null");
 
         this.measurableDao = measurableDao;
         this.measurableSearchDao = measurableSearchDao;
         this.nameResolver = nameResolver;
         this.changeLogService = changeLogService;
+        this.entityHierarchyService = entityHierarchyService;
+        this.measurableIdSelectorFactory = measurableIdSelectorFactory;
     }
 
 
@@ -131,25 +139,36 @@ public class MeasurableService {
 
     public boolean updateName(long id, String newValue, String userId) {
         logUpdate(id, "name", newValue, m -> ofNullable(m.name()), userId);
-        return measurableDao.updateName(id, newValue, userId);
+        boolean updated = measurableDao.updateName(id, newValue, userId);
+        measurableSearchDao.reindex(id);
+        nameResolver.invalidate(mkRef(EntityKind.MEASURABLE, id));
+        return updated;
     }
 
 
     public boolean updateDescription(long id, String newValue, String userId) {
         logUpdate(id, "description", newValue, m -> ofNullable(m.description()), userId);
-        return measurableDao.updateDescription(id, newValue, userId);
+        boolean updated = measurableDao.updateDescription(id, newValue, userId);
+        measurableSearchDao.reindex(id);
+        return updated;
     }
 
 
     public boolean updateExternalId(long id, String newValue, String userId) {
         logUpdate(id, "externalId", newValue, ExternalIdProvider::externalId, userId);
-        return measurableDao.updateExternalId(id, newValue, userId);
+        boolean updated = measurableDao.updateExternalId(id, newValue, userId);
+        measurableSearchDao.reindex(id);
+        return updated;
     }
 
 
     public boolean create(Measurable measurable, String userId) {
         Long measurableId = measurableDao.create(measurable);
         writeAuditMessage(measurableId, userId, String.format("created new measurable %s", measurable.name()));
+        entityHierarchyService.addNode(
+                mkRef(EntityKind.MEASURABLE, measurableId),
+                measurable.parentId().orElse(null));
+        measurableSearchDao.reindex(measurableId);
         return measurableId > 1;
     }
 
@@ -157,15 +176,30 @@ public class MeasurableService {
     public int deleteByIdSelector(IdSelectionOptions selectionOptions) {
         Select<Record1<Long>> selector = measurableIdSelectorFactory
                 .apply(selectionOptions);
-        return measurableDao
+        int deletedCount = measurableDao
                 .deleteByIdSelector(selector);
+        measurableSearchDao.invalidateIndex();
+        return deletedCount;
+    }
+
+
+    /**
+     * Discards the measurable search index and any cached measurable names,
+     * they are reloaded on next use.  For use after bulk changes, e.g. a
+     * batch of taxonomy changes, whose incremental updates may not reflect
+     * what was finally committed.
+     */
+    public void invalidateCaches() {
+        measurableSearchDao.invalidateIndex();
+        nameResolver.invalidate(EntityKind.MEASURABLE);
     }
 
 
     /**
      * Changes the parentId of the given measurable to the new parent specified
      * by destinationId.  If destination id is null the measurable will be a new
-     * root node in the tree.
+     * root node in the tree.  The measurable hierarchy is patched
+     * incrementally to reflect the move.
      *
      * @param measurableId  measurable id of item to move
      * @param destinationId new parent id (or null if root)
@@ -183,7 +217,15 @@ public class MeasurableService {
                                 ? "<root of tree>"
                                 : resolveName(destinationId)));
 
-        return measurableDao.updateParentId(measurableId, destinationId, userId);
+        boolean updated = measurableDao.updateParentId(measurableId, destinationId, userId);
+
+        if (updated) {
+            entityHierarchyService.moveNode(
+                    mkRef(EntityKind.MEASURABLE, measurableId),
+                    destinationId);
+        }
+
+        return updated;
     }
 
 
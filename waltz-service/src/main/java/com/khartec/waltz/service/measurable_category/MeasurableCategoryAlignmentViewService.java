@@ -33,12 +33,14 @@ import java.util.Set;
 public class MeasurableCategoryAlignmentViewService {
 
     private final MeasurableCategoryAlignmentViewDao measurableCategoryAlignmentViewDao;
-    ApplicationIdSelectorFactory factory = new ApplicationIdSelectorFactory();
+    private final ApplicationIdSelectorFactory factory;
 
 
     @Autowired
-    public MeasurableCategoryAlignmentViewService(MeasurableCategoryAlignmentViewDao measurableCategoryAlignmentViewDao) {
+    public MeasurableCategoryAlignmentViewService(MeasurableCategoryAlignmentViewDao measurableCategoryAlignmentViewDao,
+                                                  ApplicationIdSelectorFactory factory) {
         this.measurableCategoryAlignmentViewDao = measurableCategoryAlignmentViewDao;
+        this.factory = factory;
     }
 
     public Set<MeasurableCategoryAlignment> findAlignmentsByAppSelector(IdSelectionOptions options) {
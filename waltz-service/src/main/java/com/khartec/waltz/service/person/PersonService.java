@@ -18,6 +18,7 @@
 
 package com.khartec.waltz.service.person;
 
+import com.khartec.waltz.data.EntityReferenceNameResolver;
 import com.khartec.waltz.data.person.PersonDao;
 import com.khartec.waltz.data.person.search.PersonSearchDao;
 import com.khartec.waltz.model.EntityKind;
@@ -43,15 +44,20 @@ public class PersonService {
 
     private final PersonDao personDao;
     private final PersonSearchDao personSearchDao;
+    private final EntityReferenceNameResolver nameResolver;
 
 
     @Autowired
-    public PersonService(PersonDao personDao, PersonSearchDao personSearchDao) {
+    public PersonService(PersonDao personDao,
+                         PersonSearchDao personSearchDao,
+                         EntityReferenceNameResolver nameResolver) {
         checkNotNull(personDao, "personDao must not be null");
         checkNotNull(personSearchDao, "personSearchDao must not be null");
+        checkNotNull(nameResolver, "nameResolver must not be null");
 
         this.personDao = personDao;
         this.personSearchDao = personSearchDao;
+        this.nameResolver = nameResolver;
     }
 
 
@@ -98,7 +104,10 @@ public class PersonService {
 
 
     public int[] bulkSave(List<ImmutablePerson> people) {
-        return personDao.bulkSave(people);
+        int[] result = personDao.bulkSave(people);
+        nameResolver.invalidate(EntityKind.PERSON);
+        personSearchDao.invalidateIndex();
+        return result;
     }
 
 
@@ -0,0 +1,221 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package com.khartec.waltz.service.person_hierarchy;
+
+import java.util.*;
+
+import static com.khartec.waltz.common.Checks.checkNotNull;
+
+
+/**
+ * Compact representation of the PERSON_HIERARCHY closure.
+ *
+ * Employee ids are interned to int indexes and each (manager, employee)
+ * closure row is packed into a single long (manager index in the high
+ * word).  The packed keys are held sorted so membership checks are binary
+ * searches.  The level of a row is the depth of the manager (roots are at
+ * level 1) so it does not need to be stored per row.
+ *
+ * People in a management cycle (and their reportees) are excluded as no
+ * sensible depth can be assigned to them.
+ */
+public class PersonHierarchyClosure {
+
+    private static final int UNKNOWN = 0;
+    private static final int IN_PROGRESS = -1;
+    private static final int CYCLIC = -2;
+
+    private final String[] employeeIds;
+    private final Map<String, Integer> indexByEmployeeId;
+    private final int[] depths;
+    private final long[] keys;
+    private final int cyclicCount;
+
+
+    private PersonHierarchyClosure(String[] employeeIds,
+                                   Map<String, Integer> indexByEmployeeId,
+                                   int[] depths,
+                                   long[] keys,
+                                   int cyclicCount) {
+        this.employeeIds = employeeIds;
+        this.indexByEmployeeId = indexByEmployeeId;
+        this.depths = depths;
+        this.keys = keys;
+        this.cyclicCount = cyclicCount;
+    }
+
+
+    /**
+     * Computes the closure from a map of employee id to manager employee id.
+     * Self-managed people, and people whose manager is unknown, are treated
+     * as roots.
+     *
+     * @param managerByEmployeeId  employee id to manager employee id (value may be null)
+     * @return  computed closure
+     */
+    public static PersonHierarchyClosure build(Map<String, String> managerByEmployeeId) {
+        checkNotNull(managerByEmployeeId, "managerByEmployeeId cannot be null");
+
+        int count = managerByEmployeeId.size();
+        String[] employeeIds = new String[count];
+        Map<String, Integer> indexByEmployeeId = new HashMap<>(count * 2);
+
+        int idx = 0;
+        for (String employeeId : managerByEmployeeId.keySet()) {
+            employeeIds[idx] = employeeId;
+            indexByEmployeeId.put(employeeId, idx);
+            idx++;
+        }
+
+        int[] parents = new int[count];
+        for (int i = 0; i < count; i++) {
+            String managerId = managerByEmployeeId.get(employeeIds[i]);
+            Integer parent = managerId == null || managerId.equals(employeeIds[i])
+                    ? null
+                    : indexByEmployeeId.get(managerId);
+            parents[i] = parent == null ? -1 : parent;
+        }
+
+        int[] depths = calculateDepths(parents);
+
+        int closureSize = 0;
+        int cyclicCount = 0;
+        for (int depth : depths) {
+            if (depth == CYCLIC) {
+                cyclicCount++;
+            } else {
+                closureSize += depth - 1;
+            }
+        }
+
+        long[] keys = new long[closureSize];
+        int offset = 0;
+        for (int i = 0; i < count; i++) {
+            if (depths[i] == CYCLIC) {
+                continue;
+            }
+            for (int p = parents[i]; p != -1; p = parents[p]) {
+                keys[offset++] = mkKey(p, i);
+            }
+        }
+        Arrays.sort(keys);
+
+        return new PersonHierarchyClosure(employeeIds, indexByEmployeeId, depths, keys, cyclicCount);
+    }
+
+
+    private static int[] calculateDepths(int[] parents) {
+        int[] depths = new int[parents.length];
+        int[] path = new int[parents.length];
+
+        for (int i = 0; i < parents.length; i++) {
+            int pathLength = 0;
+            int current = i;
+            while (current != -1 && depths[current] == UNKNOWN) {
+                depths[current] = IN_PROGRESS;
+                path[pathLength++] = current;
+                current = parents[current];
+            }
+
+            int base;
+            if (current == -1) {
+                base = 0;
+            } else if (depths[current] == IN_PROGRESS || depths[current] == CYCLIC) {
+                base = CYCLIC;
+            } else {
+                base = depths[current];
+            }
+
+            for (int p = pathLength - 1; p >= 0; p--) {
+                depths[path[p]] = base == CYCLIC
+                        ? CYCLIC
+                        : ++base;
+            }
+        }
+
+        return depths;
+    }
+
+
+    private static long mkKey(int managerIdx, int employeeIdx) {
+        return ((long) managerIdx << 32) | (employeeIdx & 0xFFFFFFFFL);
+    }
+
+
+    private static int managerIdx(long key) {
+        return (int) (key >>> 32);
+    }
+
+
+    private static int employeeIdx(long key) {
+        return (int) key;
+    }
+
+
+    // --- queries ---
+
+    /**
+     * @return number of (manager, employee) rows in the closure
+     */
+    public int size() {
+        return keys.length;
+    }
+
+
+    /**
+     * @return number of people excluded from the closure as they are part of (or beneath) a management cycle
+     */
+    public int getCyclicCount() {
+        return cyclicCount;
+    }
+
+
+    /**
+     * @param managerId  manager employee id
+     * @param employeeId  employee id
+     * @return position of the row in the closure or -1 if the row is not part of the closure
+     */
+    public int indexOf(String managerId, String employeeId) {
+        Integer managerIdx = indexByEmployeeId.get(managerId);
+        Integer employeeIdx = indexByEmployeeId.get(employeeId);
+
+        if (managerIdx == null || employeeIdx == null) {
+            return -1;
+        }
+
+        int pos = Arrays.binarySearch(keys, mkKey(managerIdx, employeeIdx));
+        return pos < 0 ? -1 : pos;
+    }
+
+
+    public String getManagerId(int pos) {
+        return employeeIds[managerIdx(keys[pos])];
+    }
+
+
+    public String getEmployeeId(int pos) {
+        return employeeIds[employeeIdx(keys[pos])];
+    }
+
+
+    public int getLevel(int pos) {
+        return depths[managerIdx(keys[pos])];
+    }
+
+}
@@ -23,22 +23,25 @@ import com.khartec.waltz.common.hierarchy.FlatNode;
 import com.khartec.waltz.common.hierarchy.Forest;
 import com.khartec.waltz.common.hierarchy.HierarchyUtilities;
 import com.khartec.waltz.common.hierarchy.Node;
+import com.khartec.waltz.data.application.ApplicationIdSetCache;
 import com.khartec.waltz.data.person.PersonDao;
 import com.khartec.waltz.model.person.Person;
 import com.khartec.waltz.schema.tables.records.PersonHierarchyRecord;
-import org.jooq.DSLContext;
-import org.jooq.Record1;
-import org.jooq.SelectConditionStep;
+import org.jooq.*;
 import org.jooq.impl.DSL;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.util.LinkedList;
-import java.util.List;
+import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
+import static com.khartec.waltz.common.StreamUtilities.batchProcessingCollector;
+import static com.khartec.waltz.schema.tables.Person.PERSON;
 import static com.khartec.waltz.schema.tables.PersonHierarchy.PERSON_HIERARCHY;
 import static java.util.stream.Collectors.toList;
 
@@ -47,14 +50,22 @@ public class PersonHierarchyService {
 
     private static final Logger LOG = LoggerFactory.getLogger(PersonHierarchyService.class);
 
+    private static final int BATCH_SIZE = 1000;
+
     private final PersonDao personDao;
     private final DSLContext dsl;
+    private final ApplicationIdSetCache applicationIdSetCache;
+
+    private volatile PersonHierarchyRebuildSummary lastRebuildSummary = null;
 
 
     @Autowired
-    public PersonHierarchyService(PersonDao personDao, DSLContext dsl) {
+    public PersonHierarchyService(PersonDao personDao,
+                                  DSLContext dsl,
+                                  ApplicationIdSetCache applicationIdSetCache) {
         this.personDao = personDao;
         this.dsl = dsl;
+        this.applicationIdSetCache = applicationIdSetCache;
     }
 
 
@@ -66,11 +77,118 @@ public class PersonHierarchyService {
 
         List<PersonHierarchyRecord> records = toHierarchyRecords(forest);
 
-        return dsl.transactionResult(configuration -> {
+        int[] result = dsl.transactionResult(configuration -> {
             DSLContext txDsl = DSL.using(configuration);
             txDsl.deleteFrom(PERSON_HIERARCHY).execute();
             return txDsl.batchStore(records).execute();
         });
+
+        applicationIdSetCache.invalidateAll();
+        return result;
+    }
+
+
+    /**
+     * Rebuilds the PERSON_HIERARCHY table by computing the closure in memory
+     * and comparing it with the existing table contents.  Only the rows which
+     * differ are written, using bounded batches (each in its own transaction)
+     * so the table is never locked in its entirety.
+     *
+     * @param dryRun  if true the differences are calculated but not applied
+     * @return  summary of the differences found (and applied)
+     */
+    public PersonHierarchyRebuildSummary rebuildIncrementally(boolean dryRun) {
+        long start = System.currentTimeMillis();
+        LOG.info("Incrementally rebuilding person hierarchy (dryRun: {})", dryRun);
+
+        PersonHierarchyClosure closure = PersonHierarchyClosure.build(fetchManagersByEmployeeId());
+        if (closure.getCyclicCount() > 0) {
+            LOG.warn("Excluded {} people from the person hierarchy as they are in (or beneath) a management cycle", closure.getCyclicCount());
+        }
+
+        BitSet existingRows = new BitSet(closure.size());
+        List<PersonHierarchyRecord> toDelete = new ArrayList<>();
+        List<PersonHierarchyRecord> toUpdate = new ArrayList<>();
+
+        try (Cursor<PersonHierarchyRecord> cursor = dsl
+                .selectFrom(PERSON_HIERARCHY)
+                .fetchSize(BATCH_SIZE)
+                .fetchLazy()) {
+            for (PersonHierarchyRecord existing : cursor) {
+                int pos = closure.indexOf(existing.getManagerId(), existing.getEmployeeId());
+                if (pos == -1) {
+                    toDelete.add(existing);
+                } else {
+                    existingRows.set(pos);
+                    if (! Objects.equals(existing.getLevel(), closure.getLevel(pos))) {
+                        existing.setLevel(closure.getLevel(pos));
+                        toUpdate.add(existing);
+                    }
+                }
+            }
+        }
+
+        int insertCount = closure.size() - existingRows.cardinality();
+
+        if (! dryRun) {
+            applyInBatches(
+                    toDelete.stream(),
+                    batch -> dsl.batchDelete(batch).execute());
+            applyInBatches(
+                    toUpdate.stream(),
+                    batch -> dsl.batchUpdate(batch).execute());
+            applyInBatches(
+                    IntStream.range(0, closure.size())
+                        .filter(pos -> ! existingRows.get(pos))
+                        .mapToObj(pos -> new PersonHierarchyRecord(
+                                closure.getManagerId(pos),
+                                closure.getEmployeeId(pos),
+                                closure.getLevel(pos))),
+                    batch -> dsl.batchInsert(batch).execute());
+
+            applicationIdSetCache.invalidateAll();
+        }
+
+        PersonHierarchyRebuildSummary summary = ImmutablePersonHierarchyRebuildSummary.builder()
+                .closureSize(closure.size())
+                .insertCount(insertCount)
+                .deleteCount(toDelete.size())
+                .updateCount(toUpdate.size())
+                .excludedCyclicCount(closure.getCyclicCount())
+                .durationMillis(System.currentTimeMillis() - start)
+                .dryRun(dryRun)
+                .build();
+
+        LOG.info("Incremental person hierarchy rebuild complete: {}", summary);
+        lastRebuildSummary = summary;
+        return summary;
+    }
+
+
+    public Optional<PersonHierarchyRebuildSummary> getLastRebuildSummary() {
+        return Optional.ofNullable(lastRebuildSummary);
+    }
+
+
+    private Map<String, String> fetchManagersByEmployeeId() {
+        Map<String, String> managersByEmployeeId = new HashMap<>();
+        dsl.select(PERSON.EMPLOYEE_ID, PERSON.MANAGER_EMPLOYEE_ID)
+                .from(PERSON)
+                .where(PERSON.IS_REMOVED.eq(false))
+                .fetch()
+                .forEach(r -> managersByEmployeeId.putIfAbsent(r.value1(), r.value2()));
+        return managersByEmployeeId;
+    }
+
+
+    private static <T> void applyInBatches(Stream<T> items, Consumer<List<T>> batchProcessor) {
+        items.collect(batchProcessingCollector(
+                BATCH_SIZE,
+                batch -> {
+                    if (! batch.isEmpty()) {
+                        batchProcessor.accept(batch);
+                    }
+                }));
     }
 
 
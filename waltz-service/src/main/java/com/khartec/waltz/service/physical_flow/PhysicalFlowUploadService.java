@@ -27,15 +27,13 @@ import com.khartec.waltz.data.data_type.DataTypeDao;
 import com.khartec.waltz.data.logical_flow.LogicalFlowDao;
 import com.khartec.waltz.data.physical_flow.PhysicalFlowDao;
 import com.khartec.waltz.data.physical_specification.PhysicalSpecificationDao;
-import com.khartec.waltz.model.Criticality;
-import com.khartec.waltz.model.EntityKind;
-import com.khartec.waltz.model.EntityReference;
-import com.khartec.waltz.model.UserTimestamp;
+import com.khartec.waltz.model.*;
 import com.khartec.waltz.model.actor.Actor;
 import com.khartec.waltz.model.application.Application;
+import com.khartec.waltz.model.changelog.ChangeLog;
+import com.khartec.waltz.model.changelog.ImmutableChangeLog;
 import com.khartec.waltz.model.command.CommandOutcome;
 import com.khartec.waltz.model.datatype.DataType;
-import com.khartec.waltz.model.datatype.DataTypeDecorator;
 import com.khartec.waltz.model.enum_value.EnumValueKind;
 import com.khartec.waltz.model.external_identifier.ExternalIdValue;
 import com.khartec.waltz.model.logical_flow.ImmutableLogicalFlow;
@@ -44,30 +42,41 @@ import com.khartec.waltz.model.physical_flow.*;
 import com.khartec.waltz.model.physical_specification.DataFormatKind;
 import com.khartec.waltz.model.physical_specification.ImmutablePhysicalSpecification;
 import com.khartec.waltz.model.physical_specification.PhysicalSpecification;
+import com.khartec.waltz.service.changelog.ChangeLogService;
 import com.khartec.waltz.service.data_type.DataTypeDecoratorService;
 import com.khartec.waltz.service.enum_value.EnumValueAliasService;
+import com.khartec.waltz.service.logical_flow.LogicalFlowLineageService;
+import org.jooq.lambda.tuple.Tuple2;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.Optional;
+import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import static com.khartec.waltz.common.Checks.checkNotNull;
+import static com.khartec.waltz.common.SetUtilities.map;
 import static com.khartec.waltz.common.DateTimeUtilities.nowUtc;
-import static com.khartec.waltz.common.SetUtilities.fromArray;
+import static com.khartec.waltz.common.ListUtilities.partition;
+import static com.khartec.waltz.common.MapUtilities.indexBy;
+import static com.khartec.waltz.common.SetUtilities.asSet;
 import static com.khartec.waltz.common.StringUtilities.isEmpty;
 import static com.khartec.waltz.common.StringUtilities.lower;
+import static com.khartec.waltz.model.EntityReference.mkRef;
+import static com.khartec.waltz.model.EntityReferenceUtilities.safeName;
 import static java.util.function.Function.identity;
-import static java.util.stream.Collectors.toList;
-
+import static java.util.stream.Collectors.*;
+import static org.jooq.lambda.tuple.Tuple.tuple;
 
 @Service
 public class PhysicalFlowUploadService {
 
+    private static final Logger LOG = LoggerFactory.getLogger(PhysicalFlowUploadService.class);
+
+    private static final int BULK_CHUNK_SIZE = 500;
+
     private final ActorDao actorDao;
     private final ApplicationDao applicationDao;
     private final DataTypeDao dataTypeDao;
@@ -76,6 +85,8 @@ public class PhysicalFlowUploadService {
     private final PhysicalFlowDao physicalFlowDao;
     private final PhysicalSpecificationDao physicalSpecificationDao;
     private final EnumValueAliasService enumValueAliasService;
+    private final ChangeLogService changeLogService;
+    private final LogicalFlowLineageService logicalFlowLineageService;
 
     private final Pattern basisOffsetRegex = Pattern.compile("T?(?<offset>[\\+\\-]?\\d+)");
 
@@ -87,7 +98,9 @@ public class PhysicalFlowUploadService {
                                      DataTypeDecoratorService dataTypeDecoratorService,
                                      PhysicalFlowDao physicalFlowDao,
                                      PhysicalSpecificationDao physicalSpecificationDao,
-                                     EnumValueAliasService enumValueAliasService) {
+                                     EnumValueAliasService enumValueAliasService,
+                                     ChangeLogService changeLogService,
+                                     LogicalFlowLineageService logicalFlowLineageService) {
         checkNotNull(actorDao, "actorDao cannot be null");
         checkNotNull(applicationDao, "applicationDao cannot be null");
         checkNotNull(dataTypeDao, "dataTypeDao cannot be null");
@@ -96,6 +109,8 @@ public class PhysicalFlowUploadService {
         checkNotNull(physicalFlowDao, "physicalFlowDao cannot be null");
         checkNotNull(physicalSpecificationDao, "physicalSpecificationDao cannot be null");
         checkNotNull(enumValueAliasService, "enumValueAliasService cannot be null");
+        checkNotNull(changeLogService, "changeLogService cannot be null");
+        checkNotNull(logicalFlowLineageService, "logicalFlowLineageService cannot be null");
         this.actorDao = actorDao;
         this.applicationDao = applicationDao;
         this.dataTypeDao = dataTypeDao;
@@ -104,6 +119,8 @@ public class PhysicalFlowUploadService {
         this.physicalSpecificationDao = physicalSpecificationDao;
         this.enumValueAliasService = enumValueAliasService;
         this.dataTypeDecoratorService = dataTypeDecoratorService;
+        this.changeLogService = changeLogService;
+        this.logicalFlowLineageService = logicalFlowLineageService;
     }
 
 
@@ -136,8 +153,12 @@ public class PhysicalFlowUploadService {
         }
 
         // no parse errors - check for duplicates
+        Map<PhysicalFlowParsed, PhysicalFlow> existingFlows = physicalFlowDao.findByParsedFlows(map(
+                parsedFlows,
+                PhysicalFlowUploadCommandResponse::parsedFlow));
+
         List<PhysicalFlowUploadCommandResponse> responses = parsedFlows.stream()
-                .map(f -> Optional.ofNullable(physicalFlowDao.getByParsedFlow(f.parsedFlow()))
+                .map(f -> Optional.ofNullable(existingFlows.get(f.parsedFlow()))
                     .map(m -> (PhysicalFlowUploadCommandResponse) ImmutablePhysicalFlowUploadCommandResponse
                             .copyOf(f)
                             .withEntityReference(m.entityReference()))
@@ -147,7 +168,19 @@ public class PhysicalFlowUploadService {
         return responses;
     }
 
-    
+
+    /**
+     * Creates any flows (logical and physical), specifications and data type
+     * decorations required by the given commands.  Rather than resolving each
+     * command individually the upload is processed in stages, each of which
+     * resolves what already exists with a handful of bulk queries and then
+     * batch inserts whatever is missing.  Change log entries for everything
+     * created are written in bulk at the end.
+     *
+     * @param username  user performing the upload
+     * @param cmds  upload commands, must validate without errors
+     * @return  responses, referencing the (new or existing) physical flow for each command
+     */
     public List<PhysicalFlowUploadCommandResponse> upload(String username,
                                                           List<PhysicalFlowUploadCommand> cmds) throws Exception {
         checkNotNull(cmds, "cmds cannot be empty");
@@ -163,38 +196,45 @@ public class PhysicalFlowUploadService {
                 .filter(v -> v.outcome() == CommandOutcome.SUCCESS && v.entityReference() == null)
                 .collect(toList());
 
-        // create physical flow with ids from the above two
-        List<PhysicalFlowUploadCommandResponse> created = newFlowCmds.stream()
-                .map(v -> {
-                    if (!(v.outcome() == CommandOutcome.SUCCESS && v.entityReference() == null)) {
-                        return v;
-                    }
-
-                    PhysicalFlowParsed flow = v.parsedFlow();
-                    LogicalFlow logicalFlow = getOrCreateLogicalFlow(flow.source(), flow.target(), flow.dataType(), username);
-                    PhysicalSpecification specification = getOrCreatePhysicalSpec(flow, username);
-
-                    PhysicalFlow newFlow = ImmutablePhysicalFlow.builder()
-                            .logicalFlowId(logicalFlow.id().get())
-                            .specificationId(specification.id().get())
-                            .basisOffset(flow.basisOffset())
-                            .frequency(flow.frequency())
-                            .transport(flow.transport())
-                            .criticality(flow.criticality())
-                            .description(flow.description())
-                            .externalId(Optional.ofNullable(flow.externalId()))
-                            .lastUpdatedBy(username)
-                            .lastUpdatedAt(nowUtc())
-                            .build();
-
-                    long id = getOrCreatePhysicalFlow(newFlow);
-
-                    return ImmutablePhysicalFlowUploadCommandResponse.copyOf(v)
-                            .withEntityReference(EntityReference.mkRef(EntityKind.PHYSICAL_FLOW, id));
-                })
+        if (newFlowCmds.isEmpty()) {
+            return newFlowCmds;
+        }
+
+        LOG.info("Uploading {} new physical flows (of {} commands) for user: {}", newFlowCmds.size(), cmds.size(), username);
+
+        List<PhysicalFlowParsed> parsedFlows = newFlowCmds
+                .stream()
+                .map(PhysicalFlowUploadCommandResponse::parsedFlow)
                 .collect(toList());
 
-        return created;
+        List<ChangeLog> changeLogs = new ArrayList<>();
+
+        Map<Tuple2<EntityReference, EntityReference>, LogicalFlow> logicalFlowsByEndpoints = getOrCreateLogicalFlows(
+                parsedFlows,
+                username,
+                changeLogs);
+
+        Map<PhysicalFlowParsed, PhysicalSpecification> specsByParsedFlow = getOrCreatePhysicalSpecs(
+                parsedFlows,
+                username,
+                changeLogs);
+
+        Map<PhysicalFlowParsed, Long> physicalFlowIdsByParsedFlow = getOrCreatePhysicalFlows(
+                parsedFlows,
+                logicalFlowsByEndpoints,
+                specsByParsedFlow,
+                username,
+                changeLogs);
+
+        changeLogService.write(changeLogs);
+        LOG.info("Upload complete, wrote {} change log entries", changeLogs.size());
+
+        return newFlowCmds
+                .stream()
+                .map(v -> (PhysicalFlowUploadCommandResponse) ImmutablePhysicalFlowUploadCommandResponse
+                        .copyOf(v)
+                        .withEntityReference(mkRef(EntityKind.PHYSICAL_FLOW, physicalFlowIdsByParsedFlow.get(v.parsedFlow()))))
+                .collect(toList());
     }
 
 
@@ -364,91 +404,343 @@ public class PhysicalFlowUploadService {
     }
 
 
-    private LogicalFlow getOrCreateLogicalFlow(EntityReference source,
-                                               EntityReference target,
-                                               EntityReference dataType,
-                                               String username) {
+    private Map<Tuple2<EntityReference, EntityReference>, LogicalFlow> getOrCreateLogicalFlows(List<PhysicalFlowParsed> parsedFlows,
+                                                                                             String username,
+                                                                                             List<ChangeLog> changeLogs) {
+        long st = System.currentTimeMillis();
+
+        Map<Tuple2<EntityReference, EntityReference>, PhysicalFlowParsed> parsedFlowsByEndpoints = new HashMap<>();
+        parsedFlows.forEach(f -> parsedFlowsByEndpoints.putIfAbsent(mkEndpointsKey(f.source(), f.target()), f));
+
+        Map<Tuple2<EntityReference, EntityReference>, LogicalFlow> logicalFlowsByEndpoints = new HashMap<>();
+        partition(parsedFlowsByEndpoints.keySet(), BULK_CHUNK_SIZE)
+                .forEach(endpoints -> logicalFlowDao
+                        .findBySourcesAndTargets(endpoints)
+                        .forEach(lf -> logicalFlowsByEndpoints.put(mkEndpointsKey(lf.source(), lf.target()), lf)));
+
+        LocalDateTime now = nowUtc();
+        List<LogicalFlow> flowsToAdd = parsedFlowsByEndpoints
+                .entrySet()
+                .stream()
+                .filter(e -> ! logicalFlowsByEndpoints.containsKey(e.getKey()))
+                .map(e -> (LogicalFlow) ImmutableLogicalFlow.builder()
+                        .source(e.getValue().source())
+                        .target(e.getValue().target())
+                        .lastUpdatedBy(username)
+                        .lastUpdatedAt(now)
+                        .provenance("waltz")
+                        .created(UserTimestamp.mkForUser(username, now))
+                        .build())
+                .collect(toList());
 
-        LogicalFlow flow = logicalFlowDao.getBySourceAndTarget(source, target);
+        List<Long> addedFlowIds = new ArrayList<>();
+        partition(flowsToAdd, BULK_CHUNK_SIZE)
+                .forEach(flows -> logicalFlowDao
+                        .addFlows(flows, username)
+                        .forEach(lf -> {
+                            logicalFlowsByEndpoints.put(mkEndpointsKey(lf.source(), lf.target()), lf);
+                            lf.id().ifPresent(addedFlowIds::add);
+                            changeLogs.addAll(mkLogicalFlowChangeLogs(lf, username));
+                        }));
+
+        // every new flow is given at least its parsed data type below, which
+        // also recalculates data type usage for the flow endpoints
+        logicalFlowLineageService.flowsChanged(addedFlowIds);
+
+        Map<Long, Set<Long>> requiredDataTypeIdsByFlowId = new HashMap<>();
+        parsedFlows.forEach(f -> requiredDataTypeIdsByFlowId
+                .computeIfAbsent(
+                        logicalFlowsByEndpoints.get(mkEndpointsKey(f.source(), f.target())).id().get(),
+                        k -> new HashSet<>())
+                .add(f.dataType().id()));
+
+        Map<Long, Set<Long>> missingDataTypeIdsByFlowId = findMissingDataTypes(
+                EntityKind.LOGICAL_DATA_FLOW,
+                requiredDataTypeIdsByFlowId);
+
+        dataTypeDecoratorService.addDecoratorsBatch(username, EntityKind.LOGICAL_DATA_FLOW, missingDataTypeIdsByFlowId);
+
+        LOG.info(
+                "Resolved {} logical flows ({} created, {} decorated) in {}ms",
+                parsedFlowsByEndpoints.size(),
+                flowsToAdd.size(),
+                missingDataTypeIdsByFlowId.size(),
+                System.currentTimeMillis() - st);
+
+        return logicalFlowsByEndpoints;
+    }
 
-        if (flow == null) {
-            LocalDateTime now = nowUtc();
 
-            LogicalFlow flowToAdd = ImmutableLogicalFlow.builder()
-                    .source(source)
-                    .target(target)
-                    .lastUpdatedBy(username)
-                    .lastUpdatedAt(now)
-                    .provenance("waltz")
-                    .created(UserTimestamp.mkForUser(username, now))
-                    .build();
+    private Map<PhysicalFlowParsed, PhysicalSpecification> getOrCreatePhysicalSpecs(List<PhysicalFlowParsed> parsedFlows,
+                                                                                    String username,
+                                                                                    List<ChangeLog> changeLogs) {
+        long st = System.currentTimeMillis();
 
-            flow = logicalFlowDao.addFlow(flowToAdd);
-        }
+        Map<PhysicalFlowParsed, PhysicalSpecification> specsByParsedFlow = new HashMap<>(physicalSpecificationDao.findByParsedFlows(parsedFlows));
 
+        List<PhysicalFlowParsed> flowsWithoutSpecs = parsedFlows
+                .stream()
+                .filter(f -> ! specsByParsedFlow.containsKey(f))
+                .collect(toList());
 
-        EntityReference logicalFlowEntityRef = EntityReference.mkRef(EntityKind.LOGICAL_DATA_FLOW, flow.id().get());
-        DataTypeDecorator existingDecorator = dataTypeDecoratorService.getByEntityRefAndDataTypeId(
-                logicalFlowEntityRef,
-                dataType.id());
+        // several flows may share a new specification, only create it once
+        Map<List<Object>, PhysicalFlowParsed> flowsBySpecKey = new HashMap<>();
+        flowsWithoutSpecs.forEach(f -> flowsBySpecKey.putIfAbsent(mkSpecKey(f), f));
+
+        LocalDateTime now = nowUtc();
+        List<PhysicalSpecification> specsToAdd = flowsBySpecKey
+                .values()
+                .stream()
+                .map(f -> (PhysicalSpecification) ImmutablePhysicalSpecification.builder()
+                        .owningEntity(f.owner())
+                        .format(f.format())
+                        .name(f.name())
+                        .externalId(Optional.ofNullable(f.specExternalId()).orElse(""))
+                        .description(Optional.ofNullable(f.specDescription()).orElse(""))
+                        .lastUpdatedBy(username)
+                        .lastUpdatedAt(now)
+                        .provenance("waltz")
+                        .created(UserTimestamp.mkForUser(username, now))
+                        .build())
+                .collect(toList());
 
-        if(existingDecorator == null) {
-            dataTypeDecoratorService
-                    .addDecorators(username, logicalFlowEntityRef, fromArray(dataType.id()));
+        Set<Long> createdSpecIds = new HashSet<>();
+        if (! specsToAdd.isEmpty()) {
+            physicalSpecificationDao.createAll(specsToAdd);
+
+            Map<PhysicalFlowParsed, PhysicalSpecification> createdSpecs = physicalSpecificationDao.findByParsedFlows(flowsWithoutSpecs);
+            specsByParsedFlow.putAll(createdSpecs);
+
+            createdSpecs
+                    .values()
+                    .stream()
+                    .filter(spec -> createdSpecIds.add(spec.id().get()))
+                    .forEach(spec -> changeLogs.add(ImmutableChangeLog.builder()
+                            .parentReference(spec.owningEntity())
+                            .message(String.format("Specification: %s created via physical flow upload", spec.name()))
+                            .severity(Severity.INFORMATION)
+                            .userId(username)
+                            .childKind(EntityKind.PHYSICAL_SPECIFICATION)
+                            .operation(Operation.ADD)
+                            .build()));
         }
-        return flow;
+
+        Map<Long, Set<Long>> requiredDataTypeIdsBySpecId = new HashMap<>();
+        parsedFlows.forEach(f -> requiredDataTypeIdsBySpecId
+                .computeIfAbsent(specsByParsedFlow.get(f).id().get(), k -> new HashSet<>())
+                .add(f.dataType().id()));
+
+        Map<Long, Set<Long>> missingDataTypeIdsBySpecId = findMissingDataTypes(
+                EntityKind.PHYSICAL_SPECIFICATION,
+                requiredDataTypeIdsBySpecId);
+
+        Map<Boolean, Map<Long, Set<Long>>> missingDataTypesByIsNewSpec = missingDataTypeIdsBySpecId
+                .entrySet()
+                .stream()
+                .collect(partitioningBy(
+                        e -> createdSpecIds.contains(e.getKey()),
+                        toMap(Map.Entry::getKey, Map.Entry::getValue)));
+
+        // new specs have no physical flows yet so there is nothing to propagate to the logical flows
+        dataTypeDecoratorService.addDecoratorsBatch(
+                username,
+                EntityKind.PHYSICAL_SPECIFICATION,
+                missingDataTypesByIsNewSpec.get(true));
+
+        missingDataTypesByIsNewSpec
+                .get(false)
+                .forEach((specId, dataTypeIds) -> dataTypeDecoratorService.addDecorators(
+                        username,
+                        mkRef(EntityKind.PHYSICAL_SPECIFICATION, specId),
+                        dataTypeIds));
+
+        LOG.info(
+                "Resolved {} specifications ({} created, {} decorated) in {}ms",
+                requiredDataTypeIdsBySpecId.size(),
+                createdSpecIds.size(),
+                missingDataTypeIdsBySpecId.size(),
+                System.currentTimeMillis() - st);
+
+        return specsByParsedFlow;
     }
 
 
-    private PhysicalSpecification getOrCreatePhysicalSpec(PhysicalFlowParsed flow,
-                                                          String username) {
-        EntityReference owner = flow.owner();
-        DataFormatKind format = flow.format();
-        String name = flow.name();
-
-
-        // check database
-        PhysicalSpecification spec = physicalSpecificationDao.getByParsedFlow(flow);
-        if (spec == null) {
-
-            // create
-            LocalDateTime now = nowUtc();
-            PhysicalSpecification specToAdd = ImmutablePhysicalSpecification.builder()
-                    .owningEntity(owner)
-                    .format(format)
-                    .name(name)
-                    .externalId(Optional.ofNullable(flow.specExternalId()).orElse(""))
-                    .description(Optional.ofNullable(flow.specDescription()).orElse(""))
-                    .lastUpdatedBy(username)
-                    .lastUpdatedAt(now)
-                    .provenance("waltz")
-                    .created(UserTimestamp.mkForUser(username, now))
-                    .build();
-
-            Long id = physicalSpecificationDao.create(specToAdd);
-            spec = ImmutablePhysicalSpecification
-                    .copyOf(specToAdd)
-                    .withId(id);
+    private Map<PhysicalFlowParsed, Long> getOrCreatePhysicalFlows(List<PhysicalFlowParsed> parsedFlows,
+                                                                   Map<Tuple2<EntityReference, EntityReference>, LogicalFlow> logicalFlowsByEndpoints,
+                                                                   Map<PhysicalFlowParsed, PhysicalSpecification> specsByParsedFlow,
+                                                                   String username,
+                                                                   List<ChangeLog> changeLogs) {
+        long st = System.currentTimeMillis();
+
+        LocalDateTime now = nowUtc();
+        Map<PhysicalFlowParsed, PhysicalFlow> flowsByParsedFlow = new HashMap<>();
+        parsedFlows.forEach(f -> flowsByParsedFlow.put(f, ImmutablePhysicalFlow.builder()
+                .logicalFlowId(logicalFlowsByEndpoints.get(mkEndpointsKey(f.source(), f.target())).id().get())
+                .specificationId(specsByParsedFlow.get(f).id().get())
+                .basisOffset(f.basisOffset())
+                .frequency(f.frequency())
+                .transport(f.transport())
+                .criticality(f.criticality())
+                .description(f.description())
+                .externalId(Optional.ofNullable(f.externalId()))
+                .lastUpdatedBy(username)
+                .lastUpdatedAt(now)
+                .build()));
+
+        Set<Long> logicalFlowIds = map(flowsByParsedFlow.values(), PhysicalFlow::logicalFlowId);
+
+        Map<List<Object>, Long> existingIdsByKey = new HashMap<>();
+        physicalFlowDao
+                .findAllByLogicalFlowIds(logicalFlowIds)
+                .forEach(pf -> existingIdsByKey.putIfAbsent(mkPhysicalFlowKey(pf), pf.id().get()));
+
+        // several commands may describe the same physical flow, only create it once
+        Map<List<Object>, PhysicalFlow> flowsToAddByKey = new HashMap<>();
+        flowsByParsedFlow
+                .values()
+                .stream()
+                .filter(pf -> ! existingIdsByKey.containsKey(mkPhysicalFlowKey(pf)))
+                .forEach(pf -> flowsToAddByKey.putIfAbsent(mkPhysicalFlowKey(pf), pf));
+
+        if (! flowsToAddByKey.isEmpty()) {
+            physicalFlowDao.createAll(flowsToAddByKey.values());
+
+            Set<Long> affectedLogicalFlowIds = map(flowsToAddByKey.values(), PhysicalFlow::logicalFlowId);
+            Map<Long, LogicalFlow> logicalFlowsById = indexBy(
+                    lf -> lf.id().get(),
+                    logicalFlowsByEndpoints.values());
+            Map<Long, PhysicalSpecification> specsById = indexBy(
+                    spec -> spec.id().get(),
+                    identity(),
+                    specsByParsedFlow.values(),
+                    (s1, s2) -> s1);
+
+            physicalFlowDao
+                    .findAllByLogicalFlowIds(affectedLogicalFlowIds)
+                    .stream()
+                    .filter(pf -> flowsToAddByKey.containsKey(mkPhysicalFlowKey(pf))
+                            && ! existingIdsByKey.containsKey(mkPhysicalFlowKey(pf)))
+                    .forEach(pf -> {
+                        existingIdsByKey.put(mkPhysicalFlowKey(pf), pf.id().get());
+                        changeLogs.addAll(mkPhysicalFlowChangeLogs(
+                                pf,
+                                logicalFlowsById.get(pf.logicalFlowId()),
+                                specsById.get(pf.specificationId()),
+                                username));
+                    });
         }
 
-        long dataTypeId = flow.dataType().id();
-        EntityReference specificationEntityRef = EntityReference.mkRef(EntityKind.PHYSICAL_SPECIFICATION, spec.id().get());
+        LOG.info(
+                "Resolved {} physical flows ({} created) in {}ms",
+                parsedFlows.size(),
+                flowsToAddByKey.size(),
+                System.currentTimeMillis() - st);
+
+        return flowsByParsedFlow
+                .entrySet()
+                .stream()
+                .collect(toMap(
+                        Map.Entry::getKey,
+                        e -> existingIdsByKey.get(mkPhysicalFlowKey(e.getValue()))));
+    }
 
-        DataTypeDecorator existingDataType = dataTypeDecoratorService.getByEntityRefAndDataTypeId(specificationEntityRef, dataTypeId);
-        if(existingDataType == null) {
-            dataTypeDecoratorService.addDecorators(username, specificationEntityRef, fromArray(dataTypeId));
-        }
-        return spec;
+
+    private Map<Long, Set<Long>> findMissingDataTypes(EntityKind kind,
+                                                      Map<Long, Set<Long>> requiredDataTypeIdsByEntityId) {
+        Set<Tuple2<Long, Long>> existing = dataTypeDecoratorService
+                .findByEntityIds(kind, requiredDataTypeIdsByEntityId.keySet())
+                .stream()
+                .map(d -> tuple(d.entityReference().id(), d.decoratorEntity().id()))
+                .collect(toSet());
+
+        Map<Long, Set<Long>> missing = new HashMap<>();
+        requiredDataTypeIdsByEntityId.forEach((entityId, dataTypeIds) -> dataTypeIds
+                .stream()
+                .filter(dtId -> ! existing.contains(tuple(entityId, dtId)))
+                .forEach(dtId -> missing.computeIfAbsent(entityId, k -> new HashSet<>()).add(dtId)));
+
+        return missing;
     }
 
 
-    private long getOrCreatePhysicalFlow(PhysicalFlow newFlow) {
-        PhysicalFlow existing = physicalFlowDao.matchPhysicalFlow(newFlow);
-        if (existing != null) {
-            return existing.id().get();
-        } else {
-            return physicalFlowDao.create(newFlow);
-        }
+    private List<ChangeLog> mkLogicalFlowChangeLogs(LogicalFlow logicalFlow, String username) {
+        String message = String.format(
+                "Logical flow from: %s, to: %s: created via physical flow upload",
+                safeName(logicalFlow.source()),
+                safeName(logicalFlow.target()));
+
+        return mkChangeLogs(
+                asSet(logicalFlow.entityReference(), logicalFlow.source(), logicalFlow.target()),
+                message,
+                EntityKind.LOGICAL_DATA_FLOW,
+                username);
+    }
+
+
+    private List<ChangeLog> mkPhysicalFlowChangeLogs(PhysicalFlow physicalFlow,
+                                                     LogicalFlow logicalFlow,
+                                                     PhysicalSpecification specification,
+                                                     String username) {
+        String message = String.format(
+                "Physical flow: %s, from: %s, to: %s: created via physical flow upload",
+                specification.name(),
+                safeName(logicalFlow.source()),
+                safeName(logicalFlow.target()));
+
+        return mkChangeLogs(
+                asSet(physicalFlow.entityReference(), logicalFlow.entityReference(), logicalFlow.source(), logicalFlow.target()),
+                message,
+                EntityKind.PHYSICAL_FLOW,
+                username);
+    }
+
+
+    private List<ChangeLog> mkChangeLogs(Set<EntityReference> parentRefs,
+                                         String message,
+                                         EntityKind childKind,
+                                         String username) {
+        return parentRefs
+                .stream()
+                .map(ref -> (ChangeLog) ImmutableChangeLog.builder()
+                        .parentReference(ref)
+                        .message(message)
+                        .severity(Severity.INFORMATION)
+                        .userId(username)
+                        .childKind(childKind)
+                        .operation(Operation.ADD)
+                        .build())
+                .collect(toList());
+    }
+
+
+    /**
+     * Entity references include names, which are not significant when
+     * matching, so keys are built from kind and id only.
+     */
+    private static Tuple2<EntityReference, EntityReference> mkEndpointsKey(EntityReference source,
+                                                                           EntityReference target) {
+        return tuple(
+                mkRef(source.kind(), source.id()),
+                mkRef(target.kind(), target.id()));
+    }
+
+
+    private static List<Object> mkSpecKey(PhysicalFlowParsed flow) {
+        return Arrays.asList(flow.owner().kind(), flow.owner().id(), flow.format(), flow.name());
+    }
+
+
+    /**
+     * Mirrors the attributes used by <code>PhysicalFlowDao.matchPhysicalFlow</code>
+     */
+    private static List<Object> mkPhysicalFlowKey(PhysicalFlow flow) {
+        return Arrays.asList(
+                flow.logicalFlowId(),
+                flow.specificationId(),
+                flow.basisOffset(),
+                flow.frequency(),
+                flow.transport().value(),
+                flow.criticality());
     }
 
 
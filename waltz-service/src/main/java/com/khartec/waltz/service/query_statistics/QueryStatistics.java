@@ -0,0 +1,124 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package com.khartec.waltz.service.query_statistics;
+
+import com.khartec.waltz.common.LatencyHistogram;
+import com.khartec.waltz.model.query_statistics.ImmutableQueryLatencySummary;
+import com.khartec.waltz.model.query_statistics.QueryLatencySummary;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static com.khartec.waltz.common.Checks.checkTrue;
+
+
+/**
+ * Per query-shape latency histograms, populated by the
+ * <code>SlowQueryListener</code>.
+ *
+ * Queries are grouped by their fingerprint (see <code>SqlFingerprints</code>).
+ * To bound memory, once <code>maxFingerprints</code> distinct shapes have been
+ * seen any new shapes are recorded against a single 'other' entry.
+ */
+public class QueryStatistics {
+
+    public static final String OTHER_FINGERPRINT = "(other)";
+
+    private final Map<String, LatencyHistogram> histogramsByFingerprint = new ConcurrentHashMap<>();
+    private final int maxFingerprints;
+
+
+    public QueryStatistics(int maxFingerprints) {
+        checkTrue(maxFingerprints > 0, "maxFingerprints must be positive");
+        this.maxFingerprints = maxFingerprints;
+    }
+
+
+    public void record(String sql, long elapsedNanos) {
+        String fingerprint = SqlFingerprints.fingerprint(sql);
+        LatencyHistogram histogram = histogramsByFingerprint.get(fingerprint);
+
+        if (histogram == null) {
+            String key = histogramsByFingerprint.size() < maxFingerprints
+                    ? fingerprint
+                    : OTHER_FINGERPRINT;
+            histogram = histogramsByFingerprint.computeIfAbsent(key, k -> new LatencyHistogram());
+        }
+
+        histogram.record(TimeUnit.NANOSECONDS.toMicros(Math.max(0, elapsedNanos)));
+    }
+
+
+    /**
+     * @param limit  maximum number of summaries to return
+     * @return  summaries ordered by total time spent (descending)
+     */
+    public List<QueryLatencySummary> findSummaries(int limit) {
+        return histogramsByFingerprint
+                .entrySet()
+                .stream()
+                .map(e -> mkSummary(e.getKey(), e.getValue()))
+                .filter(s -> s.count() > 0)
+                .sorted(Comparator.comparingDouble(QueryLatencySummary::totalMillis).reversed())
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+
+    public int getFingerprintCount() {
+        return histogramsByFingerprint.size();
+    }
+
+
+    public long getTotalCount() {
+        return histogramsByFingerprint
+                .values()
+                .stream()
+                .mapToLong(LatencyHistogram::getCount)
+                .sum();
+    }
+
+
+    public void reset() {
+        histogramsByFingerprint.clear();
+    }
+
+
+    private static QueryLatencySummary mkSummary(String fingerprint, LatencyHistogram histogram) {
+        return ImmutableQueryLatencySummary
+                .builder()
+                .fingerprint(fingerprint)
+                .count(histogram.getCount())
+                .totalMillis(toMillis(histogram.getTotal()))
+                .p50Millis(toMillis(histogram.getValueAtPercentile(50)))
+                .p99Millis(toMillis(histogram.getValueAtPercentile(99)))
+                .maxMillis(toMillis(histogram.getMax()))
+                .build();
+    }
+
+
+    private static double toMillis(long micros) {
+        return micros / 1000.0;
+    }
+
+}
@@ -0,0 +1,179 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package com.khartec.waltz.service.query_statistics;
+
+
+/**
+ * Reduces sql statements to a 'shape' so executions which differ only in
+ * their literal values can be grouped together.
+ *
+ * <ul>
+ *     <li>string and numeric literals become <code>?</code></li>
+ *     <li>comma separated lists of placeholders (e.g. inlined <code>IN</code> lists) become <code>?+</code></li>
+ *     <li>comma separated lists of placeholder rows (e.g. <code>values (?), (?)</code>) become <code>(?)+</code></li>
+ *     <li>runs of whitespace become a single space</li>
+ * </ul>
+ *
+ * This is a single pass over the sql, it does not attempt to parse it.
+ */
+public class SqlFingerprints {
+
+    public static String fingerprint(String sql) {
+        if (sql == null) {
+            return "";
+        }
+
+        StringBuilder sb = new StringBuilder(Math.min(sql.length(), 1024));
+        int len = sql.length();
+        int i = 0;
+
+        while (i < len) {
+            char c = sql.charAt(i);
+
+            if (c == '\'') {
+                i = skipStringLiteral(sql, i);
+                appendPlaceholder(sb);
+            } else if (Character.isDigit(c) && ! isPartOfIdentifier(sb)) {
+                while (i < len && (Character.isDigit(sql.charAt(i)) || sql.charAt(i) == '.')) {
+                    i++;
+                }
+                appendPlaceholder(sb);
+            } else if (c == '?') {
+                i++;
+                appendPlaceholder(sb);
+            } else if (Character.isWhitespace(c)) {
+                while (i < len && Character.isWhitespace(sql.charAt(i))) {
+                    i++;
+                }
+                if (sb.length() > 0 && i < len) {
+                    sb.append(' ');
+                }
+            } else if (c == ')') {
+                sb.append(c);
+                i++;
+                collapseRowList(sb);
+            } else {
+                sb.append(c);
+                i++;
+            }
+        }
+
+        return sb.toString();
+    }
+
+
+    private static int skipStringLiteral(String sql, int start) {
+        int i = start + 1;
+        while (i < sql.length()) {
+            if (sql.charAt(i) == '\'') {
+                if (i + 1 < sql.length() && sql.charAt(i + 1) == '\'') {
+                    i += 2; // escaped quote
+                } else {
+                    return i + 1;
+                }
+            } else {
+                i++;
+            }
+        }
+        return i;
+    }
+
+
+    private static boolean isPartOfIdentifier(StringBuilder sb) {
+        if (sb.length() == 0) {
+            return false;
+        }
+        char prev = sb.charAt(sb.length() - 1);
+        return Character.isLetterOrDigit(prev) || prev == '_' || prev == '"' || prev == '`' || prev == ']';
+    }
+
+
+    /**
+     * Appends a placeholder, collapsing it into a preceding
+     * placeholder list (<code>?, ?</code>, <code>?+, ?</code>) if present.
+     */
+    private static void appendPlaceholder(StringBuilder sb) {
+        int pos = sb.length() - 1;
+
+        while (pos >= 0 && sb.charAt(pos) == ' ') pos--;
+        if (pos >= 0 && sb.charAt(pos) == ',') {
+            pos--;
+            while (pos >= 0 && sb.charAt(pos) == ' ') pos--;
+            if (pos > 0 && sb.charAt(pos) == '+' && sb.charAt(pos - 1) == '?') {
+                sb.setLength(pos + 1);
+                return;
+            }
+            if (pos >= 0 && sb.charAt(pos) == '?') {
+                sb.setLength(pos);
+                sb.append("?+");
+                return;
+            }
+        }
+
+        sb.append('?');
+    }
+
+
+    /**
+     * Called after a closing parenthesis is appended.  If it completes a row of
+     * placeholders (<code>(?)</code> or <code>(?+)</code>) which follows another
+     * such row, or a list of rows (<code>(?)+</code>), it is folded into it.
+     */
+    private static void collapseRowList(StringBuilder sb) {
+        int rowStart = findPlaceholderRowStart(sb, sb.length() - 1);
+        if (rowStart < 0) {
+            return;
+        }
+
+        int pos = rowStart - 1;
+        while (pos >= 0 && sb.charAt(pos) == ' ') pos--;
+        if (pos < 0 || sb.charAt(pos) != ',') {
+            return;
+        }
+        pos--;
+        while (pos >= 0 && sb.charAt(pos) == ' ') pos--;
+
+        if (pos > 0 && sb.charAt(pos) == '+' && findPlaceholderRowStart(sb, pos - 1) >= 0) {
+            // already a list of rows, drop this one
+            sb.setLength(pos + 1);
+        } else if (findPlaceholderRowStart(sb, pos) >= 0) {
+            sb.setLength(pos + 1);
+            sb.append('+');
+        }
+    }
+
+
+    /**
+     * @return  position of the opening parenthesis if the closing parenthesis at
+     *      <code>end</code> ends a row of placeholders, otherwise -1
+     */
+    private static int findPlaceholderRowStart(StringBuilder sb, int end) {
+        if (end < 0 || sb.charAt(end) != ')') {
+            return -1;
+        }
+        if (end >= 2 && sb.charAt(end - 1) == '?' && sb.charAt(end - 2) == '(') {
+            return end - 2;
+        }
+        if (end >= 3 && sb.charAt(end - 1) == '+' && sb.charAt(end - 2) == '?' && sb.charAt(end - 3) == '(') {
+            return end - 3;
+        }
+        return -1;
+    }
+
+}
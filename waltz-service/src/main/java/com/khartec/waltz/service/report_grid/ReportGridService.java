@@ -21,6 +21,7 @@ package com.khartec.waltz.service.report_grid;
 import com.khartec.waltz.data.application.ApplicationDao;
 import com.khartec.waltz.data.application.ApplicationIdSelectorFactory;
 import com.khartec.waltz.data.report_grid.ReportGridDao;
+import com.khartec.waltz.data.report_grid.ReportGridInstanceCache;
 import com.khartec.waltz.model.EntityKind;
 import com.khartec.waltz.model.HierarchyQueryScope;
 import com.khartec.waltz.model.IdSelectionOptions;
@@ -34,11 +35,14 @@ import org.jooq.Select;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 
 import static com.khartec.waltz.common.Checks.checkNotNull;
 import static com.khartec.waltz.common.SetUtilities.map;
+import static com.khartec.waltz.data.SelectorUtilities.MAX_INLINED_IDS;
+import static com.khartec.waltz.data.SelectorUtilities.mkInlineIdSelector;
 
 @Service
 public class ReportGridService {
@@ -46,21 +50,28 @@ public class ReportGridService {
     private final RatingSchemeService ratingSchemeService;
     private final ApplicationDao applicationDao;
     private final ReportGridDao reportGridDao;
+    private final ReportGridInstanceCache reportGridInstanceCache;
 
-    private final ApplicationIdSelectorFactory applicationIdSelectorFactory = new ApplicationIdSelectorFactory();
+    private final ApplicationIdSelectorFactory applicationIdSelectorFactory;
 
 
     @Autowired
     public ReportGridService(ReportGridDao reportGridDao,
                              ApplicationDao applicationDao,
-                             RatingSchemeService ratingSchemeService) {
+                             RatingSchemeService ratingSchemeService,
+                             ApplicationIdSelectorFactory applicationIdSelectorFactory,
+                             ReportGridInstanceCache reportGridInstanceCache) {
         checkNotNull(reportGridDao, "reportGridDao cannot be null");
         checkNotNull(applicationDao, "applicationDao cannot be null");
         checkNotNull(ratingSchemeService, "ratingSchemeService cannot be null");
+        checkNotNull(applicationIdSelectorFactory, "applicationIdSelectorFactory cannot be null");
+        checkNotNull(reportGridInstanceCache, "reportGridInstanceCache cannot be null");
 
         this.reportGridDao = reportGridDao;
         this.applicationDao = applicationDao;
         this.ratingSchemeService = ratingSchemeService;
+        this.applicationIdSelectorFactory = applicationIdSelectorFactory;
+        this.reportGridInstanceCache = reportGridInstanceCache;
     }
 
 
@@ -83,7 +94,10 @@ public class ReportGridService {
                     .withScope(HierarchyQueryScope.EXACT)
                 : idSelectionOptions;
 
-        ReportGridInstance instance = mkInstance(id, opts);
+        ReportGridInstance instance = reportGridInstanceCache.get(
+                id,
+                opts,
+                () -> mkInstance(id, opts));
         ReportGridDefinition definition = reportGridDao.getGridDefinitionById(id);
 
         return ImmutableReportGrid
@@ -96,21 +110,39 @@ public class ReportGridService {
 
     private ReportGridInstance mkInstance(long id, IdSelectionOptions idSelectionOptions) {
         Select<Record1<Long>> appSelector = applicationIdSelectorFactory.apply(idSelectionOptions);
-        Set<ReportGridCell> cellData = reportGridDao.findCellDataByGridId(id, appSelector);
         List<Application> apps = applicationDao.findByAppIdSelector(appSelector);
 
+        if (apps.isEmpty()) {
+            return ImmutableReportGridInstance
+                    .builder()
+                    .applications(apps)
+                    .cellData(Collections.emptySet())
+                    .ratingSchemeItems(Collections.emptySet())
+                    .build();
+        }
+
+        // resolve the selector once, the cell queries can then use the (inlined) ids directly
+        long[] appIds = apps
+                .stream()
+                .mapToLong(app -> app.id().get())
+                .toArray();
+
+        Select<Record1<Long>> resolvedSelector = appIds.length <= MAX_INLINED_IDS
+                ? mkInlineIdSelector(appIds)
+                : appSelector;
+
+        Set<ReportGridCell> cellData = reportGridDao.findCellDataByGridId(id, resolvedSelector);
+
         Set<RatingSchemeItem> ratingSchemeItems = ratingSchemeService.findRatingSchemeItemsByIds(map(
                 cellData,
                 ReportGridCell::ratingId));
 
-        ReportGridInstance instance = ImmutableReportGridInstance
+        return ImmutableReportGridInstance
                 .builder()
                 .applications(apps)
                 .cellData(cellData)
                 .ratingSchemeItems(ratingSchemeItems)
                 .build();
-        return instance;
     }
 
-
 }
@@ -28,6 +28,7 @@ import com.khartec.waltz.service.authoritative_source.AuthoritativeSourceService
 import com.khartec.waltz.service.entity_hierarchy.EntityHierarchyService;
 import com.khartec.waltz.service.logical_flow.LogicalFlowService;
 import com.khartec.waltz.service.physical_specification_data_type.PhysicalSpecDataTypeService;
+import com.khartec.waltz.service.settings.SettingsService;
 import com.khartec.waltz.service.usage_info.DataTypeUsageService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -51,6 +52,7 @@ public class ScheduledJobService {
     private final PhysicalSpecDataTypeService physicalSpecDataTypeService;
     private final ScheduledJobDao scheduledJobDao;
     private final AttestationRunService attestationRunService;
+    private final SettingsService settingsService;
 
 
     @Autowired
@@ -60,13 +62,15 @@ public class ScheduledJobService {
                                LogicalFlowService logicalFlowService,
                                PhysicalSpecDataTypeService physicalSpecDataTypeService,
                                ScheduledJobDao scheduledJobDao,
-                               AttestationRunService attestationRunService) {
+                               AttestationRunService attestationRunService,
+                               SettingsService settingsService) {
         checkNotNull(authoritativeSourceService, "authoritativeSourceService cannot be null");
         checkNotNull(dataTypeUsageService, "dataTypeUsageService cannot be null");
         checkNotNull(logicalFlowService, "logicalFlowService cannot be null");
         checkNotNull(physicalSpecDataTypeService, "physicalSpecDataTypeService cannot be null");
         checkNotNull(scheduledJobDao, "scheduledJobDao cannot be null");
         checkNotNull(attestationRunService, "attestationRunService cannot be null");
+        checkNotNull(settingsService, "settingsService cannot be null");
 
         this.authoritativeSourceService = authoritativeSourceService;
         this.dataTypeUsageService = dataTypeUsageService;
@@ -75,6 +79,7 @@ public class ScheduledJobService {
         this.physicalSpecDataTypeService = physicalSpecDataTypeService;
         this.scheduledJobDao = scheduledJobDao;
         this.attestationRunService = attestationRunService;
+        this.settingsService = settingsService;
     }
 
 
@@ -120,14 +125,25 @@ public class ScheduledJobService {
         try {
             if (scheduledJobDao.isJobRunnable(jobKey)
                     && scheduledJobDao.markJobAsRunning(jobKey)) {
+                settingsService.refresh();
                 jobExecutor
-                        .andThen((jk) -> scheduledJobDao.updateJobStatus(jk, JobLifecycleStatus.COMPLETED))
+                        .andThen((jk) -> updateJobStatus(jk, JobLifecycleStatus.COMPLETED))
                         .accept(jobKey);
             }
         } catch (Exception e) {
             LOG.error("Failed to run job: " + jobKey, e);
-            scheduledJobDao.updateJobStatus(jobKey, JobLifecycleStatus.ERRORED);
+            updateJobStatus(jobKey, JobLifecycleStatus.ERRORED);
         }
     }
 
+
+    /**
+     * Job statuses are held in the settings table, so the settings snapshot
+     * is refreshed whenever one is written.
+     */
+    private void updateJobStatus(JobKey jobKey, JobLifecycleStatus status) {
+        scheduledJobDao.updateJobStatus(jobKey, status);
+        settingsService.refresh();
+    }
+
 }
@@ -42,19 +42,22 @@ import static java.util.Collections.emptyList;
 @Service
 public class ServerInformationService {
 
-    private final ApplicationIdSelectorFactory selectorFactory = new ApplicationIdSelectorFactory();
+    private final ApplicationIdSelectorFactory selectorFactory;
     private final ServerInformationDao serverInformationDao;
     private final ServerInformationSearchDao serverInformationSearchDao;
 
 
     @Autowired
     public ServerInformationService(ServerInformationDao serverInfoDao,
-                                    ServerInformationSearchDao serverInformationSearchDao) {
+                                    ServerInformationSearchDao serverInformationSearchDao,
+                                    ApplicationIdSelectorFactory selectorFactory) {
         checkNotNull(serverInfoDao, "serverInformationDao must not be null");
         checkNotNull(serverInformationSearchDao, "serverInformationSearchDao cannot be null");
+        checkNotNull(selectorFactory, "selectorFactory cannot be null");
 
         this.serverInformationDao = serverInfoDao;
         this.serverInformationSearchDao = serverInformationSearchDao;
+        this.selectorFactory = selectorFactory;
     }
 
     public List<ServerInformation> findByAssetCode(String assetCode) {
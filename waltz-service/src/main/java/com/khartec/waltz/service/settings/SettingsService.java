@@ -18,23 +18,38 @@
 
 package com.khartec.waltz.service.settings;
 
-import com.khartec.waltz.common.CollectionUtilities;
 import com.khartec.waltz.common.MapUtilities;
+import com.khartec.waltz.common.StringUtilities;
 import com.khartec.waltz.data.settings.SettingsDao;
 import com.khartec.waltz.model.settings.Setting;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import java.util.Collection;
-import java.util.Map;
-import java.util.Optional;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
 
+import static com.khartec.waltz.common.Checks.checkNotNull;
 import static com.khartec.waltz.common.ListUtilities.ensureNotNull;
 
 
+/**
+ * Settings are read on hot paths (authentication filters, gzip configuration,
+ * notifications etc.) so rather than querying the SETTINGS table on every call
+ * an immutable snapshot of the table (with overrides applied) is held in memory.
+ *
+ * The snapshot is loaded on first use and refreshed periodically.  Code in this
+ * application which writes to the table (e.g. scheduled job statuses) calls
+ * {@link #refresh()} after doing so, other writers are picked up by the next
+ * periodic refresh (<code>waltz.settings.refresh.millis</code>).
+ */
 @Service
 public class SettingsService {
 
+    private static final Logger LOG = LoggerFactory.getLogger(SettingsService.class);
+
     private final SettingsDao settingsDao;
 
     public static final String DEFAULT_ROLES_KEY = "server.authentication.roles.default";
@@ -42,6 +57,8 @@ public class SettingsService {
 
     private final Map<String, Setting> overridesByName;
 
+    private final AtomicReference<Map<String, Setting>> snapshot = new AtomicReference<>();
+
 
     /**
      * Setting service allows the settings table to be interrogated.  For dev purposes then a
@@ -58,18 +75,15 @@ public class SettingsService {
 
 
     public Collection<Setting> findAll() {
-        return CollectionUtilities.map(
-                settingsDao.findAll(),
-                s -> Optional
-                        .ofNullable(overridesByName.get(s.name()))
-                        .orElse(s));
+        return getSnapshot().values();
     }
 
 
     public Setting getByName(String name) {
-        return Optional
-                .ofNullable(overridesByName.get(name))
-                .orElse(settingsDao.getByName(name));
+        Setting override = overridesByName.get(name);
+        return override != null
+                ? override
+                : getSnapshot().get(name);
     }
 
     /**
@@ -85,7 +99,86 @@ public class SettingsService {
     }
 
 
+    /**
+     * Returns the (unrestricted) settings whose names start with the given prefix
+     * @param prefix
+     * @return map of setting name to (trimmed) value, missing values are given as empty strings
+     */
     public Map<String, String> indexByPrefix(String prefix) {
-        return settingsDao.indexByPrefix(prefix);
+        checkNotNull(prefix, "prefix cannot be null");
+
+        Map<String, String> result = new HashMap<>();
+        getSnapshot()
+                .values()
+                .stream()
+                .filter(s -> ! s.restricted())
+                .filter(s -> s.name().startsWith(prefix))
+                .forEach(s -> result.put(
+                        s.name(),
+                        StringUtilities.mkSafe(s.value().orElse(null)).trim()));
+        return result;
+    }
+
+
+    /**
+     * Reloads the settings snapshot from the database, logging any changes.
+     * @return names of settings which have changed since the previous snapshot
+     */
+    @Scheduled(fixedRateString = "${waltz.settings.refresh.millis:60000}")
+    public Set<String> refresh() {
+        Map<String, Setting> previous = snapshot.get();
+        Map<String, Setting> latest = loadSnapshot();
+        snapshot.set(latest);
+
+        if (previous == null) {
+            return Collections.emptySet();
+        }
+
+        Set<String> changed = findChangedNames(previous, latest);
+        if (! changed.isEmpty()) {
+            LOG.info("Settings changed: {}", changed);
+        }
+        return changed;
+    }
+
+
+    // --- helpers ---
+
+    private Map<String, Setting> getSnapshot() {
+        Map<String, Setting> current = snapshot.get();
+        if (current == null) {
+            Map<String, Setting> loaded = loadSnapshot();
+            return snapshot.compareAndSet(null, loaded)
+                    ? loaded
+                    : snapshot.get();
+        }
+        return current;
+    }
+
+
+    private Map<String, Setting> loadSnapshot() {
+        Map<String, Setting> settingsByName = new LinkedHashMap<>();
+        settingsDao
+                .findAll()
+                .forEach(s -> settingsByName.put(
+                        s.name(),
+                        overridesByName.getOrDefault(s.name(), s)));
+        return Collections.unmodifiableMap(settingsByName);
+    }
+
+
+    private static Set<String> findChangedNames(Map<String, Setting> previous,
+                                                Map<String, Setting> latest) {
+        Set<String> changed = new TreeSet<>();
+        latest.forEach((name, setting) -> {
+            if (! setting.equals(previous.get(name))) {
+                changed.add(name);
+            }
+        });
+        previous.keySet()
+                .stream()
+                .filter(name -> ! latest.containsKey(name))
+                .forEach(changed::add);
+        return changed;
     }
 }
@@ -42,7 +42,7 @@ import static com.khartec.waltz.schema.tables.SoftwarePackage.SOFTWARE_PACKAGE;
 @Service
 public class SoftwareCatalogService {
 
-    private final ApplicationIdSelectorFactory factory = new ApplicationIdSelectorFactory();
+    private final ApplicationIdSelectorFactory factory;
     private final SoftwarePackageDao softwarePackageDao;
     private final SoftwareUsageDao softwareUsageDao;
     private final SoftwareVersionDao softwareVersionDao;
@@ -51,14 +51,17 @@ public class SoftwareCatalogService {
     @Autowired
     public SoftwareCatalogService(SoftwarePackageDao softwarePackageDao,
                                   SoftwareUsageDao softwareUsageDao,
-                                  SoftwareVersionDao softwareVersionDao) {
+                                  SoftwareVersionDao softwareVersionDao,
+                                  ApplicationIdSelectorFactory factory) {
         checkNotNull(softwarePackageDao, "softwarePackageDao cannot be null");
         checkNotNull(softwareUsageDao, "softwareUsageDao cannot be null");
         checkNotNull(softwareVersionDao, "softwareVersionDao cannot be null");
+        checkNotNull(factory, "factory cannot be null");
 
         this.softwarePackageDao = softwarePackageDao;
         this.softwareUsageDao = softwareUsageDao;
         this.softwareVersionDao = softwareVersionDao;
+        this.factory = factory;
     }
 
 
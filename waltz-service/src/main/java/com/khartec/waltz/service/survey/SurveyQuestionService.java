@@ -26,6 +26,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Map;
 
 import static com.khartec.waltz.common.Checks.checkNotNull;
 import static com.khartec.waltz.common.Checks.checkTrue;
@@ -62,6 +63,15 @@ public class SurveyQuestionService {
     }
 
 
+    /**
+     * @param surveyRunId  survey run identifier
+     * @return  active questions for every instance in the run, keyed by survey instance id
+     */
+    public Map<Long, List<SurveyQuestion>> findActiveQuestionsForSurveyRun(long surveyRunId) {
+        return evaluator.determineActiveQuestionsForSurveyRun(surveyRunId);
+    }
+
+
     public long create(SurveyQuestion surveyQuestion) {
         checkNotNull(surveyQuestion, "surveyQuestion cannot be null");
 
@@ -73,14 +83,18 @@ public class SurveyQuestionService {
         checkNotNull(surveyQuestion, "surveyQuestion cannot be null");
         checkTrue(surveyQuestion.id().isPresent(), "question id cannot be null");
 
-        return surveyQuestionDao.update(surveyQuestion);
+        int updateCount = surveyQuestionDao.update(surveyQuestion);
+        evaluator.invalidate(surveyQuestion.id().get());
+        return updateCount;
     }
 
 
     public int delete(long questionId) {
 
         if(!surveyQuestionDao.hasResponses(questionId)){
-            return surveyQuestionDao.delete(questionId);
+            int deleteCount = surveyQuestionDao.delete(questionId);
+            evaluator.invalidate(questionId);
+            return deleteCount;
         } else {
             throw new IllegalArgumentException("There are responses to this question so it cannot be deleted");
         }
@@ -32,26 +32,34 @@ import com.khartec.waltz.model.survey.*;
 import com.khartec.waltz.service.changelog.ChangeLogService;
 import org.jooq.Record1;
 import org.jooq.Select;
+import org.jooq.lambda.tuple.Tuple2;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PreDestroy;
 import java.time.LocalDate;
-import java.util.List;
-import java.util.Map;
-import java.util.Objects;
-import java.util.Set;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static com.khartec.waltz.common.Checks.checkNotNull;
 import static com.khartec.waltz.common.Checks.checkTrue;
+import static com.khartec.waltz.common.DateTimeUtilities.nowUtc;
 import static com.khartec.waltz.common.ListUtilities.map;
 import static com.khartec.waltz.common.MapUtilities.indexBy;
 import static com.khartec.waltz.common.SetUtilities.fromCollection;
 import static java.util.stream.Collectors.groupingBy;
 import static java.util.stream.Collectors.toList;
+import static org.jooq.lambda.tuple.Tuple.tuple;
 
 @Service
 public class SurveyRunService {
 
+    private static final Logger LOG = LoggerFactory.getLogger(SurveyRunService.class);
+
     private final ChangeLogService changeLogService;
     private final InvolvementDao involvementDao;
     private final PersonDao personDao;
@@ -61,8 +69,16 @@ public class SurveyRunService {
     private final SurveyTemplateDao surveyTemplateDao;
     private final SurveyQuestionResponseDao surveyQuestionResponseDao;
 
+    // dedicated (rather than the shared db pool) as an issuance can run for minutes and would starve request fan-outs
+    private final ExecutorService issuanceExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread t = new Thread(runnable, "Survey Run Issuer");
+        t.setDaemon(true);
+        return t;
+    });
+
     private final GenericSelectorFactory genericSelectorFactory = new GenericSelectorFactory();
     private final SurveyInstanceIdSelectorFactory surveyInstanceIdSelectorFactory = new SurveyInstanceIdSelectorFactory();
+    private final Map<Long, SurveyRunIssuanceStatus> issuanceStatusByRunId = new ConcurrentHashMap<>();
 
 
     @Autowired
@@ -277,7 +293,89 @@ public class SurveyRunService {
 
     public boolean createSurveyInstancesAndRecipients(long surveyRunId,
                                                       List<SurveyInstanceRecipient> excludedRecipients) {
+        replaceSurveyInstancesAndRecipients(surveyRunId, excludedRecipients);
+        return true;
+    }
+
+
+    /**
+     * Asynchronous variant of <code>createSurveyInstancesAndRecipients</code>
+     * intended for runs against large numbers of entities.  Progress may be
+     * polled via <code>getIssuanceStatus</code>.  If an issuance is already in
+     * progress for the run its status is returned and no new issuance is started.
+     *
+     * Issuances run one at a time on a dedicated thread.  Statuses are held
+     * in memory and are therefore only visible on the server which started
+     * the issuance.
+     *
+     * @param surveyRunId  run to issue
+     * @param excludedRecipients  generated recipients which should not be issued
+     * @return  status of the (possibly already running) issuance
+     */
+    public SurveyRunIssuanceStatus issueSurveyInstancesAndRecipients(long surveyRunId,
+                                                                     List<SurveyInstanceRecipient> excludedRecipients) {
+        checkNotNull(surveyRunDao.getById(surveyRunId), "surveyRun " + surveyRunId + " not found");
+
+        SurveyRunIssuanceStatus started = ImmutableSurveyRunIssuanceStatus.builder()
+                .surveyRunId(surveyRunId)
+                .state(SurveyRunIssuanceState.IN_PROGRESS)
+                .startedAt(nowUtc())
+                .build();
+
+        SurveyRunIssuanceStatus current = issuanceStatusByRunId.compute(
+                surveyRunId,
+                (id, previous) -> previous != null && previous.state() == SurveyRunIssuanceState.IN_PROGRESS
+                        ? previous
+                        : started);
+
+        if (current != started) {
+            return current;
+        }
+
+        issuanceExecutor.submit(() -> {
+            try {
+                List<Tuple2<SurveyInstanceCreateCommand, List<Long>>> created = replaceSurveyInstancesAndRecipients(
+                        surveyRunId,
+                        excludedRecipients);
+
+                issuanceStatusByRunId.put(surveyRunId, ImmutableSurveyRunIssuanceStatus
+                        .copyOf(started)
+                        .withState(SurveyRunIssuanceState.COMPLETED)
+                        .withInstanceCount(created.size())
+                        .withRecipientCount(created.stream().mapToInt(t -> t.v2.size()).sum())
+                        .withCompletedAt(nowUtc()));
+            } catch (Exception e) {
+                LOG.error("Failed to issue survey run: " + surveyRunId, e);
+                issuanceStatusByRunId.put(surveyRunId, ImmutableSurveyRunIssuanceStatus
+                        .copyOf(started)
+                        .withState(SurveyRunIssuanceState.FAILED)
+                        .withMessage(Optional.ofNullable(e.getMessage()))
+                        .withCompletedAt(nowUtc()));
+            }
+            return null;
+        });
+
+        return started;
+    }
+
+
+    @PreDestroy
+    public void shutdown() {
+        issuanceExecutor.shutdownNow();
+    }
+
+
+    /**
+     * @param surveyRunId  run identifier
+     * @return  status of the most recent asynchronous issuance of the run, or null if there is none
+     */
+    public SurveyRunIssuanceStatus getIssuanceStatus(long surveyRunId) {
+        return issuanceStatusByRunId.get(surveyRunId);
+    }
 
+
+    private List<Tuple2<SurveyInstanceCreateCommand, List<Long>>> replaceSurveyInstancesAndRecipients(long surveyRunId,
+                                                                                                     List<SurveyInstanceRecipient> excludedRecipients) {
         SurveyRun surveyRun = surveyRunDao.getById(surveyRunId);
         checkNotNull(surveyRun, "surveyRun " + surveyRunId + " not found");
 
@@ -292,51 +390,34 @@ public class SurveyRunService {
                         toList()
                 ));
 
-        // delete existing instances and recipients
-        deleteSurveyInstancesAndRecipients(surveyRunId);
-
-        // insert new instances and recipients
+        List<Tuple2<SurveyInstanceCreateCommand, List<Long>>> instancesToCreate = new ArrayList<>();
         instancesAndRecipientsToSave.forEach(
-                (k,v) -> {
+                (k, v) -> {
+                    SurveyInstanceCreateCommand createCommand = mkCreateCommand(k);
                     if (surveyRun.issuanceKind() == SurveyIssuanceKind.GROUP) {
                         // one instance per group
-                        long instanceId = createSurveyInstance(k);
-                        v.forEach(r -> createSurveyInstanceRecipient(instanceId, r));
+                        instancesToCreate.add(tuple(createCommand, map(v, r -> r.person().id().get())));
                     } else {
                         // one instance for each individual
-                        v.forEach(r -> {
-                            long instanceId = createSurveyInstance(k);
-                            createSurveyInstanceRecipient(instanceId, r);
-                        });
+                        v.forEach(r -> instancesToCreate.add(tuple(createCommand, ListUtilities.newArrayList(r.person().id().get()))));
                     }
                 }
         );
 
-        return true;
-    }
-
+        // existing instances and recipients are replaced within the same transaction
+        surveyInstanceDao.createInstancesAndRecipients(Optional.of(surveyRunId), instancesToCreate);
 
-    private void deleteSurveyInstancesAndRecipients(long surveyRunId) {
-        surveyInstanceRecipientDao.deleteForSurveyRun(surveyRunId);
-        surveyInstanceDao.deleteForSurveyRun(surveyRunId);
+        return instancesToCreate;
     }
 
 
-    private long createSurveyInstance(SurveyInstance surveyInstance) {
-        return surveyInstanceDao.create(ImmutableSurveyInstanceCreateCommand.builder()
+    private SurveyInstanceCreateCommand mkCreateCommand(SurveyInstance surveyInstance) {
+        return ImmutableSurveyInstanceCreateCommand.builder()
                 .surveyRunId(surveyInstance.surveyRunId())
                 .entityReference(surveyInstance.surveyEntity())
                 .status(surveyInstance.status())
                 .dueDate(surveyInstance.dueDate())
-                .build());
-    }
-
-
-    private long createSurveyInstanceRecipient(long surveyInstanceId, SurveyInstanceRecipient surveyInstanceRecipient) {
-        return surveyInstanceRecipientDao.create(ImmutableSurveyInstanceRecipientCreateCommand.builder()
-                .surveyInstanceId(surveyInstanceId)
-                .personId(surveyInstanceRecipient.person().id().get())
-                .build());
+                .build();
     }
 
 
@@ -416,44 +497,30 @@ public class SurveyRunService {
         SurveyRun run = getById(runId);
         EntityReference subjectRef = run.selectionOptions().entityReference();
 
-        switch (run.issuanceKind()) {
-            case INDIVIDUAL:
-                map(personIds, p -> mkSurveyInstance(
-                        subjectRef,
-                        run,
-                        ListUtilities.newArrayList(p),
-                        owningRole));
-                return true;
-            case GROUP:
-                mkSurveyInstance(
-                        subjectRef,
-                        run,
-                        personIds,
-                        owningRole);
-                return true;
-            default:
-                return false;
-        }
-    }
-
-
-    private int[] mkSurveyInstance(EntityReference entityRef,
-                                   SurveyRun run,
-                                   List<Long> personIds,
-                                   String owningRole) {
         SurveyInstanceCreateCommand instanceCreateCommand = ImmutableSurveyInstanceCreateCommand
                 .builder()
                 .dueDate(run.dueDate())
-                .entityReference(entityRef)
+                .entityReference(subjectRef)
                 .surveyRunId(run.id().get())
                 .status(SurveyInstanceStatus.NOT_STARTED)
                 .owningRole(owningRole)
                 .ownerId(run.ownerId())
                 .build();
-        long instanceId = surveyInstanceDao.create(instanceCreateCommand);
-        return surveyInstanceDao.createInstanceRecipients(
-                instanceId,
-                personIds);
+
+        switch (run.issuanceKind()) {
+            case INDIVIDUAL:
+                surveyInstanceDao.createInstancesAndRecipients(
+                        Optional.empty(),
+                        map(personIds, p -> tuple(instanceCreateCommand, ListUtilities.newArrayList(p))));
+                return true;
+            case GROUP:
+                surveyInstanceDao.createInstancesAndRecipients(
+                        Optional.empty(),
+                        ListUtilities.newArrayList(tuple(instanceCreateCommand, personIds)));
+                return true;
+            default:
+                return false;
+        }
     }
 
 
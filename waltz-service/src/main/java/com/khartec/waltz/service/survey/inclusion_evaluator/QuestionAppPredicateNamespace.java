@@ -58,14 +58,15 @@ public class QuestionAppPredicateNamespace extends QuestionEntityPredicateNamesp
         Condition notRetiredYet = APPLICATION.ACTUAL_RETIREMENT_DATE.isNull()
                 .or(APPLICATION.ACTUAL_RETIREMENT_DATE.greaterOrEqual(DSL.now()));
 
-        return dsl
+        return memoize(() -> dsl
                 .select(APPLICATION.PLANNED_RETIREMENT_DATE)
                 .from(APPLICATION)
                 .where(APPLICATION.ID.eq(subjectRef.id()))
                 .and(isPlanned)
                 .and(notRetiredYet)
                 .fetch()
-                .isNotEmpty();
+                .isNotEmpty(),
+                "isRetiring");
     }
 
 
@@ -92,7 +93,7 @@ public class QuestionAppPredicateNamespace extends QuestionEntityPredicateNamesp
         Condition subjectMatches = dtu.ENTITY_ID.eq(subjectRef.id())
                 .and(dtu.ENTITY_KIND.eq(subjectRef.kind().name()));
 
-        return dsl
+        return memoize(() -> dsl
                 .select(dtu.USAGE_KIND)
                 .from(dt)
                 .innerJoin(eh)
@@ -101,7 +102,8 @@ public class QuestionAppPredicateNamespace extends QuestionEntityPredicateNamesp
                 .on(dtu.DATA_TYPE_ID.eq(eh.ID))
                 .where(dtNameMatches)
                 .and(subjectMatches)
-                .fetchSet(dtu.USAGE_KIND);
+                .fetchSet(dtu.USAGE_KIND),
+                "dataTypeUsages", name);
     }
 
 }
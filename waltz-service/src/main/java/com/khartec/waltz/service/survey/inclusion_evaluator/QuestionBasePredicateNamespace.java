@@ -3,13 +3,10 @@ package com.khartec.waltz.service.survey.inclusion_evaluator;
 import com.khartec.waltz.model.ExternalIdProvider;
 import com.khartec.waltz.model.survey.SurveyQuestion;
 import com.khartec.waltz.model.survey.SurveyQuestionResponse;
-import org.apache.commons.jexl3.JexlEngine;
-import org.apache.commons.jexl3.MapContext;
 
-import java.util.List;
-import java.util.Map;
-import java.util.Optional;
+import java.util.*;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import static org.jooq.lambda.tuple.Tuple.tuple;
@@ -23,7 +20,8 @@ public class QuestionBasePredicateNamespace {
 
     private final Map<String, SurveyQuestion> questionsByExtId;
     private final Map<Long, SurveyQuestionResponse> responsesByQuestionId;
-    private JexlEngine jexl;
+    private final Map<List<Object>, Object> memo = new HashMap<>();
+    private Function<SurveyQuestion, Boolean> predicateEvaluator;
 
 
     public QuestionBasePredicateNamespace(List<SurveyQuestion> questions,
@@ -68,11 +66,7 @@ public class QuestionBasePredicateNamespace {
         SurveyQuestion referencedQuestion = questionsByExtId
                 .get(qExtId);
 
-        return referencedQuestion
-                .inclusionPredicate()
-                .map(p -> jexl.createExpression(p).evaluate(new MapContext()))
-                .map(r -> Boolean.valueOf(r.toString()))
-                .orElse(true);
+        return predicateEvaluator.apply(referencedQuestion);
     }
 
 
@@ -117,10 +111,32 @@ public class QuestionBasePredicateNamespace {
 
     /**
      * Need to pass in the evaluator so that 'recursive' functions can be computed (e.g. 'DITTO')
-     * @param jexl
+     * @param predicateEvaluator  function which determines if a question is active
      */
-    public void usingEvaluator(JexlEngine jexl) {
-        this.jexl = jexl;
+    public void usingEvaluator(Function<SurveyQuestion, Boolean> predicateEvaluator) {
+        this.predicateEvaluator = predicateEvaluator;
+    }
+
+
+    /**
+     * Namespaces live for a single evaluation, so lookups (typically database
+     * queries) repeated across the questions of an instance only need to be
+     * performed once.  Null results are remembered too.
+     *
+     * @param supplier  computes the value on first use
+     * @param key  parts of the key, typically the method name and its arguments
+     * @param <T>  type of value
+     * @return  the remembered (or freshly computed) value
+     */
+    @SuppressWarnings("unchecked")
+    protected <T> T memoize(Supplier<T> supplier, Object... key) {
+        List<Object> memoKey = Arrays.asList(key);
+        if (memo.containsKey(memoKey)) {
+            return (T) memo.get(memoKey);
+        }
+        T value = supplier.get();
+        memo.put(memoKey, value);
+        return value;
     }
 
 
@@ -53,7 +53,7 @@ public class QuestionEntityPredicateNamespace extends QuestionBasePredicateNames
 
 
     public String assessmentRating(String name, String defaultVal) {
-        return dsl
+        String rating = memoize(() -> dsl
                 .select(RATING_SCHEME_ITEM.CODE)
                 .from(ASSESSMENT_DEFINITION)
                 .innerJoin(ASSESSMENT_RATING).on(ASSESSMENT_RATING.ASSESSMENT_DEFINITION_ID.eq(ASSESSMENT_DEFINITION.ID))
@@ -63,7 +63,12 @@ public class QuestionEntityPredicateNamespace extends QuestionBasePredicateNames
                 .and(ASSESSMENT_RATING.ENTITY_KIND.eq(subjectRef.kind().name()))
                 .and(ASSESSMENT_RATING.ENTITY_ID.eq(subjectRef.id()))
                 .fetchOptional(RATING_SCHEME_ITEM.CODE)
-                .orElse(defaultVal);
+                .orElse(null),
+                "assessmentRating", name);
+
+        return rating == null
+                ? defaultVal
+                : rating;
     }
 
 
@@ -73,13 +78,14 @@ public class QuestionEntityPredicateNamespace extends QuestionBasePredicateNames
 
 
     public boolean hasInvolvement(String name) {
-        return dsl.fetchExists(DSL
+        return memoize(() -> dsl.fetchExists(DSL
                 .select()
                 .from(INVOLVEMENT)
                 .innerJoin(INVOLVEMENT_KIND).on(INVOLVEMENT.KIND_ID.eq(INVOLVEMENT_KIND.ID))
                 .where(INVOLVEMENT_KIND.NAME.equalIgnoreCase(name))
                 .and(INVOLVEMENT.ENTITY_ID.eq(subjectRef.id()))
-                .and(INVOLVEMENT.ENTITY_KIND.eq(subjectRef.kind().name())));
+                .and(INVOLVEMENT.ENTITY_KIND.eq(subjectRef.kind().name()))),
+                "hasInvolvement", name);
     }
 
 
@@ -111,8 +117,9 @@ public class QuestionEntityPredicateNamespace extends QuestionBasePredicateNames
                 .where(subjectEntitiesMatch)
                 .and(subjectInTargetOuTree);
 
-        return dsl
-                .fetchExists(qry);
+        return memoize(
+                () -> dsl.fetchExists(qry),
+                "belongsToOrgUnit", subjectTable.getName(), name);
     }
 
 }
@@ -29,21 +29,39 @@ import com.khartec.waltz.model.survey.SurveyQuestionResponse;
 import com.khartec.waltz.service.DIConfiguration;
 import org.apache.commons.jexl3.*;
 import org.jooq.DSLContext;
+import org.jooq.lambda.tuple.Tuple2;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.AnnotationConfigApplicationContext;
 import org.springframework.stereotype.Service;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import static com.khartec.waltz.common.MapUtilities.groupBy;
 import static com.khartec.waltz.common.MapUtilities.indexBy;
-import static com.khartec.waltz.common.MapUtilities.newHashMap;
 import static com.khartec.waltz.common.StringUtilities.isEmpty;
+import static org.jooq.lambda.tuple.Tuple.tuple;
 
 @Service
 public class QuestionPredicateEvaluator {
 
+    /**
+     * Namespaces are supplied per evaluation via the context (see
+     * <code>PredicateContext</code>) so a single engine can be shared.
+     */
+    private final JexlEngine jexl = new JexlBuilder().create();
+
+    /**
+     * Compiled predicates keyed by question id.  The predicate source is kept
+     * alongside the expression so a changed predicate is recompiled even if
+     * the cache was not explicitly invalidated.
+     */
+    private final Map<Long, Tuple2<String, JexlExpression>> compiledPredicatesByQuestionId = new ConcurrentHashMap<>();
+
     private final DSLContext dsl;
     private final SurveyQuestionDao questionDao;
     private final SurveyInstanceDao instanceDao;
@@ -72,20 +90,72 @@ public class QuestionPredicateEvaluator {
     }
 
 
+    /**
+     * Evaluates every instance in the run in a single pass.  Questions and
+     * responses are loaded once for the whole run (rather than per instance)
+     * which makes this suitable for extracts and reports.
+     *
+     * @param surveyRunId  survey run identifier
+     * @return  active questions keyed by survey instance id
+     */
+    public Map<Long, List<SurveyQuestion>> determineActiveQuestionsForSurveyRun(long surveyRunId) {
+        List<SurveyQuestion> qs = questionDao.findForSurveyRun(surveyRunId);
+
+        Map<Long, Map<Long, SurveyQuestionResponse>> responsesByInstanceId = groupBy(
+                SurveyInstanceQuestionResponse::surveyInstanceId,
+                responseDao.findForSurveyRun(surveyRunId))
+                .entrySet()
+                .stream()
+                .collect(Collectors.toMap(
+                        Map.Entry::getKey,
+                        e -> indexBy(
+                                e.getValue(),
+                                r -> r.questionResponse().questionId(),
+                                SurveyInstanceQuestionResponse::questionResponse)));
+
+        return instanceDao
+                .findForSurveyRun(surveyRunId)
+                .stream()
+                .filter(instance -> instance.id().isPresent())
+                .collect(Collectors.toMap(
+                        instance -> instance.id().get(),
+                        instance -> eval(
+                                qs,
+                                instance.surveyEntity(),
+                                responsesByInstanceId.getOrDefault(instance.id().get(), Collections.emptyMap()))));
+    }
+
+
+    /**
+     * Discards the compiled predicate for the given question, should be called
+     * whenever a question is updated or removed.
+     *
+     * @param questionId  question identifier
+     */
+    public void invalidate(long questionId) {
+        compiledPredicatesByQuestionId.remove(questionId);
+    }
+
+
+    public void invalidateAll() {
+        compiledPredicatesByQuestionId.clear();
+    }
+
+
     private List<SurveyQuestion> eval(List<SurveyQuestion> qs,
                                       EntityReference subjectRef,
                                       Map<Long, SurveyQuestionResponse> responsesByQuestionId) {
 
         QuestionBasePredicateNamespace namespace = mkPredicateNameSpace(qs, subjectRef, responsesByQuestionId);
+        JexlContext jexlCtx = new PredicateContext(namespace);
 
-        JexlBuilder builder = new JexlBuilder();
-        JexlEngine jexl = builder
-                .namespaces(newHashMap(null, namespace))
-                .create();
-
-        namespace.usingEvaluator(jexl);
+        Function<SurveyQuestion, Boolean> isActive = q -> isActive(q, jexlCtx);
+        namespace.usingEvaluator(isActive);
 
-        return determineActiveQs(qs, jexl);
+        return qs
+                .stream()
+                .filter(isActive::apply)
+                .collect(Collectors.toList());
     }
 
 
@@ -109,24 +179,33 @@ public class QuestionPredicateEvaluator {
     }
 
 
-    private static List<SurveyQuestion> determineActiveQs(List<SurveyQuestion> qs, JexlEngine jexl) {
-        List<SurveyQuestion> activeQs = qs
-                .stream()
-                .filter(q -> q
-                        .inclusionPredicate()
-                        .map(p -> {
-                            if (isEmpty(p)) {
-                                return true;
-                            } else {
-                                JexlExpression expr = jexl.createExpression(p);
-                                JexlContext jexlCtx = new MapContext();
-                                Boolean result = Boolean.valueOf(expr.evaluate(jexlCtx).toString());
-                                return result;
-                            }
-                        })
-                        .orElse(true))
-                .collect(Collectors.toList());
-        return activeQs;
+    private boolean isActive(SurveyQuestion q, JexlContext jexlCtx) {
+        return q
+                .inclusionPredicate()
+                .map(p -> {
+                    if (isEmpty(p)) {
+                        return true;
+                    } else {
+                        JexlExpression expr = getExpression(q, p);
+                        return Boolean.valueOf(expr.evaluate(jexlCtx).toString());
+                    }
+                })
+                .orElse(true);
+    }
+
+
+    private JexlExpression getExpression(SurveyQuestion q, String predicate) {
+        if (! q.id().isPresent()) {
+            return jexl.createExpression(predicate);
+        }
+
+        return compiledPredicatesByQuestionId
+                .compute(
+                        q.id().get(),
+                        (id, existing) -> existing != null && existing.v1.equals(predicate)
+                                ? existing
+                                : tuple(predicate, jexl.createExpression(predicate)))
+                .v2;
     }
 
 
@@ -143,6 +222,29 @@ public class QuestionPredicateEvaluator {
     }
 
 
+    /**
+     * Resolves unqualified function calls (e.g. <code>isChecked('Q1')</code>)
+     * against the namespace for the current evaluation.
+     */
+    private static class PredicateContext extends MapContext implements JexlContext.NamespaceResolver {
+
+        private final QuestionBasePredicateNamespace namespace;
+
+
+        private PredicateContext(QuestionBasePredicateNamespace namespace) {
+            this.namespace = namespace;
+        }
+
+
+        @Override
+        public Object resolveNamespace(String name) {
+            return name == null
+                    ? namespace
+                    : null;
+        }
+    }
+
+
     // --- TEST ---
 
     public static void main(String[] args) {
@@ -18,28 +18,48 @@
 
 package com.khartec.waltz.service.svg;
 
+import com.khartec.waltz.common.DigestUtilities;
 import com.khartec.waltz.common.SvgUtilities;
 import com.khartec.waltz.data.svg.SvgDiagramDao;
 import com.khartec.waltz.model.svg.ImmutableSvgDiagram;
 import com.khartec.waltz.model.svg.SvgDiagram;
 import org.jooq.lambda.Unchecked;
+import org.jooq.lambda.tuple.Tuple3;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.xml.sax.SAXException;
 
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.TransformerException;
-import javax.xml.xpath.XPathExpressionException;
-import java.io.IOException;
+import javax.xml.stream.XMLStreamException;
+import java.nio.charset.StandardCharsets;
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
+import static com.khartec.waltz.common.SetUtilities.asSet;
+import static java.util.stream.Collectors.joining;
 import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
+import static org.jooq.lambda.tuple.Tuple.tuple;
 
 @Service
 public class SvgDiagramService {
 
+    private static final Logger LOG = LoggerFactory.getLogger(SvgDiagramService.class);
+
     private final SvgDiagramDao svgDiagramDao;
 
+    /**
+     * Converted svg keyed by diagram id, held as (group, content digest, converted svg).
+     * The content digest covers the product, key property and svg of the diagram as
+     * loaded, so an edited diagram is reconverted (replacing its entry) on its next
+     * request.  Entries for diagrams which no longer exist are evicted when they are
+     * next looked up, either by id or by group.
+     */
+    private final Map<Long, Tuple3<String, String, String>> convertedSvgById = new ConcurrentHashMap<>();
+
 
     @Autowired
     public SvgDiagramService(SvgDiagramDao svgDiagramDao) {
@@ -49,41 +69,117 @@ public class SvgDiagramService {
 
     public SvgDiagram getById(long id) {
         SvgDiagram diagram = svgDiagramDao.getById(id);
-        return Unchecked.supplier(() -> {
-            String updatedSvg = convertProductSpecificSvg(diagram);
-            return ImmutableSvgDiagram.copyOf(diagram)
-                    .withSvg(updatedSvg);
-        }).get();
+        if (diagram == null) {
+            convertedSvgById.remove(id);
+            return null;
+        }
+        return convert(diagram);
     }
 
 
     public Collection<SvgDiagram> findByGroups(String... groups) {
-        return svgDiagramDao.findByGroups(groups)
+        List<SvgDiagram> diagrams = svgDiagramDao.findByGroups(groups);
+        evictMissing(groups, diagrams);
+        return diagrams
                 .stream()
-                .map(Unchecked.function(diagram -> {
-                    String updatedSvg = convertProductSpecificSvg(diagram);
-                    return ImmutableSvgDiagram.copyOf(diagram)
-                            .withSvg(updatedSvg);
-                }))
+                .map(this::convert)
                 .collect(toList());
     }
 
 
-    private String convertProductSpecificSvg(SvgDiagram diagram) throws ParserConfigurationException, IOException, SAXException, XPathExpressionException, TransformerException {
+    /**
+     * Computes a digest over the given (converted) diagrams, suitable for use
+     * as an ETag.  The content digest already held for each diagram is reused
+     * so the (potentially large) svg does not need to be hashed again.
+     *
+     * @param diagrams  diagrams, as returned by this service
+     * @return  digest identifying the content of the diagrams
+     */
+    public String calculateDigest(Collection<SvgDiagram> diagrams) {
+        String summary = diagrams
+                .stream()
+                .map(d -> ImmutableSvgDiagram
+                        .copyOf(d)
+                        .withSvg(lookupContentDigest(d))
+                        .toString())
+                .collect(joining("\n"));
+
+        return digest(summary);
+    }
+
+
+    private void evictMissing(String[] groups, Collection<SvgDiagram> diagrams) {
+        Set<String> groupSet = asSet(groups);
+        Set<Long> ids = diagrams
+                .stream()
+                .map(d -> d.id().orElse(null))
+                .collect(toSet());
+
+        convertedSvgById
+                .entrySet()
+                .removeIf(e -> groupSet.contains(e.getValue().v1) && ! ids.contains(e.getKey()));
+    }
+
+
+    private SvgDiagram convert(SvgDiagram diagram) {
+        if (! diagram.id().isPresent()) {
+            return ImmutableSvgDiagram
+                    .copyOf(diagram)
+                    .withSvg(convertProductSpecificSvg(diagram));
+        }
+
+        long id = diagram.id().get();
+        String contentDigest = digest(diagram.product() + "\n" + diagram.keyProperty() + "\n" + diagram.svg());
+
+        Tuple3<String, String, String> converted = convertedSvgById.get(id);
+        if (converted == null || ! converted.v2.equals(contentDigest)) {
+            LOG.debug("Converting svg diagram: {}", id);
+            converted = tuple(diagram.group(), contentDigest, convertProductSpecificSvg(diagram));
+            convertedSvgById.put(id, converted);
+        } else if (! converted.v1.equals(diagram.group())) {
+            // moved to another group, track it there so it is evicted correctly
+            converted = tuple(diagram.group(), converted.v2, converted.v3);
+            convertedSvgById.put(id, converted);
+        }
+
+        return ImmutableSvgDiagram
+                .copyOf(diagram)
+                .withSvg(converted.v3);
+    }
+
+
+    private String lookupContentDigest(SvgDiagram diagram) {
+        return diagram
+                .id()
+                .map(convertedSvgById::get)
+                .filter(converted -> converted.v3 == diagram.svg())
+                .map(converted -> converted.v2)
+                .orElseGet(() -> digest(diagram.svg()));
+    }
+
+
+    private String convertProductSpecificSvg(SvgDiagram diagram) {
         switch (diagram.product()) {
             case "visio":
-                return convertVisioSvg(diagram);
+                return Unchecked.supplier(() -> convertVisioSvg(diagram)).get();
             default:
                 return diagram.svg();
         }
     }
 
 
-    private String convertVisioSvg(SvgDiagram diagram) throws ParserConfigurationException, IOException, SAXException, XPathExpressionException, TransformerException {
+    private String convertVisioSvg(SvgDiagram diagram) throws XMLStreamException {
         String key = diagram.keyProperty();
         String svgStr = diagram.svg();
 
         return SvgUtilities.convertVisioSvg(key, svgStr);
     }
 
-}
\ No newline at end of file
+
+    private static String digest(String str) {
+        return Unchecked
+                .supplier(() -> DigestUtilities.digest(str.getBytes(StandardCharsets.UTF_8)))
+                .get();
+    }
+
+}
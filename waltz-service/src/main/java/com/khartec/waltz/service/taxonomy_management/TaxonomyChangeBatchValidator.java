@@ -0,0 +1,159 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package com.khartec.waltz.service.taxonomy_management;
+
+import com.khartec.waltz.model.measurable.Measurable;
+import com.khartec.waltz.model.taxonomy_management.TaxonomyChangeCommand;
+
+import java.util.*;
+
+import static com.khartec.waltz.common.Checks.checkNotNull;
+import static java.lang.String.format;
+
+
+/**
+ * Validates a batch of taxonomy change commands against an in-memory copy
+ * of the tree.  Commands are replayed in order so each is checked against
+ * the tree as the earlier commands in the batch will have left it, e.g. a
+ * move into a subtree removed earlier in the batch is reported, as is a
+ * sequence of moves which would form a cycle.
+ */
+public class TaxonomyChangeBatchValidator {
+
+    private final Map<Long, Long> parentsById = new HashMap<>();
+    private final Map<Long, Set<Long>> childrenById = new HashMap<>();
+
+
+    /**
+     * @param measurables  current members of the category being changed
+     */
+    public TaxonomyChangeBatchValidator(Collection<Measurable> measurables) {
+        checkNotNull(measurables, "measurables cannot be null");
+
+        measurables.forEach(m -> m.id().ifPresent(id -> parentsById.put(id, m.parentId().orElse(null))));
+        parentsById.forEach((id, parentId) -> {
+            if (parentId != null && parentsById.containsKey(parentId)) {
+                childrenById.computeIfAbsent(parentId, k -> new HashSet<>()).add(id);
+            }
+        });
+    }
+
+
+    /**
+     * @param commands  commands in the order they will be applied
+     * @return  descriptions of any problems, empty if the batch can be applied
+     */
+    public List<String> validate(List<TaxonomyChangeCommand> commands) {
+        checkNotNull(commands, "commands cannot be null");
+
+        List<String> problems = new ArrayList<>();
+        for (TaxonomyChangeCommand cmd : commands) {
+            String problem = validateAndApply(cmd);
+            if (problem != null) {
+                problems.add(format(
+                        "Change %s (%s of %d): %s",
+                        cmd.id().map(Object::toString).orElse("<new>"),
+                        cmd.changeType(),
+                        cmd.primaryReference().id(),
+                        problem));
+            }
+        }
+        return problems;
+    }
+
+
+    private String validateAndApply(TaxonomyChangeCommand cmd) {
+        long id = cmd.primaryReference().id();
+        if (! parentsById.containsKey(id)) {
+            return "measurable is not in the category (or is removed earlier in the batch)";
+        }
+
+        switch (cmd.changeType()) {
+            case MOVE:
+                Long destinationId = cmd.params() == null
+                        ? null
+                        : cmd.paramAsLong("destinationId", null);
+                if (destinationId != null) {
+                    if (! parentsById.containsKey(destinationId)) {
+                        return "destination is not in the category (or is removed earlier in the batch)";
+                    }
+                    if (isSelfOrAncestor(id, destinationId)) {
+                        return "destination is the measurable itself or one of its descendants";
+                    }
+                }
+                move(id, destinationId);
+                return null;
+            case REMOVE:
+                remove(id);
+                return null;
+            default:
+                // additions and updates do not alter the existing structure
+                return null;
+        }
+    }
+
+
+    private boolean isSelfOrAncestor(long candidateId, long id) {
+        Set<Long> visited = new HashSet<>();
+        Long current = id;
+        while (current != null && visited.add(current)) {
+            if (current == candidateId) {
+                return true;
+            }
+            current = parentsById.get(current);
+        }
+        return false;
+    }
+
+
+    private void move(long id, Long newParentId) {
+        detachFromParent(id);
+        parentsById.put(id, newParentId);
+        if (newParentId != null) {
+            childrenById.computeIfAbsent(newParentId, k -> new HashSet<>()).add(id);
+        }
+    }
+
+
+    private void remove(long id) {
+        detachFromParent(id);
+        Deque<Long> toRemove = new ArrayDeque<>();
+        toRemove.push(id);
+        while (! toRemove.isEmpty()) {
+            Long current = toRemove.pop();
+            parentsById.remove(current);
+            Set<Long> children = childrenById.remove(current);
+            if (children != null) {
+                children.forEach(toRemove::push);
+            }
+        }
+    }
+
+
+    private void detachFromParent(long id) {
+        Long parentId = parentsById.get(id);
+        if (parentId != null) {
+            Set<Long> siblings = childrenById.get(parentId);
+            if (siblings != null) {
+                siblings.remove(id);
+            }
+        }
+    }
+
+}
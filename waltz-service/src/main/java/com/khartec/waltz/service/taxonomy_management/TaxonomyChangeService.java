@@ -33,14 +33,23 @@ import com.khartec.waltz.service.entity_hierarchy.EntityHierarchyService;
 import com.khartec.waltz.service.measurable.MeasurableService;
 import com.khartec.waltz.service.measurable_category.MeasurableCategoryService;
 import com.khartec.waltz.service.user.UserRoleService;
+import com.khartec.waltz.service.user_contribution.UserContributionService;
+import org.jooq.DSLContext;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import static com.khartec.waltz.common.Checks.*;
+import static com.khartec.waltz.common.CollectionUtilities.first;
+import static com.khartec.waltz.common.MapUtilities.indexBy;
+import static com.khartec.waltz.common.SetUtilities.map;
+import static java.lang.String.format;
+import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toMap;
 import static org.jooq.lambda.tuple.Tuple.tuple;
 
@@ -54,6 +63,8 @@ public class TaxonomyChangeService {
     private final MeasurableCategoryService measurableCategoryService;
     private final MeasurableService measurableService;
     private final EntityHierarchyService entityHierarchyService;
+    private final UserContributionService userContributionService;
+    private final DSLContext dsl;
 
 
     @Autowired
@@ -63,9 +74,13 @@ public class TaxonomyChangeService {
                                  UserRoleService userRoleService,
                                  List<TaxonomyCommandProcessor> processors,
                                  MeasurableService measurableService,
-                                 EntityHierarchyService entityHierarchyService) {
+                                 EntityHierarchyService entityHierarchyService,
+                                 UserContributionService userContributionService,
+                                 DSLContext dsl) {
         checkNotNull(taxonomyChangeDao, "taxonomyChangeDao cannot be null");
         checkNotNull(clientCacheKeyService, "clientCacheKeyService cannot be null");
+        checkNotNull(userContributionService, "userContributionService cannot be null");
+        checkNotNull(dsl, "dsl cannot be null");
         this.clientCacheKeyService = clientCacheKeyService;
         this.taxonomyChangeDao = taxonomyChangeDao;
         this.userRoleService = userRoleService;
@@ -78,6 +93,8 @@ public class TaxonomyChangeService {
                 .collect(toMap(t -> t.v1, t -> t.v2));
         this.measurableService = measurableService;
         this.entityHierarchyService = entityHierarchyService;
+        this.userContributionService = userContributionService;
+        this.dsl = dsl;
     }
 
 
@@ -130,9 +147,9 @@ public class TaxonomyChangeService {
 
         updatedCommand = taxonomyChangeDao.update(updatedCommand);
 
-        // rebuild measurable hierarchy
+        // additions and moves patch the measurable hierarchy incrementally (see MeasurableService)
         if (command.changeDomain().kind() == EntityKind.MEASURABLE_CATEGORY
-                && isHierarchyChange(command)) {
+                && requiresHierarchyRebuild(command)) {
             entityHierarchyService.buildForMeasurableByCategory(command.changeDomain().id());
         }
 
@@ -140,12 +157,100 @@ public class TaxonomyChangeService {
     }
 
 
+    /**
+     * Applies a batch of draft commands (all for the same domain) in the
+     * given order.  The whole batch is validated up front, against an
+     * in-memory copy of the taxonomy, and then applied in a single
+     * transaction - if any command fails none are applied.  Hierarchy
+     * maintenance is deferred until the end of the batch: additions and
+     * moves rewrite the closure of each affected subtree once, batches
+     * containing removals rebuild the category's closure once.
+     *
+     * The commands update resident state (search index, name cache,
+     * hierarchy index, contribution counts) as they go, before the
+     * transaction commits.  That state is therefore refreshed once the
+     * transaction completes, discarding any rolled back changes.
+     *
+     * @param ids  ids of draft commands, in the order they should be applied
+     * @param userId  user applying the changes
+     * @return  the updated commands
+     */
+    public List<TaxonomyChangeCommand> applyByIds(List<Long> ids, String userId) {
+        checkNotEmpty(ids, "ids cannot be empty");
+
+        Map<Long, TaxonomyChangeCommand> commandsById = indexBy(
+                c -> c.id().orElse(null),
+                taxonomyChangeDao.findDraftCommandsByIds(ids));
+
+        List<TaxonomyChangeCommand> commands = ids
+                .stream()
+                .distinct()
+                .map(id -> {
+                    TaxonomyChangeCommand command = commandsById.get(id);
+                    checkNotNull(command, "Cannot find draft taxonomy change: %d", id);
+                    return command;
+                })
+                .collect(toList());
+
+        Set<EntityReference> domains = map(commands, TaxonomyChangeCommand::changeDomain);
+        checkTrue(domains.size() == 1, "All taxonomy changes in a batch must be for the same domain, found: %s", domains);
+        EntityReference domain = first(domains);
+        checkTrue(domain.kind() == EntityKind.MEASURABLE_CATEGORY, "Batches of taxonomy changes are only supported for measurable categories");
+
+        verifyUserHasPermissions(userId, domain);
+        validateBatch(domain, commands);
+
+        boolean requiresRebuild = commands
+                .stream()
+                .anyMatch(this::requiresHierarchyRebuild);
+
+        List<TaxonomyChangeCommand> updatedCommands;
+        try {
+            updatedCommands = dsl.transactionResult(() -> entityHierarchyService.deferMaintenance(() -> {
+                List<TaxonomyChangeCommand> updated = commands
+                        .stream()
+                        .map(command -> {
+                            TaxonomyChangeCommand updatedCommand = getCommandProcessor(command).apply(command, userId);
+                            checkTrue(
+                                    updatedCommand.status() == TaxonomyChangeLifecycleStatus.EXECUTED,
+                                    "Taxonomy change: %s could not be applied, no changes in the batch have been made",
+                                    command.id().orElse(null));
+                            return taxonomyChangeDao.update(updatedCommand);
+                        })
+                        .collect(toList());
+
+                if (requiresRebuild) {
+                    // supersedes the deferred incremental changes
+                    entityHierarchyService.buildForMeasurableByCategory(domain.id());
+                }
+
+                return updated;
+            }));
+        } catch (RuntimeException e) {
+            refreshResidentState();
+            // change log rows written by the batch were rolled back too
+            userContributionService.reloadContributionCounts();
+            throw e;
+        }
+
+        refreshResidentState();
+        clientCacheKeyService.createOrUpdate("TAXONOMY");
+        return updatedCommands;
+    }
+
+
     public boolean removeById(long id, String userId) {
         verifyUserHasPermissions(userId);
         return taxonomyChangeDao.removeById(id, userId);
     }
 
 
+    private void refreshResidentState() {
+        measurableService.invalidateCaches();
+        entityHierarchyService.reloadIndex(EntityKind.MEASURABLE);
+    }
+
+
     private TaxonomyCommandProcessor getCommandProcessor(TaxonomyChangeCommand command) {
         TaxonomyCommandProcessor processor = processorsByType.get(command.changeType());
         checkNotNull(processor, "Cannot find processor for type: %s", command.changeType());
@@ -170,6 +275,25 @@ public class TaxonomyChangeService {
         }
     }
 
+    private void validateBatch(EntityReference domain, List<TaxonomyChangeCommand> commands) {
+        List<String> problems = new ArrayList<>();
+
+        commands.forEach(command -> {
+            if (! processorsByType.containsKey(command.changeType())) {
+                problems.add(format("Change %s: unsupported change type %s", command.id().orElse(null), command.changeType()));
+            }
+        });
+
+        problems.addAll(new TaxonomyChangeBatchValidator(measurableService.findByCategoryId(domain.id()))
+                .validate(commands));
+
+        checkTrue(
+                problems.isEmpty(),
+                "Cannot apply taxonomy changes, no changes have been made: %s",
+                String.join("; ", problems));
+    }
+
+
     private boolean isMoveToSameParent(TaxonomyChangeCommand command) {
         String destinationId = command.params().get("destinationId");
         if(isMovingToANode(command, destinationId)) {
@@ -195,10 +319,7 @@ public class TaxonomyChangeService {
     }
 
 
-    private boolean isHierarchyChange(TaxonomyChangeCommand command) {
-        return command.changeType() == TaxonomyChangeType.ADD_CHILD
-                || command.changeType() == TaxonomyChangeType.ADD_PEER
-                || command.changeType() == TaxonomyChangeType.REMOVE
-                || command.changeType() == TaxonomyChangeType.MOVE;
+    private boolean requiresHierarchyRebuild(TaxonomyChangeCommand command) {
+        return command.changeType() == TaxonomyChangeType.REMOVE;
     }
 }
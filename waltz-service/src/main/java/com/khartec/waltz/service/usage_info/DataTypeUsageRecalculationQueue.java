@@ -0,0 +1,285 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package com.khartec.waltz.service.usage_info;
+
+import com.khartec.waltz.data.data_type_usage.DataTypeUsageDao;
+import com.khartec.waltz.model.EntityKind;
+import com.khartec.waltz.model.EntityReference;
+import org.jooq.impl.DSL;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static com.khartec.waltz.common.Checks.checkNotNull;
+import static com.khartec.waltz.common.Checks.checkTrue;
+import static com.khartec.waltz.schema.tables.Actor.ACTOR;
+import static com.khartec.waltz.schema.tables.Application.APPLICATION;
+
+
+/**
+ * Queue of applications and actors whose data type usages need
+ * recalculating.
+ *
+ * Writers (typically flow and decorator edits) enqueue the affected entities
+ * and return immediately.  The queue is periodically flushed, recalculating
+ * usages for the (de-duplicated) pending entities in batches.  Flushes do
+ * not overlap with each other, or with a full recalculation (see
+ * <code>runExclusively</code>), and entities last enqueued before a full
+ * recalculation started are discarded once it completes.
+ */
+@Service
+public class DataTypeUsageRecalculationQueue {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DataTypeUsageRecalculationQueue.class);
+
+    private final DataTypeUsageDao dataTypeUsageDao;
+    private final int maxBatchSize;
+
+    private final Map<EntityReference, PendingEntry> pending = new ConcurrentHashMap<>();
+    private final ReentrantLock recalculationLock = new ReentrantLock();
+
+    private final AtomicLong recalculatedCount = new AtomicLong();
+    private final AtomicLong failedFlushCount = new AtomicLong();
+    private volatile long lastFlushDurationMillis = 0;
+
+
+    @Autowired
+    public DataTypeUsageRecalculationQueue(DataTypeUsageDao dataTypeUsageDao,
+                                           @Value("${waltz.data_type_usage.recalc.batch.size:500}") int maxBatchSize) {
+        checkNotNull(dataTypeUsageDao, "dataTypeUsageDao cannot be null");
+        checkTrue(maxBatchSize > 0, "maxBatchSize must be positive");
+
+        this.dataTypeUsageDao = dataTypeUsageDao;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+
+    /**
+     * Registers the given entities as requiring recalculation.  Only
+     * applications and actors are queued, other kinds are ignored.
+     *
+     * @param refs  entities whose usages may have changed
+     * @return  number of entities newly added to the queue
+     */
+    public int enqueue(Collection<EntityReference> refs) {
+        checkNotNull(refs, "refs cannot be null");
+        long now = System.currentTimeMillis();
+
+        int added = 0;
+        for (EntityReference ref : refs) {
+            if (! isSupported(ref)) {
+                continue;
+            }
+            PendingEntry entry = new PendingEntry(now, now);
+            if (pending.merge(ref, entry, PendingEntry::combine) == entry) {
+                added++;
+            }
+        }
+        return added;
+    }
+
+
+    /**
+     * Recalculates usages for all pending entities.  If a flush (or full
+     * recalculation) is already in progress this call returns immediately,
+     * the pending entities will be picked up by the next flush.
+     *
+     * @return  number of entities recalculated
+     */
+    @Scheduled(fixedDelayString = "${waltz.data_type_usage.recalc.flush.millis:2000}")
+    public int flush() {
+        if (pending.isEmpty() || ! recalculationLock.tryLock()) {
+            return 0;
+        }
+
+        try {
+            long start = System.currentTimeMillis();
+            int count = 0;
+
+            while (! pending.isEmpty()) {
+                Map<EntityReference, PendingEntry> batch = takeBatch();
+                try {
+                    recalculate(batch.keySet());
+                    count += batch.size();
+                } catch (Exception e) {
+                    LOG.warn("Failed to recalculate data type usages for {} entities, will retry", batch.size(), e);
+                    failedFlushCount.incrementAndGet();
+                    batch.forEach((ref, entry) -> pending.merge(ref, entry, PendingEntry::combine));
+                    break;
+                }
+            }
+
+            recalculatedCount.addAndGet(count);
+            lastFlushDurationMillis = System.currentTimeMillis() - start;
+            LOG.debug("Recalculated data type usages for {} entities in {}ms", count, lastFlushDurationMillis);
+            return count;
+        } finally {
+            recalculationLock.unlock();
+        }
+    }
+
+
+    /**
+     * Runs a full recalculation whilst holding the queue lock (so no flush
+     * runs concurrently).  Entities last enqueued before the recalculation
+     * started are covered by it and are removed from the queue, entities
+     * enqueued again whilst it ran remain queued.
+     *
+     * @param fullRecalculation  recalculation to run
+     * @param <T>  result type of the recalculation
+     * @return  result of the recalculation
+     */
+    public <T> T runExclusively(Supplier<T> fullRecalculation) {
+        checkNotNull(fullRecalculation, "fullRecalculation cannot be null");
+
+        recalculationLock.lock();
+        try {
+            long start = System.currentTimeMillis();
+            T result = fullRecalculation.get();
+            pending.values().removeIf(entry -> entry.lastEnqueuedAt < start);
+            return result;
+        } finally {
+            recalculationLock.unlock();
+        }
+    }
+
+
+    // --- metrics ---
+
+    public int getDepth() {
+        return pending.size();
+    }
+
+
+    /**
+     * @return  time (millis) the oldest pending entity has been waiting, or 0 if the queue is empty
+     */
+    public long getLagMillis() {
+        OptionalLong oldest = pending
+                .values()
+                .stream()
+                .mapToLong(entry -> entry.firstEnqueuedAt)
+                .min();
+        return oldest.isPresent()
+                ? System.currentTimeMillis() - oldest.getAsLong()
+                : 0;
+    }
+
+
+    public long getRecalculatedCount() {
+        return recalculatedCount.get();
+    }
+
+
+    public long getFailedFlushCount() {
+        return failedFlushCount.get();
+    }
+
+
+    public long getLastFlushDurationMillis() {
+        return lastFlushDurationMillis;
+    }
+
+
+    // --- helpers ---
+
+    private static boolean isSupported(EntityReference ref) {
+        return ref.kind() == EntityKind.APPLICATION || ref.kind() == EntityKind.ACTOR;
+    }
+
+
+    private Map<EntityReference, PendingEntry> takeBatch() {
+        Map<EntityReference, PendingEntry> batch = new HashMap<>();
+        Iterator<EntityReference> iterator = pending.keySet().iterator();
+        while (iterator.hasNext() && batch.size() < maxBatchSize) {
+            EntityReference ref = iterator.next();
+            PendingEntry entry = pending.remove(ref);
+            if (entry != null) {
+                batch.put(ref, entry);
+            }
+        }
+        return batch;
+    }
+
+
+    private void recalculate(Collection<EntityReference> refs) {
+        Set<Long> appIds = idsOfKind(refs, EntityKind.APPLICATION);
+        Set<Long> actorIds = idsOfKind(refs, EntityKind.ACTOR);
+
+        if (! appIds.isEmpty()) {
+            dataTypeUsageDao.recalculateForIdSelector(
+                    EntityKind.APPLICATION,
+                    DSL.select(APPLICATION.ID)
+                            .from(APPLICATION)
+                            .where(APPLICATION.ID.in(appIds)));
+        }
+
+        if (! actorIds.isEmpty()) {
+            dataTypeUsageDao.recalculateForIdSelector(
+                    EntityKind.ACTOR,
+                    DSL.select(ACTOR.ID)
+                            .from(ACTOR)
+                            .where(ACTOR.ID.in(actorIds)));
+        }
+    }
+
+
+    private static Set<Long> idsOfKind(Collection<EntityReference> refs, EntityKind kind) {
+        return refs
+                .stream()
+                .filter(r -> r.kind() == kind)
+                .map(EntityReference::id)
+                .collect(Collectors.toSet());
+    }
+
+
+    /**
+     * Times (millis) an entity was first enqueued (for the lag metric) and
+     * last enqueued (to decide if a full recalculation has covered it).
+     */
+    private static final class PendingEntry {
+
+        private final long firstEnqueuedAt;
+        private final long lastEnqueuedAt;
+
+
+        private PendingEntry(long firstEnqueuedAt, long lastEnqueuedAt) {
+            this.firstEnqueuedAt = firstEnqueuedAt;
+            this.lastEnqueuedAt = lastEnqueuedAt;
+        }
+
+
+        private static PendingEntry combine(PendingEntry a, PendingEntry b) {
+            return new PendingEntry(
+                    Math.min(a.firstEnqueuedAt, b.firstEnqueuedAt),
+                    Math.max(a.lastEnqueuedAt, b.lastEnqueuedAt));
+        }
+    }
+
+}
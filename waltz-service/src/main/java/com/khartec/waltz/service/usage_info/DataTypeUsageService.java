@@ -33,43 +33,48 @@ import com.khartec.waltz.model.usage_info.UsageKind;
 import com.khartec.waltz.service.changelog.ChangeLogService;
 import org.jooq.Record1;
 import org.jooq.Select;
-import org.jooq.impl.DSL;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.stream.Collectors;
 
 import static com.khartec.waltz.common.Checks.checkNotNull;
 import static com.khartec.waltz.common.CollectionUtilities.*;
 import static com.khartec.waltz.common.SetUtilities.fromCollection;
 import static com.khartec.waltz.model.usage_info.UsageInfoUtilities.mkChangeSet;
-import static com.khartec.waltz.schema.tables.Actor.ACTOR;
-import static com.khartec.waltz.schema.tables.Application.APPLICATION;
 
 @Service
 public class DataTypeUsageService {
 
     private final DataTypeUsageDao dataTypeUsageDao;
     private final DataTypeDao dataTypeDao;
-    private final ApplicationIdSelectorFactory appIdSelectorFactor = new ApplicationIdSelectorFactory();
-    private final DataTypeIdSelectorFactory dataTypeIdSelectorFactory = new DataTypeIdSelectorFactory();
+    private final ApplicationIdSelectorFactory appIdSelectorFactor;
+    private final DataTypeIdSelectorFactory dataTypeIdSelectorFactory;
     private final ChangeLogService changeLogService;
+    private final DataTypeUsageRecalculationQueue recalculationQueue;
 
 
     @Autowired
     public DataTypeUsageService(DataTypeUsageDao dataTypeUsageDao,
                                 DataTypeDao dataTypeDao,
-                                ChangeLogService changeLogService) {
+                                ChangeLogService changeLogService,
+                                DataTypeUsageRecalculationQueue recalculationQueue,
+                                ApplicationIdSelectorFactory appIdSelectorFactor,
+                                DataTypeIdSelectorFactory dataTypeIdSelectorFactory) {
         checkNotNull(dataTypeUsageDao, "dataTypeUsageDao cannot be null");
         checkNotNull(dataTypeDao, "dataTypeDao cannot be null");
         checkNotNull(changeLogService, "changeLogService cannot be null");
+        checkNotNull(recalculationQueue, "recalculationQueue cannot be null");
+        checkNotNull(appIdSelectorFactor, "appIdSelectorFactor cannot be null");
+        checkNotNull(dataTypeIdSelectorFactory, "dataTypeIdSelectorFactory cannot be null");
         this.dataTypeUsageDao = dataTypeUsageDao;
         this.dataTypeDao = dataTypeDao;
         this.changeLogService = changeLogService;
+        this.recalculationQueue = recalculationQueue;
+        this.appIdSelectorFactor = appIdSelectorFactor;
+        this.dataTypeIdSelectorFactory = dataTypeIdSelectorFactory;
     }
 
 
@@ -146,46 +151,21 @@ public class DataTypeUsageService {
 
 
     public boolean recalculateForAllApplications() {
-        return dataTypeUsageDao.recalculateForAllApplications();
+        return recalculationQueue.runExclusively(dataTypeUsageDao::recalculateForAllApplications);
     }
 
 
+    /**
+     * Queues the given applications/actors for recalculation, the work is
+     * performed asynchronously by the <code>DataTypeUsageRecalculationQueue</code>.
+     *
+     * @param refs  applications/actors whose usages may have changed
+     * @return  true (the refs are always accepted)
+     */
     public boolean recalculateForApplications(Collection<EntityReference> refs) {
         checkNotNull(refs, "refs cannot be null");
-        Set<Long> appIds = refs
-                .stream()
-                .filter(r -> r.kind() == EntityKind.APPLICATION)
-                .map(EntityReference::id)
-                .collect(Collectors.toSet());
-
-        Set<Long> actorIds = refs
-                .stream()
-                .filter(r -> r.kind() == EntityKind.ACTOR)
-                .map(EntityReference::id)
-                .collect(Collectors.toSet());
-
-        if (isEmpty(appIds) && isEmpty(actorIds)) {
-            return true;
-        } else {
-            Select<Record1<Long>> appIdSelector = convertApplicationIdsToIdSelector(appIds);
-            Select<Record1<Long>> actorIdSelector = convertActorIdsToIdSelector(actorIds);
-            return dataTypeUsageDao.recalculateForIdSelector(EntityKind.APPLICATION, appIdSelector) &&
-                    dataTypeUsageDao.recalculateForIdSelector(EntityKind.ACTOR, actorIdSelector);
-        }
-    }
-
-
-    private Select<Record1<Long>> convertApplicationIdsToIdSelector(Set<Long> appIds) {
-        return DSL.select(APPLICATION.ID)
-                .from(APPLICATION)
-                .where(APPLICATION.ID.in(appIds));
-    }
-
-
-    private Select<Record1<Long>> convertActorIdsToIdSelector(Set<Long> actorIds) {
-        return DSL.select(ACTOR.ID)
-                .from(ACTOR)
-                .where(ACTOR.ID.in(actorIds));
+        recalculationQueue.enqueue(refs);
+        return true;
     }
 
 
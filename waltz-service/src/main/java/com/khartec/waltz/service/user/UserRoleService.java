@@ -18,6 +18,7 @@
 
 package com.khartec.waltz.service.user;
 
+import com.khartec.waltz.common.ExpiringCache;
 import com.khartec.waltz.common.SetUtilities;
 import com.khartec.waltz.data.user.UserRoleDao;
 import com.khartec.waltz.model.EntityKind;
@@ -33,11 +34,15 @@ import com.khartec.waltz.service.person.PersonService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import static com.khartec.waltz.common.Checks.checkNotNull;
 import static com.khartec.waltz.common.CollectionUtilities.sort;
@@ -59,15 +64,27 @@ public class UserRoleService {
 
     private final PersonService personService;
 
+    /**
+     * Roles keyed by (lower cased) user name.  Role lookups happen several
+     * times per write request so we hold them briefly rather than hitting
+     * the database each time.  Entries are evicted whenever roles are
+     * updated via this service.
+     */
+    private final ExpiringCache<String, Set<String>> rolesByUserName;
+
 
     @Autowired
     public UserRoleService(UserRoleDao userRoleDao,
-                           ChangeLogService changeLogService, PersonService personService) {
+                           ChangeLogService changeLogService,
+                           PersonService personService,
+                           @Value("${waltz.user.roles.cache.ttl.seconds:60}") int cacheTtlSeconds,
+                           @Value("${waltz.user.roles.cache.max.size:5000}") int cacheMaxSize) {
         this.personService = personService;
         checkNotNull(userRoleDao, "userRoleDao must not be null");
 
         this.userRoleDao = userRoleDao;
         this.changeLogService = changeLogService;
+        this.rolesByUserName = new ExpiringCache<>(cacheTtlSeconds, TimeUnit.SECONDS, cacheMaxSize);
     }
 
 
@@ -83,7 +100,7 @@ public class UserRoleService {
 
 
     public boolean hasRole(String userName, Set<String> requiredRoles) {
-        Set<String> userRoles = userRoleDao.getUserRoles(userName);
+        Set<String> userRoles = getUserRoles(userName);
         return userRoles.containsAll(requiredRoles);
     }
 
@@ -98,7 +115,7 @@ public class UserRoleService {
     }
 
     public boolean hasAnyRole(String userName, Set<String> requiredRoles) {
-        Set<String> userRoles = userRoleDao.getUserRoles(userName);
+        Set<String> userRoles = getUserRoles(userName);
         return ! SetUtilities.intersection(userRoles, requiredRoles)
                     .isEmpty();
     }
@@ -112,7 +129,7 @@ public class UserRoleService {
     public User getByUserId(String userId) {
         return ImmutableUser.builder()
                 .userName(userId)
-                .addAllRoles(userRoleDao.getUserRoles(userId))
+                .addAllRoles(getUserRoles(userId))
                 .build();
     }
 
@@ -139,12 +156,48 @@ public class UserRoleService {
             changeLogService.write(logEntry);
         }
 
-        return userRoleDao.updateRoles(targetUserName, newRoles);
+        boolean result = userRoleDao.updateRoles(targetUserName, newRoles);
+        evictCachedRoles(targetUserName);
+        return result;
     }
 
 
     public Set<String> getUserRoles(String userName) {
-        return userRoleDao.getUserRoles(userName);
+        if (userName == null) {
+            return userRoleDao.getUserRoles(null);
+        }
+        return rolesByUserName.get(
+                mkCacheKey(userName),
+                k -> Collections.unmodifiableSet(userRoleDao.getUserRoles(userName)));
+    }
+
+
+    /**
+     * Removes any cached roles for the given user.  Must be called by
+     * anything which modifies user roles without going via this service.
+     *
+     * @param userName  user whose roles have changed
+     */
+    public void evictCachedRoles(String userName) {
+        if (userName != null) {
+            rolesByUserName.invalidate(mkCacheKey(userName));
+        }
+    }
+
+
+    public void evictAllCachedRoles() {
+        rolesByUserName.invalidateAll();
+    }
+
+
+    public ExpiringCache<String, Set<String>> getRoleCache() {
+        return rolesByUserName;
+    }
+
+
+    private static String mkCacheKey(String userName) {
+        // role lookups are case insensitive, see UserRoleDao.getUserRoles
+        return userName.toLowerCase(Locale.ROOT);
     }
 
 }
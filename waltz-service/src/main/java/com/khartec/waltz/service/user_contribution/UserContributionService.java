@@ -24,7 +24,9 @@ import com.khartec.waltz.data.person.PersonDao;
 import com.khartec.waltz.model.person.Person;
 import com.khartec.waltz.model.tally.OrderedTally;
 import com.khartec.waltz.model.tally.Tally;
+import org.jooq.lambda.tuple.Tuple2;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.util.Collections;
@@ -34,7 +36,7 @@ import static com.khartec.waltz.common.Checks.checkNotEmpty;
 import static com.khartec.waltz.common.Checks.checkNotNull;
 import static com.khartec.waltz.common.ListUtilities.map;
 import static com.khartec.waltz.common.ListUtilities.newArrayList;
-import static com.khartec.waltz.service.user_contribution.UserContributionUtilities.getOrderedListOf10;
+import static com.khartec.waltz.service.user_contribution.UserContributionUtilities.findWindowBounds;
 
 @Service
 public class UserContributionService {
@@ -61,12 +63,25 @@ public class UserContributionService {
         return changeLogDao.getContributionLeaderBoardLastMonth(limit);
     }
 
+    /**
+     * @param userId  user to focus on
+     * @return  ten contributors ranked around the user (or the top ten if the user has not contributed)
+     */
     public List<OrderedTally<String>> getRankedLeaderBoard(String userId) {
 
-        List<OrderedTally<String>> contributors = changeLogDao.getRankingOfContributors();
-        List<OrderedTally<String>> orderedListContributors = getOrderedListOf10(contributors, userId);
+        int contributorCount = changeLogDao.countContributors();
+        int userRank = changeLogDao
+                .getContributionRank(userId)
+                .map(t -> t.index())
+                .orElse(0);
 
-        return orderedListContributors;
+        Tuple2<Integer, Integer> bounds = findWindowBounds(contributorCount, userRank, 10);
+        int fromRank = Math.max(1, bounds.v1);
+        int toRank = Math.min(contributorCount, bounds.v2);
+
+        return fromRank > toRank
+                ? Collections.emptyList()
+                : changeLogDao.findContributorsByRank(fromRank, toRank - fromRank + 1);
     }
 
 
@@ -79,6 +94,12 @@ public class UserContributionService {
     }
 
 
+    @Scheduled(fixedDelayString = "${waltz.contribution.counts.reload.millis:3600000}")
+    public void reloadContributionCounts() {
+        changeLogDao.reloadContributionCounts();
+    }
+
+
     public List<Tally<String>> findScoresForDirectReports(String userId) {
         checkNotEmpty(userId, "userId cannot be empty");
 
@@ -18,33 +18,41 @@
 
 package com.khartec.waltz.service.user_contribution;
 
-import com.khartec.waltz.model.tally.OrderedTally;
+import org.jooq.lambda.tuple.Tuple2;
 
 import java.util.List;
-import java.util.Optional;
 import java.util.stream.Collectors;
 
+import static org.jooq.lambda.tuple.Tuple.tuple;
+
 public class UserContributionUtilities {
 
+    public static <T> List<T> findWindow(List<T> list, int windowFocus, int windowSize) {
 
+        Tuple2<Integer, Integer> bounds = findWindowBounds(list.size(), windowFocus, windowSize);
 
-    public static List<OrderedTally<String>> getOrderedListOf10(List<OrderedTally<String>> list, String userId){
+        int finalLowerBound = bounds.v1;
+        int finalUpperBound = bounds.v2;
 
-        Optional<OrderedTally<String>> tallyForUserId = list
+        List<T> orderedList = list
                 .stream()
-                .filter(d -> d.id().equals(userId))
-                .findFirst();
-
-        int userRank = tallyForUserId.map(t -> t.index()).orElse(0);
-
-        List<OrderedTally<String>> subsectionOrderedList = findWindow(list, userRank, 10);
+                .filter(d -> list.indexOf(d) >= (finalLowerBound - 1)
+                && list.indexOf(d) <= (finalUpperBound - 1))
+                .collect(Collectors.toList());
 
-        return subsectionOrderedList;
+        return orderedList;
     }
 
-    public static <T> List<T> findWindow(List<T> list, int windowFocus, int windowSize) {
 
-        int maxRange = list.size();
+    /**
+     * Determines the (one-based, inclusive) positions of a window of the
+     * given size centred on the focus.  The window is shifted to fit within
+     * the list where the focus is near either end.  Bounds may lie outside
+     * the list if the list is smaller than the window.
+     */
+    public static Tuple2<Integer, Integer> findWindowBounds(int listSize, int windowFocus, int windowSize) {
+
+        int maxRange = listSize;
         int minRange = 1;
 
         int range;
@@ -69,16 +77,7 @@ public class UserContributionUtilities {
             upperBound = maxRange;
         }
 
-        int finalUpperBound = upperBound;
-        int finalLowerBound = lowerBound;
-
-        List<T> orderedList = list
-                .stream()
-                .filter(d -> list.indexOf(d) >= (finalLowerBound - 1)
-                && list.indexOf(d) <= (finalUpperBound - 1))
-                .collect(Collectors.toList());
-
-        return orderedList;
+        return tuple(lowerBound, upperBound);
     }
 
 }
@@ -0,0 +1,164 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package com.khartec.waltz.service.authoritative_source;
+
+import com.khartec.waltz.model.EntityKind;
+import com.khartec.waltz.model.EntityReference;
+import com.khartec.waltz.model.authoritativesource.AuthoritativeRatingVantagePoint;
+import com.khartec.waltz.model.authoritativesource.ImmutableAuthoritativeRatingVantagePoint;
+import com.khartec.waltz.model.rating.AuthoritativenessRating;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static com.khartec.waltz.common.ListUtilities.newArrayList;
+import static com.khartec.waltz.model.rating.AuthoritativenessRating.*;
+import static com.khartec.waltz.service.authoritative_source.FlowRatingTable.NONE;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class FlowRatingTableTest {
+
+    /*
+     * org units:  1 +- 2        data types:  10 +- 11
+     */
+    private static long[] orgUnitAncestors(long id) {
+        return id == 2 ? new long[] {1, 2} : new long[] {id};
+    }
+
+
+    private static long[] dataTypeAncestors(long id) {
+        return id == 11 ? new long[] {10, 11} : new long[] {id};
+    }
+
+
+    private final List<AuthoritativeRatingVantagePoint> vantagePoints = newArrayList(
+            mkDeclaration(EntityReference.mkRef(EntityKind.ORG_UNIT, 1), 1, 10, 100, 1, PRIMARY),
+            mkDeclaration(EntityReference.mkRef(EntityKind.ORG_UNIT, 2), 2, 10, 200, 2, SECONDARY));
+
+
+    @Test
+    public void mostSpecificVantagePointIsAppliedFirst() {
+        FlowRatingTable table = new FlowRatingTable(4);
+        table.add(1, 200, EntityKind.APPLICATION, 1000, 2, 11, NO_OPINION, NONE);
+        table.add(2, 300, EntityKind.APPLICATION, 1001, 1, 10, NO_OPINION, NONE);
+
+        calculate(table, Collections.emptyList());
+
+        assertEquals(SECONDARY, table.getCalculatedRating(0));
+        assertEquals(2, table.getCalculatedAuthSourceId(0));
+        assertEquals(DISCOURAGED, table.getCalculatedRating(1));
+        assertEquals(1, table.getCalculatedAuthSourceId(1));
+    }
+
+
+    @Test
+    public void discouragedDecoratorsCanBeRatedByLessSpecificVantagePoints() {
+        FlowRatingTable table = new FlowRatingTable(4);
+        table.add(1, 100, EntityKind.APPLICATION, 1000, 2, 11, NO_OPINION, NONE);
+
+        calculate(table, Collections.emptyList());
+
+        assertEquals(PRIMARY, table.getCalculatedRating(0));
+        assertEquals(1, table.getCalculatedAuthSourceId(0));
+    }
+
+
+    @Test
+    public void decoratorsOutsideAnyVantagePointAreResetToNoOpinion() {
+        FlowRatingTable table = new FlowRatingTable(4);
+        table.add(1, 100, EntityKind.ACTOR, 50, NONE, 10, PRIMARY, 5);
+
+        calculate(table, Collections.emptyList());
+
+        assertEquals(NO_OPINION, table.getCalculatedRating(0));
+        assertEquals(NONE, table.getCalculatedAuthSourceId(0));
+    }
+
+
+    @Test
+    public void pointToPointDeclarationsOverrideVantagePoints() {
+        FlowRatingTable table = new FlowRatingTable(4);
+        table.add(1, 300, EntityKind.ACTOR, 50, NONE, 11, NO_OPINION, NONE);
+        table.add(2, 300, EntityKind.ACTOR, 51, NONE, 11, NO_OPINION, NONE);
+
+        calculate(table, newArrayList(
+                mkDeclaration(EntityReference.mkRef(EntityKind.ACTOR, 50), 0, 10, 300, 3, PRIMARY)));
+
+        assertEquals(PRIMARY, table.getCalculatedRating(0));
+        assertEquals(3, table.getCalculatedAuthSourceId(0));
+        assertEquals(NO_OPINION, table.getCalculatedRating(1));
+    }
+
+
+    @Test
+    public void onlyChangedRowsAreReported() {
+        FlowRatingTable table = new FlowRatingTable(1);
+        table.add(1, 200, EntityKind.APPLICATION, 1000, 2, 11, SECONDARY, 2);
+        table.add(2, 300, EntityKind.APPLICATION, 1001, 1, 10, NO_OPINION, NONE);
+        table.add(3, 200, EntityKind.APPLICATION, 1002, 2, 11, SECONDARY, 1);
+
+        int changeCount = calculate(table, Collections.emptyList());
+
+        assertEquals(2, changeCount);
+        assertArrayEquals(new int[] {1, 2}, table.findChangedRows());
+        assertEquals(NONE, table.getAuthSourceId(1));
+        assertEquals(1, table.getAuthSourceId(2));
+    }
+
+
+    @Test(expected = IllegalStateException.class)
+    public void calculatedValuesAreUnavailableBeforeCalculation() {
+        FlowRatingTable table = new FlowRatingTable(1);
+        table.add(1, 200, EntityKind.APPLICATION, 1000, 2, 11, SECONDARY, 2);
+        table.getCalculatedRating(0);
+    }
+
+
+    // -- helpers --
+
+    private int calculate(FlowRatingTable table, List<AuthoritativeRatingVantagePoint> pointToPoint) {
+        return table.calculate(
+                vantagePoints,
+                pointToPoint,
+                FlowRatingTableTest::orgUnitAncestors,
+                FlowRatingTableTest::dataTypeAncestors);
+    }
+
+
+    private static AuthoritativeRatingVantagePoint mkDeclaration(EntityReference vantagePoint,
+                                                                 int vantagePointRank,
+                                                                 long dataTypeId,
+                                                                 long appId,
+                                                                 long authSourceId,
+                                                                 AuthoritativenessRating rating) {
+        return ImmutableAuthoritativeRatingVantagePoint.builder()
+                .vantagePoint(vantagePoint)
+                .vantagePointRank(vantagePointRank)
+                .dataType(EntityReference.mkRef(EntityKind.DATA_TYPE, dataTypeId))
+                .dataTypeCode("DT_" + dataTypeId)
+                .dataTypeRank(dataTypeId == 11 ? 2 : 1)
+                .applicationId(appId)
+                .authSourceId(authSourceId)
+                .rating(rating)
+                .build();
+    }
+
+}
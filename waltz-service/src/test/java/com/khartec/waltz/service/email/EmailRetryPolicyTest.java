@@ -0,0 +1,61 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+package com.khartec.waltz.service.email;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class EmailRetryPolicyTest {
+
+    @Test
+    public void delayDoublesAfterEachAttempt() {
+        EmailRetryPolicy policy = new EmailRetryPolicy(5, 1000, 60_000);
+        assertEquals(1000, policy.delayMillis(1));
+        assertEquals(2000, policy.delayMillis(2));
+        assertEquals(4000, policy.delayMillis(3));
+        assertEquals(8000, policy.delayMillis(4));
+    }
+
+
+    @Test
+    public void delayIsCapped() {
+        EmailRetryPolicy policy = new EmailRetryPolicy(100, 1000, 60_000);
+        assertEquals(60_000, policy.delayMillis(7));
+        assertEquals(60_000, policy.delayMillis(99));
+        assertEquals(60_000, policy.delayMillis(Integer.MAX_VALUE));
+    }
+
+
+    @Test
+    public void givesUpOnceAttemptsAreExhausted() {
+        EmailRetryPolicy policy = new EmailRetryPolicy(3, 1000, 60_000);
+        assertTrue(policy.shouldRetry(1));
+        assertTrue(policy.shouldRetry(2));
+        assertFalse(policy.shouldRetry(3));
+    }
+
+
+    @Test(expected = IllegalArgumentException.class)
+    public void maxAttemptsMustBePositive() {
+        new EmailRetryPolicy(0, 1000, 60_000);
+    }
+
+}
@@ -0,0 +1,134 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+package com.khartec.waltz.service.entity_search;
+
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class EntitySearchExecutorTest {
+
+    @Test
+    public void resultsAreCombinedInTaskOrder() {
+        EntitySearchExecutor executor = new EntitySearchExecutor(4, 5_000);
+
+        Map<String, Callable<List<String>>> tasks = new LinkedHashMap<>();
+        tasks.put("a", () -> sleepThen(50, asList("a1", "a2")));
+        tasks.put("b", () -> asList("b1"));
+
+        assertEquals(asList("a1", "a2", "b1"), executor.execute(null, tasks));
+    }
+
+
+    @Test
+    public void slowTasksAreOmittedOnceDeadlinePasses() {
+        EntitySearchExecutor executor = new EntitySearchExecutor(4, 100);
+
+        Map<String, Callable<List<String>>> tasks = new LinkedHashMap<>();
+        tasks.put("slow", () -> sleepThen(5_000, asList("slow")));
+        tasks.put("fast", () -> asList("fast"));
+
+        long start = System.currentTimeMillis();
+        List<String> result = executor.execute(null, tasks);
+
+        assertEquals(asList("fast"), result);
+        assertTrue(System.currentTimeMillis() - start < 2_000);
+    }
+
+
+    @Test
+    public void failingTasksAreOmitted() {
+        EntitySearchExecutor executor = new EntitySearchExecutor(4, 5_000);
+
+        Map<String, Callable<List<String>>> tasks = new LinkedHashMap<>();
+        tasks.put("bad", () -> { throw new IllegalStateException("boom"); });
+        tasks.put("good", () -> asList("good"));
+
+        assertEquals(asList("good"), executor.execute(null, tasks));
+    }
+
+
+    @Test
+    public void newerSearchCancelsStaleSearchForSameSession() throws InterruptedException {
+        EntitySearchExecutor executor = new EntitySearchExecutor(4, 10_000);
+        CountDownLatch staleStarted = new CountDownLatch(1);
+        AtomicReference<List<String>> staleResult = new AtomicReference<>();
+
+        Thread staleSearch = new Thread(() -> {
+            Map<String, Callable<List<String>>> tasks = new LinkedHashMap<>();
+            tasks.put("stale", () -> {
+                staleStarted.countDown();
+                return sleepThen(10_000, asList("stale"));
+            });
+            staleResult.set(executor.execute("bob", tasks));
+        });
+        staleSearch.start();
+        assertTrue(staleStarted.await(5, TimeUnit.SECONDS));
+
+        Map<String, Callable<List<String>>> tasks = new LinkedHashMap<>();
+        tasks.put("fresh", () -> asList("fresh"));
+        assertEquals(asList("fresh"), executor.execute("bob", tasks));
+
+        staleSearch.join(5_000);
+        assertEquals(Collections.emptyList(), staleResult.get());
+    }
+
+
+    @Test
+    public void searchesForOtherSessionsAreNotCancelled() throws InterruptedException {
+        EntitySearchExecutor executor = new EntitySearchExecutor(4, 10_000);
+        CountDownLatch otherStarted = new CountDownLatch(1);
+        AtomicReference<List<String>> otherResult = new AtomicReference<>();
+
+        Thread otherSearch = new Thread(() -> {
+            Map<String, Callable<List<String>>> tasks = new LinkedHashMap<>();
+            tasks.put("other", () -> {
+                otherStarted.countDown();
+                return sleepThen(200, asList("other"));
+            });
+            otherResult.set(executor.execute("bob/picker-1", tasks));
+        });
+        otherSearch.start();
+        assertTrue(otherStarted.await(5, TimeUnit.SECONDS));
+
+        Map<String, Callable<List<String>>> tasks = new LinkedHashMap<>();
+        tasks.put("fresh", () -> asList("fresh"));
+        assertEquals(asList("fresh"), executor.execute("bob/picker-2", tasks));
+        assertEquals(asList("fresh"), executor.execute(null, tasks));
+
+        otherSearch.join(5_000);
+        assertEquals(asList("other"), otherResult.get());
+    }
+
+
+    // -- helpers --
+
+    private static List<String> sleepThen(long millis, List<String> result) throws InterruptedException {
+        Thread.sleep(millis);
+        return result;
+    }
+
+}
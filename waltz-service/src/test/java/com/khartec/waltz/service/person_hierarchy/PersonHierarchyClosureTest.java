@@ -0,0 +1,87 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package com.khartec.waltz.service.person_hierarchy;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PersonHierarchyClosureTest {
+
+    @Test
+    public void closureContainsAllManagersWithDepthAsLevel() {
+        Map<String, String> managers = new HashMap<>();
+        managers.put("ceo", null);
+        managers.put("cto", "ceo");
+        managers.put("dev", "cto");
+
+        PersonHierarchyClosure closure = PersonHierarchyClosure.build(managers);
+
+        assertEquals(3, closure.size());
+        assertLevel(closure, "ceo", "cto", 1);
+        assertLevel(closure, "ceo", "dev", 1);
+        assertLevel(closure, "cto", "dev", 2);
+        assertEquals(-1, closure.indexOf("dev", "ceo"));
+    }
+
+
+    @Test
+    public void selfManagedAndUnknownManagersAreTreatedAsRoots() {
+        Map<String, String> managers = new HashMap<>();
+        managers.put("a", "a");
+        managers.put("b", "a");
+        managers.put("c", "unknown");
+
+        PersonHierarchyClosure closure = PersonHierarchyClosure.build(managers);
+
+        assertEquals(1, closure.size());
+        assertLevel(closure, "a", "b", 1);
+        assertEquals(-1, closure.indexOf("unknown", "c"));
+    }
+
+
+    @Test
+    public void peopleInOrBeneathCyclesAreExcluded() {
+        Map<String, String> managers = new HashMap<>();
+        managers.put("x", "y");
+        managers.put("y", "x");
+        managers.put("z", "y");
+        managers.put("boss", null);
+        managers.put("minion", "boss");
+
+        PersonHierarchyClosure closure = PersonHierarchyClosure.build(managers);
+
+        assertEquals(3, closure.getCyclicCount());
+        assertEquals(1, closure.size());
+        assertLevel(closure, "boss", "minion", 1);
+    }
+
+
+    private static void assertLevel(PersonHierarchyClosure closure, String managerId, String employeeId, int expectedLevel) {
+        int pos = closure.indexOf(managerId, employeeId);
+        assertTrue(pos >= 0);
+        assertEquals(managerId, closure.getManagerId(pos));
+        assertEquals(employeeId, closure.getEmployeeId(pos));
+        assertEquals(expectedLevel, closure.getLevel(pos));
+    }
+}
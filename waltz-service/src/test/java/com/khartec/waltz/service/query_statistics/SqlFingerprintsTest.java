@@ -0,0 +1,90 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package com.khartec.waltz.service.query_statistics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class SqlFingerprintsTest {
+
+    @Test
+    public void literalsAndBindsBecomePlaceholders() {
+        assertEquals(
+                "select * from app where id = ? and name = ? and code = ?",
+                SqlFingerprints.fingerprint("select * from app where id = 42 and name = 'it''s' and code = ?"));
+    }
+
+
+    @Test
+    public void placeholderListsAreCollapsed() {
+        String fp = "select * from app where id in (?+)";
+        assertEquals(fp, SqlFingerprints.fingerprint("select * from app where id in (1, 2, 3)"));
+        assertEquals(fp, SqlFingerprints.fingerprint("select * from app where id in (?,?)"));
+        assertEquals("select * from app where id in (?)", SqlFingerprints.fingerprint("select * from app where id in (7)"));
+    }
+
+
+    @Test
+    public void placeholderRowListsAreCollapsed() {
+        String fp = "select ids.id from (values (?)+) as ids(id)";
+        assertEquals(fp, SqlFingerprints.fingerprint("select ids.id from (values (?), (?), (?)) as ids(id)"));
+        assertEquals(fp, SqlFingerprints.fingerprint("select ids.id from (values (1),(2)) as ids(id)"));
+        assertEquals(
+                "select ids.id from (values (?)) as ids(id)",
+                SqlFingerprints.fingerprint("select ids.id from (values (?)) as ids(id)"));
+        assertEquals(
+                "insert into t (a, b) values (?+)+",
+                SqlFingerprints.fingerprint("insert into t (a, b) values (1, 'x'), (2, 'y'), (3, 'z')"));
+    }
+
+
+    @Test
+    public void parenthesisedExpressionsAreNotCollapsed() {
+        assertEquals(
+                "select * from app where (a = ?) or (b = ?)",
+                SqlFingerprints.fingerprint("select * from app where (a = 1) or (b = 2)"));
+        assertEquals(
+                "select coalesce(a, ?), (?) from app",
+                SqlFingerprints.fingerprint("select coalesce(a, 1), (2) from app"));
+    }
+
+
+    @Test
+    public void digitsInIdentifiersAreRetained() {
+        assertEquals(
+                "select t1.col_2 from \"tab3\" t1 limit ?",
+                SqlFingerprints.fingerprint("select t1.col_2 from \"tab3\" t1 limit 10"));
+    }
+
+
+    @Test
+    public void whitespaceIsNormalized() {
+        assertEquals(
+                "select a from b where c = ?",
+                SqlFingerprints.fingerprint("  select a\n  from b\n\twhere c = 1.5  "));
+    }
+
+
+    @Test
+    public void nullGivesEmptyFingerprint() {
+        assertEquals("", SqlFingerprints.fingerprint(null));
+    }
+
+}
@@ -0,0 +1,115 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package com.khartec.waltz.service.taxonomy_management;
+
+import com.khartec.waltz.model.EntityKind;
+import com.khartec.waltz.model.measurable.ImmutableMeasurable;
+import com.khartec.waltz.model.measurable.Measurable;
+import com.khartec.waltz.model.taxonomy_management.ImmutableTaxonomyChangeCommand;
+import com.khartec.waltz.model.taxonomy_management.TaxonomyChangeCommand;
+import com.khartec.waltz.model.taxonomy_management.TaxonomyChangeType;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static com.khartec.waltz.common.ListUtilities.asList;
+import static com.khartec.waltz.common.MapUtilities.newHashMap;
+import static com.khartec.waltz.model.EntityReference.mkRef;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TaxonomyChangeBatchValidatorTest {
+
+    //  1
+    //  +-- 2
+    //  |   +-- 3
+    //  +-- 4
+    private final List<Measurable> measurables = asList(
+            mkMeasurable(1L, null),
+            mkMeasurable(2L, 1L),
+            mkMeasurable(3L, 2L),
+            mkMeasurable(4L, 1L));
+
+
+    @Test
+    public void validBatchHasNoProblems() {
+        List<String> problems = new TaxonomyChangeBatchValidator(measurables).validate(asList(
+                mkMove(3L, 4L),
+                mkMove(2L, 3L),
+                mkCommand(TaxonomyChangeType.UPDATE_NAME, 1L)));
+
+        assertTrue(problems.isEmpty());
+    }
+
+
+    @Test
+    public void movesWhichFormACycleAreReported() {
+        List<String> problems = new TaxonomyChangeBatchValidator(measurables).validate(asList(
+                mkMove(4L, 3L),
+                mkMove(2L, 4L)));
+
+        assertEquals(1, problems.size());
+        assertTrue(problems.get(0).contains("descendants"));
+    }
+
+
+    @Test
+    public void movesIntoARemovedSubtreeAreReported() {
+        List<String> problems = new TaxonomyChangeBatchValidator(measurables).validate(asList(
+                mkCommand(TaxonomyChangeType.REMOVE, 2L),
+                mkMove(4L, 3L),
+                mkMove(3L, 4L)));
+
+        assertEquals(2, problems.size());
+        assertTrue(problems.get(0).contains("destination is not in the category"));
+        assertTrue(problems.get(1).contains("measurable is not in the category"));
+    }
+
+
+    private static Measurable mkMeasurable(Long id, Long parentId) {
+        return ImmutableMeasurable.builder()
+                .id(id)
+                .parentId(Optional.ofNullable(parentId))
+                .categoryId(1L)
+                .concrete(true)
+                .name("m" + id)
+                .lastUpdatedBy("test")
+                .build();
+    }
+
+
+    private static TaxonomyChangeCommand mkMove(long id, long destinationId) {
+        return ImmutableTaxonomyChangeCommand
+                .copyOf(mkCommand(TaxonomyChangeType.MOVE, id))
+                .withParams(newHashMap("destinationId", Long.toString(destinationId)));
+    }
+
+
+    private static TaxonomyChangeCommand mkCommand(TaxonomyChangeType type, long id) {
+        return ImmutableTaxonomyChangeCommand.builder()
+                .changeType(type)
+                .changeDomain(mkRef(EntityKind.MEASURABLE_CATEGORY, 1L))
+                .primaryReference(mkRef(EntityKind.MEASURABLE, id))
+                .createdBy("test")
+                .lastUpdatedBy("test")
+                .build();
+    }
+
+}
@@ -0,0 +1,91 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+package com.khartec.waltz.service.usage_info;
+
+import com.khartec.waltz.data.data_type_usage.DataTypeUsageDao;
+import com.khartec.waltz.model.EntityKind;
+import com.khartec.waltz.model.EntityReference;
+import org.jooq.SQLDialect;
+import org.jooq.impl.DSL;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static com.khartec.waltz.model.EntityReference.mkRef;
+import static org.junit.Assert.assertEquals;
+
+public class DataTypeUsageRecalculationQueueTest {
+
+    private static final EntityReference APP = mkRef(EntityKind.APPLICATION, 1L);
+
+
+    @Test
+    public void entitiesOnlyEnqueuedBeforeFullRecalculationAreDiscarded() throws InterruptedException {
+        DataTypeUsageRecalculationQueue queue = mkQueue();
+        queue.enqueue(Collections.singleton(APP));
+        Thread.sleep(5);
+
+        queue.runExclusively(() -> true);
+
+        assertEquals(0, queue.getDepth());
+    }
+
+
+    @Test
+    public void entitiesEnqueuedAgainDuringFullRecalculationAreKept() throws InterruptedException {
+        DataTypeUsageRecalculationQueue queue = mkQueue();
+        queue.enqueue(Collections.singleton(APP));
+        Thread.sleep(5);
+
+        queue.runExclusively(() -> {
+            sleep(5);
+            return queue.enqueue(Collections.singleton(APP));
+        });
+
+        assertEquals(1, queue.getDepth());
+    }
+
+
+    @Test
+    public void repeatedEnqueuesAreOnlyCountedOnce() {
+        DataTypeUsageRecalculationQueue queue = mkQueue();
+        assertEquals(1, queue.enqueue(Collections.singleton(APP)));
+        assertEquals(0, queue.enqueue(Collections.singleton(APP)));
+        assertEquals(0, queue.enqueue(Collections.singleton(mkRef(EntityKind.MEASURABLE, 1L))));
+        assertEquals(1, queue.getDepth());
+    }
+
+
+    // --- helpers ---
+
+    private static DataTypeUsageRecalculationQueue mkQueue() {
+        // the dao is not used unless the queue is flushed
+        DataTypeUsageDao dao = new DataTypeUsageDao(DSL.using(SQLDialect.DEFAULT));
+        return new DataTypeUsageRecalculationQueue(dao, 10);
+    }
+
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
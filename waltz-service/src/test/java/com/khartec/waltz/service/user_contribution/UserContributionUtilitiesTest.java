@@ -25,6 +25,8 @@ import java.util.List;
 
 import static com.khartec.waltz.common.ListUtilities.asList;
 import static com.khartec.waltz.service.user_contribution.UserContributionUtilities.findWindow;
+import static com.khartec.waltz.service.user_contribution.UserContributionUtilities.findWindowBounds;
+import static org.jooq.lambda.tuple.Tuple.tuple;
 
 public class UserContributionUtilitiesTest {
 
@@ -119,4 +121,11 @@ public class UserContributionUtilitiesTest {
     }
 
 
+    @Test
+    public void windowBoundsAreShiftedToFitTheList(){
+        Assert.assertEquals(tuple(1, 10), findWindowBounds(15, 0, 10));
+        Assert.assertEquals(tuple(4, 13), findWindowBounds(15, 8, 10));
+        Assert.assertEquals(tuple(6, 15), findWindowBounds(15, 15, 10));
+    }
+
 }
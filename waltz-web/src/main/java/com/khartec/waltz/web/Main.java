@@ -48,6 +48,7 @@ public class Main {
     private static final Logger LOG = LoggerFactory.getLogger(Main.class);
     private final static String GZIP_ENABLED_NAME = "server.gzip.enabled";
     private final static String GZIP_MIN_SIZE_NAME = "server.gzip.minimum-size";
+    private final static String GZIP_LEVEL_NAME = "server.gzip.level";
 
     private static AnnotationConfigApplicationContext ctx;
 
@@ -217,17 +218,27 @@ public class Main {
             int minimumLength = settingsService
                     .getValue(GZIP_MIN_SIZE_NAME)
                     .map(Integer::parseInt)
-                    .orElse(8192);
+                    .orElse(ResponseCompression.DEFAULT_MINIMUM_SIZE);
 
+            int level = settingsService
+                    .getValue(GZIP_LEVEL_NAME)
+                    .map(Integer::parseInt)
+                    .orElse(ResponseCompression.DEFAULT_LEVEL);
+
+            // streamed (list) responses are compressed as they are written...
+            ResponseCompression.configure(true, minimumLength, level);
+
+            // ...other responses are rendered to a string, spark gzips those when this header is present
             after(((request, response) -> {
                 if(response.body() != null && response.body().length() >= minimumLength) {
                     response.header("Content-Encoding", "gzip");
                 }
             }));
 
-            LOG.info("Enabled GZIP (size: " + minimumLength + ")");
+            LOG.info("Enabled GZIP (size: " + minimumLength + ", level: " + level + ")");
 
         } else {
+            ResponseCompression.configure(false, ResponseCompression.DEFAULT_MINIMUM_SIZE, ResponseCompression.DEFAULT_LEVEL);
             LOG.info("GZIP not enabled");
         }
 
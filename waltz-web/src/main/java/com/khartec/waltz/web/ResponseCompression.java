@@ -0,0 +1,105 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+package com.khartec.waltz.web;
+
+import spark.Request;
+import spark.Response;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+
+import static com.khartec.waltz.common.Checks.checkTrue;
+import static com.khartec.waltz.common.StringUtilities.mkSafe;
+
+
+/**
+ * Holds the gzip configuration (derived from the <code>server.gzip.*</code>
+ * settings at startup) used when streaming responses directly to the servlet
+ * output stream.
+ */
+public class ResponseCompression {
+
+    public static final int DEFAULT_MINIMUM_SIZE = 8192;
+    public static final int DEFAULT_LEVEL = Deflater.DEFAULT_COMPRESSION;
+
+    private static volatile boolean enabled = false;
+    private static volatile int minimumSize = DEFAULT_MINIMUM_SIZE;
+    private static volatile int level = DEFAULT_LEVEL;
+
+
+    public static void configure(boolean enabled, int minimumSize, int level) {
+        checkTrue(minimumSize >= 0, "minimumSize cannot be negative");
+        checkTrue(level >= -1 && level <= 9, "level must be between -1 and 9");
+
+        ResponseCompression.enabled = enabled;
+        ResponseCompression.minimumSize = minimumSize;
+        ResponseCompression.level = level;
+    }
+
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+
+    public static int getMinimumSize() {
+        return minimumSize;
+    }
+
+
+    public static int getLevel() {
+        return level;
+    }
+
+
+    /**
+     * Opens the raw servlet output stream for the response, wrapping it so the
+     * content will be gzipped once it exceeds the minimum size - provided
+     * compression is enabled and the client accepts gzip encoded content.
+     *
+     * @param request  spark request
+     * @param response  spark response
+     * @return  stream to write the response body to, must be closed by the caller
+     * @throws IOException  if the servlet output stream cannot be obtained
+     */
+    public static OutputStream openOutputStream(Request request, Response response) throws IOException {
+        HttpServletResponse httpResponse = response.raw();
+        OutputStream out = httpResponse.getOutputStream();
+
+        if (! enabled || ! acceptsGzip(request)) {
+            return out;
+        }
+
+        httpResponse.setHeader("Vary", "Accept-Encoding");
+        return new ThresholdGzipOutputStream(
+                out,
+                minimumSize,
+                level,
+                () -> httpResponse.setHeader("Content-Encoding", "gzip"));
+    }
+
+
+    private static boolean acceptsGzip(Request request) {
+        return mkSafe(request.headers("Accept-Encoding"))
+                .toLowerCase()
+                .contains("gzip");
+    }
+
+}
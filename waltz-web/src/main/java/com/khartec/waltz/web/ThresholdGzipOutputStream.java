@@ -0,0 +1,141 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+package com.khartec.waltz.web;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static com.khartec.waltz.common.Checks.checkNotNull;
+import static com.khartec.waltz.common.Checks.checkTrue;
+
+
+/**
+ * Output stream which holds back the first <code>threshold</code> bytes written
+ * to it.  If the stream is closed before the threshold is reached the bytes are
+ * passed through uncompressed, otherwise the <code>beforeCompression</code>
+ * callback is invoked (typically to set the <code>Content-Encoding</code> header
+ * before the response is committed) and everything is gzipped into the target.
+ *
+ * This lets us stream large responses without first rendering them into
+ * memory whilst still not bothering to compress tiny ones.
+ */
+public class ThresholdGzipOutputStream extends OutputStream {
+
+    private static final int GZIP_BUFFER_SIZE = 8192;
+
+    private final OutputStream target;
+    private final int level;
+    private final Runnable beforeCompression;
+
+    private byte[] pending;
+    private int pendingCount = 0;
+    private OutputStream delegate = null;
+    private boolean closed = false;
+
+
+    /**
+     * @param target  stream to (eventually) write to
+     * @param threshold  number of bytes which must be written before compression is used
+     * @param level  deflater compression level (0-9, or -1 for the default)
+     * @param beforeCompression  callback invoked once, just before the first compressed byte is written
+     */
+    public ThresholdGzipOutputStream(OutputStream target,
+                                     int threshold,
+                                     int level,
+                                     Runnable beforeCompression) {
+        checkNotNull(target, "target cannot be null");
+        checkNotNull(beforeCompression, "beforeCompression cannot be null");
+        checkTrue(threshold >= 0, "threshold cannot be negative");
+        checkTrue(level >= -1 && level <= 9, "level must be between -1 and 9");
+
+        this.target = target;
+        this.level = level;
+        this.beforeCompression = beforeCompression;
+        this.pending = new byte[threshold];
+    }
+
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[] { (byte) b }, 0, 1);
+    }
+
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        checkTrue(! closed, "Stream has been closed");
+
+        if (delegate == null && pendingCount + length <= pending.length) {
+            System.arraycopy(bytes, offset, pending, pendingCount, length);
+            pendingCount += length;
+            return;
+        }
+
+        if (delegate == null) {
+            startCompressing();
+        }
+        delegate.write(bytes, offset, length);
+    }
+
+
+    @Override
+    public void flush() throws IOException {
+        // pending bytes are deliberately held back until we know whether to compress
+        if (delegate != null) {
+            delegate.flush();
+        }
+    }
+
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        if (delegate == null) {
+            target.write(pending, 0, pendingCount);
+            target.close();
+        } else {
+            delegate.close();
+        }
+        pending = null;
+    }
+
+
+    public boolean isCompressing() {
+        return delegate != null;
+    }
+
+
+    // --- helpers ---
+
+    private void startCompressing() throws IOException {
+        beforeCompression.run();
+        delegate = new GZIPOutputStream(target, GZIP_BUFFER_SIZE) {
+            {
+                def.setLevel(level);
+            }
+        };
+        delegate.write(pending, 0, pendingCount);
+        pendingCount = 0;
+    }
+
+}
@@ -37,6 +37,7 @@ import spark.Response;
 import spark.ResponseTransformer;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.*;
@@ -49,6 +50,7 @@ import static com.khartec.waltz.common.SetUtilities.asSet;
 import static com.khartec.waltz.model.EntityReference.mkRef;
 import static com.khartec.waltz.service.user.RoleUtilities.getRequiredRoleForEntityKind;
 import static java.util.stream.Collectors.toList;
+import static spark.Spark.halt;
 
 public class WebUtilities {
 
@@ -75,6 +77,20 @@ public class WebUtilities {
     public static final ResponseTransformer transformer = mapper::writeValueAsString;
 
 
+    /**
+     * Serializes the object as json directly onto the given stream, avoiding
+     * rendering the (potentially large) intermediate string.  The stream is
+     * closed once the object has been written.
+     *
+     * @param obj  object to render
+     * @param out  stream to write to
+     * @throws IOException  if the object cannot be serialized or written
+     */
+    public static void writeJson(Object obj, OutputStream out) throws IOException {
+        mapper.writeValue(out, obj);
+    }
+
+
     /**
      * @see StringUtilities
      */
@@ -369,6 +385,37 @@ public class WebUtilities {
                 });
     }
 
+
+    /**
+     * Sets the ETag (and asks clients to always revalidate) then, if the
+     * request's <code>If-None-Match</code> header already matches, halts
+     * with a 304 so no body is rendered.
+     *
+     * @param request  incoming request
+     * @param response  outgoing response
+     * @param digest  digest of the content which would be returned
+     */
+    public static void haltIfNotModified(Request request, Response response, String digest) {
+        String eTag = "\"" + digest + "\"";
+        response.header("ETag", eTag);
+        response.header("Cache-Control", "no-cache");
+
+        String ifNoneMatch = request.headers("If-None-Match");
+        if (ifNoneMatch == null) {
+            return;
+        }
+
+        boolean matches = Arrays
+                .stream(ifNoneMatch.split(","))
+                .map(String::trim)
+                .map(tag -> tag.startsWith("W/") ? tag.substring(2) : tag)
+                .anyMatch(tag -> tag.equals("*") || tag.equals(eTag));
+
+        if (matches) {
+            halt(304);
+        }
+    }
+
     
     /**
      * Helper method to flatten a map (m) into a list of Entry's.
@@ -0,0 +1,173 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package com.khartec.waltz.web.endpoints;
+
+import com.khartec.waltz.common.LatencyHistogram;
+import com.khartec.waltz.model.endpoint_statistics.EndpointLatencySummary;
+import com.khartec.waltz.model.endpoint_statistics.ImmutableEndpointLatencySummary;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+import static com.khartec.waltz.common.Checks.checkNotNull;
+
+
+/**
+ * Request counts, latencies, response sizes and error counts for every route
+ * registered via <code>EndpointUtilities</code>.
+ *
+ * Routes are keyed by http method and path pattern (not the concrete path)
+ * so the number of entries is bounded by the number of registered routes.
+ * All counters are lock-free, recording a request does not contend with
+ * other requests (beyond the histogram bucket it lands in).
+ */
+public class EndpointMetrics {
+
+    public static class RouteMetrics {
+
+        private final String route;
+        private final LatencyHistogram latencies = new LatencyHistogram();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder responseBytes = new LongAdder();
+        private final AtomicLong maxResponseBytes = new AtomicLong();
+
+
+        private RouteMetrics(String route) {
+            this.route = route;
+        }
+
+
+        public void recordRequest(long elapsedNanos, boolean failed) {
+            latencies.record(TimeUnit.NANOSECONDS.toMicros(Math.max(0, elapsedNanos)));
+            if (failed) {
+                errors.increment();
+            }
+        }
+
+
+        public void recordResponseSize(long bytes) {
+            responseBytes.add(bytes);
+            maxResponseBytes.accumulateAndGet(bytes, Math::max);
+        }
+
+
+        private EndpointLatencySummary toSummary() {
+            long count = latencies.getCount();
+            long errorCount = errors.sum();
+            return ImmutableEndpointLatencySummary
+                    .builder()
+                    .route(route)
+                    .count(count)
+                    .errorCount(errorCount)
+                    .errorRate(count == 0 ? 0 : (double) errorCount / count)
+                    .totalMillis(toMillis(latencies.getTotal()))
+                    .p50Millis(toMillis(latencies.getValueAtPercentile(50)))
+                    .p99Millis(toMillis(latencies.getValueAtPercentile(99)))
+                    .maxMillis(toMillis(latencies.getMax()))
+                    .totalResponseBytes(responseBytes.sum())
+                    .maxResponseBytes(maxResponseBytes.get())
+                    .build();
+        }
+
+
+        private void reset() {
+            latencies.reset();
+            errors.reset();
+            responseBytes.reset();
+            maxResponseBytes.set(0);
+        }
+    }
+
+
+    private static final Map<String, RouteMetrics> METRICS_BY_ROUTE = new ConcurrentHashMap<>();
+
+
+    /**
+     * Returns the metrics holder for the given route, creating it if needed.
+     * Intended to be called once, when the route is registered.
+     *
+     * @param method  http method (e.g. GET)
+     * @param path  path pattern (e.g. api/app/:id)
+     * @return  metrics holder for the route
+     */
+    public static RouteMetrics forRoute(String method, String path) {
+        checkNotNull(method, "method cannot be null");
+        checkNotNull(path, "path cannot be null");
+        return METRICS_BY_ROUTE.computeIfAbsent(method + " " + path, RouteMetrics::new);
+    }
+
+
+    /**
+     * @param limit  maximum number of summaries to return
+     * @return  summaries of routes which have been called, ordered by total time spent (descending)
+     */
+    public static List<EndpointLatencySummary> findSummaries(int limit) {
+        return METRICS_BY_ROUTE
+                .values()
+                .stream()
+                .map(RouteMetrics::toSummary)
+                .filter(s -> s.count() > 0)
+                .sorted(Comparator.comparingDouble(EndpointLatencySummary::totalMillis).reversed())
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+
+    public static int getRouteCount() {
+        return METRICS_BY_ROUTE.size();
+    }
+
+
+    public static long getTotalRequestCount() {
+        return METRICS_BY_ROUTE
+                .values()
+                .stream()
+                .mapToLong(m -> m.latencies.getCount())
+                .sum();
+    }
+
+
+    public static long getTotalErrorCount() {
+        return METRICS_BY_ROUTE
+                .values()
+                .stream()
+                .mapToLong(m -> m.errors.sum())
+                .sum();
+    }
+
+
+    /**
+     * Zeroes all counters, routes remain registered.
+     */
+    public static void reset() {
+        METRICS_BY_ROUTE.values().forEach(RouteMetrics::reset);
+    }
+
+
+    private static double toMillis(long micros) {
+        return micros / 1000.0;
+    }
+
+}
@@ -20,11 +20,20 @@ package com.khartec.waltz.web.endpoints;
 
 import com.khartec.waltz.web.DatumRoute;
 import com.khartec.waltz.web.ListRoute;
+import com.khartec.waltz.web.ResponseCompression;
 import com.khartec.waltz.web.WebUtilities;
+import spark.HaltException;
+import spark.Response;
 import spark.ResponseTransformer;
 import spark.Route;
 import spark.Spark;
 
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
+
+import static com.khartec.waltz.common.StringUtilities.utf8Length;
 import static com.khartec.waltz.web.WebUtilities.TYPE_JSON;
 
 
@@ -36,12 +45,14 @@ public class EndpointUtilities {
     /**
      * Helper method to register a route which provides a list of items.
      * This helps comprehension as the return types of routes becomes explicit.
+     * The list is streamed as json directly to the response (gzipped if
+     * enabled and sufficiently large) rather than being rendered to a string.
      * @param path
      * @param handler
      * @param <T>
      */
     public static <T> void getForList(String path, ListRoute<T> handler) {
-        Spark.get(path, wrapListHandler(handler), transformer);
+        Spark.get(path, wrapListHandler(handler, EndpointMetrics.forRoute("GET", path)));
     }
 
 
@@ -54,48 +65,128 @@ public class EndpointUtilities {
      * @param <T>
      */
     public static <T> void getForDatum(String path, DatumRoute<T> handler) {
-        Spark.get(path, wrapDatumHandler(handler), transformer);
+        EndpointMetrics.RouteMetrics metrics = EndpointMetrics.forRoute("GET", path);
+        Spark.get(path, wrapDatumHandler(handler, metrics), mkTransformer(metrics));
     }
 
     public static <T> void postForDatum(String path, DatumRoute<T> handler) {
-        Spark.post(path, wrapDatumHandler(handler), transformer);
+        EndpointMetrics.RouteMetrics metrics = EndpointMetrics.forRoute("POST", path);
+        Spark.post(path, wrapDatumHandler(handler, metrics), mkTransformer(metrics));
     }
 
     public static <T> void postForList(String path, ListRoute<T> handler) {
-        Spark.post(path, wrapListHandler(handler), transformer);
+        Spark.post(path, wrapListHandler(handler, EndpointMetrics.forRoute("POST", path)));
     }
 
     public static <T> void deleteForList(String path, ListRoute<T> handler) {
-        Spark.delete(path, wrapListHandler(handler), transformer);
+        Spark.delete(path, wrapListHandler(handler, EndpointMetrics.forRoute("DELETE", path)));
     }
 
     public static <T> void deleteForDatum(String path, DatumRoute<T> handler) {
-        Spark.delete(path, wrapDatumHandler(handler), transformer);
+        EndpointMetrics.RouteMetrics metrics = EndpointMetrics.forRoute("DELETE", path);
+        Spark.delete(path, wrapDatumHandler(handler, metrics), mkTransformer(metrics));
     }
 
     public static <T> void putForDatum(String path, DatumRoute<T> handler) {
-        Spark.put(path, wrapDatumHandler(handler), transformer);
+        EndpointMetrics.RouteMetrics metrics = EndpointMetrics.forRoute("PUT", path);
+        Spark.put(path, wrapDatumHandler(handler, metrics), mkTransformer(metrics));
     }
 
     public static <T> void putForList(String path, ListRoute<T> handler) {
-        Spark.put(path, wrapListHandler(handler), transformer);
+        Spark.put(path, wrapListHandler(handler, EndpointMetrics.forRoute("PUT", path)));
     }
 
 
     // -- helpers ---
 
-    private static <T> Route wrapListHandler(ListRoute<T> handler) {
+    private static <T> Route wrapListHandler(ListRoute<T> handler, EndpointMetrics.RouteMetrics metrics) {
         return (request, response) -> {
-            response.type(TYPE_JSON);
-            return handler.apply(request, response);
+            long start = System.nanoTime();
+            boolean failed = true;
+            try {
+                response.type(TYPE_JSON);
+                Collection<T> result = handler.apply(request, response);
+                if (result == null) {
+                    failed = isError(response);
+                    return null;
+                }
+
+                try (CountingOutputStream out = new CountingOutputStream(ResponseCompression.openOutputStream(request, response))) {
+                    WebUtilities.writeJson(result, out);
+                    metrics.recordResponseSize(out.getCount());
+                }
+                failed = isError(response);
+                // body has already been written, spark will not write to a committed response
+                return "";
+            } catch (HaltException e) {
+                // e.g. 304 (not modified) responses
+                failed = e.statusCode() >= 400;
+                throw e;
+            } finally {
+                metrics.recordRequest(System.nanoTime() - start, failed);
+            }
         };
     }
 
-    private static <T> Route wrapDatumHandler(DatumRoute<T> handler) {
+    private static <T> Route wrapDatumHandler(DatumRoute<T> handler, EndpointMetrics.RouteMetrics metrics) {
         return (request, response) -> {
-            response.type(TYPE_JSON);
-            return handler.apply(request, response);
+            long start = System.nanoTime();
+            boolean failed = true;
+            try {
+                response.type(TYPE_JSON);
+                T result = handler.apply(request, response);
+                failed = isError(response);
+                return result;
+            } finally {
+                metrics.recordRequest(System.nanoTime() - start, failed);
+            }
         };
     }
 
+
+    /**
+     * Datum responses are rendered by spark (after the route completes) so
+     * their size is captured by wrapping the transformer.  Spark writes string
+     * bodies as UTF-8 so the encoded byte count is recorded (calculated
+     * without encoding the body a second time).
+     */
+    private static ResponseTransformer mkTransformer(EndpointMetrics.RouteMetrics metrics) {
+        return model -> {
+            String body = transformer.render(model);
+            metrics.recordResponseSize(utf8Length(body));
+            return body;
+        };
+    }
+
+
+    private static boolean isError(Response response) {
+        return response.raw().getStatus() >= 400;
+    }
+
+
+    private static class CountingOutputStream extends FilterOutputStream {
+
+        private long count = 0;
+
+        private CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        private long getCount() {
+            return count;
+        }
+    }
+
 }
@@ -24,6 +24,7 @@ import com.khartec.waltz.service.changelog.ChangeLogService;
 import com.khartec.waltz.web.endpoints.Endpoint;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import spark.Request;
 
 import java.util.Date;
 import java.util.Optional;
@@ -40,6 +41,12 @@ public class ChangeLogEndpoint implements Endpoint {
 
     private static final String BASE_URL = mkPath("api", "change-log");
 
+    /** page size used when the request does not specify a limit */
+    private static final int DEFAULT_PAGE_SIZE = 1000;
+
+    /** upper bound on any requested limit */
+    private static final int MAX_PAGE_SIZE = 10_000;
+
     private final ChangeLogService service;
 
 
@@ -54,7 +61,10 @@ public class ChangeLogEndpoint implements Endpoint {
 
         getForList(
                 mkPath(BASE_URL, "user", ":userId"),
-                (request, response) -> service.findByUser(request.params("userId"), getLimit(request)));
+                (request, response) -> service.findByUser(
+                        request.params("userId"),
+                        getBeforeId(request),
+                        getPageSize(request)));
 
         postForList(
                 mkPath(BASE_URL, "summaries", ":kind"),
@@ -68,12 +78,13 @@ public class ChangeLogEndpoint implements Endpoint {
                 (request, response) -> {
                     EntityReference ref = getEntityReference(request);
                     Optional<Date> dateParam = getDateParam(request);
-                    Optional<Integer> limitParam = getLimit(request);
+                    Optional<Long> beforeId = getBeforeId(request);
+                    Optional<Integer> pageSize = getPageSize(request);
 
                     if(ref.kind() == EntityKind.PERSON) {
-                        return service.findByPersonReference(ref, dateParam, limitParam);
+                        return service.findByPersonReference(ref, dateParam, beforeId, pageSize);
                     } else {
-                        return service.findByParentReference(ref, dateParam, limitParam);
+                        return service.findByParentReference(ref, dateParam, beforeId, pageSize);
                     }
                 });
 
@@ -86,4 +97,23 @@ public class ChangeLogEndpoint implements Endpoint {
 
 
     }
+
+
+    /**
+     * Change log entries are paged (newest first), the client requests the
+     * next page by passing the id of the last entry it received as
+     * <code>before</code>.
+     */
+    private static Optional<Long> getBeforeId(Request request) {
+        return Optional
+                .ofNullable(request.queryParams("before"))
+                .map(Long::valueOf);
+    }
+
+
+    private static Optional<Integer> getPageSize(Request request) {
+        int limit = getLimit(request).orElse(DEFAULT_PAGE_SIZE);
+        return Optional.of(Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
+    }
+
 }
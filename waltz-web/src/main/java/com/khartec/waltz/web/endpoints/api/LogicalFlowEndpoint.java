@@ -20,9 +20,12 @@ package com.khartec.waltz.web.endpoints.api;
 
 import com.khartec.waltz.model.EntityReference;
 import com.khartec.waltz.model.logical_flow.AddLogicalFlowCommand;
+import com.khartec.waltz.model.logical_flow.FlowLineageQuery;
+import com.khartec.waltz.model.logical_flow.FlowPathQuery;
 import com.khartec.waltz.model.logical_flow.LogicalFlow;
 import com.khartec.waltz.model.logical_flow.LogicalFlowStatistics;
 import com.khartec.waltz.model.user.SystemRole;
+import com.khartec.waltz.service.logical_flow.LogicalFlowLineageService;
 import com.khartec.waltz.service.logical_flow.LogicalFlowService;
 import com.khartec.waltz.service.user.UserRoleService;
 import com.khartec.waltz.web.DatumRoute;
@@ -56,16 +59,20 @@ public class LogicalFlowEndpoint implements Endpoint {
     private static final String BASE_URL = mkPath("api", "logical-flow");
 
     private final LogicalFlowService logicalFlowService;
+    private final LogicalFlowLineageService logicalFlowLineageService;
     private final UserRoleService userRoleService;
 
 
     @Autowired
     public LogicalFlowEndpoint(LogicalFlowService logicalFlowService,
+                               LogicalFlowLineageService logicalFlowLineageService,
                                UserRoleService userRoleService) {
         checkNotNull(logicalFlowService, "logicalFlowService must not be null");
+        checkNotNull(logicalFlowLineageService, "logicalFlowLineageService must not be null");
         checkNotNull(userRoleService, "userRoleService must not be null");
 
         this.logicalFlowService = logicalFlowService;
+        this.logicalFlowLineageService = logicalFlowLineageService;
         this.userRoleService = userRoleService;
     }
 
@@ -78,6 +85,9 @@ public class LogicalFlowEndpoint implements Endpoint {
         String findBySourceAndTargetsPath = mkPath(BASE_URL, "source-targets");
         String findStatsPath = mkPath(BASE_URL, "stats");
         String findUpstreamFlowsForEntityReferencesPath = mkPath(BASE_URL, "find-upstream-flows");
+        String findLineagePath = mkPath(BASE_URL, "lineage");
+        String findLineagePathPath = mkPath(BASE_URL, "lineage", "path");
+        String isReachablePath = mkPath(BASE_URL, "lineage", "reachable");
         String getByIdPath = mkPath(BASE_URL, ":id");
         String removeFlowPath = mkPath(BASE_URL, ":id");
         String cleanupOrphansPath = mkPath(BASE_URL, "cleanup-orphans");
@@ -99,6 +109,15 @@ public class LogicalFlowEndpoint implements Endpoint {
             return logicalFlowService.findUpstreamFlowsForEntityReferences(newArrayList(refs));
         };
 
+        ListRoute<LogicalFlow> findLineageRoute = (request, response)
+                -> logicalFlowLineageService.findLineage(readBody(request, FlowLineageQuery.class));
+
+        ListRoute<LogicalFlow> findLineagePathRoute = (request, response)
+                -> logicalFlowLineageService.findShortestPath(readBody(request, FlowPathQuery.class));
+
+        DatumRoute<Boolean> isReachableRoute = (request, response)
+                -> logicalFlowLineageService.isReachable(readBody(request, FlowPathQuery.class));
+
         DatumRoute<LogicalFlowStatistics> findStatsRoute = (request, response)
                 -> logicalFlowService.calculateStats(readIdSelectionOptionsFromBody(request));
 
@@ -111,6 +130,9 @@ public class LogicalFlowEndpoint implements Endpoint {
         getForDatum(getByIdPath, getByIdRoute);
         postForList(findByIdsPath, findByIdsRoute);
         postForList(findUpstreamFlowsForEntityReferencesPath, findUpstreamFlowsForEntityReferencesRoute);
+        postForList(findLineagePath, findLineageRoute);
+        postForList(findLineagePathPath, findLineagePathRoute);
+        postForDatum(isReachablePath, isReachableRoute);
         postForList(findBySelectorPath, findBySelectorRoute);
         postForDatum(findBySourceAndTargetsPath, this::findBySourceAndTargetsRoute);
         postForDatum(findStatsPath, findStatsRoute);
@@ -0,0 +1,79 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package com.khartec.waltz.web.endpoints.api;
+
+import com.khartec.waltz.model.query_statistics.QueryLatencySummary;
+import com.khartec.waltz.service.query_statistics.QueryStatistics;
+import com.khartec.waltz.service.user.UserRoleService;
+import com.khartec.waltz.web.DatumRoute;
+import com.khartec.waltz.web.ListRoute;
+import com.khartec.waltz.web.endpoints.Endpoint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import static com.khartec.waltz.common.Checks.checkNotNull;
+import static com.khartec.waltz.model.user.SystemRole.ADMIN;
+import static com.khartec.waltz.web.WebUtilities.*;
+import static com.khartec.waltz.web.endpoints.EndpointUtilities.deleteForDatum;
+import static com.khartec.waltz.web.endpoints.EndpointUtilities.getForList;
+
+@Service
+public class QueryStatisticsEndpoint implements Endpoint {
+
+    private static final Logger LOG = LoggerFactory.getLogger(QueryStatisticsEndpoint.class);
+    private static final String BASE_URL = mkPath("api", "query-statistics");
+    private static final int DEFAULT_LIMIT = 50;
+
+    private final QueryStatistics queryStatistics;
+    private final UserRoleService userRoleService;
+
+
+    @Autowired
+    public QueryStatisticsEndpoint(QueryStatistics queryStatistics, UserRoleService userRoleService) {
+        checkNotNull(queryStatistics, "queryStatistics cannot be null");
+        checkNotNull(userRoleService, "userRoleService cannot be null");
+
+        this.queryStatistics = queryStatistics;
+        this.userRoleService = userRoleService;
+    }
+
+
+    @Override
+    public void register() {
+        String findSummariesPath = mkPath(BASE_URL);
+
+        ListRoute<QueryLatencySummary> findSummariesRoute = (request, response) -> {
+            requireRole(userRoleService, request, ADMIN);
+            return queryStatistics.findSummaries(getLimit(request).orElse(DEFAULT_LIMIT));
+        };
+
+        DatumRoute<Boolean> resetRoute = (request, response) -> {
+            requireRole(userRoleService, request, ADMIN);
+            LOG.warn("Resetting query statistics, requested by: {}", getUsername(request));
+            queryStatistics.reset();
+            return true;
+        };
+
+        getForList(findSummariesPath, findSummariesRoute);
+        deleteForDatum(findSummariesPath, resetRoute);
+    }
+
+}
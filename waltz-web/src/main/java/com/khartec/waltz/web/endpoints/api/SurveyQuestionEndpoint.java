@@ -33,6 +33,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import spark.Request;
 
+import java.util.List;
+import java.util.Map;
+
 import static com.khartec.waltz.common.Checks.checkNotNull;
 import static com.khartec.waltz.web.WebUtilities.*;
 import static com.khartec.waltz.web.endpoints.EndpointUtilities.*;
@@ -72,6 +75,8 @@ public class SurveyQuestionEndpoint implements Endpoint {
         ListRoute<SurveyQuestion> findQuestionsForTemplate = (req, res) -> surveyQuestionService.findForSurveyTemplate(getId(req));
         ListRoute<SurveyQuestionDropdownEntry> findDropdownEntriesForTemplate = (req, res) -> surveyQuestionDropdownEntryService.findForSurveyTemplate(getId(req));
 
+        DatumRoute<Map<Long, List<SurveyQuestion>>> findActiveQuestionsForRun = (req, res) -> surveyQuestionService.findActiveQuestionsForSurveyRun(getId(req));
+
         DatumRoute<Long> createRoute =
                 (req, res) -> {
                     ensureUserHasAdminRights(req);
@@ -102,6 +107,8 @@ public class SurveyQuestionEndpoint implements Endpoint {
         getForList(mkPath(BASE_URL, "questions", "template", ":id"), findQuestionsForTemplate);
         getForList(mkPath(BASE_URL, "dropdown-entries", "template", ":id"), findDropdownEntriesForTemplate);
 
+        getForDatum(mkPath(BASE_URL, "questions", "run", ":id", "active"), findActiveQuestionsForRun);
+
         postForDatum(BASE_URL, createRoute);
         putForDatum(BASE_URL, updateRoute);
         deleteForDatum(deletePath, deleteRoute);
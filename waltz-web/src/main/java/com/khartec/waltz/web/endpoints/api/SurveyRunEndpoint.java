@@ -70,6 +70,8 @@ public class SurveyRunEndpoint implements Endpoint {
         String surveyRunDeletePath = mkPath(BASE_URL, ":id");
         String generateSurveyRunRecipientsPath = mkPath(BASE_URL, ":id", "recipients");
         String createSurveyRunInstancesAndRecipientsPath = mkPath(BASE_URL, ":id", "recipients");
+        String issueSurveyRunInstancesAndRecipientsPath = mkPath(BASE_URL, ":id", "recipients", "async");
+        String getIssuanceStatusPath = mkPath(BASE_URL, ":id", "issuance-status");
         String createSurveyInstancesPath = mkPath(BASE_URL, ":id", "create-instances");
         String updateSurveyRunStatusPath = mkPath(BASE_URL, ":id", "status");
         String updateSurveyRunDueDatePath = mkPath(BASE_URL, ":id", "due-date");
@@ -154,6 +156,17 @@ public class SurveyRunEndpoint implements Endpoint {
                     newArrayList(readBody(request, SurveyInstanceRecipient[].class)));
         };
 
+        DatumRoute<SurveyRunIssuanceStatus> issueSurveyRunInstancesAndRecipientsRoute = (request, response) -> {
+            ensureUserHasAdminRights(request);
+
+            return surveyRunService.issueSurveyInstancesAndRecipients(
+                    getId(request),
+                    newArrayList(readBody(request, SurveyInstanceRecipient[].class)));
+        };
+
+        DatumRoute<SurveyRunIssuanceStatus> getIssuanceStatusRoute = (request, response)
+                -> surveyRunService.getIssuanceStatus(getId(request));
+
         DatumRoute<Boolean> createSurveyInstancesRoute = (request, response) -> {
             long runId = getId(request);
 
@@ -178,6 +191,8 @@ public class SurveyRunEndpoint implements Endpoint {
         deleteForDatum(surveyRunDeletePath, surveyRunDeleteRoute);
         putForDatum(surveyRunUpdatePath, surveyRunUpdateRoute);
         postForDatum(createSurveyRunInstancesAndRecipientsPath, createSurveyRunInstancesAndRecipientsRoute);
+        postForDatum(issueSurveyRunInstancesAndRecipientsPath, issueSurveyRunInstancesAndRecipientsRoute);
+        getForDatum(getIssuanceStatusPath, getIssuanceStatusRoute);
         postForDatum(createSurveyInstancesPath, createSurveyInstancesRoute);
         putForDatum(updateSurveyRunStatusPath, surveyRunUpdateStatusRoute);
         putForDatum(updateSurveyRunDueDatePath, surveyRunUpdateDueDateRoute);
@@ -25,6 +25,9 @@ import com.khartec.waltz.web.endpoints.Endpoint;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
+
+import static com.khartec.waltz.web.WebUtilities.haltIfNotModified;
 import static com.khartec.waltz.web.WebUtilities.mkPath;
 import static com.khartec.waltz.web.endpoints.EndpointUtilities.getForList;
 
@@ -47,8 +50,11 @@ public class SvgDiagramEndpoint implements Endpoint {
     public void register() {
         String findByGroupsPath = mkPath(BASE_URL, "group");
 
-        ListRoute<SvgDiagram> findByGroupsRoute = (request, response) ->
-                svgDiagramService.findByGroups(request.queryParamsValues("group"));
+        ListRoute<SvgDiagram> findByGroupsRoute = (request, response) -> {
+            Collection<SvgDiagram> diagrams = svgDiagramService.findByGroups(request.queryParamsValues("group"));
+            haltIfNotModified(request, response, svgDiagramService.calculateDigest(diagrams));
+            return diagrams;
+        };
 
         getForList(findByGroupsPath, findByGroupsRoute);
     }
@@ -49,6 +49,7 @@ public class TaxonomyManagementEndpoint implements Endpoint {
         registerRemoveById(mkPath(BASE_URL, "pending-changes", "id", ":id"));
         registerPreviewById(mkPath(BASE_URL, "pending-changes", "id", ":id", "preview"));
         registerApplyPendingChange(mkPath(BASE_URL, "pending-changes", "id", ":id", "apply"));
+        registerApplyPendingChanges(mkPath(BASE_URL, "pending-changes", "apply"));
         registerFindPendingChangesByDomain(mkPath(BASE_URL, "pending-changes", "by-domain", ":kind", ":id"));
     }
 
@@ -62,6 +63,15 @@ public class TaxonomyManagementEndpoint implements Endpoint {
     }
 
 
+    private void registerApplyPendingChanges(String path) {
+        postForList(path, (req, resp) -> {
+            return taxonomyChangeService.applyByIds(
+                    readIdsFromBody(req),
+                    getUsername(req));
+        });
+    }
+
+
     private void registerSubmitPendingChange(String path) {
         postForDatum(path, (req, resp) -> {
             return taxonomyChangeService.submitDraftChange(
@@ -47,6 +47,8 @@ public class ChangeLogExtractor extends DirectQueryBasedDataExtractor {
 
     @Override
     public void register() {
+        // registered first as the path would otherwise be treated as an entity (kind/id) extract
+        registerExtractForUser(mkPath("data-extract", "change-log", "user", ":userId"));
         registerExtractForApp(mkPath("data-extract", "change-log", ":kind", ":id"));
         registerExtractUnattestedChangesForApp(mkPath("data-extract", "change-log", "unattested-changes", ":childKind", ":kind", ":id"));
     }
@@ -59,13 +61,14 @@ public class ChangeLogExtractor extends DirectQueryBasedDataExtractor {
 
             Select<Record> select = mkQuery(entityRef);
 
-            SelectSeekStep1<Record4<String, String, String, Timestamp>, Timestamp> qry = dsl
+            SelectSeekStep2<Record4<String, String, String, Timestamp>, Timestamp, Long> qry = dsl
                     .select(select.field(CHANGE_LOG.SEVERITY).as("Severity"),
                             select.field(CHANGE_LOG.MESSAGE).as("Message"),
                             select.field(CHANGE_LOG.USER_ID).as("User"),
                             select.field(CHANGE_LOG.CREATED_AT).as("Timestamp"))
                     .from(select)
-                    .orderBy(select.field(CHANGE_LOG.CREATED_AT).desc());
+                    .orderBy(select.field(CHANGE_LOG.CREATED_AT).desc(),
+                             select.field(CHANGE_LOG.ID).desc());
 
             return writeExtract(
                     "change-log-" + entityRef.id(),
@@ -76,6 +79,33 @@ public class ChangeLogExtractor extends DirectQueryBasedDataExtractor {
     }
 
 
+    /**
+     * Full change log of a user, streamed (newest first) rather than paged.
+     */
+    private void registerExtractForUser(String path) {
+        post(path, (request, response) -> {
+
+            String userId = request.params("userId");
+
+            SelectSeekStep2<Record4<String, String, String, Timestamp>, Timestamp, Long> qry = dsl
+                    .select(CHANGE_LOG.SEVERITY.as("Severity"),
+                            CHANGE_LOG.MESSAGE.as("Message"),
+                            CHANGE_LOG.USER_ID.as("User"),
+                            CHANGE_LOG.CREATED_AT.as("Timestamp"))
+                    .from(CHANGE_LOG)
+                    .where(CHANGE_LOG.USER_ID.equalIgnoreCase(userId))
+                    .orderBy(CHANGE_LOG.CREATED_AT.desc(),
+                             CHANGE_LOG.ID.desc());
+
+            return writeExtract(
+                    "change-log-" + userId,
+                    qry,
+                    request,
+                    response);
+        });
+    }
+
+
     private Select<Record> mkQuery(EntityReference entityRef) {
         Select<Record> byParentRef = DSL
                 .select(CHANGE_LOG.fields())
@@ -21,31 +21,57 @@ package com.khartec.waltz.web.endpoints.extracts;
 
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.util.CellRangeAddress;
-import org.apache.poi.xssf.usermodel.XSSFSheet;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.eclipse.jetty.http.MimeTypes;
+import org.jooq.Cursor;
 import org.jooq.DSLContext;
-import org.jooq.Result;
+import org.jooq.Record;
+import org.jooq.ResultQuery;
 import org.jooq.Select;
 import org.jooq.lambda.Unchecked;
 import org.jooq.lambda.tuple.Tuple2;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.supercsv.io.CsvListWriter;
+import org.supercsv.prefs.CsvPreference;
 import spark.Request;
 import spark.Response;
 
 import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 import static com.khartec.waltz.common.Checks.checkNotNull;
 import static com.khartec.waltz.common.FunctionUtilities.time;
-import static com.khartec.waltz.web.endpoints.extracts.ExtractorUtilities.convertExcelToByteArray;
 import static com.khartec.waltz.web.endpoints.extracts.ExtractorUtilities.sanitizeSheetName;
 
 
+/**
+ * Base class for extractors which are driven by a single jOOQ query (or a
+ * query per sheet).  Results are streamed from a database cursor straight to
+ * the response output stream, either as CSV or via a streaming (SXSSF) excel
+ * workbook, so memory use does not grow with the size of the extract.
+ */
 public abstract class DirectQueryBasedDataExtractor implements DataExtractor {
 
+    private static final Logger LOG = LoggerFactory.getLogger(DirectQueryBasedDataExtractor.class);
+
+    /** number of rows the jdbc driver should fetch per round trip */
+    private static final int FETCH_SIZE = 1000;
+
+    /** number of excel rows kept in memory before being flushed to a temporary file */
+    private static final int EXCEL_ROW_WINDOW_SIZE = 500;
+
     protected DSLContext dsl;
 
 
@@ -76,106 +102,173 @@ public abstract class DirectQueryBasedDataExtractor implements DataExtractor {
                                                 String suggestedFilenameStem,
                                                 Response response,
                                                 Tuple2<String, Select<?>>... sheetDefinitions) {
-        XSSFWorkbook workbook = new XSSFWorkbook();
-
-        for (Tuple2<String, Select<?>> sheetDef : sheetDefinitions) {
-            time("preparing excel sheet: " + sheetDef.v1, () -> {
-                XSSFSheet sheet = workbook.createSheet(sanitizeSheetName(sheetDef.v1));
-                writeExcelHeader(sheetDef.v2, sheet);
-                time("writing body", () -> writeExcelBody(sheetDef.v2, sheet, dsl));
-
-                int endFilterColumnIndex = sheetDef.v2.fields().length == 0
-                        ? 0
-                        : sheetDef.v2.fields().length - 1;
-
-                sheet.setAutoFilter(new CellRangeAddress(0, 0, 0, endFilterColumnIndex));
-                sheet.createFreezePane(0, 1);
-            });
+        SXSSFWorkbook workbook = new SXSSFWorkbook(EXCEL_ROW_WINDOW_SIZE);
+
+        try {
+            for (Tuple2<String, Select<?>> sheetDef : sheetDefinitions) {
+                time("preparing excel sheet: " + sheetDef.v1, () -> {
+                    Sheet sheet = workbook.createSheet(sanitizeSheetName(sheetDef.v1));
+                    writeExcelHeader(sheetDef.v2, sheet);
+                    time("writing body", () -> writeExcelBody(dsl, sheetDef.v2, sheet, true));
+
+                    int endFilterColumnIndex = sheetDef.v2.fields().length == 0
+                            ? 0
+                            : sheetDef.v2.fields().length - 1;
+
+                    sheet.setAutoFilter(new CellRangeAddress(0, 0, 0, endFilterColumnIndex));
+                    sheet.createFreezePane(0, 1);
+                });
+            }
+
+            return time("writing excel", Unchecked.supplier(() -> writeExcelToResponse(
+                    suggestedFilenameStem,
+                    response,
+                    workbook)));
+        } finally {
+            dispose(workbook);
         }
-
-        return time("writing excel", Unchecked.supplier(() -> writeExcelToResponse(
-                suggestedFilenameStem,
-                response,
-                workbook)));
     }
 
 
-    private static Object writeAsExcel(String suggestedFilenameStem,
-                                       Select<?> qry,
-                                       Response response) throws IOException {
-        XSSFWorkbook workbook = new XSSFWorkbook();
-        XSSFSheet sheet = workbook.createSheet(sanitizeSheetName(suggestedFilenameStem));
+    private Object writeAsExcel(String suggestedFilenameStem,
+                                Select<?> qry,
+                                Response response) throws IOException {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(EXCEL_ROW_WINDOW_SIZE);
 
-        writeExcelHeader(qry, sheet);
-        writeExcelBody(qry, sheet, null);
+        try {
+            Sheet sheet = workbook.createSheet(sanitizeSheetName(suggestedFilenameStem));
 
-        int endFilterColumnIndex = qry.fields().length == 0
-                ? 0
-                : qry.fields().length - 1;
+            writeExcelHeader(qry, sheet);
+            writeExcelBody(dsl, qry, sheet, false);
 
-        sheet.setAutoFilter(new CellRangeAddress(0, 0, 0, endFilterColumnIndex));
-        sheet.createFreezePane(0, 1);
+            int endFilterColumnIndex = qry.fields().length == 0
+                    ? 0
+                    : qry.fields().length - 1;
 
-        return writeExcelToResponse(suggestedFilenameStem, response, workbook);
+            sheet.setAutoFilter(new CellRangeAddress(0, 0, 0, endFilterColumnIndex));
+            sheet.createFreezePane(0, 1);
+
+            return writeExcelToResponse(suggestedFilenameStem, response, workbook);
+        } finally {
+            dispose(workbook);
+        }
     }
 
 
     private static HttpServletResponse writeExcelToResponse(String suggestedFilenameStem,
                                                             Response response,
-                                                            XSSFWorkbook workbook) throws IOException {
-        byte[] bytes = convertExcelToByteArray(workbook);
-
+                                                            SXSSFWorkbook workbook) throws IOException {
         HttpServletResponse httpResponse = response.raw();
 
         httpResponse.setHeader("Content-Type", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
         httpResponse.setHeader("Content-Disposition", "attachment; filename=" + suggestedFilenameStem + ".xlsx");
         httpResponse.setHeader("Content-Transfer-Encoding", "7bit");
 
-        httpResponse.setContentLength(bytes.length);
-        httpResponse.getOutputStream().write(bytes);
-        httpResponse.getOutputStream().flush();
-        httpResponse.getOutputStream().close();
+        try (OutputStream out = httpResponse.getOutputStream()) {
+            workbook.write(out);
+            out.flush();
+        }
 
         return httpResponse;
     }
 
 
+    /**
+     * Removes the temporary files backing the flushed rows, called whether
+     * or not the extract succeeded.
+     */
+    private static void dispose(SXSSFWorkbook workbook) {
+        workbook.dispose();
+        try {
+            workbook.close();
+        } catch (IOException e) {
+            LOG.warn("Failed to close excel workbook", e);
+        }
+    }
+
+
     private Object writeAsCSV(String suggestedFilenameStem,
                               Select<?> qry,
-                              Response response) {
-        String csv = qry.fetch().formatCSV();
+                              Response response) throws IOException {
         response.type(MimeTypes.Type.TEXT_PLAIN.name());
         response.header("Content-disposition", "attachment; filename=" + suggestedFilenameStem + ".csv");
-        return csv;
-    }
 
+        HttpServletResponse httpResponse = response.raw();
+        int colCount = qry.fields().length;
+
+        try (CsvListWriter csvWriter = new CsvListWriter(
+                    new BufferedWriter(new OutputStreamWriter(httpResponse.getOutputStream(), StandardCharsets.UTF_8)),
+                    CsvPreference.EXCEL_PREFERENCE)) {
 
-    private static void writeExcelBody(Select<?> qry,
-                                       XSSFSheet sheet,
-                                       DSLContext dsl) {
-        AtomicInteger rowCounter = new AtomicInteger(1);
-        Result<?> records = dsl == null
-                ? qry.fetch()
-                : time("fetch", () -> dsl.fetch(dsl.renderInlined(qry)));
+            List<String> headers = new ArrayList<>(colCount);
+            qry.fieldStream().forEach(f -> headers.add(Objects.toString(f.getName())));
+            csvWriter.write(headers);
 
-        time("record chomper", () -> {
-            int colCount = qry.fields().length;
-            records.forEach(r -> {
-                int rowNum = rowCounter.getAndIncrement();
-                Row row = sheet.createRow(rowNum);
+            forEachRecord(dsl, qry, false, Unchecked.consumer(r -> {
+                List<String> values = new ArrayList<>(colCount);
                 for (int col = 0; col < colCount; col++) {
-                    Cell cell = row.createCell(col);
-                    Object val = r.get(col);
-                    if (val != null) {
-                        cell.setCellValue(val.toString());
-                    }
+                    values.add(Objects.toString(r.get(col), null));
+                }
+                csvWriter.write(values);
+            }));
+        }
+
+        return httpResponse;
+    }
+
+
+    private static void writeExcelBody(DSLContext dsl,
+                                       Select<?> qry,
+                                       Sheet sheet,
+                                       boolean inlineBindValues) {
+        int colCount = qry.fields().length;
+        AtomicInteger rowNum = new AtomicInteger(1);
+
+        forEachRecord(dsl, qry, inlineBindValues, r -> {
+            Row row = sheet.createRow(rowNum.getAndIncrement());
+            for (int col = 0; col < colCount; col++) {
+                Cell cell = row.createCell(col);
+                Object val = r.get(col);
+                if (val != null) {
+                    cell.setCellValue(val.toString());
+                }
+            }
+        });
+    }
+
+
+    /**
+     * Streams the query results, via a lazy cursor, to the consumer.
+     *
+     * The cursor is opened inside a transaction: with auto-commit enabled
+     * (the pool default) the PostgreSQL driver ignores the fetch size and
+     * reads the entire result set into memory.  The SQL Server driver
+     * streams results with its default (adaptive) response buffering
+     * regardless of auto-commit, see docs/integration/mssql.
+     *
+     * If <code>inlineBindValues</code> is set the query is rendered with
+     * inlined bind values first (avoiding driver limits on the number of
+     * bind parameters for large multi-sheet extracts).
+     */
+    private static void forEachRecord(DSLContext dsl,
+                                      Select<?> qry,
+                                      boolean inlineBindValues,
+                                      Consumer<Record> consumer) {
+        dsl.transaction(() -> {
+            ResultQuery<? extends Record> resultQuery = inlineBindValues
+                    ? dsl.resultQuery(dsl.renderInlined(qry))
+                    : qry;
+
+            try (Cursor<? extends Record> cursor = resultQuery.fetchSize(FETCH_SIZE).fetchLazy()) {
+                for (Record r : cursor) {
+                    consumer.accept(r);
                 }
-            });
+            }
         });
     }
 
 
-    private static void writeExcelHeader(Select<?> qry, XSSFSheet sheet) {
+    private static void writeExcelHeader(Select<?> qry, Sheet sheet) {
         Row headerRow = sheet.createRow(0);
         AtomicInteger colNum = new AtomicInteger();
         qry.fieldStream().forEach(f -> {
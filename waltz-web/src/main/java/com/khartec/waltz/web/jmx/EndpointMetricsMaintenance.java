@@ -0,0 +1,99 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package com.khartec.waltz.web.jmx;
+
+import com.khartec.waltz.model.endpoint_statistics.EndpointLatencySummary;
+import com.khartec.waltz.web.endpoints.EndpointMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Exposes the (static) <code>EndpointMetrics</code> via jmx.  Unlike the
+ * service level maintenance beans this is component scanned as the service
+ * configuration cannot see web classes.
+ */
+@Component
+@ManagedResource(description = "Per route request statistics for the Waltz api")
+public class EndpointMetricsMaintenance {
+
+    private static final Logger LOG = LoggerFactory.getLogger(EndpointMetricsMaintenance.class);
+
+
+    @ManagedOperation(description = "Request summaries (count, errors, total, p50, p99, max in ms, response bytes) of the routes with the highest total time")
+    public List<String> findTopRoutes(int limit) {
+        return EndpointMetrics
+                .findSummaries(limit)
+                .stream()
+                .map(EndpointMetricsMaintenance::format)
+                .collect(Collectors.toList());
+    }
+
+
+    @ManagedOperation(description = "Zero all route statistics")
+    public void reset() {
+        LOG.warn("Resetting endpoint metrics (via jmx)");
+        EndpointMetrics.reset();
+    }
+
+
+    @ManagedAttribute(description = "Number of registered routes")
+    public int getRouteCount() {
+        return EndpointMetrics.getRouteCount();
+    }
+
+
+    @ManagedAttribute(description = "Number of requests handled")
+    public long getRequestCount() {
+        return EndpointMetrics.getTotalRequestCount();
+    }
+
+
+    @ManagedAttribute(description = "Number of requests which failed (exception or 4xx/5xx status)")
+    public long getErrorCount() {
+        return EndpointMetrics.getTotalErrorCount();
+    }
+
+
+    @ManagedAttribute
+    public String getName() {
+        return "EndpointMetrics";
+    }
+
+
+    private static String format(EndpointLatencySummary summary) {
+        return String.format(
+                "count=%d, errors=%d, total=%.1f, p50=%.1f, p99=%.1f, max=%.1f, bytes=%d :: %s",
+                summary.count(),
+                summary.errorCount(),
+                summary.totalMillis(),
+                summary.p50Millis(),
+                summary.p99Millis(),
+                summary.maxMillis(),
+                summary.totalResponseBytes(),
+                summary.route());
+    }
+
+}
@@ -0,0 +1,112 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+package com.khartec.waltz.web;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.*;
+
+public class ThresholdGzipOutputStreamTest {
+
+    @Test
+    public void smallContentIsNotCompressed() throws IOException {
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+        AtomicInteger callbackCount = new AtomicInteger();
+
+        ThresholdGzipOutputStream out = new ThresholdGzipOutputStream(target, 10, 6, callbackCount::incrementAndGet);
+        out.write(bytes("hello"));
+        out.close();
+
+        assertFalse(out.isCompressing());
+        assertEquals(0, callbackCount.get());
+        assertEquals("hello", new String(target.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+
+    @Test
+    public void contentIsHeldBackUntilClosedOrThresholdReached() throws IOException {
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+
+        ThresholdGzipOutputStream out = new ThresholdGzipOutputStream(target, 10, 6, () -> {});
+        out.write(bytes("hello"));
+        out.flush();
+
+        assertEquals(0, target.size());
+    }
+
+
+    @Test
+    public void largeContentIsCompressed() throws IOException {
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+        AtomicInteger callbackCount = new AtomicInteger();
+
+        StringBuilder expected = new StringBuilder();
+        ThresholdGzipOutputStream out = new ThresholdGzipOutputStream(target, 10, 9, callbackCount::incrementAndGet);
+        for (int i = 0; i < 1000; i++) {
+            String chunk = "chunk-" + i + ",";
+            expected.append(chunk);
+            out.write(bytes(chunk));
+        }
+        out.close();
+
+        assertTrue(out.isCompressing());
+        assertEquals(1, callbackCount.get());
+        assertEquals(expected.toString(), gunzip(target.toByteArray()));
+        assertTrue(target.size() < expected.length());
+    }
+
+
+    @Test
+    public void closingTwiceIsHarmless() throws IOException {
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+        ThresholdGzipOutputStream out = new ThresholdGzipOutputStream(target, 10, 6, () -> {});
+        out.write(bytes("hi"));
+        out.close();
+        out.close();
+        assertEquals("hi", new String(target.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+
+    // -- helpers --
+
+    private static byte[] bytes(String str) {
+        return str.getBytes(StandardCharsets.UTF_8);
+    }
+
+
+    private static String gunzip(byte[] compressed) throws IOException {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            ByteArrayOutputStream result = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1024];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                result.write(buffer, 0, read);
+            }
+            return new String(result.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+}